@@ -1,6 +1,7 @@
 package assessments.gca.gca2.client;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import common.net.TlsSupport;
 
 import java.io.BufferedReader;
 import java.io.InputStreamReader;
@@ -33,7 +34,7 @@ public class TaskClient {
         ObjectMapper mapper = new ObjectMapper();
 
         try (
-            Socket         socket = new Socket(HOST, PORT);
+            Socket         socket = TlsSupport.fromSystemProperties().connect(HOST, PORT);
             BufferedReader in     = new BufferedReader(
                 new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
             PrintWriter    out    = new PrintWriter(
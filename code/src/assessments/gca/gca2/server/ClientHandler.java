@@ -1,7 +1,10 @@
 package assessments.gca.gca2.server;
 
 import assessments.gca.gca2.service.ClientDispatcher;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
 
 import java.io.BufferedReader;
 import java.io.IOException;
@@ -25,15 +28,23 @@ public class ClientHandler implements Runnable {
     // === Fields ===
     private Socket           _socket;
     private ClientDispatcher _dispatcher;
-    private ObjectMapper     _mapper;
+    private ObjectReader     _requestReader;
+    private ObjectWriter     _responseWriter;
 
     // === Constructors ===
 
     // Creates: a ClientHandler for the given socket, dispatcher, and JSON mapper
     public ClientHandler(Socket socket, ClientDispatcher dispatcher, ObjectMapper mapper) {
-        _socket     = socket;
-        _dispatcher = dispatcher;
-        _mapper     = mapper;
+        this(socket, dispatcher, mapper.readerFor(ClientRequest.class), mapper.writerFor(ServerResponse.class));
+    }
+
+    // Creates: a ClientHandler that reuses the server's pre-built request reader and response writer
+    public ClientHandler(Socket socket, ClientDispatcher dispatcher,
+                         ObjectReader requestReader, ObjectWriter responseWriter) {
+        _socket         = socket;
+        _dispatcher     = dispatcher;
+        _requestReader  = requestReader;
+        _responseWriter = responseWriter.without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
     }
 
     // === Public API ===
@@ -49,7 +60,7 @@ public class ClientHandler implements Runnable {
         ) {
             String line;
             while ((line = in.readLine()) != null) {
-                ClientRequest request = _mapper.readValue(line, ClientRequest.class);
+                ClientRequest request = _requestReader.readValue(line);
 
                 if ("DISCONNECT".equals(request.getRequestType())) {
                     System.out.println("ClientHandler: client disconnected cleanly");
@@ -57,7 +68,8 @@ public class ClientHandler implements Runnable {
                 }
 
                 ServerResponse<?> response = _dispatcher.dispatch(request);
-                out.println(_mapper.writeValueAsString(response));
+                _responseWriter.writeValue(out, response);     // straight into the writer, no intermediate String
+                out.println();
             }
         }
         catch (Exception e) {
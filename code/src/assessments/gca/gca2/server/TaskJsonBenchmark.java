@@ -0,0 +1,110 @@
+package assessments.gca.gca2.server;
+
+import assessments.gca.gca2.domain.Task;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import common.JsonMapperFactory;
+
+import java.util.*;
+
+/**
+ * Compares JSON throughput for one TaskServer round trip (read a ClientRequest line, write a ServerResponse line)
+ * and for an untyped t16 {type, payload} request line, with a default new ObjectMapper() and with the
+ * JsonMapperFactory profile and pre-built readers / writers.
+ * A plain main-method harness (best of RUNS after warm-up) stands in for JMH, which is not on the classpath.
+ *
+ * @author OOP Teaching Team
+ */
+public class TaskJsonBenchmark {
+
+    // === Constants ===
+    private static final int ITERATIONS = 200_000;
+    private static final int WARM_UPS   = 3;
+    private static final int RUNS       = 5;
+    private static final int LIST_SIZE  = 20;
+
+    private static final String REQUEST_LINE =
+        "{\"requestType\":\"INSERT\",\"payload\":{\"title\":\"Write unit tests\","
+      + "\"description\":\"Cover DAO, JSON, and socket layers\",\"completed\":false}}";
+
+    private static final String ASSET_LINE =
+        "{\"type\":\"RETRIEVE_STREAM\",\"payload\":{\"id\":42,\"offset\":65536,\"length\":-1,\"checksums\":true}}";
+
+    // === Entry point ===
+    // Runs: every case and prints operations per second for each mapper set-up; pass case numbers
+    //       (0-3) to run a subset — one case per JVM keeps the JIT profile of one from skewing the next
+    public static void main(String[] args) throws Exception {
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 1; i <= LIST_SIZE; i++)
+            tasks.add(new Task(i, "Task " + i, "Description of task " + i, i % 2 == 0));
+        ServerResponse<List<Task>> response = ServerResponse.ok("Retrieved " + tasks.size() + " task(s)", tasks);
+
+        ObjectMapper defaultMapper = new ObjectMapper();
+        ObjectMapper tunedMapper   = JsonMapperFactory.shared();
+
+        ObjectReader tunedReader = tunedMapper.readerFor(ClientRequest.class);
+        ObjectWriter tunedWriter = tunedMapper.writerFor(ServerResponse.class);
+        ObjectReader mapReader   = JsonMapperFactory.mapReader();
+
+        // every set-up must put the same JSON on the wire
+        if (!defaultMapper.readTree(defaultMapper.writeValueAsString(response))
+                .equals(defaultMapper.readTree(tunedWriter.writeValueAsString(response))))
+            throw new IllegalStateException("tuned mapper output differs from the default mapper");
+
+        Map<String, Case> cases = new LinkedHashMap<>();
+        cases.put("TaskServer round trip / default mapper", () -> {
+            ClientRequest request = defaultMapper.readValue(REQUEST_LINE, ClientRequest.class);
+            return request.getPayload().size() + defaultMapper.writeValueAsString(response).length();
+        });
+        cases.put("TaskServer round trip / tuned + pre-built", () -> {
+            ClientRequest request = tunedReader.readValue(REQUEST_LINE);
+            return request.getPayload().size() + tunedWriter.writeValueAsString(response).length();
+        });
+        cases.put("t16 request line / default mapper", () ->
+            defaultMapper.readValue(ASSET_LINE, Map.class).size());
+        cases.put("t16 request line / pre-built reader", () ->
+            mapReader.<Map<?,?>>readValue(ASSET_LINE).size());
+
+        System.out.printf("%-44s %14s%n", "Case", "ops/s");
+        int index = 0;
+        for (Map.Entry<String, Case> e : cases.entrySet()) {
+            if (args.length == 0 || Arrays.asList(args).contains(String.valueOf(index)))
+                System.out.printf("%-44s %,14.0f%n", e.getKey(), measure(e.getValue()));
+            index++;
+        }
+    }
+
+    // === Helpers ===
+
+    // Runs: WARM_UPS untimed and RUNS timed batches of ITERATIONS; returns the best operations per second
+    private static double measure(Case c) throws Exception {
+        long sink = 0;
+        for (int i = 0; i < WARM_UPS; i++)
+            sink += batch(c);
+
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < RUNS; i++) {
+            long start = System.nanoTime();
+            sink += batch(c);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        if (sink == 42)
+            System.out.println();    // keeps the results observable so the JIT cannot drop the work
+        return ITERATIONS / (best / 1e9);
+    }
+
+    // Runs: one batch of ITERATIONS operations
+    private static long batch(Case c) throws Exception {
+        long sum = 0;
+        for (int i = 0; i < ITERATIONS; i++)
+            sum += c.run();
+        return sum;
+    }
+
+    // Runs: one operation, returning something derived from its result
+    @FunctionalInterface
+    private interface Case {
+        int run() throws Exception;
+    }
+}
@@ -4,16 +4,27 @@ import assessments.gca.gca2.dao.TaskDAO;
 import assessments.gca.gca2.db.DatabaseConnection;
 import assessments.gca.gca2.service.ClientDispatcher;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import common.JsonMapperFactory;
+import common.concurrent.InstrumentedExecutor;
+import common.concurrent.ThreadPools;
+import common.net.TlsSupport;
 
 import java.net.ServerSocket;
 import java.net.Socket;
-import java.util.concurrent.ExecutorService;
+import java.time.Duration;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Multithreaded TCP server for the Task management system.
  * Accepts client connections on a fixed port and hands each off to a ClientHandler
- * thread via a fixed-size ExecutorService thread pool.
+ * thread via a fixed-size ExecutorService thread pool. Connections wait for a handler in a
+ * bounded lock-free ring; when BACKLOG of them are waiting, the accept loop waits too.
+ * The pool starts at THREADS and is resized between MIN_THREADS and MAX_THREADS from its measured
+ * utilisation and blocking ratio; its metrics are printed every REPORT_EVERY.
  *
  * Run this class before TaskClient.
  *
@@ -22,40 +33,58 @@ import java.util.concurrent.Executors;
 public class TaskServer {
 
     // === Constants ===
-    private static final String URL     = "jdbc:mysql://localhost:3306/gca2_support_db";
-    private static final String DB_USER = "root";
-    private static final String DB_PASS = "";
-    private static final int    PORT    = 9_300;
-    private static final int    THREADS = 10;
+    private static final String   URL          = "jdbc:mysql://localhost:3306/gca2_support_db";
+    private static final String   DB_USER      = "root";
+    private static final String   DB_PASS      = "";
+    private static final int      PORT         = 9_300;
+    private static final int      THREADS      = 10;
+    private static final int      MIN_THREADS  = 4;
+    private static final int      MAX_THREADS  = 64;
+    private static final int      BACKLOG      = 256;
+    private static final Duration SIZE_EVERY   = Duration.ofSeconds(5);
+    private static final Duration REPORT_EVERY = Duration.ofMinutes(1);
 
     // === Fields ===
     private int              _port;
     private ClientDispatcher _dispatcher;
-    private ObjectMapper     _mapper;
+    private ObjectReader     _requestReader;
+    private ObjectWriter     _responseWriter;
 
     // === Constructors ===
 
-    // Creates: a TaskServer bound to the given port using the given dispatcher
+    // Creates: a TaskServer bound to the given port using the given dispatcher;
+    //          the request reader and response writer are built once here and shared by every ClientHandler
     public TaskServer(int port, ClientDispatcher dispatcher, ObjectMapper mapper) {
-        _port       = port;
-        _dispatcher = dispatcher;
-        _mapper     = mapper;
+        _port           = port;
+        _dispatcher     = dispatcher;
+        _requestReader  = mapper.readerFor(ClientRequest.class);
+        _responseWriter = mapper.writerFor(ServerResponse.class);
     }
 
     // === Public API ===
 
     // Starts: the accept loop; submits each new connection to the thread pool until interrupted
     public void start() throws Exception {
-        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
-        try (ServerSocket serverSocket = new ServerSocket(_port)) {
+        InstrumentedExecutor     pool    = new InstrumentedExecutor("clients",
+                                                                    ThreadPools.newFixedThreadPool(THREADS, BACKLOG));
+        ScheduledExecutorService monitor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "pool-monitor");
+            t.setDaemon(true);
+            return t;
+        });
+        pool.autoSize(monitor, MIN_THREADS, MAX_THREADS, SIZE_EVERY);
+        monitor.scheduleAtFixedRate(() -> System.out.println(pool.getMetrics()), REPORT_EVERY.toSeconds(),
+                                    REPORT_EVERY.toSeconds(), TimeUnit.SECONDS);
+        try (ServerSocket serverSocket = TlsSupport.fromSystemProperties().openServerSocket(_port)) {
             System.out.println("TaskServer listening on port " + _port + " ...");
             while (!Thread.currentThread().isInterrupted()) {
-                Socket clientSocket = serverSocket.accept();
-                pool.submit(new ClientHandler(clientSocket, _dispatcher, _mapper));
+                Socket clientSocket = TlsSupport.accept(serverSocket);
+                pool.submit(new ClientHandler(clientSocket, _dispatcher, _requestReader, _responseWriter));
             }
         }
         finally {
             pool.shutdown();
+            monitor.shutdown();
         }
     }
 
@@ -66,7 +95,7 @@ public class TaskServer {
         DatabaseConnection dbConn     = new DatabaseConnection(URL, DB_USER, DB_PASS);
         TaskDAO            taskDAO    = new TaskDAO(dbConn);
         ClientDispatcher   dispatcher = new ClientDispatcher(taskDAO);
-        ObjectMapper       mapper     = new ObjectMapper();
+        ObjectMapper       mapper     = JsonMapperFactory.shared();
         new TaskServer(PORT, dispatcher, mapper).start();
     }
 }
@@ -0,0 +1,59 @@
+package common;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.StreamReadConstraints;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+
+import java.util.Map;
+
+/**
+ * Builds the ObjectMappers used by the socket servers.
+ * One mapper per process is enough: ObjectMapper is thread-safe once configured and caches the
+ * (de)serializers it builds, so creating one per connection or per request throws that work away.
+ * Servers should go further and hold pre-built ObjectReader / ObjectWriter instances, which skip the
+ * per-call type and configuration lookup.
+ */
+public final class JsonMapperFactory {
+
+    // === Constants ===
+    private static final int MAX_STRING_LENGTH = 64 * 1024 * 1024;    // Base64 asset payloads exceed Jackson's 20M default
+
+    private static final ObjectMapper SHARED     = create();
+    private static final ObjectReader MAP_READER = SHARED.readerFor(Map.class);
+    private static final ObjectWriter WRITER     = SHARED.writer();
+
+    // === Constructors ===
+    private JsonMapperFactory() { }
+
+    // === Public API ===
+    // Creates: a mapper tuned for line-delimited request/response traffic
+    public static ObjectMapper create() {
+        JsonFactory factory = JsonFactory.builder()
+            .streamReadConstraints(StreamReadConstraints.builder().maxStringLength(MAX_STRING_LENGTH).build())
+            .build();
+
+        return JsonMapper.builder(factory)
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)    // newer clients may send extra fields
+            .disable(SerializationFeature.FAIL_ON_EMPTY_BEANS)
+            .disable(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)         // callers flush once per response
+            .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)              // never close a socket stream after a write
+            .disable(JsonParser.Feature.AUTO_CLOSE_SOURCE)
+            .build();
+    }
+
+    // Gets: the process-wide mapper
+    public static ObjectMapper shared() { return SHARED; }
+
+    // Gets: a pre-built reader for untyped JSON objects (the t16 {type, payload} requests)
+    public static ObjectReader mapReader() { return MAP_READER; }
+
+    // Gets: a pre-built writer for any value
+    public static ObjectWriter writer() { return WRITER; }
+}
@@ -0,0 +1,136 @@
+package common;
+
+import java.util.Arrays;
+
+/**
+ * A fixed-size, log-linear histogram of latencies in nanoseconds.
+ * Every power-of-two range is split into 16 linear buckets, so any recorded value is reported within about 6%
+ * whatever its magnitude, and recording is a shift and an array increment — cheap enough for a hot loop.
+ * Not thread-safe: give each thread its own histogram and merge() them afterwards.
+ */
+public class LatencyHistogram {
+
+    // === Constants ===
+    private static final int DIRECT_BUCKETS = 32;      // values below this get a bucket each
+    private static final int SUB_BUCKETS    = 16;      // linear buckets per power of two above that
+    private static final int BUCKETS        = DIRECT_BUCKETS + 58 * SUB_BUCKETS;
+
+    // === Fields ===
+    private long[] _counts = new long[BUCKETS];
+    private long   _count;
+    private long   _sum;
+    private long   _min    = Long.MAX_VALUE;
+    private long   _max;
+
+    // === Public API ===
+    // Records: one latency; negative values count as 0
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        _counts[indexOf(value)]++;
+        _count++;
+        _sum += value;
+        _min  = Math.min(_min, value);
+        _max  = Math.max(_max, value);
+    }
+
+    // Adds: every value recorded by another histogram to this one
+    public void merge(LatencyHistogram other) {
+        for (int i = 0; i < BUCKETS; i++)
+            _counts[i] += other._counts[i];
+        _count += other._count;
+        _sum   += other._sum;
+        _min    = Math.min(_min, other._min);
+        _max    = Math.max(_max, other._max);
+    }
+
+    // Clears: every recorded value (e.g. after a warm-up)
+    public void reset() {
+        Arrays.fill(_counts, 0);
+        _count = 0;
+        _sum   = 0;
+        _min   = Long.MAX_VALUE;
+        _max   = 0;
+    }
+
+    public long getCount()    { return _count; }
+    public long getMinNanos() { return (_count == 0) ? 0 : _min; }
+    public long getMaxNanos() { return _max; }
+
+    // Gets: the mean latency in nanoseconds (exact, not bucketed)
+    public double getMeanNanos() {
+        return (_count == 0) ? Double.NaN : (double) _sum / _count;
+    }
+
+    // Gets: the latency at the given percentile (0-100) in nanoseconds — the upper edge of the bucket it falls in
+    public long percentileNanos(double p) {
+        if (p < 0 || p > 100)
+            throw new IllegalArgumentException("p must be 0-100");
+        if (_count == 0)
+            return 0;
+
+        long rank = Math.max(1, (long) Math.ceil(p / 100 * _count));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += _counts[i];
+            if (seen >= rank)
+                return Math.min(upperBound(i), _max);
+        }
+        return _max;
+    }
+
+    // Formats: the distribution as one text bar per power-of-two range of microseconds
+    public String toHistogramString() {
+        StringBuilder sb = new StringBuilder();
+        long[] ranges = new long[64];
+        int    last   = 0;
+        long   most   = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            if (_counts[i] == 0)
+                continue;
+            int range = 64 - Long.numberOfLeadingZeros(upperBound(i) / 1_000);    // 0 = under 1 us
+            ranges[range] += _counts[i];
+            last = Math.max(last, range);
+            most = Math.max(most, ranges[range]);
+        }
+        if (most == 0)
+            return "(no samples)";
+
+        int first = 0;
+        while (ranges[first] == 0)
+            first++;
+        for (int r = first; r <= last; r++) {
+            long   upTo = 1L << r;
+            String bar  = "#".repeat((int) Math.ceil(50.0 * ranges[r] / most));
+            sb.append(String.format("%12s us %,12d %6.2f%% %s%n", "< " + String.format("%,d", upTo),
+                ranges[r], 100.0 * ranges[r] / _count, ranges[r] == 0 ? "" : bar));
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("n=%,d min %,.0f us  mean %,.0f us  p50 %,.0f us  p90 %,.0f us  p99 %,.0f us  "
+                           + "p99.9 %,.0f us  max %,.0f us",
+            _count, getMinNanos() / 1e3, getMeanNanos() / 1e3, percentileNanos(50) / 1e3, percentileNanos(90) / 1e3,
+            percentileNanos(99) / 1e3, percentileNanos(99.9) / 1e3, _max / 1e3);
+    }
+
+    // === Helpers ===
+    // Gets: the bucket a value falls in
+    private static int indexOf(long value) {
+        if (value < DIRECT_BUCKETS)
+            return (int) value;
+        int shift = 63 - Long.numberOfLeadingZeros(value) - 4;          // keeps the top 5 bits: 16..31
+        return DIRECT_BUCKETS + (shift - 1) * SUB_BUCKETS + (int) ((value >>> shift) - SUB_BUCKETS);
+    }
+
+    // Gets: the largest value that falls in a bucket
+    private static long upperBound(int index) {
+        if (index < DIRECT_BUCKETS)
+            return index;
+        int  k     = index - DIRECT_BUCKETS;
+        int  shift = k / SUB_BUCKETS + 1;
+        long sub   = k % SUB_BUCKETS + SUB_BUCKETS;
+        return ((sub + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,85 @@
+package common.concurrent;
+
+import java.util.Collection;
+import java.util.concurrent.*;
+import java.util.function.Function;
+
+/**
+ * CompletableFuture helpers for blocking tasks run on an executor.
+ * CompletableFuture.cancel() and orTimeout() only complete the future — the task keeps running and holds its
+ * pool thread. Futures from supply() are wired to the task underneath, so cancelling one, or timing it out,
+ * interrupts a task that is still running and frees the thread for the next job.
+ */
+public final class AsyncTasks {
+
+    // === Constructors ===
+    private AsyncTasks() { }
+
+    // === Public API ===
+    // Runs: a task on the executor; completing the returned future early (cancel, timeout, or complete())
+    //       interrupts the task if it has not finished
+    public static <T> CompletableFuture<T> supply(Callable<T> task, Executor executor) {
+        if (task == null || executor == null)
+            throw new IllegalArgumentException("task and executor are required");
+
+        CompletableFuture<T> future = new CompletableFuture<>();
+        FutureTask<T> runner = new FutureTask<>(task) {
+            @Override
+            protected void done() {
+                if (isCancelled())
+                    return;                                // the future completed first
+                try {
+                    future.complete(get());
+                }
+                catch (ExecutionException e) {
+                    future.completeExceptionally(e.getCause());
+                }
+                catch (InterruptedException | CancellationException e) {
+                    future.completeExceptionally(e);       // unreachable: done() runs after completion
+                }
+            }
+        };
+        future.whenComplete((value, error) -> {
+            if (!runner.isDone())
+                runner.cancel(true);                       // straggler: interrupt it
+        });
+
+        try {
+            executor.execute(runner);
+        }
+        catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    // Limits: a future to the given time; returns a future that completes with its value, or with
+    //         fallback(cause) if it fails or times out (cause is a TimeoutException then) — the original future
+    //         is completed exceptionally on timeout, which interrupts its task when it came from supply()
+    public static <T> CompletableFuture<T> withTimeout(CompletableFuture<T> future, long timeout, TimeUnit unit,
+                                                       Function<Throwable, ? extends T> fallback) {
+        if (future == null || unit == null || fallback == null)
+            throw new IllegalArgumentException("future, unit and fallback are required");
+        if (timeout <= 0)
+            throw new IllegalArgumentException("timeout must be > 0");
+
+        return future.orTimeout(timeout, unit)
+                     .handle((value, error) -> (error == null) ? value : fallback.apply(unwrap(error)));
+    }
+
+    // Cancels: every future that has not completed; returns how many were cancelled
+    public static int cancelAll(Collection<? extends Future<?>> futures) {
+        int cancelled = 0;
+        for (Future<?> f : futures)
+            if (f.cancel(true))
+                cancelled++;
+        return cancelled;
+    }
+
+    // Strips: the CompletionException wrapper dependent stages add around a failure
+    public static Throwable unwrap(Throwable error) {
+        while (error instanceof CompletionException && error.getCause() != null)
+            error = error.getCause();
+        return error;
+    }
+}
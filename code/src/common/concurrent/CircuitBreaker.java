@@ -0,0 +1,76 @@
+package common.concurrent;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Stops calls to a failing dependency so it can recover, instead of piling retries onto it.
+ * CLOSED: calls pass; `threshold` failures in a row trip it OPEN. OPEN: calls are refused until openFor has
+ * passed, then one trial call is let through (HALF_OPEN). The trial's success closes the breaker and its failure
+ * reopens it; a trial that never reports back is replaced by another after openFor.
+ * Lock-free: allow() on a closed breaker is a single volatile read.
+ */
+public final class CircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    // === Fields ===
+    private int                    _threshold;
+    private long                   _openNanos;
+    private AtomicReference<State> _state    = new AtomicReference<>(State.CLOSED);
+    private AtomicInteger          _failures = new AtomicInteger();     // consecutive, while CLOSED
+    private volatile long          _since;                               // when it opened, or the trial started
+
+    // === Constructors ===
+    public CircuitBreaker(int threshold, Duration openFor) {
+        if (threshold < 1)
+            throw new IllegalArgumentException("threshold must be >= 1");
+        if (openFor == null || openFor.isNegative() || openFor.isZero())
+            throw new IllegalArgumentException("openFor must be > 0");
+        _threshold = threshold;
+        _openNanos = openFor.toNanos();
+    }
+
+    // === Public API ===
+    // Asks: whether a call may go ahead now
+    public boolean allow() {
+        State state = _state.get();
+        if (state == State.CLOSED)
+            return true;
+
+        long now = System.nanoTime();
+        if (now - _since < _openNanos)
+            return false;
+        if (state == State.OPEN) {
+            if (!_state.compareAndSet(State.OPEN, State.HALF_OPEN))
+                return false;                              // another caller got the trial
+            _since = now;
+            return true;
+        }
+        _since = now;                                      // HALF_OPEN and the trial went quiet: try again
+        return true;
+    }
+
+    // Reports: a call that succeeded
+    public void onSuccess() {
+        _failures.set(0);
+        if (_state.get() != State.CLOSED)
+            _state.set(State.CLOSED);
+    }
+
+    // Reports: a call that failed
+    public void onFailure() {
+        if (_state.get() == State.HALF_OPEN || _failures.incrementAndGet() >= _threshold)
+            trip();
+    }
+
+    public State getState() { return _state.get(); }
+
+    // === Helpers ===
+    private void trip() {
+        _since = System.nanoTime();
+        _failures.set(0);
+        _state.set(State.OPEN);
+    }
+}
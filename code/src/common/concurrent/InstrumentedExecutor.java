@@ -0,0 +1,402 @@
+package common.concurrent;
+
+import common.LatencyHistogram;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * An ExecutorService over a ThreadPoolExecutor that measures the pool, so its size can come from data instead of
+ * a guess. Per task it records the queue wait (submitted to started), the run time and, where the JVM can read
+ * thread CPU time, the CPU time — from which it derives the blocking ratio, the share of run time a task spends
+ * waiting on I/O or locks rather than computing (waiting for a CPU counts too, when the pool outnumbers them).
+ * It also counts how often the pool was saturated — its queue was full, so a submitter to a ThreadPools pool had
+ * to wait for room (and for how long in total), or another pool's rejection handler ran — and how many submissions
+ * were rejected outright.
+ * getMetrics() returns a snapshot to poll or print. autoSize() also resizes the pool each period, within bounds:
+ * a busy pool, or one with a backlog, grows toward ncpu * (1 + wait/compute) threads — about the most that still
+ * keeps the CPUs busy given how much each task blocks — and a mostly idle pool shrinks.
+ */
+public class InstrumentedExecutor extends AbstractExecutorService {
+
+    // === Constants ===
+    private static final int    CPUS                = Runtime.getRuntime().availableProcessors();
+    private static final double GROW_ABOVE          = 0.85;     // utilization that counts as busy
+    private static final double SHRINK_BELOW        = 0.50;     // utilization that counts as mostly idle
+    private static final double SHRINK_TO           = 0.70;     // utilization a shrunk pool should run at
+    private static final double MAX_WAIT_TO_COMPUTE = 100;      // caps the size a nearly all-waiting task asks for
+
+    // === Fields ===
+    private String             _name;
+    private ThreadPoolExecutor _pool;
+    private ThreadMXBean       _threads      = ManagementFactory.getThreadMXBean();
+    private boolean            _cpuTimed;
+    private long               _createdNanos = System.nanoTime();
+
+    private LongAdder          _submitted    = new LongAdder();
+    private LongAdder          _completed    = new LongAdder();
+    private LongAdder          _failed       = new LongAdder();
+    private LongAdder          _saturated    = new LongAdder();
+    private LongAdder          _rejected     = new LongAdder();
+    private LongAdder          _busyNanos    = new LongAdder();    // run time of every task
+    private LongAdder          _cpuNanos     = new LongAdder();    // CPU time of the tasks whose CPU time was read
+    private LongAdder          _cpuRunNanos  = new LongAdder();    // ... and their run time
+    private LatencyHistogram   _wait         = new LatencyHistogram();     // guarded by itself
+    private LatencyHistogram   _run          = new LatencyHistogram();     // guarded by itself
+    private long               _sizeNanos;                         // size x time up to _sizedAt; guarded by this
+    private long               _sizedAt      = _createdNanos;      // guarded by this
+
+    // saturation of a ThreadPools pool, counted by the pool itself; the bases are its counts when it was wrapped
+    private ThreadPools.BackpressurePool _backpressure;
+    private long                         _saturatedBase;
+    private long                         _blockedBase;
+
+    // auto-sizing; the window fields are only touched by the sizing task
+    private volatile ScheduledFuture<?> _sizer;
+    private int                         _minThreads;
+    private int                         _maxThreads;
+    private AtomicInteger               _resizes    = new AtomicInteger();
+    private volatile String             _lastResize;
+    private long                        _lastTick;
+    private long                        _lastBusy;
+    private long                        _lastCpu;
+    private long                        _lastCpuRun;
+    private double                      _lastBlocking;
+
+    // === Constructors ===
+    // Creates: an instrumented view of pool; submit through this object, not the pool, or tasks go unmeasured
+    public InstrumentedExecutor(String name, ThreadPoolExecutor pool) {
+        if (name == null || pool == null)
+            throw new IllegalArgumentException("name and pool are required");
+
+        _name     = name;
+        _pool     = pool;
+        _cpuTimed = _threads.isCurrentThreadCpuTimeSupported() && _threads.isThreadCpuTimeEnabled();
+
+        // a ThreadPools pool blocks submitters on a full queue rather than calling its handler, so it counts them
+        if (pool instanceof ThreadPools.BackpressurePool) {
+            _backpressure  = (ThreadPools.BackpressurePool) pool;
+            _saturatedBase = _backpressure.getSaturated();
+            _blockedBase   = _backpressure.getBlockedNanos();
+        }
+
+        RejectedExecutionHandler handler = pool.getRejectedExecutionHandler();
+        pool.setRejectedExecutionHandler((task, executor) -> {
+            if (!executor.isShutdown())
+                _saturated.increment();
+            handler.rejectedExecution(task, executor);
+        });
+    }
+
+    // === Public API ===
+    @Override
+    public void execute(Runnable task) {
+        if (task == null)
+            throw new IllegalArgumentException("task is required");
+        _submitted.increment();
+        try {
+            _pool.execute(new Timed(task));
+        }
+        catch (RejectedExecutionException e) {
+            _rejected.increment();
+            throw e;
+        }
+    }
+
+    // Starts: resizing the pool every period between minThreads and maxThreads, on the caller's scheduler (it
+    //         only runs the short sizing step); the current size is brought within the bounds straight away
+    public void autoSize(ScheduledExecutorService scheduler, int minThreads, int maxThreads, Duration period) {
+        if (scheduler == null || period == null || period.isNegative() || period.isZero())
+            throw new IllegalArgumentException("scheduler and a positive period are required");
+        if (minThreads < 1 || maxThreads < minThreads)
+            throw new IllegalArgumentException("need 1 <= minThreads <= maxThreads");
+
+        synchronized (this) {
+            if (_sizer != null)
+                throw new IllegalStateException(_name + " is already auto-sized");
+            _minThreads = minThreads;
+            _maxThreads = maxThreads;
+            _lastTick   = System.nanoTime();
+            _lastBusy   = _busyNanos.sum();
+            _lastCpu    = _cpuNanos.sum();
+            _lastCpuRun = _cpuRunNanos.sum();
+            setSize(Math.max(minThreads, Math.min(maxThreads, _pool.getCorePoolSize())));
+            _sizer = scheduler.scheduleAtFixedRate(this::resize, period.toNanos(), period.toNanos(),
+                                                   TimeUnit.NANOSECONDS);
+        }
+    }
+
+    // Gets: a snapshot of the pool and of everything measured since it was wrapped
+    public PoolMetrics getMetrics() {
+        double meanWait, meanRun;
+        long   p99Wait, maxWait, p99Run;
+        synchronized (_wait) {
+            meanWait = (_wait.getCount() == 0) ? 0 : _wait.getMeanNanos();
+            p99Wait  = _wait.percentileNanos(99);
+            maxWait  = _wait.getMaxNanos();
+        }
+        synchronized (_run) {
+            meanRun = (_run.getCount() == 0) ? 0 : _run.getMeanNanos();
+            p99Run  = _run.percentileNanos(99);
+        }
+
+        long saturated = _saturated.sum();
+        long blocked   = 0;
+        if (_backpressure != null) {
+            saturated += _backpressure.getSaturated() - _saturatedBase;
+            blocked    = _backpressure.getBlockedNanos() - _blockedBase;
+        }
+
+        double threadNanos = threadNanos();
+        double utilization = (threadNanos == 0) ? 0 : Math.min(1, _busyNanos.sum() / threadNanos);
+        return new PoolMetrics(_name, _pool.getCorePoolSize(), _pool.getActiveCount(), _pool.getLargestPoolSize(),
+            _pool.getQueue().size(), _submitted.sum(), _completed.sum(), _failed.sum(), saturated, blocked,
+            _rejected.sum(), meanWait, p99Wait, maxWait, meanRun, p99Run, utilization,
+            blockingRatio(_cpuNanos.sum(), _cpuRunNanos.sum(), -1), _resizes.get(), _lastResize);
+    }
+
+    // Gets: the pool underneath, for its own getters; submitting to it directly bypasses the measurements
+    public ThreadPoolExecutor getPool() { return _pool; }
+
+    @Override
+    public void shutdown() {
+        stopSizing();
+        _pool.shutdown();
+    }
+
+    // Stops: the pool; returns the tasks that never started, as they were submitted
+    @Override
+    public List<Runnable> shutdownNow() {
+        stopSizing();
+        List<Runnable> waiting = new ArrayList<>();
+        for (Runnable r : _pool.shutdownNow())
+            waiting.add((r instanceof InstrumentedExecutor.Timed) ? ((Timed) r)._task : r);
+        return waiting;
+    }
+
+    @Override
+    public boolean isShutdown() { return _pool.isShutdown(); }
+
+    @Override
+    public boolean isTerminated() { return _pool.isTerminated(); }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return _pool.awaitTermination(timeout, unit);
+    }
+
+    @Override
+    public String toString() {
+        return getMetrics().toString();
+    }
+
+    // === Helpers ===
+    // Gets: the share of run time not spent on the CPU, or `otherwise` if no CPU time has been read
+    private static double blockingRatio(long cpuNanos, long runNanos, double otherwise) {
+        if (runNanos <= 0)
+            return otherwise;
+        return Math.max(0, Math.min(1, 1 - (double) cpuNanos / runNanos));
+    }
+
+    // Sizes: the pool from the last period — see the class comment; utilization counts tasks that finished in
+    //        the period, or the threads busy right now if that is higher (a long task only reports when it ends)
+    private void resize() {
+        try {
+            long now    = System.nanoTime();
+            long busy   = _busyNanos.sum();
+            long cpu    = _cpuNanos.sum();
+            long cpuRun = _cpuRunNanos.sum();
+            int  size   = _pool.getCorePoolSize();
+
+            double utilization = Math.min(1, Math.max((busy - _lastBusy) / ((double) (now - _lastTick) * size),
+                                                      (double) _pool.getActiveCount() / size));
+            double blocking    = blockingRatio(cpu - _lastCpu, cpuRun - _lastCpuRun, _lastBlocking);
+            _lastTick     = now;
+            _lastBusy     = busy;
+            _lastCpu      = cpu;
+            _lastCpuRun   = cpuRun;
+            _lastBlocking = blocking;
+
+            int    backlog    = _pool.getQueue().size();
+            double waitRatio  = (blocking >= 1) ? MAX_WAIT_TO_COMPUTE
+                                                : Math.min(MAX_WAIT_TO_COMPUTE, blocking / (1 - blocking));
+            int    worthwhile = (int) Math.ceil(CPUS * (1 + waitRatio));
+            int    step       = Math.max(1, size / 4);
+            int    target     = size;
+            if (utilization > GROW_ABOVE || backlog > 0)
+                target = (size < worthwhile) ? Math.min(worthwhile, size + step) : Math.max(worthwhile, size - step);
+            else if (utilization < SHRINK_BELOW)
+                target = Math.max((int) Math.ceil(utilization * size / SHRINK_TO), size - step);
+            target = Math.max(_minThreads, Math.min(_maxThreads, target));
+
+            if (target != size) {
+                setSize(target);
+                _resizes.incrementAndGet();
+                _lastResize = String.format("%d \u2192 %d threads (utilization %.0f%%, blocking %.0f%%, backlog %d)",
+                    size, target, utilization * 100, blocking * 100, backlog);
+            }
+        }
+        catch (RuntimeException e) {
+            // keep sizing: an exception would cancel the periodic task for good
+        }
+    }
+
+    // Sets: the pool to exactly n threads; extra threads leave once idle, new ones start for queued work
+    private synchronized void setSize(int n) {
+        long now = System.nanoTime();
+        _sizeNanos += (now - _sizedAt) * _pool.getCorePoolSize();
+        _sizedAt    = now;
+        if (n > _pool.getMaximumPoolSize()) {
+            _pool.setMaximumPoolSize(n);
+            _pool.setCorePoolSize(n);
+        }
+        else {
+            _pool.setCorePoolSize(n);
+            _pool.setMaximumPoolSize(n);
+        }
+    }
+
+    // Gets: the thread time the pool has offered since it was wrapped — its size integrated over time
+    private synchronized double threadNanos() {
+        return _sizeNanos + (double) (System.nanoTime() - _sizedAt) * _pool.getCorePoolSize();
+    }
+
+    private void stopSizing() {
+        ScheduledFuture<?> sizer = _sizer;
+        if (sizer != null)
+            sizer.cancel(false);
+    }
+
+    private long cpuTime() {
+        return _cpuTimed ? _threads.getCurrentThreadCpuTime() : -1;     // -1 on virtual threads too
+    }
+
+    // Runs: a submitted task and records how long it waited and ran
+    private final class Timed implements Runnable {
+
+        private Runnable _task;
+        private long     _submittedAt = System.nanoTime();
+
+        private Timed(Runnable task) {
+            _task = task;
+        }
+
+        @Override
+        public void run() {
+            long start    = System.nanoTime();
+            long cpuStart = cpuTime();
+            try {
+                _task.run();
+                _completed.increment();
+            }
+            catch (RuntimeException | Error e) {
+                _failed.increment();            // only execute()d tasks: submit() keeps failures in the Future
+                throw e;
+            }
+            finally {
+                long ran    = System.nanoTime() - start;
+                long cpuEnd = (cpuStart < 0) ? -1 : cpuTime();
+                _busyNanos.add(ran);
+                if (cpuEnd >= 0) {
+                    _cpuNanos.add(cpuEnd - cpuStart);
+                    _cpuRunNanos.add(ran);
+                }
+                synchronized (_wait) {
+                    _wait.record(start - _submittedAt);
+                }
+                synchronized (_run) {
+                    _run.record(ran);
+                }
+            }
+        }
+    }
+
+    // Holds: a point-in-time view of one pool; utilization and blocking ratio are averages since it was wrapped
+    public static class PoolMetrics {
+
+        private String _name;
+        private int    _poolSize;
+        private int    _active;
+        private int    _largest;
+        private int    _queued;
+        private long   _submitted;
+        private long   _completed;
+        private long   _failed;
+        private long   _saturated;
+        private long   _blockedNanos;
+        private long   _rejected;
+        private double _meanWaitNanos;
+        private long   _p99WaitNanos;
+        private long   _maxWaitNanos;
+        private double _meanRunNanos;
+        private long   _p99RunNanos;
+        private double _utilization;
+        private double _blockingRatio;
+        private int    _resizes;
+        private String _lastResize;
+
+        private PoolMetrics(String name, int poolSize, int active, int largest, int queued, long submitted,
+                            long completed, long failed, long saturated, long blockedNanos, long rejected,
+                            double meanWaitNanos, long p99WaitNanos, long maxWaitNanos, double meanRunNanos,
+                            long p99RunNanos, double utilization, double blockingRatio, int resizes, String lastResize) {
+            _name          = name;
+            _poolSize      = poolSize;
+            _active        = active;
+            _largest       = largest;
+            _queued        = queued;
+            _submitted     = submitted;
+            _completed     = completed;
+            _failed        = failed;
+            _saturated     = saturated;
+            _blockedNanos  = blockedNanos;
+            _rejected      = rejected;
+            _meanWaitNanos = meanWaitNanos;
+            _p99WaitNanos  = p99WaitNanos;
+            _maxWaitNanos  = maxWaitNanos;
+            _meanRunNanos  = meanRunNanos;
+            _p99RunNanos   = p99RunNanos;
+            _utilization   = utilization;
+            _blockingRatio = blockingRatio;
+            _resizes       = resizes;
+            _lastResize    = lastResize;
+        }
+
+        public String getName()          { return _name; }
+        public int    getPoolSize()      { return _poolSize; }           // target size (core threads)
+        public int    getActive()        { return _active; }             // threads running a task now
+        public int    getLargest()       { return _largest; }            // most threads the pool ever had
+        public int    getQueued()        { return _queued; }
+        public long   getSubmitted()     { return _submitted; }
+        public long   getCompleted()     { return _completed; }
+        public long   getFailed()        { return _failed; }
+        public long   getSaturated()     { return _saturated; }          // times the queue was full
+        public long   getBlockedNanos()  { return _blockedNanos; }       // time submitters waited for room in it
+        public long   getRejected()      { return _rejected; }
+        public double getMeanWaitNanos() { return _meanWaitNanos; }
+        public long   getP99WaitNanos()  { return _p99WaitNanos; }
+        public long   getMaxWaitNanos()  { return _maxWaitNanos; }
+        public double getMeanRunNanos()  { return _meanRunNanos; }
+        public long   getP99RunNanos()   { return _p99RunNanos; }
+        public double getUtilization()   { return _utilization; }        // busy share of the threads' time
+        public double getBlockingRatio() { return _blockingRatio; }      // -1 if CPU time could not be read
+        public int    getResizes()       { return _resizes; }
+        public String getLastResize()    { return _lastResize; }
+
+        @Override
+        public String toString() {
+            return String.format("%s: %d threads (%d active, %d largest), %d queued | submitted %,d, completed %,d, "
+                    + "failed %,d, saturated %,d (blocked %.1fms), rejected %,d | wait mean %.1fms p99 %.1fms "
+                    + "max %.1fms | run mean %.1fms p99 %.1fms | utilization %.0f%%, blocking %s%s",
+                _name, _poolSize, _active, _largest, _queued, _submitted, _completed, _failed, _saturated,
+                _blockedNanos / 1e6, _rejected, _meanWaitNanos / 1e6, _p99WaitNanos / 1e6, _maxWaitNanos / 1e6,
+                _meanRunNanos / 1e6, _p99RunNanos / 1e6, _utilization * 100,
+                (_blockingRatio < 0) ? "n/a" : String.format("%.0f%%", _blockingRatio * 100),
+                (_lastResize == null) ? "" : " | " + _resizes + " resize(s), last " + _lastResize);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package common.concurrent;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InstrumentedExecutorTest {
+
+    private static final long WAIT_MS = 5_000;
+
+    @Test
+    void getMetrics_SubmitterWaitedForRoom_CountsSaturationAndBlockedTime() throws Exception {
+
+        //ACTIVATE
+        InstrumentedExecutor pool    = new InstrumentedExecutor("test", ThreadPools.newFixedThreadPool(1, 2));
+        CountDownLatch       release = new CountDownLatch(1);
+        pool.execute(() -> await(release));                 // occupies the only worker
+        pool.execute(() -> { });
+        pool.execute(() -> { });                            // the ring (capacity 2) is now full
+
+        //ACT
+        Thread submitter = Thread.ofPlatform().start(() -> pool.execute(() -> { }));
+        submitter.join(100);
+        release.countDown();
+        submitter.join(WAIT_MS);
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(WAIT_MS, TimeUnit.MILLISECONDS));
+        InstrumentedExecutor.PoolMetrics metrics = pool.getMetrics();
+
+        //ASSERT
+        assertEquals(1, metrics.getSaturated());
+        assertTrue(metrics.getBlockedNanos() >= TimeUnit.MILLISECONDS.toNanos(50));
+        assertEquals(0, metrics.getRejected());
+        assertEquals(4, metrics.getCompleted());
+    }
+
+    @Test
+    void getMetrics_RejectedAfterShutdown_NotCountedAsSaturation() {
+
+        //ACTIVATE
+        InstrumentedExecutor pool = new InstrumentedExecutor("test", ThreadPools.newFixedThreadPool(1, 2));
+        pool.shutdown();
+
+        //ACT
+        assertThrows(RejectedExecutionException.class, () -> pool.execute(() -> { }));
+        InstrumentedExecutor.PoolMetrics metrics = pool.getMetrics();
+
+        //ASSERT
+        assertEquals(0, metrics.getSaturated());
+        assertEquals(1, metrics.getRejected());
+    }
+
+    // Waits: for the latch, giving up quietly if interrupted
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
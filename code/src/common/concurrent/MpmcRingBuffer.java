@@ -0,0 +1,412 @@
+package common.concurrent;
+
+import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * A bounded multi-producer, multi-consumer BlockingQueue on a ring of slots (D. Vyukov's design), for executor
+ * hand-offs. Unlike LinkedBlockingQueue it allocates no node per element, and unlike ArrayBlockingQueue producers
+ * and consumers take no lock: each claims a position with one CAS on the tail or head counter, and every slot
+ * carries a sequence number saying whether it is free for the producer of its position or filled for the
+ * consumer. The two counters sit on cache lines of their own, so producers and consumers do not invalidate each
+ * other's line on every operation.
+ * A thread that has to wait (put on a full queue, take on an empty one) follows the WaitStrategy: spin briefly,
+ * then yield, then park on a condition. The lock behind the conditions is only touched by threads that park and
+ * by those waking them, so a busy queue never takes it.
+ * Capacity is rounded up to a power of two. Weakly consistent like the other concurrent queues: size() is a
+ * snapshot, the iterator does not support remove(), and remove(Object) is not supported (it returns false).
+ */
+public class MpmcRingBuffer<E> extends AbstractQueue<E> implements BlockingQueue<E> {
+
+    // How a waiting thread passes the time before the queue can serve it
+    public enum WaitStrategy {
+        SPIN_THEN_YIELD(128, 0, false),                // lowest latency; never parks, so burns CPU while idle
+        SPIN_THEN_PARK(128, 16, true),                 // default: rides out short gaps, parks on long ones
+        PARK(0, 0, true);                              // block straight away, as ArrayBlockingQueue does
+
+        private int     _spins;
+        private int     _yields;
+        private boolean _parks;
+
+        WaitStrategy(int spins, int yields, boolean parks) {
+            _spins  = spins;
+            _yields = yields;
+            _parks  = parks;
+        }
+    }
+
+    // === Constants ===
+    private static final int PAD  = 16;               // longs in 128 bytes: two lines, past adjacent-line prefetch
+    private static final int HEAD = PAD;              // next position to take
+    private static final int TAIL = 3 * PAD;          // next position to fill
+
+    // === Fields ===
+    private int             _capacity;
+    private int             _mask;
+    private Object[]        _slots;
+    private AtomicLongArray _sequences;                // per slot: pos when free for pos, pos + 1 once filled
+    private AtomicLongArray _counters      = new AtomicLongArray(4 * PAD);
+    private WaitStrategy    _wait;
+    private ReentrantLock   _lock          = new ReentrantLock();
+    private Condition       _notEmpty      = _lock.newCondition();
+    private Condition       _notFull       = _lock.newCondition();
+    private AtomicInteger   _parkedTakers  = new AtomicInteger();
+    private AtomicInteger   _parkedPutters = new AtomicInteger();
+
+    // === Constructors ===
+    public MpmcRingBuffer(int capacity) {
+        this(capacity, WaitStrategy.SPIN_THEN_PARK);
+    }
+
+    // Creates: a ring holding at least `capacity` elements (rounded up to a power of two, at least 2)
+    public MpmcRingBuffer(int capacity, WaitStrategy wait) {
+        if (capacity < 1 || capacity > (1 << 30))
+            throw new IllegalArgumentException("capacity must be between 1 and 2^30");
+        if (wait == null)
+            throw new IllegalArgumentException("wait strategy is required");
+
+        _capacity  = Math.max(2, Integer.highestOneBit(capacity - 1) << 1);
+        _mask      = _capacity - 1;
+        _slots     = new Object[_capacity];
+        _sequences = new AtomicLongArray(_capacity);
+        _wait      = wait;
+        for (int i = 0; i < _capacity; i++)
+            _sequences.set(i, i);
+    }
+
+    // === Public API ===
+    // Adds: e if there is room, without waiting
+    @Override
+    public boolean offer(E e) {
+        Objects.requireNonNull(e);
+        if (!tryOffer(e))
+            return false;
+        signal(_parkedTakers, _notEmpty, false);
+        return true;
+    }
+
+    // Adds: e, waiting for room as long as it takes
+    @Override
+    public void put(E e) throws InterruptedException {
+        offer(e, false, 0);
+    }
+
+    // Adds: e, waiting for room up to the timeout; false if there was none
+    @Override
+    public boolean offer(E e, long timeout, TimeUnit unit) throws InterruptedException {
+        return offer(e, true, unit.toNanos(timeout));
+    }
+
+    // Takes: the head, or null if the queue is empty, without waiting
+    @Override
+    public E poll() {
+        E e = tryPoll();
+        if (e != null)
+            signal(_parkedPutters, _notFull, false);
+        return e;
+    }
+
+    // Takes: the head, waiting for one as long as it takes
+    @Override
+    public E take() throws InterruptedException {
+        return poll(false, 0);
+    }
+
+    // Takes: the head, waiting up to the timeout; null if none arrived
+    @Override
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        return poll(true, unit.toNanos(timeout));
+    }
+
+    // Gets: the head without taking it, or null if the queue is empty
+    @Override
+    @SuppressWarnings("unchecked")
+    public E peek() {
+        while (true) {
+            long pos   = _counters.get(HEAD);
+            int  index = (int) pos & _mask;
+            long diff  = _sequences.get(index) - (pos + 1);
+            if (diff < 0)
+                return null;
+            if (diff == 0) {
+                E e = (E) _slots[index];
+                if (_counters.get(HEAD) == pos)            // not taken while we read it
+                    return e;
+            }
+        }
+    }
+
+    // Takes: up to max elements in one go and hands them to sink in order; returns how many. The whole batch is
+    //        claimed with a single CAS on the head, so a worker draining a backlog pays for one handshake, not n.
+    @SuppressWarnings("unchecked")
+    public int drain(Consumer<? super E> sink, int max) {
+        if (sink == null)
+            throw new IllegalArgumentException("sink is required");
+        if (max <= 0)
+            return 0;
+
+        long   pos;
+        int    n;
+        while (true) {
+            pos = _counters.get(HEAD);
+            n   = 0;
+            while (n < max && n < _capacity && _sequences.get((int) (pos + n) & _mask) == pos + n + 1)
+                n++;
+            if (n == 0) {
+                if (_sequences.get((int) pos & _mask) - (pos + 1) < 0)
+                    return 0;                               // empty
+            }
+            else if (_counters.compareAndSet(HEAD, pos, pos + n)) {
+                break;
+            }
+        }
+
+        // Free the slots before calling out, so a throwing sink cannot wedge the ring
+        Object[] batch = new Object[n];
+        for (int i = 0; i < n; i++) {
+            int index = (int) (pos + i) & _mask;
+            batch[i] = _slots[index];
+            _slots[index] = null;
+            _sequences.set(index, pos + i + _capacity);
+        }
+        signal(_parkedPutters, _notFull, true);
+
+        for (Object e : batch)
+            sink.accept((E) e);
+        return n;
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c, int maxElements) {
+        if (c == null)
+            throw new NullPointerException();
+        if (c == this)
+            throw new IllegalArgumentException("cannot drain a queue into itself");
+        int total = 0;
+        int n;
+        while (total < maxElements && (n = drain(c::add, maxElements - total)) > 0)
+            total += n;
+        return total;
+    }
+
+    // Gets: the number of elements, as of some moment during the call
+    @Override
+    public int size() {
+        while (true) {
+            long head = _counters.get(HEAD);
+            long tail = _counters.get(TAIL);
+            if (_counters.get(HEAD) == head)
+                return (int) Math.max(0, Math.min(_capacity, tail - head));
+        }
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return peek() == null;
+    }
+
+    @Override
+    public int remainingCapacity() {
+        return _capacity - size();
+    }
+
+    public int getCapacity() { return _capacity; }
+
+    // Removes: not supported on a ring — elements only leave from the head; always false. ThreadPoolExecutor
+    //          calls this to withdraw a task it failed to start, and falls back to running it.
+    @Override
+    public boolean remove(Object o) {
+        return false;
+    }
+
+    // Gets: an iterator over a snapshot of the elements, head first; remove() is not supported
+    @Override
+    public Iterator<E> iterator() {
+        return Collections.unmodifiableList(snapshot()).iterator();
+    }
+
+    // === Helpers ===
+    private boolean tryOffer(E e) {
+        long pos = _counters.get(TAIL);
+        int  index;
+        while (true) {
+            index = (int) pos & _mask;
+            long diff = _sequences.get(index) - pos;
+            if (diff == 0) {
+                if (_counters.compareAndSet(TAIL, pos, pos + 1))
+                    break;
+                pos = _counters.get(TAIL);
+            }
+            else if (diff < 0) {
+                return false;                               // the slot still holds last lap's element: full
+            }
+            else {
+                pos = _counters.get(TAIL);                  // another producer took this position
+            }
+        }
+        _slots[index] = e;
+        _sequences.set(index, pos + 1);                     // publish
+        return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    private E tryPoll() {
+        long pos = _counters.get(HEAD);
+        int  index;
+        while (true) {
+            index = (int) pos & _mask;
+            long diff = _sequences.get(index) - (pos + 1);
+            if (diff == 0) {
+                if (_counters.compareAndSet(HEAD, pos, pos + 1))
+                    break;
+                pos = _counters.get(HEAD);
+            }
+            else if (diff < 0) {
+                return null;                                // not filled yet: empty
+            }
+            else {
+                pos = _counters.get(HEAD);                  // another consumer took this position
+            }
+        }
+        E e = (E) _slots[index];
+        _slots[index] = null;
+        _sequences.set(index, pos + _capacity);             // free for the producer one lap on
+        return e;
+    }
+
+    private boolean offer(E e, boolean timed, long nanos) throws InterruptedException {
+        Objects.requireNonNull(e);
+        if (offer(e))
+            return true;
+
+        long deadline = System.nanoTime() + nanos;
+        for (int round = 0; pause(round); round++) {
+            if (offer(e))
+                return true;
+            if (Thread.interrupted())
+                throw new InterruptedException();
+            if (timed && deadline - System.nanoTime() <= 0)
+                return false;
+        }
+
+        _lock.lockInterruptibly();
+        try {
+            _parkedPutters.incrementAndGet();
+            try {
+                while (!tryOffer(e)) {
+                    if (!timed)
+                        _notFull.await();
+                    else if ((nanos = deadline - System.nanoTime()) <= 0)
+                        return false;
+                    else
+                        _notFull.awaitNanos(nanos);
+                }
+            }
+            finally {
+                _parkedPutters.decrementAndGet();
+            }
+        }
+        finally {
+            _lock.unlock();
+        }
+        signal(_parkedTakers, _notEmpty, false);
+        return true;
+    }
+
+    private E poll(boolean timed, long nanos) throws InterruptedException {
+        E e = poll();
+        if (e != null)
+            return e;
+
+        long deadline = System.nanoTime() + nanos;
+        for (int round = 0; pause(round); round++) {
+            if ((e = poll()) != null)
+                return e;
+            if (Thread.interrupted())
+                throw new InterruptedException();
+            if (timed && deadline - System.nanoTime() <= 0)
+                return null;
+        }
+
+        _lock.lockInterruptibly();
+        try {
+            _parkedTakers.incrementAndGet();
+            try {
+                while ((e = tryPoll()) == null) {
+                    if (!timed)
+                        _notEmpty.await();
+                    else if ((nanos = deadline - System.nanoTime()) <= 0)
+                        return null;
+                    else
+                        _notEmpty.awaitNanos(nanos);
+                }
+            }
+            finally {
+                _parkedTakers.decrementAndGet();
+            }
+        }
+        finally {
+            _lock.unlock();
+        }
+        signal(_parkedPutters, _notFull, false);
+        return e;
+    }
+
+    // Waits: one round of the spin and yield phases; false once it is time to park
+    private boolean pause(int round) {
+        if (round < _wait._spins) {
+            Thread.onSpinWait();
+            return true;
+        }
+        if (!_wait._parks || round - _wait._spins < _wait._yields) {
+            Thread.yield();
+            return true;
+        }
+        return false;
+    }
+
+    // Wakes: a parked thread (or all of them) after an operation made progress. A thread parks only after
+    //        registering in `parked` and then re-checking the ring; we publish before reading `parked` — both
+    //        sides volatile — so one of us always sees the other and no wake-up is lost.
+    private void signal(AtomicInteger parked, Condition condition, boolean all) {
+        if (parked.get() == 0)
+            return;
+        _lock.lock();
+        try {
+            if (all)
+                condition.signalAll();
+            else
+                condition.signal();
+        }
+        finally {
+            _lock.unlock();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<E> snapshot() {
+        List<E> elements = new ArrayList<>();
+        long    head     = _counters.get(HEAD);
+        long    tail     = _counters.get(TAIL);
+        for (long pos = Math.max(head, tail - _capacity); pos < tail; pos++) {
+            int index = (int) pos & _mask;
+            if (_sequences.get(index) != pos + 1)
+                continue;                                   // not filled yet, or already taken
+            Object e = _slots[index];
+            if (e != null && _sequences.get(index) == pos + 1)
+                elements.add((E) e);
+        }
+        return elements;
+    }
+}
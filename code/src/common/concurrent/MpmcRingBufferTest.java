@@ -0,0 +1,108 @@
+package common.concurrent;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MpmcRingBufferTest {
+
+    private static final int PRODUCERS = 4;
+    private static final int CONSUMERS = 4;
+    private static final int ITEMS     = 20_000;         // per producer
+
+    @Test
+    void constructor_RoundsCapacityUpToPowerOfTwo() {
+
+        //ASSERT
+        assertEquals(8, new MpmcRingBuffer<Integer>(5).getCapacity());
+        assertEquals(2, new MpmcRingBuffer<Integer>(1).getCapacity());
+    }
+
+    @Test
+    void offer_Full_ReturnsFalseAndKeepsOrder() throws Exception {
+
+        //ACTIVATE
+        MpmcRingBuffer<Integer> ring = new MpmcRingBuffer<>(4);
+        for (int i = 0; i < 4; i++)
+            assertTrue(ring.offer(i));
+
+        //ACT
+        boolean offered = ring.offer(99);
+        boolean timed   = ring.offer(99, 20, TimeUnit.MILLISECONDS);
+        List<Integer> drained = new ArrayList<>();
+        ring.drainTo(drained);
+
+        //ASSERT
+        assertFalse(offered);
+        assertFalse(timed);
+        assertEquals(List.of(0, 1, 2, 3), drained);
+        assertTrue(ring.isEmpty());
+    }
+
+    @Test
+    void stress_ManyProducersAndConsumers_EveryElementArrivesOnce() throws Exception {
+        for (MpmcRingBuffer.WaitStrategy wait : MpmcRingBuffer.WaitStrategy.values()) {
+            for (int capacity : new int[] { 2, 64 }) {
+
+                //ACTIVATE
+                MpmcRingBuffer<Integer> ring     = new MpmcRingBuffer<>(capacity, wait);
+                LongAdder               sum      = new LongAdder();
+                LongAdder               received = new LongAdder();
+                long                    total    = (long) PRODUCERS * ITEMS;
+                List<Thread>            threads  = new ArrayList<>();
+
+                //ACT
+                for (int p = 0; p < PRODUCERS; p++) {
+                    int first = p * ITEMS;
+                    threads.add(Thread.ofPlatform().start(() -> {
+                        try {
+                            for (int i = 0; i < ITEMS; i++) {
+                                if (i % 3 == 0)
+                                    ring.put(first + i);
+                                else
+                                    while (!ring.offer(first + i, 1, TimeUnit.MILLISECONDS)) { }
+                            }
+                        }
+                        catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }));
+                }
+                for (int c = 0; c < CONSUMERS; c++) {
+                    boolean drains = (c == 0);                   // one consumer takes batches, the rest one at a time
+                    threads.add(Thread.ofPlatform().start(() -> {
+                        try {
+                            while (received.sum() < total) {
+                                if (drains) {
+                                    if (ring.drain(e -> { sum.add(e); received.increment(); }, 7) == 0)
+                                        Thread.yield();
+                                }
+                                else {
+                                    Integer e = ring.poll(5, TimeUnit.MILLISECONDS);
+                                    if (e != null) {
+                                        sum.add(e);
+                                        received.increment();
+                                    }
+                                }
+                            }
+                        }
+                        catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }));
+                }
+                for (Thread t : threads)
+                    t.join();
+
+                //ASSERT
+                assertEquals(total, received.sum());
+                assertEquals(total * (total - 1) / 2, sum.sum());
+            }
+        }
+    }
+}
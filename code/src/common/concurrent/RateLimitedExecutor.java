@@ -0,0 +1,267 @@
+package common.concurrent;
+
+import java.time.Duration;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * An Executor decorator for work that calls a throttled downstream (a courier API, say), keyed by a task
+ * attribute such as its destination. Per key:
+ * - a TokenBucket paces submissions; a task over the rate reserves the next permit and is held back until it
+ *   falls due (throttled), or is shed if that is further off than maxThrottleDelay;
+ * - a task that throws a transient failure is retried after an exponential backoff with full jitter, up to
+ *   maxAttempts, each retry going back through the rate limit;
+ * - a CircuitBreaker sheds tasks while the key keeps failing, so retries do not hammer a dependency that is down.
+ * The fast path — breaker closed, permit available — takes no lock: a map read, a volatile read and one CAS.
+ * Tasks shed in execute() throw RejectedExecutionException; retries shed later go to the give-up handler.
+ */
+public class RateLimitedExecutor implements Executor {
+
+    // === Constants ===
+    private static final int      DEFAULT_MAX_ATTEMPTS       = 4;
+    private static final Duration DEFAULT_BASE_BACKOFF       = Duration.ofMillis(100);
+    private static final Duration DEFAULT_MAX_BACKOFF        = Duration.ofSeconds(5);
+    private static final Duration DEFAULT_MAX_THROTTLE_DELAY = Duration.ofSeconds(30);
+    private static final int      DEFAULT_BREAKER_THRESHOLD  = 5;
+    private static final Duration DEFAULT_BREAKER_OPEN_FOR   = Duration.ofSeconds(10);
+
+    // === Fields ===
+    private Executor                                 _delegate;
+    private ScheduledExecutorService                 _scheduler;
+    private Function<Runnable, ?>                    _keyOf;
+    private double                                   _permitsPerSecond;
+    private int                                      _burst;
+    private ConcurrentHashMap<Object, KeyState>      _keys             = new ConcurrentHashMap<>();
+
+    private volatile int                             _maxAttempts      = DEFAULT_MAX_ATTEMPTS;
+    private volatile long                            _baseBackoffNanos = DEFAULT_BASE_BACKOFF.toNanos();
+    private volatile long                            _maxBackoffNanos  = DEFAULT_MAX_BACKOFF.toNanos();
+    private volatile long                            _maxThrottleNanos = DEFAULT_MAX_THROTTLE_DELAY.toNanos();
+    private volatile Predicate<Throwable>            _transient        = e -> e instanceof RuntimeException;
+    private volatile int                             _breakerThreshold = DEFAULT_BREAKER_THRESHOLD;
+    private volatile Duration                        _breakerOpenFor   = DEFAULT_BREAKER_OPEN_FOR;
+    private volatile BiConsumer<Runnable, Throwable> _onGiveUp         = (task, error) -> { };
+
+    private LongAdder _submitted = new LongAdder();
+    private LongAdder _succeeded = new LongAdder();
+    private LongAdder _throttled = new LongAdder();
+    private LongAdder _retried   = new LongAdder();
+    private LongAdder _shed      = new LongAdder();
+    private LongAdder _failed    = new LongAdder();
+
+    // === Constructors ===
+    // Creates: a limiter in front of delegate allowing permitsPerSecond (bursts of up to `burst`) per key;
+    //          the scheduler times throttled submissions and retries (it only schedules, tasks run on delegate)
+    public RateLimitedExecutor(Executor delegate, ScheduledExecutorService scheduler, Function<Runnable, ?> keyOf,
+                               double permitsPerSecond, int burst) {
+        if (delegate == null || scheduler == null || keyOf == null)
+            throw new IllegalArgumentException("delegate, scheduler and keyOf are required");
+        if (!(permitsPerSecond > 0))
+            throw new IllegalArgumentException("permitsPerSecond must be > 0");
+        if (burst < 1)
+            throw new IllegalArgumentException("burst must be >= 1");
+
+        _delegate         = delegate;
+        _scheduler        = scheduler;
+        _keyOf            = keyOf;
+        _permitsPerSecond = permitsPerSecond;
+        _burst            = burst;
+    }
+
+    // === Configuration ===
+    // Sets: how often a task may run in all, and the backoff before retry n: random(0, min(max, base * 2^(n-1)));
+    //       only failures matching isTransient are retried
+    public void setRetry(int maxAttempts, Duration baseBackoff, Duration maxBackoff, Predicate<Throwable> isTransient) {
+        if (maxAttempts < 1)
+            throw new IllegalArgumentException("maxAttempts must be >= 1");
+        if (baseBackoff == null || maxBackoff == null || isTransient == null || baseBackoff.isNegative()
+                || maxBackoff.compareTo(baseBackoff) < 0)
+            throw new IllegalArgumentException("need 0 <= baseBackoff <= maxBackoff and a transient-failure test");
+        _maxAttempts      = maxAttempts;
+        _baseBackoffNanos = baseBackoff.toNanos();
+        _maxBackoffNanos  = maxBackoff.toNanos();
+        _transient        = isTransient;
+    }
+
+    // Sets: the longest a task may be held back for its permit before it is shed instead
+    public void setMaxThrottleDelay(Duration maxDelay) {
+        if (maxDelay == null || maxDelay.isNegative())
+            throw new IllegalArgumentException("maxDelay must be >= 0");
+        _maxThrottleNanos = maxDelay.toNanos();
+    }
+
+    // Sets: the failures in a row that open a key's breaker, and how long it stays open; applies to keys
+    //       first seen from now on
+    public void setCircuitBreaker(int threshold, Duration openFor) {
+        new CircuitBreaker(threshold, openFor);                 // validates
+        _breakerThreshold = threshold;
+        _breakerOpenFor   = openFor;
+    }
+
+    // Sets: what to do with a task that is finally dropped — retries exhausted, a permanent failure, or shed on
+    //       a retry; error is the last failure or the RejectedExecutionException
+    public void setGiveUpHandler(BiConsumer<Runnable, Throwable> onGiveUp) {
+        if (onGiveUp == null)
+            throw new IllegalArgumentException("onGiveUp is required");
+        _onGiveUp = onGiveUp;
+    }
+
+    // === Public API ===
+    // Submits: a task through its key's breaker and rate limit; throws RejectedExecutionException if shed now
+    @Override
+    public void execute(Runnable task) {
+        if (task == null)
+            throw new IllegalArgumentException("task is required");
+        _submitted.increment();
+        submit(new Attempt(task, stateOf(task)), false);
+    }
+
+    // Gets: the breaker state for a key
+    public CircuitBreaker.State getBreakerState(Object key) {
+        KeyState state = _keys.get(key);
+        return (state == null) ? CircuitBreaker.State.CLOSED : state._breaker.getState();
+    }
+
+    public long getSubmitted() { return _submitted.sum(); }
+    public long getSucceeded() { return _succeeded.sum(); }
+    public long getThrottled() { return _throttled.sum(); }      // submissions held back for a later permit
+    public long getRetried()   { return _retried.sum(); }        // retry attempts scheduled
+    public long getShed()      { return _shed.sum(); }           // dropped by a breaker, the throttle cap or delegate
+    public long getFailed()    { return _failed.sum(); }         // gave up after failing
+
+    // Gets: tasks submitted that have not yet succeeded, failed or been shed (waiting, running or backing off)
+    public long getOutstanding() {
+        return getSubmitted() - getSucceeded() - getFailed() - getShed();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("submitted %,d | succeeded %,d | throttled %,d | retried %,d | shed %,d | failed %,d",
+            getSubmitted(), getSucceeded(), getThrottled(), getRetried(), getShed(), getFailed());
+    }
+
+    // Gets: the task a delegate was handed — the original task if it is an Attempt, else the runnable itself
+    public static Runnable unwrap(Runnable runnable) {
+        return (runnable instanceof RateLimitedExecutor.Attempt) ? ((Attempt) runnable).getTask() : runnable;
+    }
+
+    // === Helpers ===
+    private KeyState stateOf(Runnable task) {
+        Object   key   = _keyOf.apply(task);
+        KeyState state = _keys.get(key);                        // plain get first: no bin lock once the key exists
+        return (state != null) ? state : _keys.computeIfAbsent(key, k -> new KeyState(
+            new TokenBucket(_permitsPerSecond, _burst), new CircuitBreaker(_breakerThreshold, _breakerOpenFor)));
+    }
+
+    // Passes: an attempt to the delegate if its breaker allows and a permit is free, else reserves the next
+    //         permit and hands it over when that falls due, or sheds it; `later` marks a scheduled resubmission,
+    //         whose sheds go to the give-up handler
+    private void submit(Attempt attempt, boolean later) {
+        if (!attempt._state._breaker.allow()) {
+            shed(attempt, new RejectedExecutionException("circuit open for " + _keyOf.apply(attempt._task)), later);
+            return;
+        }
+
+        long wait = attempt._state._bucket.reserve(_maxThrottleNanos);
+        if (wait < 0) {
+            shed(attempt, new RejectedExecutionException("rate limit: no permit for " + _keyOf.apply(attempt._task)
+                + " within " + _maxThrottleNanos / 1_000_000 + " ms"), later);
+        }
+        else if (wait == 0) {
+            hand(attempt, later);
+        }
+        else {
+            _throttled.increment();
+            schedule(() -> hand(attempt, true), attempt, wait);
+        }
+    }
+
+    private void hand(Attempt attempt, boolean later) {
+        try {
+            _delegate.execute(attempt);
+        }
+        catch (RejectedExecutionException e) {
+            shed(attempt, e, later);
+        }
+    }
+
+    private void schedule(Runnable action, Attempt attempt, long delayNanos) {
+        try {
+            _scheduler.schedule(action, delayNanos, TimeUnit.NANOSECONDS);
+        }
+        catch (RejectedExecutionException e) {
+            shed(attempt, e, true);                            // scheduler shut down
+        }
+    }
+
+    private void shed(Attempt attempt, RejectedExecutionException e, boolean later) {
+        _shed.increment();
+        if (!later)
+            throw e;
+        _onGiveUp.accept(attempt._task, e);
+    }
+
+    // Handles: an attempt that threw — back off and retry if the failure is transient and attempts remain
+    private void failed(Attempt attempt, RuntimeException error) {
+        attempt._state._breaker.onFailure();
+        if (attempt._number >= _maxAttempts || !_transient.test(error)) {
+            _failed.increment();
+            _onGiveUp.accept(attempt._task, error);
+            return;
+        }
+
+        _retried.increment();
+        long ceiling = Math.min(_maxBackoffNanos, _baseBackoffNanos << Math.min(attempt._number - 1, 30));
+        long backoff = (ceiling <= 0) ? 0 : ThreadLocalRandom.current().nextLong(ceiling + 1);
+        Attempt retry = new Attempt(attempt._task, attempt._state, attempt._number + 1);
+        schedule(() -> submit(retry, true), retry, backoff);
+    }
+
+    // Holds: a key's rate limit and breaker
+    private static class KeyState {
+
+        private TokenBucket    _bucket;
+        private CircuitBreaker _breaker;
+
+        private KeyState(TokenBucket bucket, CircuitBreaker breaker) {
+            _bucket  = bucket;
+            _breaker = breaker;
+        }
+    }
+
+    // Runs: one try of a task on the delegate and reports the outcome
+    public final class Attempt implements Runnable {
+
+        private Runnable _task;
+        private KeyState _state;
+        private int      _number;
+
+        private Attempt(Runnable task, KeyState state) {
+            this(task, state, 1);
+        }
+
+        private Attempt(Runnable task, KeyState state, int number) {
+            _task   = task;
+            _state  = state;
+            _number = number;
+        }
+
+        public Runnable getTask() { return _task; }
+
+        @Override
+        public void run() {
+            try {
+                _task.run();
+            }
+            catch (RuntimeException e) {
+                failed(this, e);
+                return;
+            }
+            _state._breaker.onSuccess();
+            _succeeded.increment();
+        }
+    }
+}
@@ -0,0 +1,339 @@
+package common.concurrent;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Structured concurrency without preview features: a scope owns the subtasks it forks, and no subtask outlives it.
+ * Modelled on the JDK's StructuredTaskScope (still a preview API, which this build does not enable):
+ * <pre>
+ * try (var scope = new TaskScope.ShutdownOnFailure()) {
+ *     var a = scope.fork(jobA);
+ *     var b = scope.fork(jobB);
+ *     scope.joinUntil(deadline).throwIfFailed();
+ *     use(a.get(), b.get());
+ * }
+ * </pre>
+ * Each fork runs on its own thread (virtual by default). shutdown() — called by a policy, on a missed deadline,
+ * or when the owner is interrupted while joining — interrupts every unfinished subtask at once, and close() waits
+ * for them to exit, so a failed batch gives its threads back straight away. A subtask that opens a scope of its
+ * own passes the interrupt down, so cancellation reaches the whole tree.
+ */
+public class TaskScope<T> implements AutoCloseable {
+
+    // === Fields ===
+    private ThreadFactory              _factory;
+    private Thread                     _owner;
+    private ReentrantLock              _lock     = new ReentrantLock();
+    private Condition                  _changed  = _lock.newCondition();
+    private List<Subtask<? extends T>> _subtasks = new ArrayList<>();     // guarded by _lock
+    private int                        _running;                          // guarded by _lock
+    private volatile boolean           _shutdown;
+    private boolean                    _closed;                           // guarded by _lock
+
+    // === Constructors ===
+    // Creates: a scope owned by the calling thread whose subtasks each run on a new virtual thread
+    public TaskScope() {
+        this(Thread.ofVirtual().name("scope-", 0).factory());
+    }
+
+    // Creates: a scope owned by the calling thread whose subtasks run on threads from the factory
+    public TaskScope(ThreadFactory factory) {
+        if (factory == null)
+            throw new IllegalArgumentException("factory is required");
+        _factory = factory;
+        _owner   = Thread.currentThread();
+    }
+
+    // === Public API ===
+    // Starts: a subtask on a new thread; after shutdown it is not started and stays UNAVAILABLE
+    public <U extends T> Subtask<U> fork(Callable<? extends U> task) {
+        if (task == null)
+            throw new IllegalArgumentException("task is required");
+
+        Subtask<U> subtask = new Subtask<>(task);
+        _lock.lock();
+        try {
+            if (_closed)
+                throw new IllegalStateException("scope is closed");
+            if (_shutdown)
+                return subtask;
+            subtask._thread = _factory.newThread(() -> run(subtask));
+            if (subtask._thread == null)
+                throw new RejectedExecutionException("thread factory returned no thread");
+            _subtasks.add(subtask);
+            _running++;
+            subtask._thread.start();
+        }
+        finally {
+            _lock.unlock();
+        }
+        return subtask;
+    }
+
+    // Waits: until every subtask has finished or the scope is shut down; if interrupted, shuts down first
+    public TaskScope<T> join() throws InterruptedException {
+        checkOwner();
+        _lock.lock();
+        try {
+            while (_running > 0 && !_shutdown)
+                _changed.await();
+        }
+        catch (InterruptedException e) {
+            shutdown();                                    // propagate cancellation to the subtasks
+            throw e;
+        }
+        finally {
+            _lock.unlock();
+        }
+        return this;
+    }
+
+    // Waits: as join(), but shuts down and throws TimeoutException if the deadline passes first
+    public TaskScope<T> joinUntil(Instant deadline) throws InterruptedException, TimeoutException {
+        checkOwner();
+        if (deadline == null)
+            throw new IllegalArgumentException("deadline is required");
+
+        _lock.lock();
+        try {
+            while (_running > 0 && !_shutdown) {
+                long nanos = Math.max(0, Duration.between(Instant.now(), deadline).toNanos());
+                if (nanos == 0) {
+                    shutdown();
+                    throw new TimeoutException("deadline passed with " + _running + " subtask(s) still running");
+                }
+                _changed.awaitNanos(nanos);
+            }
+        }
+        catch (InterruptedException e) {
+            shutdown();
+            throw e;
+        }
+        finally {
+            _lock.unlock();
+        }
+        return this;
+    }
+
+    // Cancels: every unfinished subtask (their threads are interrupted); subtasks finishing from now on are
+    //          UNAVAILABLE and forks are ignored. Safe to call from any thread, more than once.
+    public void shutdown() {
+        _lock.lock();
+        try {
+            if (_shutdown)
+                return;
+            _shutdown = true;
+            for (Subtask<? extends T> s : _subtasks)
+                if (s._state == Subtask.State.UNAVAILABLE && s._thread != null)
+                    s._thread.interrupt();
+            _changed.signalAll();
+        }
+        finally {
+            _lock.unlock();
+        }
+    }
+
+    public boolean isShutdown() { return _shutdown; }
+
+    // Closes: shuts down and waits for every subtask thread to exit, so none outlives the scope
+    @Override
+    public void close() {
+        checkOwner();
+        shutdown();
+
+        boolean interrupted = false;
+        _lock.lock();
+        try {
+            _closed = true;
+            while (_running > 0) {
+                try {
+                    _changed.await();
+                }
+                catch (InterruptedException e) {
+                    interrupted = true;                    // keep waiting: subtasks are already interrupted
+                }
+            }
+        }
+        finally {
+            _lock.unlock();
+        }
+        if (interrupted)
+            Thread.currentThread().interrupt();
+    }
+
+    // === Helpers ===
+    // Called: on the subtask's thread when it completes before shutdown — policies override this
+    protected void handleComplete(Subtask<? extends T> subtask) { }
+
+    protected void checkOwner() {
+        if (Thread.currentThread() != _owner)
+            throw new IllegalStateException("only the thread that opened the scope may join or close it");
+    }
+
+    private <U extends T> void run(Subtask<U> subtask) {
+        try {
+            subtask._result = subtask._task.call();
+            subtask._outcome = Subtask.State.SUCCESS;
+        }
+        catch (Throwable e) {
+            subtask._exception = e;
+            subtask._outcome   = Subtask.State.FAILED;
+        }
+
+        _lock.lock();
+        try {
+            if (!_shutdown)
+                subtask._state = subtask._outcome;         // after shutdown the outcome is discarded
+        }
+        finally {
+            _lock.unlock();
+        }
+        try {
+            if (subtask._state != Subtask.State.UNAVAILABLE)
+                handleComplete(subtask);
+        }
+        finally {
+            _lock.lock();
+            try {
+                _running--;
+                _changed.signalAll();
+            }
+            finally {
+                _lock.unlock();
+            }
+        }
+    }
+
+    // Holds: one forked task — its state, and its result or exception once the scope has joined
+    public static final class Subtask<U> {
+
+        public enum State { UNAVAILABLE, SUCCESS, FAILED }
+
+        private Callable<? extends U> _task;
+        private volatile Thread       _thread;
+        private volatile State        _state   = State.UNAVAILABLE;
+        private State                 _outcome = State.UNAVAILABLE;
+        private U                     _result;
+        private Throwable             _exception;
+
+        private Subtask(Callable<? extends U> task) {
+            _task = task;
+        }
+
+        public State state() { return _state; }
+
+        // Gets: the result; only valid once the subtask has succeeded
+        public U get() {
+            if (_state != State.SUCCESS)
+                throw new IllegalStateException("subtask " + _state.name().toLowerCase());
+            return _result;
+        }
+
+        // Gets: the exception; only valid once the subtask has failed
+        public Throwable exception() {
+            if (_state != State.FAILED)
+                throw new IllegalStateException("subtask did not fail");
+            return _exception;
+        }
+    }
+
+    // Policy: the first failure shuts the scope down, cancelling the other subtasks — for all-or-nothing batches
+    public static class ShutdownOnFailure extends TaskScope<Object> {
+
+        private volatile Throwable _firstFailure;
+
+        public ShutdownOnFailure() { }
+
+        public ShutdownOnFailure(ThreadFactory factory) {
+            super(factory);
+        }
+
+        @Override
+        public ShutdownOnFailure join() throws InterruptedException {
+            super.join();
+            return this;
+        }
+
+        @Override
+        public ShutdownOnFailure joinUntil(Instant deadline) throws InterruptedException, TimeoutException {
+            super.joinUntil(deadline);
+            return this;
+        }
+
+        // Throws: ExecutionException wrapping the first failure, if any subtask failed (call after joining)
+        public void throwIfFailed() throws ExecutionException {
+            checkOwner();
+            Throwable failure = _firstFailure;
+            if (failure != null)
+                throw new ExecutionException(failure);
+        }
+
+        @Override
+        protected void handleComplete(Subtask<?> subtask) {
+            if (subtask.state() == Subtask.State.FAILED) {
+                synchronized (this) {
+                    if (_firstFailure == null)
+                        _firstFailure = subtask.exception();
+                }
+                shutdown();
+            }
+        }
+    }
+
+    // Policy: the first success shuts the scope down, cancelling the others — for racing redundant requests
+    public static class ShutdownOnSuccess<T> extends TaskScope<T> {
+
+        private volatile T         _winner;
+        private volatile boolean   _won;
+        private volatile Throwable _lastFailure;
+
+        public ShutdownOnSuccess() { }
+
+        public ShutdownOnSuccess(ThreadFactory factory) {
+            super(factory);
+        }
+
+        @Override
+        public ShutdownOnSuccess<T> join() throws InterruptedException {
+            super.join();
+            return this;
+        }
+
+        @Override
+        public ShutdownOnSuccess<T> joinUntil(Instant deadline) throws InterruptedException, TimeoutException {
+            super.joinUntil(deadline);
+            return this;
+        }
+
+        // Gets: the first successful result; throws ExecutionException (with a failure as its cause) if none
+        //       succeeded (call after joining)
+        public T result() throws ExecutionException {
+            checkOwner();
+            if (_won)
+                return _winner;
+            throw new ExecutionException("no subtask succeeded", _lastFailure);
+        }
+
+        @Override
+        protected void handleComplete(Subtask<? extends T> subtask) {
+            if (subtask.state() == Subtask.State.SUCCESS) {
+                synchronized (this) {
+                    if (_won)
+                        return;
+                    _winner = subtask.get();
+                    _won    = true;
+                }
+                shutdown();
+            }
+            else {
+                _lastFailure = subtask.exception();
+            }
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package common.concurrent;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TaskScopeTest {
+
+    private static final long SLEEP_MS = 10_000;     // far longer than any test should take
+    private static final long QUICK_MS = 2_000;      // cancelled subtasks must be gone well within this
+
+    private final AtomicInteger _interrupted = new AtomicInteger();
+
+    // Sleeps: until interrupted, counting the interrupt
+    private final Callable<String> _sleeper = () -> {
+        try {
+            Thread.sleep(SLEEP_MS);
+            return "slept";
+        }
+        catch (InterruptedException e) {
+            _interrupted.incrementAndGet();
+            throw e;
+        }
+    };
+
+    @Test
+    void joinUntil_DeadlinePassed_InterruptsEverySubtask() throws Exception {
+
+        //ACTIVATE
+        long                       start = System.nanoTime();
+        TaskScope.Subtask<Object>  first;
+        TaskScope.Subtask<Object>  second;
+
+        //ACT
+        try (TaskScope.ShutdownOnFailure scope = new TaskScope.ShutdownOnFailure()) {
+            first  = scope.fork(_sleeper);
+            second = scope.fork(_sleeper);
+            assertThrows(TimeoutException.class, () -> scope.joinUntil(Instant.now().plusMillis(200)));
+            assertTrue(scope.isShutdown());
+        }
+
+        //ASSERT
+        assertEquals(2, _interrupted.get());
+        assertEquals(TaskScope.Subtask.State.UNAVAILABLE, first.state());
+        assertEquals(TaskScope.Subtask.State.UNAVAILABLE, second.state());
+        assertTrue((System.nanoTime() - start) / 1_000_000 < QUICK_MS);
+    }
+
+    @Test
+    void shutdownOnFailure_OneFails_CancelsSiblingsAndTheirNestedScopes() {
+
+        //ACTIVATE
+        long start = System.nanoTime();
+
+        //ACT
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> {
+            try (TaskScope.ShutdownOnFailure outer = new TaskScope.ShutdownOnFailure()) {
+                outer.fork(() -> {
+                    try (TaskScope.ShutdownOnFailure inner = new TaskScope.ShutdownOnFailure()) {
+                        inner.fork(_sleeper);
+                        inner.fork(_sleeper);
+                        inner.join().throwIfFailed();
+                    }
+                    return null;
+                });
+                outer.fork(() -> {
+                    Thread.sleep(100);
+                    throw new IllegalStateException("boom");
+                });
+                outer.join().throwIfFailed();
+            }
+        });
+
+        //ASSERT
+        assertEquals("boom", failure.getCause().getMessage());
+        assertEquals(2, _interrupted.get());
+        assertTrue((System.nanoTime() - start) / 1_000_000 < QUICK_MS);
+    }
+
+    @Test
+    void join_OwnerInterrupted_ShutsDownAndInterruptsSubtasks() throws Exception {
+
+        //ACTIVATE
+        AtomicInteger ownerInterrupted = new AtomicInteger();
+        Thread owner = Thread.ofPlatform().start(() -> {
+            try (TaskScope<String> scope = new TaskScope<>()) {
+                scope.fork(_sleeper);
+                scope.join();
+            }
+            catch (InterruptedException e) {
+                ownerInterrupted.incrementAndGet();
+            }
+        });
+
+        //ACT
+        Thread.sleep(100);
+        owner.interrupt();
+        owner.join(QUICK_MS);
+
+        //ASSERT
+        assertFalse(owner.isAlive());
+        assertEquals(1, ownerInterrupted.get());
+        assertEquals(1, _interrupted.get());
+    }
+
+    @Test
+    void shutdownOnSuccess_FirstResultWins_CancelsTheRest() throws Exception {
+
+        //ACTIVATE
+        String result;
+
+        //ACT
+        try (TaskScope.ShutdownOnSuccess<String> scope = new TaskScope.ShutdownOnSuccess<>()) {
+            scope.fork(_sleeper);
+            scope.fork(() -> "fast");
+            result = scope.join().result();
+        }
+
+        //ASSERT
+        assertEquals("fast", result);
+        assertEquals(1, _interrupted.get());
+    }
+
+    @Test
+    void shutdownOnFailure_AllSucceed_ResultsAvailable() throws Exception {
+
+        //ACT
+        try (TaskScope.ShutdownOnFailure scope = new TaskScope.ShutdownOnFailure()) {
+            TaskScope.Subtask<Object> a = scope.fork(() -> 1);
+            TaskScope.Subtask<Object> b = scope.fork(() -> 2);
+            scope.join().throwIfFailed();
+
+            //ASSERT
+            assertEquals(1, a.get());
+            assertEquals(2, b.get());
+        }
+    }
+
+    @Test
+    void fork_AfterShutdown_IsNotStarted() throws Exception {
+
+        //ACT
+        try (TaskScope<String> scope = new TaskScope<>()) {
+            scope.shutdown();
+            TaskScope.Subtask<String> late = scope.fork(_sleeper);
+            scope.join();
+
+            //ASSERT
+            assertEquals(TaskScope.Subtask.State.UNAVAILABLE, late.state());
+            assertThrows(IllegalStateException.class, late::get);
+        }
+        assertEquals(0, _interrupted.get());
+    }
+}
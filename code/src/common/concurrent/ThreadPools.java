@@ -0,0 +1,119 @@
+package common.concurrent;
+
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed-size thread pools that hand tasks to their workers through an MpmcRingBuffer instead of the
+ * LinkedBlockingQueue behind Executors.newFixedThreadPool — no node allocated per task, and submitters and
+ * workers do not contend on the queue's locks.
+ * The queue is bounded, so when it is full the submitter waits for room (backpressure) rather than the pool
+ * building an unlimited backlog; submitting to a pool that has been shut down is rejected as usual.
+ * The wait happens before the task reaches the pool: a semaphore holds one permit per free queue slot, taken in
+ * execute() and given back as a worker starts the task, so the queue always has room by the time the pool offers
+ * to it and no task is ever put into a pool that shut down in the meantime. Since a full queue blocks the
+ * submitter instead of reaching the rejection handler, the pool itself counts those waits (InstrumentedExecutor
+ * reports them as saturation).
+ */
+public final class ThreadPools {
+
+    // === Constructors ===
+    private ThreadPools() { }
+
+    // === Public API ===
+    // Creates: `threads` workers fed by a ring of at least `capacity` waiting tasks
+    public static ThreadPoolExecutor newFixedThreadPool(int threads, int capacity) {
+        return newFixedThreadPool(threads, capacity, MpmcRingBuffer.WaitStrategy.SPIN_THEN_PARK);
+    }
+
+    // Creates: as above, with idle workers waiting for tasks by the given strategy
+    public static ThreadPoolExecutor newFixedThreadPool(int threads, int capacity, MpmcRingBuffer.WaitStrategy wait) {
+        return newFixedThreadPool(threads, new MpmcRingBuffer<>(capacity, wait));
+    }
+
+    // Creates: `threads` workers fed by the given empty queue, with the same backpressure (e.g. to compare queues)
+    public static ThreadPoolExecutor newFixedThreadPool(int threads, BlockingQueue<Runnable> queue) {
+        if (threads < 1)
+            throw new IllegalArgumentException("threads must be >= 1");
+        if (queue == null || !queue.isEmpty())
+            throw new IllegalArgumentException("an empty queue is required");
+        return new BackpressurePool(threads, queue);
+    }
+
+    // === Helpers ===
+    // Runs: a fixed pool whose submitters wait for a free queue slot before handing the task over
+    static final class BackpressurePool extends ThreadPoolExecutor {
+
+        private final Semaphore _room;             // free queue slots; a task holds one from execute until it starts
+        private final LongAdder _saturated    = new LongAdder();   // submissions that found the queue full
+        private final LongAdder _blockedNanos = new LongAdder();   // time those submitters spent waiting for room
+
+        private BackpressurePool(int threads, BlockingQueue<Runnable> queue) {
+            super(threads, threads, 0, TimeUnit.MILLISECONDS, queue);
+            _room = new Semaphore(queue.remainingCapacity());
+        }
+
+        // Queues: the task once there is room, blocking the caller until then
+        @Override
+        public void execute(Runnable task) {
+            if (task == null)
+                throw new NullPointerException();
+            if (isShutdown())
+                throw new RejectedExecutionException("pool is shut down");
+            if (!_room.tryAcquire())
+                waitForRoom();
+
+            try {
+                super.execute(task);
+            }
+            catch (RuntimeException | Error e) {
+                _room.release();                   // rejected (shut down while waiting): it never took a slot
+                throw e;
+            }
+        }
+
+        // Gets: how many submissions found the queue full and had to wait
+        long getSaturated() { return _saturated.sum(); }
+
+        // Gets: the total time submitters spent waiting for room in the queue
+        long getBlockedNanos() { return _blockedNanos.sum(); }
+
+        // Frees: the task's queue slot as a worker picks it up
+        @Override
+        protected void beforeExecute(Thread worker, Runnable task) {
+            _room.release();
+            super.beforeExecute(worker, task);
+        }
+
+        // Stops: as usual, and frees the slots of the tasks it drained so waiting submitters wake and are rejected
+        @Override
+        public List<Runnable> shutdownNow() {
+            List<Runnable> drained = super.shutdownNow();
+            _room.release(drained.size());
+            return drained;
+        }
+
+        // Waits: for a free queue slot, counting the wait as saturation
+        private void waitForRoom() {
+            _saturated.increment();
+            long start = System.nanoTime();
+            try {
+                _room.acquire();
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RejectedExecutionException("interrupted while waiting for room in the queue", e);
+            }
+            finally {
+                _blockedNanos.add(System.nanoTime() - start);
+            }
+        }
+
+        // Skips: purging — a ring cannot withdraw tasks from the middle, and a cancelled Future that is left in the
+        //        queue does nothing when a worker reaches it
+        @Override
+        public void purge() {
+        }
+    }
+}
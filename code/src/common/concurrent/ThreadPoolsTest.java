@@ -0,0 +1,139 @@
+package common.concurrent;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ThreadPoolsTest {
+
+    private static final int  ROUNDS     = 200;
+    private static final int  SUBMITTERS = 4;
+    private static final int  TASKS      = 2_000;          // per submitter per round
+    private static final long WAIT_MS    = 5_000;
+
+    @Test
+    void execute_QueueFull_SubmitterWaitsInsteadOfRejecting() throws Exception {
+
+        //ACTIVATE
+        ThreadPoolExecutor pool    = ThreadPools.newFixedThreadPool(1, 2);
+        CountDownLatch     release = new CountDownLatch(1);
+        pool.execute(() -> await(release));                 // occupies the only worker
+        pool.execute(() -> { });
+        pool.execute(() -> { });                            // the ring (capacity 2) is now full
+
+        //ACT
+        Thread submitter = Thread.ofPlatform().start(() -> pool.execute(() -> { }));
+        submitter.join(200);
+        boolean waited = submitter.isAlive();
+        release.countDown();
+        submitter.join(WAIT_MS);
+
+        //ASSERT
+        assertTrue(waited);
+        assertFalse(submitter.isAlive());
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(WAIT_MS, TimeUnit.MILLISECONDS));
+        assertEquals(4, pool.getCompletedTaskCount());
+    }
+
+    @Test
+    void shutdown_RacingSubmitters_EveryAcceptedTaskRuns() throws Exception {
+        for (int round = 0; round < ROUNDS; round++) {
+
+            //ACTIVATE
+            ThreadPoolExecutor pool     = ThreadPools.newFixedThreadPool(2, 4);
+            AtomicInteger      accepted = new AtomicInteger();
+            AtomicInteger      ran      = new AtomicInteger();
+            List<Thread>       threads  = new ArrayList<>();
+            for (int s = 0; s < SUBMITTERS; s++) {
+                threads.add(Thread.ofPlatform().start(() -> {
+                    for (int i = 0; i < TASKS; i++) {
+                        try {
+                            pool.execute(ran::incrementAndGet);
+                            accepted.incrementAndGet();
+                        }
+                        catch (RejectedExecutionException e) {
+                            return;
+                        }
+                    }
+                }));
+            }
+
+            //ACT
+            Thread.sleep(round % 3);
+            pool.shutdown();
+            for (Thread t : threads)
+                t.join();
+
+            //ASSERT
+            assertTrue(pool.awaitTermination(WAIT_MS, TimeUnit.MILLISECONDS));
+            assertEquals(accepted.get(), ran.get());
+        }
+    }
+
+    @Test
+    void shutdownNow_WakesWaitingSubmitters() throws Exception {
+
+        //ACTIVATE
+        ThreadPoolExecutor pool     = ThreadPools.newFixedThreadPool(1, 2);
+        CountDownLatch     release  = new CountDownLatch(1);
+        AtomicInteger      rejected = new AtomicInteger();
+        pool.execute(() -> await(release));
+        pool.execute(() -> { });
+        pool.execute(() -> { });
+        Thread submitter = Thread.ofPlatform().start(() -> {
+            try {
+                pool.execute(() -> { });
+            }
+            catch (RejectedExecutionException e) {
+                rejected.incrementAndGet();
+            }
+        });
+        Thread.sleep(100);
+
+        //ACT
+        List<Runnable> drained = pool.shutdownNow();
+        submitter.join(WAIT_MS);
+
+        //ASSERT
+        assertFalse(submitter.isAlive());
+        assertEquals(2, drained.size());
+        assertEquals(1, rejected.get());
+        assertTrue(pool.awaitTermination(WAIT_MS, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void purge_CancelledFutureQueued_DoesNotThrow() throws Exception {
+
+        //ACTIVATE
+        ThreadPoolExecutor pool    = ThreadPools.newFixedThreadPool(1, 4);
+        CountDownLatch     release = new CountDownLatch(1);
+        pool.execute(() -> await(release));
+        Future<?> cancelled = pool.submit(() -> { });
+        cancelled.cancel(false);
+
+        //ACT
+        pool.purge();
+        release.countDown();
+
+        //ASSERT
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(WAIT_MS, TimeUnit.MILLISECONDS));
+        assertTrue(cancelled.isCancelled());
+    }
+
+    // Waits: for the latch, giving up quietly if interrupted
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package common.concurrent;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A lock-free token bucket: a steady rate of permits with room for a burst.
+ * Implemented as the generic cell rate algorithm — the whole state is one "theoretical arrival time", so taking
+ * a permit is a single CAS with no refill thread and no lock, and a caller can reserve a permit that falls due
+ * later and learn exactly how long to wait instead of polling.
+ */
+public final class TokenBucket {
+
+    // === Fields ===
+    private long       _intervalNanos;        // time one permit is worth
+    private long       _toleranceNanos;       // how far ahead of the rate a burst may run
+    private AtomicLong _tat;                  // when the bucket will next be back at full
+
+    // === Constructors ===
+    // Creates: a bucket allowing permitsPerSecond on average and up to `burst` permits at once
+    public TokenBucket(double permitsPerSecond, int burst) {
+        if (!(permitsPerSecond > 0))
+            throw new IllegalArgumentException("permitsPerSecond must be > 0");
+        if (burst < 1)
+            throw new IllegalArgumentException("burst must be >= 1");
+        _intervalNanos  = Math.max(1, (long) (1e9 / permitsPerSecond));
+        _toleranceNanos = _intervalNanos * (burst - 1);
+        _tat            = new AtomicLong(System.nanoTime());
+    }
+
+    // === Public API ===
+    // Takes: a permit if one is available now
+    public boolean tryAcquire() {
+        return reserve(0) == 0;
+    }
+
+    // Reserves: the next permit if it is due within maxWaitNanos, returning the nanoseconds until it may be
+    //           used (0: now); returns -1 and reserves nothing if it is further off. Reserving in order keeps
+    //           held-back callers first come, first served, with no re-checking when they wake.
+    public long reserve(long maxWaitNanos) {
+        long now = System.nanoTime();
+        while (true) {
+            long tat   = _tat.get();
+            long start = (tat - now > 0) ? tat : now;
+            long wait  = start - now - _toleranceNanos;
+            if (wait > maxWaitNanos)
+                return -1;
+            if (_tat.compareAndSet(tat, start + _intervalNanos))
+                return Math.max(0, wait);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package common.net;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A thread-safe pool of same-sized ByteBuffers.
+ * Requests up to the pool's buffer size are served from the pool; larger ones get a one-off buffer of
+ * exactly the requested size, which release() quietly drops. At most maxIdle buffers are kept between uses.
+ */
+public class BufferPool {
+
+    // === Fields ===
+    private int                            _bufferSize;
+    private boolean                        _direct;
+    private ArrayBlockingQueue<ByteBuffer> _idle;
+    private AtomicLong                     _allocated = new AtomicLong();
+    private AtomicLong                     _reused    = new AtomicLong();
+
+    // === Constructors ===
+    // Creates: a pool of bufferSize-byte buffers; direct buffers suit channel I/O, heap buffers stream I/O
+    public BufferPool(int bufferSize, int maxIdle, boolean direct) {
+        if (bufferSize < 1)
+            throw new IllegalArgumentException("bufferSize must be >= 1");
+        if (maxIdle < 1)
+            throw new IllegalArgumentException("maxIdle must be >= 1");
+        _bufferSize = bufferSize;
+        _direct     = direct;
+        _idle       = new ArrayBlockingQueue<>(maxIdle);
+    }
+
+    // === Public API ===
+    // Gets: a cleared buffer with at least minCapacity bytes of room, its limit set to minCapacity
+    public ByteBuffer acquire(int minCapacity) {
+        if (minCapacity < 0)
+            throw new IllegalArgumentException("minCapacity must be >= 0");
+
+        ByteBuffer buffer = (minCapacity <= _bufferSize) ? _idle.poll() : null;
+        if (buffer != null) {
+            _reused.incrementAndGet();
+        }
+        else {
+            int size = Math.max(minCapacity, _bufferSize);
+            buffer = _direct ? ByteBuffer.allocateDirect(size) : ByteBuffer.allocate(size);
+            _allocated.incrementAndGet();
+        }
+        return buffer.clear().limit(minCapacity);
+    }
+
+    // Puts: a buffer back for reuse; the caller must not touch it afterwards
+    public void release(ByteBuffer buffer) {
+        if (buffer != null && buffer.capacity() == _bufferSize && buffer.isDirect() == _direct)
+            _idle.offer(buffer.clear());
+    }
+
+    public int     getBufferSize() { return _bufferSize; }
+    public boolean isDirect()      { return _direct; }
+
+    @Override
+    public String toString() {
+        return "BufferPool{size=" + _bufferSize + ", direct=" + _direct + ", idle=" + _idle.size()
+            + ", allocated=" + _allocated + ", reused=" + _reused + "}";
+    }
+}
@@ -0,0 +1,92 @@
+package common.net;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * Reassembles length-prefixed frames from whatever bytes a non-blocking channel delivers.
+ * A read may hold several frames, or part of one; partial headers and payloads are kept between calls.
+ * One decoder per connection, used only by that connection's selector thread.
+ */
+public class ChannelFrameDecoder implements AutoCloseable {
+
+    // === Fields ===
+    private BufferPool _pool;
+    private int        _maxFrameSize;
+    private ByteBuffer _header = ByteBuffer.allocate(FrameCodec.HEADER_BYTES);
+    private ByteBuffer _payload;                 // the frame being filled, or null between frames
+
+    // === Constructors ===
+    // Creates: a decoder that rejects frames over maxFrameSize bytes, taking payload buffers from pool
+    public ChannelFrameDecoder(BufferPool pool, int maxFrameSize) {
+        if (pool == null)
+            throw new IllegalArgumentException("pool is required");
+        _pool         = pool;
+        _maxFrameSize = FrameCodec.requireMaxFrameSize(maxFrameSize);
+    }
+
+    // === Public API ===
+    // Reads: once from the channel into scratch and decodes what arrived; returns the byte count, -1 at end of stream
+    public int readFrom(ReadableByteChannel channel, ByteBuffer scratch, FrameHandler handler) throws IOException {
+        scratch.clear();
+        int n = channel.read(scratch);
+        if (n > 0) {
+            scratch.flip();
+            decode(scratch, handler);
+        }
+        return n;
+    }
+
+    // Decodes: every byte remaining in the buffer, calling handler once per completed frame
+    public void decode(ByteBuffer in, FrameHandler handler) throws IOException {
+        while (in.hasRemaining()) {
+            if (_payload == null) {
+                transfer(in, _header);
+                if (_header.hasRemaining())
+                    return;
+
+                int length = _header.getInt(0);
+                _header.clear();
+                FrameCodec.checkLength(length, _maxFrameSize);
+                _payload = _pool.acquire(length);
+            }
+
+            transfer(in, _payload);
+            if (!_payload.hasRemaining())
+                deliver(handler);
+        }
+
+        // a zero-length frame has no payload bytes to wait for
+        if (_payload != null && !_payload.hasRemaining())
+            deliver(handler);
+    }
+
+    // Puts: any half-received payload back in the pool
+    @Override
+    public void close() {
+        _pool.release(_payload);
+        _payload = null;
+    }
+
+    // === Helpers ===
+    // Copies: as many bytes as fit from src to dst
+    private static void transfer(ByteBuffer src, ByteBuffer dst) {
+        int n = Math.min(src.remaining(), dst.remaining());
+        dst.put(dst.position(), src, src.position(), n);
+        dst.position(dst.position() + n);
+        src.position(src.position() + n);
+    }
+
+    // Passes: the completed payload to the handler, then recycles it
+    private void deliver(FrameHandler handler) throws IOException {
+        ByteBuffer payload = _payload.flip();
+        _payload = null;
+        try {
+            handler.onFrame(payload);
+        }
+        finally {
+            _pool.release(payload);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package common.net;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+
+/**
+ * Writes length-prefixed frames to channels.
+ * write() suits blocking channels; encode() builds a pooled, self-contained frame for servers that queue
+ * output and drain it when a non-blocking channel is writable.
+ */
+public class ChannelFrameEncoder {
+
+    // === Fields ===
+    private BufferPool _pool;
+    private int        _maxFrameSize;
+
+    // === Constructors ===
+    // Creates: an encoder that refuses frames over maxFrameSize bytes, taking frame buffers from pool
+    public ChannelFrameEncoder(BufferPool pool, int maxFrameSize) {
+        if (pool == null)
+            throw new IllegalArgumentException("pool is required");
+        _pool         = pool;
+        _maxFrameSize = FrameCodec.requireMaxFrameSize(maxFrameSize);
+    }
+
+    // === Public API ===
+    // Writes: header and payload with gathering writes until both are sent (blocking channels);
+    //         the payload is consumed, but never copied
+    public void write(GatheringByteChannel channel, ByteBuffer payload) throws IOException {
+        FrameCodec.checkLength(payload.remaining(), _maxFrameSize);
+        ByteBuffer[] frame = { FrameCodec.header(payload.remaining()), payload };
+        while (payload.hasRemaining() || frame[0].hasRemaining())
+            channel.write(frame);
+    }
+
+    // Creates: header + a copy of the payload's remaining bytes in one pooled buffer, flipped ready to write;
+    //          release it back to the pool once fully written
+    public ByteBuffer encode(ByteBuffer payload) throws IOException {
+        int length = payload.remaining();
+        FrameCodec.checkLength(length, _maxFrameSize);
+
+        ByteBuffer frame = _pool.acquire(FrameCodec.HEADER_BYTES + length);
+        frame.putInt(length).put(payload.duplicate());
+        return frame.flip();
+    }
+
+    // Puts: a fully written frame from encode() back in the pool
+    public void release(ByteBuffer frame) {
+        _pool.release(frame);
+    }
+}
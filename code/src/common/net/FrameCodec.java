@@ -0,0 +1,37 @@
+package common.net;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Wire format shared by the frame readers and writers: a 4-byte big-endian payload length followed by
+ * exactly that many payload bytes. Frames carry raw bytes, so binary payloads need no Base64 and text
+ * payloads no line scanning; an empty frame is legal.
+ */
+public final class FrameCodec {
+
+    // === Constants ===
+    public static final int HEADER_BYTES           = 4;
+    public static final int DEFAULT_MAX_FRAME_SIZE = 16 * 1024 * 1024;
+
+    // === Constructors ===
+    private FrameCodec() { }
+
+    // === Public API ===
+    // Checks: a declared or outgoing payload length against the limit
+    public static void checkLength(long length, int maxFrameSize) throws FrameTooLargeException {
+        if (length < 0 || length > maxFrameSize)
+            throw new FrameTooLargeException(length, maxFrameSize);
+    }
+
+    // Checks: a maximum frame size is usable
+    public static int requireMaxFrameSize(int maxFrameSize) {
+        if (maxFrameSize < 1)
+            throw new IllegalArgumentException("maxFrameSize must be >= 1");
+        return maxFrameSize;
+    }
+
+    // Creates: the 4-byte header for a payload of the given length, ready to write
+    public static ByteBuffer header(int length) {
+        return ByteBuffer.allocate(HEADER_BYTES).putInt(0, length);
+    }
+}
@@ -0,0 +1,13 @@
+package common.net;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Receives each complete frame from a ChannelFrameDecoder.
+ * The payload buffer goes back to the pool when onFrame returns, so copy anything that must outlive the call.
+ */
+@FunctionalInterface
+public interface FrameHandler {
+    void onFrame(ByteBuffer payload) throws IOException;
+}
@@ -0,0 +1,21 @@
+package common.net;
+
+import java.io.IOException;
+
+/**
+ * Thrown when a frame's length prefix is negative or exceeds the configured maximum.
+ * Raised before any payload buffer is allocated, so a corrupt or hostile prefix cannot exhaust memory.
+ * The stream is out of step after this and should be closed.
+ */
+public class FrameTooLargeException extends IOException {
+
+    // === Constants ===
+    private static final long serialVersionUID = 1L;
+
+    // === Constructors ===
+    // Creates: the exception for a frame of the given declared length
+    public FrameTooLargeException(long length, int maxFrameSize) {
+        super(length < 0 ? "invalid frame length " + length
+                         : "frame of " + length + " bytes exceeds the " + maxFrameSize + "-byte limit");
+    }
+}
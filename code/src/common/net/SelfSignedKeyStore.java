@@ -0,0 +1,65 @@
+package common.net;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Creates a self-signed PKCS12 keystore for local TLS runs and tests, using the JDK's keytool.
+ * The certificate names localhost and 127.0.0.1, so clients' host-name checks pass; the file doubles as
+ * the clients' truststore. Never use it outside development.
+ */
+public final class SelfSignedKeyStore {
+
+    // === Constants ===
+    public static final Path   DEFAULT_PATH     = Path.of("data/tls/dev-keystore.p12");
+    public static final String DEFAULT_PASSWORD = "changeit";
+
+    private static final int  VALIDITY_DAYS   = 365;
+    private static final long KEYTOOL_TIMEOUT = 60;       // seconds
+
+    // === Constructors ===
+    private SelfSignedKeyStore() { }
+
+    // === Public API ===
+    // Creates: the keystore at path unless one is already there (an EC P-256 key, alias "server");
+    //          returns the path
+    public static Path create(Path path, char[] password) throws IOException {
+        if (Files.exists(path))
+            return path;
+        if (path.getParent() != null)
+            Files.createDirectories(path.getParent());
+
+        String keytool = Path.of(System.getProperty("java.home"), "bin", "keytool").toString();
+        List<String> command = List.of(keytool, "-genkeypair",
+            "-alias", "server", "-keyalg", "EC", "-groupname", "secp256r1",
+            "-dname", "CN=localhost", "-ext", "SAN=dns:localhost,ip:127.0.0.1",
+            "-validity", String.valueOf(VALIDITY_DAYS),
+            "-storetype", "PKCS12", "-keystore", path.toString(),
+            "-storepass", new String(password), "-keypass", new String(password));
+
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        try {
+            String output = new String(process.getInputStream().readAllBytes());
+            if (!process.waitFor(KEYTOOL_TIMEOUT, TimeUnit.SECONDS) || process.exitValue() != 0)
+                throw new IOException("keytool failed: " + output.trim());
+        }
+        catch (InterruptedException e) {
+            process.destroyForcibly();
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while running keytool");
+        }
+        return path;
+    }
+
+    // Creates: the development keystore and prints the flags that switch servers and clients to TLS
+    public static void main(String[] args) throws IOException {
+        Path path = create(DEFAULT_PATH, DEFAULT_PASSWORD.toCharArray());
+        System.out.println("Keystore: " + path.toAbsolutePath());
+        System.out.println("Servers:  -D" + TlsSupport.KEYSTORE_PROPERTY + "=" + path
+                         + " -D" + TlsSupport.PASSWORD_PROPERTY + "=" + DEFAULT_PASSWORD);
+        System.out.println("Clients:  -D" + TlsSupport.TRUSTSTORE_PROPERTY + "=" + path
+                         + " -D" + TlsSupport.PASSWORD_PROPERTY + "=" + DEFAULT_PASSWORD);
+    }
+}
@@ -0,0 +1,53 @@
+package common.net;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+
+/**
+ * Reads length-prefixed frames from a blocking InputStream (e.g. a socket's).
+ * Payloads land in pooled heap buffers: hand each one back with release() once it has been used.
+ */
+public class StreamFrameReader implements AutoCloseable {
+
+    // === Fields ===
+    private DataInputStream _in;
+    private BufferPool      _pool;
+    private int             _maxFrameSize;
+
+    // === Constructors ===
+    // Creates: a reader that rejects frames over maxFrameSize bytes; pool must hold heap buffers
+    public StreamFrameReader(InputStream in, BufferPool pool, int maxFrameSize) {
+        if (in == null || pool == null)
+            throw new IllegalArgumentException("in and pool are required");
+        if (pool.isDirect())
+            throw new IllegalArgumentException("stream reads need a heap buffer pool");
+        _in           = new DataInputStream(in);
+        _pool         = pool;
+        _maxFrameSize = FrameCodec.requireMaxFrameSize(maxFrameSize);
+    }
+
+    // === Public API ===
+    // Reads: the next frame's payload (position 0, limit = length), or null if the stream ended between frames
+    public ByteBuffer read() throws IOException {
+        int first = _in.read();
+        if (first < 0)
+            return null;
+        int length = (first << 24) | (_in.readUnsignedByte() << 16) | (_in.readUnsignedByte() << 8) | _in.readUnsignedByte();
+        FrameCodec.checkLength(length, _maxFrameSize);
+
+        ByteBuffer payload = _pool.acquire(length);
+        _in.readFully(payload.array(), payload.arrayOffset(), length);
+        return payload;
+    }
+
+    // Puts: a payload returned by read() back in the pool
+    public void release(ByteBuffer payload) {
+        _pool.release(payload);
+    }
+
+    // Closes: the underlying stream
+    @Override
+    public void close() throws IOException {
+        _in.close();
+    }
+}
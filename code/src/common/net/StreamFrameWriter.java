@@ -0,0 +1,72 @@
+package common.net;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+
+/**
+ * Writes length-prefixed frames to a blocking OutputStream.
+ * Frames are buffered; call flush() once a batch of frames (e.g. one response) is complete.
+ */
+public class StreamFrameWriter implements AutoCloseable {
+
+    // === Constants ===
+    private static final int BUFFER_SIZE = 8_192;
+
+    // === Fields ===
+    private DataOutputStream _out;
+    private int              _maxFrameSize;
+    private byte[]           _scratch;        // copies direct-buffer payloads; created on first use
+
+    // === Constructors ===
+    // Creates: a writer that refuses to send frames over maxFrameSize bytes
+    public StreamFrameWriter(OutputStream out, int maxFrameSize) {
+        if (out == null)
+            throw new IllegalArgumentException("out is required");
+        _out          = new DataOutputStream(new BufferedOutputStream(out, BUFFER_SIZE));
+        _maxFrameSize = FrameCodec.requireMaxFrameSize(maxFrameSize);
+    }
+
+    // === Public API ===
+    // Writes: one frame holding data[offset, offset + length)
+    public void write(byte[] data, int offset, int length) throws IOException {
+        FrameCodec.checkLength(length, _maxFrameSize);
+        _out.writeInt(length);
+        _out.write(data, offset, length);
+    }
+
+    // Writes: one frame holding all of data
+    public void write(byte[] data) throws IOException {
+        write(data, 0, data.length);
+    }
+
+    // Writes: one frame holding the payload's remaining bytes; the payload's position is left unchanged
+    public void write(ByteBuffer payload) throws IOException {
+        int length = payload.remaining();
+        if (payload.hasArray()) {
+            write(payload.array(), payload.arrayOffset() + payload.position(), length);
+            return;
+        }
+
+        FrameCodec.checkLength(length, _maxFrameSize);
+        _out.writeInt(length);
+        if (_scratch == null)
+            _scratch = new byte[BUFFER_SIZE];
+        ByteBuffer view = payload.duplicate();
+        while (view.hasRemaining()) {
+            int n = Math.min(_scratch.length, view.remaining());
+            view.get(_scratch, 0, n);
+            _out.write(_scratch, 0, n);
+        }
+    }
+
+    // Sends: every buffered frame
+    public void flush() throws IOException {
+        _out.flush();
+    }
+
+    // Closes: after flushing, the underlying stream
+    @Override
+    public void close() throws IOException {
+        _out.close();
+    }
+}
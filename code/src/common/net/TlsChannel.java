@@ -0,0 +1,240 @@
+package common.net;
+
+import javax.net.ssl.*;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ByteChannel;
+import java.nio.channels.SocketChannel;
+
+/**
+ * A SocketChannel with TLS: read() and write() carry plaintext, and the SSLEngine's handshake, wrapping and
+ * unwrapping happen underneath. Works with blocking and non-blocking channels; with a selector:
+ * - read() may return 0 while the handshake is still in progress, and may leave decrypted bytes behind when
+ *   dst fills — keep reading while hasBufferedInput() is true, because the selector will not fire for them;
+ * - write() may accept fewer bytes than offered — when hasPendingOutput() is true, wait for OP_WRITE and call
+ *   flush() (or write() again).
+ * Handshake computations run inline on the calling thread, which is why resumed sessions matter to a
+ * selector thread serving many clients. Not thread-safe: one selector thread per channel, as usual.
+ */
+public class TlsChannel implements ByteChannel {
+
+    // === Constants ===
+    private static final ByteBuffer EMPTY = ByteBuffer.allocate(0);     // wraps handshake data, drives unwraps
+
+    // === Fields ===
+    private SocketChannel _channel;
+    private SSLEngine     _engine;
+    private ByteBuffer    _netIn;       // ciphertext read from the socket, not yet unwrapped (fill mode)
+    private ByteBuffer    _netOut;      // ciphertext wrapped, not yet written (drain mode)
+    private ByteBuffer    _appIn;       // plaintext unwrapped, not yet returned (drain mode)
+    private boolean       _inboundDone;
+
+    // === Constructors ===
+    // Creates: a TLS channel over a connected socket channel; see TlsSupport.createServerEngine/createClientEngine
+    public TlsChannel(SocketChannel channel, SSLEngine engine) {
+        if (channel == null || engine == null)
+            throw new IllegalArgumentException("channel and engine are required");
+        _channel = channel;
+        _engine  = engine;
+
+        SSLSession session = engine.getSession();
+        _netIn  = ByteBuffer.allocate(session.getPacketBufferSize());
+        _netOut = ByteBuffer.allocate(session.getPacketBufferSize()).flip();
+        _appIn  = ByteBuffer.allocate(session.getApplicationBufferSize()).flip();
+    }
+
+    // === Public API ===
+    // Reads: plaintext into dst; returns the byte count, 0 if more ciphertext (or a writable socket) is needed,
+    //        -1 once the peer has closed
+    @Override
+    public int read(ByteBuffer dst) throws IOException {
+        while (true) {
+            if (_appIn.hasRemaining())
+                return transfer(_appIn, dst);
+            if (_inboundDone)
+                return -1;
+            if (!flush())
+                return 0;                                  // handshake output must go out first (wait for OP_WRITE)
+            if (!dst.hasRemaining() && _engine.getHandshakeStatus() != SSLEngineResult.HandshakeStatus.NEED_UNWRAP)
+                return 0;                                  // write() driving the handshake: done, do not block
+
+            _netIn.flip();
+            SSLEngineResult result;
+            _appIn.compact();
+            try {
+                result = _engine.unwrap(_netIn, _appIn);
+            }
+            finally {
+                _appIn.flip();
+                _netIn.compact();
+            }
+
+            switch (result.getStatus()) {
+                case OK:
+                    break;                                 // plaintext, or handshake progress — go round again
+                case CLOSED:
+                    _inboundDone = true;
+                    break;
+                case BUFFER_OVERFLOW:
+                    _appIn = grow(_appIn, _engine.getSession().getApplicationBufferSize(), true);
+                    break;
+                case BUFFER_UNDERFLOW:
+                    if (_netIn.capacity() < _engine.getSession().getPacketBufferSize())
+                        _netIn = grow(_netIn, _engine.getSession().getPacketBufferSize(), false);
+                    int n = _channel.read(_netIn);
+                    if (n < 0) {
+                        _inboundDone = true;
+                        try {
+                            _engine.closeInbound();            // peer closed without close_notify
+                        }
+                        catch (SSLException e) {
+                            // truncation is reported as end of stream
+                        }
+                        return _appIn.hasRemaining() ? transfer(_appIn, dst) : -1;
+                    }
+                    if (n == 0)
+                        return 0;
+                    break;
+            }
+        }
+    }
+
+    // Writes: plaintext from src; returns how many bytes were taken (possibly fewer than offered, see flush)
+    @Override
+    public int write(ByteBuffer src) throws IOException {
+        int taken = 0;
+        while (src.hasRemaining()) {
+            if (!flush())
+                break;
+
+            if (_engine.getHandshakeStatus() == SSLEngineResult.HandshakeStatus.NEED_UNWRAP) {
+                if (read(EMPTY) < 0)                       // drives the handshake; any plaintext stays buffered
+                    throw new IOException("connection closed during handshake");
+                if (_engine.getHandshakeStatus() == SSLEngineResult.HandshakeStatus.NEED_UNWRAP)
+                    break;                                 // waiting on the peer
+                continue;
+            }
+            taken += wrap(src);
+        }
+        flush();
+        return taken;
+    }
+
+    // Sends: wrapped ciphertext still waiting for the socket, and any further handshake messages the engine
+    //        has to send; true once nothing is left (call on OP_WRITE)
+    public boolean flush() throws IOException {
+        while (true) {
+            if (!send())
+                return false;
+
+            SSLEngineResult.HandshakeStatus hs = _engine.getHandshakeStatus();
+            if (hs == SSLEngineResult.HandshakeStatus.NEED_TASK) {
+                runTasks();
+            }
+            else if (hs == SSLEngineResult.HandshakeStatus.NEED_WRAP) {
+                if (wrap(EMPTY) == 0 && !_netOut.hasRemaining())
+                    return true;                           // nothing more to say (e.g. outbound closed)
+            }
+            else {
+                return true;
+            }
+        }
+    }
+
+    // Gets: whether ciphertext is waiting for the socket to accept it (register OP_WRITE)
+    public boolean hasPendingOutput() { return _netOut.hasRemaining(); }
+
+    // Gets: whether decrypted or received bytes are waiting that the selector will not announce
+    public boolean hasBufferedInput() { return _appIn.hasRemaining() || _netIn.position() > 0; }
+
+    // Gets: the TLS session (protocol, cipher suite, peer certificates)
+    public SSLSession getSession() { return _engine.getSession(); }
+
+    @Override
+    public boolean isOpen() { return _channel.isOpen(); }
+
+    // Closes: sends close_notify if the socket will take it, then closes the socket
+    @Override
+    public void close() throws IOException {
+        try {
+            _engine.closeOutbound();
+            flush();                                       // wraps and sends close_notify
+        }
+        catch (IOException e) {
+            // closing anyway
+        }
+        finally {
+            _channel.close();
+        }
+    }
+
+    // === Helpers ===
+    // Writes: _netOut to the socket; true once it is empty
+    private boolean send() throws IOException {
+        while (_netOut.hasRemaining()) {
+            if (_channel.write(_netOut) == 0)
+                return false;
+        }
+        return true;
+    }
+
+    // Wraps: plaintext (or handshake data when src is EMPTY) into _netOut; returns bytes taken
+    private int wrap(ByteBuffer src) throws IOException {
+        while (true) {
+            _netOut.compact();
+            SSLEngineResult result;
+            try {
+                result = _engine.wrap(src, _netOut);
+            }
+            finally {
+                _netOut.flip();
+            }
+
+            switch (result.getStatus()) {
+                case OK:
+                    if (result.getHandshakeStatus() == SSLEngineResult.HandshakeStatus.NEED_TASK)
+                        runTasks();
+                    return result.bytesConsumed();
+                case BUFFER_OVERFLOW:
+                    if (!send() && _netOut.capacity() - _netOut.remaining() < _engine.getSession().getPacketBufferSize())
+                        _netOut = grow(_netOut, _engine.getSession().getPacketBufferSize(), true);
+                    continue;
+                case CLOSED:
+                    if (src != EMPTY)
+                        throw new SSLException("TLS connection closed");
+                    return 0;
+                default:
+                    throw new SSLException("unexpected wrap status " + result.getStatus());
+            }
+        }
+    }
+
+    // Runs: the engine's delegated handshake computations on this thread
+    private void runTasks() {
+        Runnable task;
+        while ((task = _engine.getDelegatedTask()) != null)
+            task.run();
+    }
+
+    // Copies: as much of src into dst as fits; returns the count
+    private static int transfer(ByteBuffer src, ByteBuffer dst) {
+        int n = Math.min(src.remaining(), dst.remaining());
+        dst.put(dst.position(), src, src.position(), n);
+        dst.position(dst.position() + n);
+        src.position(src.position() + n);
+        return n;
+    }
+
+    // Grows: a buffer by at least extra bytes, keeping its contents and mode (drain = flipped)
+    private static ByteBuffer grow(ByteBuffer buffer, int extra, boolean drainMode) {
+        ByteBuffer bigger = ByteBuffer.allocate(buffer.capacity() + extra);
+        if (drainMode) {
+            bigger.put(buffer).flip();
+        }
+        else {
+            buffer.flip();
+            bigger.put(buffer);
+        }
+        return bigger;
+    }
+}
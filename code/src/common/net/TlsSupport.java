@@ -0,0 +1,192 @@
+package common.net;
+
+import javax.net.ssl.*;
+import java.io.*;
+import java.net.*;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.file.*;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+
+/**
+ * The shared socket bootstrap for servers and clients: opens plain TCP or TLS sockets from one configuration.
+ * TLS is switched on with system properties (-Dtls.keystore=... -Dtls.password=... on servers,
+ * -Dtls.truststore=... on clients), so every server and client runs unchanged either way.
+ * One SSLContext is shared per JVM: its session caches let a client that reconnects (retries, one connection
+ * per request) resume the earlier session with an abbreviated handshake instead of a full key exchange.
+ */
+public final class TlsSupport {
+
+    // === Constants ===
+    public static final String KEYSTORE_PROPERTY   = "tls.keystore";
+    public static final String TRUSTSTORE_PROPERTY = "tls.truststore";
+    public static final String PASSWORD_PROPERTY   = "tls.password";
+
+    private static final String[] PROTOCOLS               = { "TLSv1.3", "TLSv1.2" };
+    private static final int      SESSION_CACHE_SIZE      = 20_000;
+    private static final int      SESSION_TIMEOUT_SECONDS = 4 * 3_600;
+
+    private static final TlsSupport PLAIN = new TlsSupport(null, PROTOCOLS);
+    private static volatile TlsSupport _shared;
+
+    // === Fields ===
+    private SSLContext _context;          // null: plain TCP
+    private String[]   _protocols;
+
+    // === Constructors ===
+    private TlsSupport(SSLContext context, String[] protocols) {
+        _context   = context;
+        _protocols = protocols;
+        if (context != null) {
+            configure(context.getServerSessionContext());
+            configure(context.getClientSessionContext());
+        }
+    }
+
+    // Gets: plain TCP — no encryption
+    public static TlsSupport plain() {
+        return PLAIN;
+    }
+
+    // Creates: TLS from PKCS12 key and trust stores; keyStore (the server's certificate and key) may be null on
+    //          clients, trustStore may be null to use the JDK's default trusted CAs; keep one instance per process
+    public static TlsSupport fromKeyStores(Path keyStore, Path trustStore, char[] password) throws IOException {
+        return fromKeyStores(keyStore, trustStore, password, PROTOCOLS);
+    }
+
+    // Creates: TLS as above, limited to the given protocol versions (e.g. "TLSv1.2" to compare handshakes)
+    public static TlsSupport fromKeyStores(Path keyStore, Path trustStore, char[] password, String... protocols)
+            throws IOException {
+        try {
+            KeyManager[] keys = null;
+            if (keyStore != null) {
+                KeyManagerFactory kmf = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+                kmf.init(load(keyStore, password), password);
+                keys = kmf.getKeyManagers();
+            }
+
+            TrustManager[] trust = null;
+            if (trustStore != null) {
+                TrustManagerFactory tmf = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+                tmf.init(load(trustStore, password));
+                trust = tmf.getTrustManagers();
+            }
+
+            SSLContext context = SSLContext.getInstance("TLS");
+            context.init(keys, trust, null);
+            return new TlsSupport(context, protocols.clone());
+        }
+        catch (GeneralSecurityException e) {
+            throw new IOException("cannot set up TLS: " + e.getMessage(), e);
+        }
+    }
+
+    // Gets: the process-wide configuration from the tls.* system properties — plain TCP when neither
+    //       tls.keystore nor tls.truststore is set; built once, so every connection shares its session cache
+    public static TlsSupport fromSystemProperties() throws IOException {
+        TlsSupport shared = _shared;
+        if (shared == null) {
+            synchronized (TlsSupport.class) {
+                if (_shared == null) {
+                    String keyStore   = System.getProperty(KEYSTORE_PROPERTY);
+                    String trustStore = System.getProperty(TRUSTSTORE_PROPERTY);
+                    String password   = System.getProperty(PASSWORD_PROPERTY, "");
+                    _shared = (keyStore == null && trustStore == null) ? PLAIN
+                            : fromKeyStores(keyStore   == null ? null : Path.of(keyStore),
+                                            trustStore == null ? null : Path.of(trustStore), password.toCharArray());
+                }
+                shared = _shared;
+            }
+        }
+        return shared;
+    }
+
+    // === Public API ===
+    public boolean isEnabled() { return _context != null; }
+
+    // Opens: a listening socket — TLS, or a plain socket backed by a ServerSocketChannel so accepted sockets
+    //        have channels (servers that transferTo a socket keep their zero-copy path when TLS is off)
+    public ServerSocket openServerSocket(int port) throws IOException {
+        if (_context == null) {
+            ServerSocketChannel channel = ServerSocketChannel.open();
+            channel.bind(new InetSocketAddress(port));
+            return channel.socket();
+        }
+
+        SSLServerSocket socket = (SSLServerSocket) _context.getServerSocketFactory().createServerSocket(port);
+        socket.setEnabledProtocols(_protocols);
+        return socket;
+    }
+
+    // Accepts: the next client with TCP_NODELAY on — request/response lines and TLS handshake flights are small
+    //          writes that Nagle's algorithm would otherwise hold back waiting for delayed ACKs
+    public static Socket accept(ServerSocket server) throws IOException {
+        Socket client = server.accept();
+        client.setTcpNoDelay(true);
+        return client;
+    }
+
+    // Connects: to a server, verifying its certificate matches the host name when TLS is on; the handshake
+    //           (resumed when this process has a live session with host:port) runs on first use of the streams
+    public Socket connect(String host, int port) throws IOException {
+        Socket socket = (_context == null) ? new Socket(host, port)
+                                           : _context.getSocketFactory().createSocket(host, port);
+        socket.setTcpNoDelay(true);           // see accept()
+        if (socket instanceof SSLSocket)
+            ((SSLSocket) socket).setSSLParameters(clientParameters(((SSLSocket) socket).getSSLParameters()));
+        return socket;
+    }
+
+    // Creates: a server-side SSLEngine, for NIO servers (see TlsChannel)
+    public SSLEngine createServerEngine() {
+        requireEnabled();
+        SSLEngine engine = _context.createSSLEngine();
+        engine.setUseClientMode(false);
+        engine.setEnabledProtocols(_protocols);
+        return engine;
+    }
+
+    // Creates: a client-side SSLEngine for the given peer; host and port key the session cache, so pass the
+    //          same values on every reconnect to resume
+    public SSLEngine createClientEngine(String host, int port) {
+        requireEnabled();
+        SSLEngine engine = _context.createSSLEngine(host, port);
+        engine.setUseClientMode(true);
+        engine.setSSLParameters(clientParameters(engine.getSSLParameters()));
+        return engine;
+    }
+
+    @Override
+    public String toString() {
+        return (_context == null) ? "TlsSupport{plain}" : "TlsSupport{" + String.join("/", _protocols) + "}";
+    }
+
+    // === Helpers ===
+    // Sets: the protocol versions and host-name verification for a client connection
+    private SSLParameters clientParameters(SSLParameters params) {
+        params.setProtocols(_protocols);
+        params.setEndpointIdentificationAlgorithm("HTTPS");
+        return params;
+    }
+
+    // Sizes: a session cache so resumable sessions outlive short connections
+    private static void configure(SSLSessionContext sessions) {
+        sessions.setSessionCacheSize(SESSION_CACHE_SIZE);
+        sessions.setSessionTimeout(SESSION_TIMEOUT_SECONDS);
+    }
+
+    // Loads: a PKCS12 store
+    private static KeyStore load(Path path, char[] password) throws IOException, GeneralSecurityException {
+        KeyStore store = KeyStore.getInstance("PKCS12");
+        try (InputStream in = Files.newInputStream(path)) {
+            store.load(in, password);
+        }
+        return store;
+    }
+
+    // Checks: TLS is on before handing out an engine
+    private void requireEnabled() {
+        if (_context == null)
+            throw new IllegalStateException("TLS is not enabled");
+    }
+}
@@ -0,0 +1,54 @@
+package t14_concurrency.exercises.e02;
+
+class DeliveryTask implements Runnable {
+
+    private String   _orderId;
+    private String   _destination;
+    private int      _steps;
+    private Priority _priority;
+
+    public DeliveryTask(String orderId, String destination, int steps) {
+        this(orderId, destination, steps, Priority.STANDARD);
+    }
+
+    public DeliveryTask(String orderId, String destination, int steps, Priority priority) {
+        if (orderId == null || orderId.isBlank())
+            throw new IllegalArgumentException("orderId is required");
+        if (destination == null || destination.isBlank())
+            throw new IllegalArgumentException("destination is required");
+        if (steps < 1)
+            throw new IllegalArgumentException("steps must be >= 1");
+        if (priority == null)
+            throw new IllegalArgumentException("priority is required");
+
+        _orderId     = orderId;
+        _destination = destination;
+        _steps       = steps;
+        _priority    = priority;
+    }
+
+    public String   getOrderId()     { return _orderId; }
+    public String   getDestination() { return _destination; }
+    public Priority getPriority()    { return _priority; }
+
+    @Override
+    public void run() {
+        String name = Thread.currentThread().getName();
+
+        for (int i = 1; i <= _steps; i++) {
+            System.out.println("[" + name + "] Order " + _orderId
+                + ": step " + i + "/" + _steps + " \u2192 " + _destination);
+
+            try {
+                Thread.sleep(200);
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+
+        System.out.println("[" + name + "] Order " + _orderId
+            + ": DELIVERED to " + _destination);
+    }
+}
@@ -0,0 +1,396 @@
+package t14_concurrency.exercises.e02;
+
+import common.LatencyHistogram;
+import common.concurrent.MpmcRingBuffer;
+import common.concurrent.RateLimitedExecutor;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+// Runs: delivery tasks on a work-stealing ForkJoinPool, taken from three bounded priority lanes.
+//       Every dispatch queues the task in its lane and submits one "pull" to the pool; a worker running a pull
+//       takes whichever task is due next, so priority is decided when a worker frees up, not at submission.
+//       Lanes are served by weight (express 6 : standard 3 : bulk 1) so bulk work still moves under load,
+//       and at most maxPerDestination tasks for one destination run at once — the rest wait their turn.
+//       As an Executor it also takes tasks wrapped by a RateLimitedExecutor, so a limiter can sit in front of it.
+class Dispatcher implements Executor {
+
+    // === Constants ===
+    private static final int DEFAULT_LANE_CAPACITY   = 10_000;
+    private static final int DEFAULT_PER_DESTINATION = 2;
+    private static final int WEIGHT_TOTAL            = sumOfWeights();
+
+    // === Fields ===
+    private ForkJoinPool                    _pool;
+    private Lane[]                          _lanes;
+    private int                             _maxPerDestination;
+    private ConcurrentHashMap<String, Gate> _gates      = new ConcurrentHashMap<>();
+    private AtomicLong                      _tickets    = new AtomicLong();      // drives the weighted lane choice
+    private AtomicLong                      _seq        = new AtomicLong();      // FIFO order among held tasks
+    private AtomicInteger                   _inFlight   = new AtomicInteger();   // dispatch calls under way
+    private volatile boolean                _accepting  = true;
+    private long                            _startNanos = System.nanoTime();
+
+    // === Constructors ===
+    public Dispatcher() {
+        this(Runtime.getRuntime().availableProcessors(), DEFAULT_LANE_CAPACITY, DEFAULT_PER_DESTINATION);
+    }
+
+    // Creates: a dispatcher with `workers` pool threads, lanes holding at most laneCapacity waiting tasks each,
+    //          and at most maxPerDestination tasks running per destination
+    public Dispatcher(int workers, int laneCapacity, int maxPerDestination) {
+        if (workers < 1)
+            throw new IllegalArgumentException("workers must be >= 1");
+        if (laneCapacity < 1)
+            throw new IllegalArgumentException("laneCapacity must be >= 1");
+        if (maxPerDestination < 1)
+            throw new IllegalArgumentException("maxPerDestination must be >= 1");
+
+        // asyncMode: tasks that are never joined run FIFO per worker, which suits fire-and-forget pulls
+        _pool              = new ForkJoinPool(workers, ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, true);
+        _maxPerDestination = maxPerDestination;
+        _lanes             = new Lane[Priority.values().length];
+        for (Priority p : Priority.values())
+            _lanes[p.ordinal()] = new Lane(laneCapacity);
+    }
+
+    // === Public API ===
+    // Queues: one task in its priority lane; throws RejectedExecutionException when the lane is full
+    //         or the dispatcher is shut down
+    public void dispatch(DeliveryTask task) {
+        if (task == null)
+            throw new IllegalArgumentException("task is required");
+        dispatch(task, task);
+    }
+
+    // Queues: a DeliveryTask, or a wrapper around one (see RateLimitedExecutor.unwrap); the wrapper is what
+    //         runs, the task inside decides its lane and destination
+    @Override
+    public void execute(Runnable command) {
+        if (command == null)
+            throw new IllegalArgumentException("command is required");
+        Runnable task = RateLimitedExecutor.unwrap(command);
+        if (!(task instanceof DeliveryTask))
+            throw new IllegalArgumentException("not a delivery task: " + task);
+        dispatch((DeliveryTask) task, command);
+    }
+
+    // Queues: a batch all-or-nothing — if any lane lacks room for its share, nothing is queued and
+    //         RejectedExecutionException is thrown; returns the number of tasks queued
+    public int dispatchAll(Collection<DeliveryTask> tasks) {
+        if (tasks == null)
+            throw new IllegalArgumentException("tasks is required");
+
+        int[] perLane = new int[_lanes.length];
+        for (DeliveryTask task : tasks) {
+            if (task == null)
+                throw new IllegalArgumentException("tasks must not contain null");
+            perLane[task.getPriority().ordinal()]++;
+        }
+
+        enter();
+        try {
+            for (int i = 0; i < _lanes.length; i++) {
+                if (!_lanes[i].reserve(perLane[i])) {
+                    for (int j = 0; j < i; j++)
+                        _lanes[j].unreserve(perLane[j]);
+                    throw new RejectedExecutionException(Priority.values()[i] + " lane has no room for "
+                                                         + perLane[i] + " tasks");
+                }
+            }
+
+            for (DeliveryTask task : tasks)
+                enqueue(_lanes[task.getPriority().ordinal()], task, task);
+            for (int i = 0; i < tasks.size(); i++)
+                _pool.execute(this::pull);
+            return tasks.size();
+        }
+        finally {
+            _inFlight.decrementAndGet();
+        }
+    }
+
+    // Stops: accepting tasks, lets queued ones finish, and waits up to 10s before interrupting the rest.
+    //        The pool is shut down only once no dispatch is between its accepting check and its pull
+    //        submission, so a task that was let in always gets a pull and is never stranded in its lane
+    public void shutdown() throws InterruptedException {
+        _accepting = false;
+        while (_inFlight.get() > 0)
+            Thread.yield();
+        _pool.shutdown();
+        if (!_pool.awaitTermination(10, TimeUnit.SECONDS))
+            _pool.shutdownNow();
+    }
+
+    // Gets: a snapshot of one lane's counters and queue-wait latencies
+    public LaneMetrics getMetrics(Priority priority) {
+        return _lanes[priority.ordinal()].snapshot(priority, System.nanoTime() - _startNanos);
+    }
+
+    // Gets: a table of every lane's metrics, for printing
+    public String metricsReport() {
+        StringBuilder sb = new StringBuilder(String.format("%-9s %9s %9s %9s %7s %9s %10s %10s %10s%n",
+            "Lane", "Queued", "Done", "Failed", "Reject", "Tasks/s", "Wait mean", "Wait p99", "Wait max"));
+        for (Priority p : Priority.values())
+            sb.append(getMetrics(p)).append('\n');
+        return sb.toString();
+    }
+
+    // === Helpers ===
+    private void dispatch(DeliveryTask task, Runnable action) {
+        enter();
+        try {
+            Lane lane = _lanes[task.getPriority().ordinal()];
+            if (!lane.reserve(1))
+                throw new RejectedExecutionException(task.getPriority() + " lane is full");
+            enqueue(lane, task, action);
+            _pool.execute(this::pull);
+        }
+        finally {
+            _inFlight.decrementAndGet();
+        }
+    }
+
+    // Registers: a dispatch under way, or rejects it once shutdown has begun; pair with _inFlight.decrementAndGet().
+    //            Counting before checking means shutdown either sees this dispatch in flight or it sees the flag
+    private void enter() {
+        _inFlight.incrementAndGet();
+        if (!_accepting) {
+            _inFlight.decrementAndGet();
+            throw new RejectedExecutionException("dispatcher is shut down");
+        }
+    }
+
+    // Adds: a task whose lane slot is already reserved
+    private void enqueue(Lane lane, DeliveryTask task, Runnable action) {
+        lane._queue.add(new Entry(task, action, _seq.incrementAndGet(), System.nanoTime()));
+    }
+
+    // Runs: on a pool worker — takes the next task due and runs it, unless its destination is at its cap,
+    //       in which case it waits at the destination's gate and a finishing task for that destination runs it
+    private void pull() {
+        Entry entry = next();
+        if (entry == null)
+            return;                                        // cannot happen: one pull is submitted per task
+        if (!acquire(entry))
+            return;
+
+        // Runs: this task, then hands the destination slot straight to the next waiting task, if any
+        while (entry != null) {
+            run(entry);
+            entry = releaseOrNext(entry._task.getDestination());
+        }
+    }
+
+    // Takes: a running slot at the entry's destination gate, or holds the entry there; gates are only touched
+    //        inside the map's per-key atomic section, so an idle gate can be removed without losing a holder
+    private boolean acquire(Entry entry) {
+        boolean[] acquired = new boolean[1];
+        _gates.compute(entry._task.getDestination(), (destination, gate) -> {
+            if (gate == null)
+                gate = new Gate();
+            acquired[0] = gate.tryAcquire(entry, _maxPerDestination);
+            return gate;
+        });
+        return acquired[0];
+    }
+
+    // Passes: a finished task's slot to the next entry held at the gate, removing the gate once it is idle
+    private Entry releaseOrNext(String destination) {
+        Entry[] next = new Entry[1];
+        _gates.computeIfPresent(destination, (d, gate) -> {
+            next[0] = gate.releaseOrNext();
+            return gate.isIdle() ? null : gate;
+        });
+        return next[0];
+    }
+
+    // Picks: a lane by weight from a rotating ticket, falling back to the others in priority order
+    private Entry next() {
+        int ticket = (int) (_tickets.getAndIncrement() % WEIGHT_TOTAL);
+        int preferred = 0;
+        for (Priority p : Priority.values()) {
+            if (ticket < p.getWeight()) {
+                preferred = p.ordinal();
+                break;
+            }
+            ticket -= p.getWeight();
+        }
+
+        Entry entry = _lanes[preferred]._queue.poll();
+        for (int i = 0; entry == null && i < _lanes.length; i++)
+            entry = _lanes[i]._queue.poll();
+        return entry;
+    }
+
+    // Runs: one task and records its lane's metrics; a task that throws is counted, not propagated
+    private void run(Entry entry) {
+        Lane lane  = _lanes[entry._task.getPriority().ordinal()];
+        long start = System.nanoTime();
+        lane.started(start - entry._queuedAt);
+        try {
+            entry._action.run();
+            lane._completed.increment();
+        }
+        catch (RuntimeException e) {
+            lane._failed.increment();
+            System.out.println("Delivery " + entry._task.getOrderId() + " failed: " + e.getMessage());
+        }
+    }
+
+    private static int sumOfWeights() {
+        int total = 0;
+        for (Priority p : Priority.values())
+            total += p.getWeight();
+        return total;
+    }
+
+    // Holds: one queued task with its arrival order and time
+    private static class Entry implements Comparable<Entry> {
+
+        private DeliveryTask _task;
+        private Runnable     _action;          // the task, or a wrapper around it
+        private long         _seq;
+        private long         _queuedAt;
+
+        private Entry(DeliveryTask task, Runnable action, long seq, long queuedAt) {
+            _task     = task;
+            _action   = action;
+            _seq      = seq;
+            _queuedAt = queuedAt;
+        }
+
+        // Orders: by priority, then arrival
+        @Override
+        public int compareTo(Entry other) {
+            int byPriority = _task.getPriority().compareTo(other._task.getPriority());
+            return (byPriority != 0) ? byPriority : Long.compare(_seq, other._seq);
+        }
+    }
+
+    // Holds: one priority lane — its queue, the count of tasks waiting to start (bounded), and its metrics
+    private static class Lane {
+
+        private int                   _capacity;
+        private MpmcRingBuffer<Entry> _queue;                                      // never fuller than _waiting
+        private AtomicInteger         _waiting   = new AtomicInteger();            // queued or held at a gate
+        private LongAdder             _completed = new LongAdder();
+        private LongAdder             _failed    = new LongAdder();
+        private LongAdder             _rejected  = new LongAdder();
+        private LatencyHistogram      _wait      = new LatencyHistogram();         // guarded by this
+
+        private Lane(int capacity) {
+            _capacity = capacity;
+            _queue    = new MpmcRingBuffer<>(capacity);
+        }
+
+        // Claims: room for n tasks; a task keeps its slot until it starts, including while held at a gate
+        private boolean reserve(int n) {
+            if (n == 0)
+                return true;
+            while (true) {
+                int waiting = _waiting.get();
+                if (waiting + n > _capacity) {
+                    _rejected.add(n);
+                    return false;
+                }
+                if (_waiting.compareAndSet(waiting, waiting + n))
+                    return true;
+            }
+        }
+
+        private void unreserve(int n) {
+            _waiting.addAndGet(-n);
+        }
+
+        // Records: a task leaving the lane after waiting the given time
+        private void started(long waitNanos) {
+            _waiting.decrementAndGet();
+            synchronized (this) {
+                _wait.record(waitNanos);
+            }
+        }
+
+        private synchronized LaneMetrics snapshot(Priority priority, long elapsedNanos) {
+            return new LaneMetrics(priority, _waiting.get(), _completed.sum(), _failed.sum(), _rejected.sum(),
+                                   _completed.sum() / (elapsedNanos / 1e9),
+                                   (_wait.getCount() == 0) ? 0 : _wait.getMeanNanos(),
+                                   _wait.percentileNanos(99), _wait.getMaxNanos());
+        }
+    }
+
+    // Limits: how many tasks for one destination run at once; later ones wait here, express first.
+    //         Guarded by the _gates map: only used inside compute for its destination
+    private static class Gate {
+
+        private int                  _running;
+        private PriorityQueue<Entry> _held = new PriorityQueue<>();
+
+        // Takes: a running slot, or holds the entry until one frees up
+        private boolean tryAcquire(Entry entry, int max) {
+            if (_running < max) {
+                _running++;
+                return true;
+            }
+            _held.add(entry);
+            return false;
+        }
+
+        // Passes: the finished task's slot to the next held entry, or frees it when none is waiting
+        private Entry releaseOrNext() {
+            Entry next = _held.poll();
+            if (next == null)
+                _running--;
+            return next;
+        }
+
+        // Checks: nothing is running or held, so the gate can be dropped
+        private boolean isIdle() {
+            return _running == 0 && _held.isEmpty();
+        }
+    }
+
+    // Holds: a point-in-time view of one lane
+    public static class LaneMetrics {
+
+        private Priority _priority;
+        private int      _waiting;
+        private long     _completed;
+        private long     _failed;
+        private long     _rejected;
+        private double   _throughput;
+        private double   _meanWaitNanos;
+        private long     _p99WaitNanos;
+        private long     _maxWaitNanos;
+
+        private LaneMetrics(Priority priority, int waiting, long completed, long failed, long rejected,
+                            double throughput, double meanWaitNanos, long p99WaitNanos, long maxWaitNanos) {
+            _priority      = priority;
+            _waiting       = waiting;
+            _completed     = completed;
+            _failed        = failed;
+            _rejected      = rejected;
+            _throughput    = throughput;
+            _meanWaitNanos = meanWaitNanos;
+            _p99WaitNanos  = p99WaitNanos;
+            _maxWaitNanos  = maxWaitNanos;
+        }
+
+        public Priority getPriority()      { return _priority; }
+        public int      getWaiting()       { return _waiting; }
+        public long     getCompleted()     { return _completed; }
+        public long     getFailed()        { return _failed; }
+        public long     getRejected()      { return _rejected; }
+        public double   getThroughput()    { return _throughput; }        // completed per second since creation
+        public double   getMeanWaitNanos() { return _meanWaitNanos; }
+        public long     getP99WaitNanos()  { return _p99WaitNanos; }
+        public long     getMaxWaitNanos()  { return _maxWaitNanos; }
+
+        @Override
+        public String toString() {
+            return String.format("%-9s %9d %9d %9d %7d %9.1f %8.1fms %8.1fms %8.1fms", _priority, _waiting,
+                _completed, _failed, _rejected, _throughput, _meanWaitNanos / 1e6, _p99WaitNanos / 1e6,
+                _maxWaitNanos / 1e6);
+        }
+    }
+}
@@ -1,81 +1,82 @@
 package t14_concurrency.exercises.e02;
 
+import common.concurrent.CircuitBreaker;
+import common.concurrent.RateLimitedExecutor;
+import java.time.Duration;
+import java.util.List;
 import java.util.concurrent.*;
 
 public class Exercise {
 
     public static void run() throws Exception {
-        Dispatcher dispatcher = new Dispatcher();
+        Dispatcher dispatcher = new Dispatcher(3, 100, 1);
 
         dispatcher.dispatch(new DeliveryTask("ORD-001", "Cork",     2));
-        dispatcher.dispatch(new DeliveryTask("ORD-002", "Dublin",   1));
+        dispatcher.dispatch(new DeliveryTask("ORD-002", "Dublin",   1, Priority.BULK));
         dispatcher.dispatch(new DeliveryTask("ORD-003", "Sligo",    3));
-        dispatcher.dispatch(new DeliveryTask("ORD-004", "Galway",   2));
-        dispatcher.dispatch(new DeliveryTask("ORD-005", "Limerick", 1));
+        dispatcher.dispatchAll(List.of(
+            new DeliveryTask("ORD-004", "Galway",   2, Priority.EXPRESS),
+            new DeliveryTask("ORD-005", "Limerick", 1, Priority.EXPRESS),
+            new DeliveryTask("ORD-006", "Cork",     1, Priority.EXPRESS)      // waits: one Cork delivery at a time
+        ));
 
         dispatcher.shutdown();
         System.out.println("All deliveries complete");
-    }
-}
-
-class Dispatcher {
+        System.out.print(dispatcher.metricsReport());
 
-    private ExecutorService _pool;
-
-    public Dispatcher() {
-        _pool = Executors.newCachedThreadPool();
+        runThrottled();
     }
 
-    public void dispatch(DeliveryTask task) {
-        if (task == null)
-            throw new IllegalArgumentException("task is required");
-        _pool.submit(task);
-    }
+    // Runs: bookings through a limiter in front of a dispatcher — courier APIs allow 2 bookings a second per
+    //       destination, flaky bookings are retried with backoff, and a destination that keeps failing is cut off
+    private static void runThrottled() throws Exception {
+        ScheduledExecutorService timer      = Executors.newSingleThreadScheduledExecutor();
+        Dispatcher               dispatcher = new Dispatcher(3, 100, 2);
+        RateLimitedExecutor      limiter    = new RateLimitedExecutor(dispatcher, timer,
+            task -> ((DeliveryTask) task).getDestination(), 2.0, 1);
+        limiter.setRetry(3, Duration.ofMillis(100), Duration.ofSeconds(1), e -> true);
+        limiter.setCircuitBreaker(2, Duration.ofSeconds(5));
+        limiter.setGiveUpHandler((task, error) ->
+            System.out.println("Gave up on " + ((DeliveryTask) task).getOrderId() + ": " + error.getMessage()));
+
+        for (int i = 1; i <= 4; i++)
+            limiter.execute(new DeliveryTask("ORD-01" + i, "Cork", 1));
+        limiter.execute(new FlakyDeliveryTask("ORD-020", "Ennis",  1, 1));      // fails once, then delivers
+        limiter.execute(new FlakyDeliveryTask("ORD-021", "Tralee", 1, 10));     // the courier API is down
+
+        while (limiter.getBreakerState("Tralee") != CircuitBreaker.State.OPEN)
+            Thread.sleep(50);
+        try {
+            limiter.execute(new DeliveryTask("ORD-022", "Tralee", 1));
+        }
+        catch (RejectedExecutionException e) {
+            System.out.println("ORD-022 shed: " + e.getMessage());
+        }
 
-    public void shutdown() throws InterruptedException {
-        _pool.shutdown();
-        if (!_pool.awaitTermination(10, TimeUnit.SECONDS))
-            _pool.shutdownNow();
+        while (limiter.getOutstanding() > 0)
+            Thread.sleep(50);
+        timer.shutdown();
+        dispatcher.shutdown();
+        System.out.println("Limiter: " + limiter);
     }
 }
 
-class DeliveryTask implements Runnable {
-
-    private String _orderId;
-    private String _destination;
-    private int _steps;
+// Fails: the first `failures` runs, as a courier API that times out would
+class FlakyDeliveryTask extends DeliveryTask {
 
-    public DeliveryTask(String orderId, String destination, int steps) {
-        if (orderId == null || orderId.isBlank())
-            throw new IllegalArgumentException("orderId is required");
-        if (destination == null || destination.isBlank())
-            throw new IllegalArgumentException("destination is required");
-        if (steps < 1)
-            throw new IllegalArgumentException("steps must be >= 1");
+    private int _failuresLeft;
 
-        _orderId     = orderId;
-        _destination = destination;
-        _steps       = steps;
+    public FlakyDeliveryTask(String orderId, String destination, int steps, int failures) {
+        super(orderId, destination, steps);
+        _failuresLeft = failures;
     }
 
     @Override
     public void run() {
-        String name = Thread.currentThread().getName();
-
-        for (int i = 1; i <= _steps; i++) {
-            System.out.println("[" + name + "] Order " + _orderId
-                + ": step " + i + "/" + _steps + " \u2192 " + _destination);
-
-            try {
-                Thread.sleep(200);
-            }
-            catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                return;
-            }
+        if (_failuresLeft > 0) {
+            _failuresLeft--;
+            throw new IllegalStateException("courier API timed out for " + getOrderId());
         }
-
-        System.out.println("[" + name + "] Order " + _orderId
-            + ": DELIVERED to " + _destination);
+        super.run();
     }
 }
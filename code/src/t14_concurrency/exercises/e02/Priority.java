@@ -0,0 +1,17 @@
+package t14_concurrency.exercises.e02;
+
+// Ranks: delivery lanes, most urgent first; the weight is a lane's share of pulls when every lane has work
+enum Priority {
+
+    EXPRESS(6),
+    STANDARD(3),
+    BULK(1);
+
+    private int _weight;
+
+    Priority(int weight) {
+        _weight = weight;
+    }
+
+    public int getWeight() { return _weight; }
+}
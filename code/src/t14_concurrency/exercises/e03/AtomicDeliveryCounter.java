@@ -0,0 +1,20 @@
+package t14_concurrency.exercises.e03;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// Counts: with one AtomicLong — a lock-free CAS instead of a monitor, but every thread still updates the same
+//         cache line, so it stops scaling once several cores increment at once
+class AtomicDeliveryCounter implements EventCounter {
+
+    private AtomicLong _total = new AtomicLong();
+
+    @Override
+    public void add(long n) {
+        _total.addAndGet(n);
+    }
+
+    @Override
+    public long sum() {
+        return _total.get();
+    }
+}
@@ -0,0 +1,108 @@
+package t14_concurrency.exercises.e03;
+
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+public class CounterBenchmark {
+
+    // === Constants ===
+    private static final int[]    THREADS      = { 1, 2, 4, 8, 16, 32, 64 };
+    private static final long     WARM_UP_MS   = 200;
+    private static final long     MEASURE_MS   = 500;
+    private static final String[] DESTINATIONS = { "Cork", "Dublin", "Galway", "Limerick",
+                                                   "Sligo", "Kilkenny", "Waterford", "Derry" };
+
+    // === Entry point ===
+    // Runs: every counter under 1 to 64 threads that do nothing but increment, and prints millions of
+    //       increments per second; each run also checks the counter's total against the increments made
+    public static void main(String[] args) throws Exception {
+        Map<String, Supplier<EventCounter>> counters = new LinkedHashMap<>();
+        counters.put("synchronized",  SynchronizedDeliveryCounter::new);
+        counters.put("AtomicLong",    AtomicDeliveryCounter::new);
+        counters.put("striped",       StripedDeliveryCounter::new);
+        counters.put("LongAdder",     () -> {
+            LongAdder adder = new LongAdder();
+            return new EventCounter() {
+                @Override public void add(long n) { adder.add(n); }
+                @Override public long sum()       { return adder.sum(); }
+            };
+        });
+        counters.put("per-thread",    ThreadLocalDeliveryCounter::new);
+        counters.put("keyed (8 keys)", () -> {
+            KeyedDeliveryCounter keyed = new KeyedDeliveryCounter();
+            ThreadLocal<String>  key   = ThreadLocal.withInitial(
+                () -> DESTINATIONS[(int) (Thread.currentThread().threadId() % DESTINATIONS.length)]);
+            return new EventCounter() {
+                @Override public void add(long n) { keyed.add(key.get(), n); }
+                @Override public long sum()       { return keyed.sum(); }
+            };
+        });
+
+        System.out.printf("Mops/s on %d CPU(s)%n%-15s", Runtime.getRuntime().availableProcessors(), "Counter");
+        for (int threads : THREADS)
+            System.out.printf(" %8s", threads + "T");
+        System.out.println();
+
+        for (Map.Entry<String, Supplier<EventCounter>> entry : counters.entrySet()) {
+            System.out.printf("%-15s", entry.getKey());
+            for (int threads : THREADS) {
+                measure(entry.getValue().get(), threads, WARM_UP_MS);
+                System.out.printf(" %8.1f", measure(entry.getValue().get(), threads, MEASURE_MS) / 1e6);
+            }
+            System.out.println();
+        }
+    }
+
+    // === Helpers ===
+    // Measures: increments per second with the given number of threads hammering one counter
+    private static double measure(EventCounter counter, int threads, long millis) throws InterruptedException {
+        long[]         ops   = new long[threads];
+        CountDownLatch ready = new CountDownLatch(threads);
+        CountDownLatch go    = new CountDownLatch(1);
+        Thread[]       ts    = new Thread[threads];
+        StopFlag       done  = new StopFlag();
+
+        for (int t = 0; t < threads; t++) {
+            int id = t;
+            ts[t] = new Thread(() -> {
+                ready.countDown();
+                try {
+                    go.await();
+                }
+                catch (InterruptedException e) {
+                    return;
+                }
+                long n = 0;
+                while (!done._stop) {
+                    counter.increment();
+                    n++;
+                }
+                ops[id] = n;
+            });
+            ts[t].start();
+        }
+
+        ready.await();
+        long start = System.nanoTime();
+        go.countDown();
+        Thread.sleep(millis);
+        done._stop = true;
+        for (Thread t : ts)
+            t.join();
+        long elapsed = System.nanoTime() - start;
+
+        long total = 0;
+        for (long n : ops)
+            total += n;
+        if (counter.sum() != total)
+            throw new IllegalStateException("counter lost updates: " + counter.sum() + " != " + total);
+        return total / (elapsed / 1e9);
+    }
+
+    // Signals: the measuring threads to stop
+    private static class StopFlag {
+        private volatile boolean _stop;
+    }
+}
@@ -0,0 +1,16 @@
+package t14_concurrency.exercises.e03;
+
+// NOT thread-safe: ++ is read-modify-write — two threads can read the same value,
+// both add 1, and write back the same result, losing one increment.
+class DeliveryCounter {
+
+    private int _total = 0;
+
+    public void increment() {
+        _total++;
+    }
+
+    public int getTotal() {
+        return _total;
+    }
+}
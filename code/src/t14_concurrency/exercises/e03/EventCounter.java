@@ -0,0 +1,14 @@
+package t14_concurrency.exercises.e03;
+
+// Counts: events from many threads; implementations trade read cost and freshness for cheaper increments
+interface EventCounter {
+
+    // Adds: one event
+    default void increment() { add(1); }
+
+    // Adds: n events
+    void add(long n);
+
+    // Gets: the total so far — exact once writers have stopped (and their pool has terminated)
+    long sum();
+}
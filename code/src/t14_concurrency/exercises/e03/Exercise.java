@@ -1,9 +1,14 @@
 package t14_concurrency.exercises.e03;
 
+import common.concurrent.InstrumentedExecutor;
+import common.concurrent.ThreadPools;
+import java.util.List;
 import java.util.concurrent.*;
 
 public class Exercise {
 
+    private static final int QUEUE_CAPACITY = 1_024;      // submitting faster than this waits for the workers
+
     public static void run() throws Exception {
 
         DeliveryCounter unsafe = new DeliveryCounter();
@@ -11,13 +16,13 @@ public class Exercise {
 
         int tasks = 5_000;
 
-        ExecutorService poolA = Executors.newFixedThreadPool(8);
+        InstrumentedExecutor poolA = newPool("unsafe");
         for (int i = 0; i < tasks; i++)
             poolA.submit(unsafe::increment);
         poolA.shutdown();
         poolA.awaitTermination(10, TimeUnit.SECONDS);
 
-        ExecutorService poolB = Executors.newFixedThreadPool(8);
+        InstrumentedExecutor poolB = newPool("synchronized");
         for (int i = 0; i < tasks; i++)
             poolB.submit(safe::increment);
         poolB.shutdown();
@@ -25,33 +30,37 @@ public class Exercise {
 
         System.out.println("Unsafe total   (expected " + tasks + "): " + unsafe.getTotal());
         System.out.println("Safe total     (expected " + tasks + "): " + safe.getTotal());
-    }
-}
-
-// NOT thread-safe: ++ is read-modify-write — two threads can read the same value,
-// both add 1, and write back the same result, losing one increment.
-class DeliveryCounter {
-
-    private int _total = 0;
-
-    public void increment() {
-        _total++;
-    }
-
-    public int getTotal() {
-        return _total;
-    }
-}
-
-class SynchronizedDeliveryCounter {
-
-    private int _total = 0;
 
-    public synchronized void increment() {
-        _total++;
+        // Lock-free alternatives, plus per-destination totals, under the same load
+        EventCounter[] counters = { new AtomicDeliveryCounter(), new StripedDeliveryCounter(),
+                                    new ThreadLocalDeliveryCounter() };
+        KeyedDeliveryCounter perDestination = new KeyedDeliveryCounter();
+        String[]             destinations   = { "Cork", "Dublin", "Galway", "Limerick" };
+
+        InstrumentedExecutor poolC = newPool("lock-free");
+        for (int i = 0; i < tasks; i++) {
+            String destination = destinations[i % destinations.length];
+            poolC.submit(() -> {
+                for (EventCounter c : counters)
+                    c.increment();
+                perDestination.increment(destination);
+            });
+        }
+        poolC.shutdown();
+        poolC.awaitTermination(10, TimeUnit.SECONDS);
+
+        for (EventCounter c : counters)
+            System.out.printf("%-15s(expected %d): %d%n", c.getClass().getSimpleName().replace("DeliveryCounter", ""),
+                tasks, c.sum());
+        System.out.println("Per destination: " + perDestination.snapshot());
+
+        // Eight threads is a guess; the pool metrics show whether the tasks queued, waited or blocked
+        for (InstrumentedExecutor pool : List.of(poolA, poolB, poolC))
+            System.out.println(pool.getMetrics());
     }
 
-    public synchronized int getTotal() {
-        return _total;
+    // Creates: a fixed pool of 8 workers that records its own metrics
+    private static InstrumentedExecutor newPool(String name) {
+        return new InstrumentedExecutor(name, ThreadPools.newFixedThreadPool(8, QUEUE_CAPACITY));
     }
 }
@@ -0,0 +1,49 @@
+package t14_concurrency.exercises.e03;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// Counts: per key (e.g. per destination) — a LongAdder per key in a ConcurrentHashMap, so increments to
+//         different keys never contend and increments to one busy key still spread over cells
+class KeyedDeliveryCounter {
+
+    private ConcurrentHashMap<String, LongAdder> _counts = new ConcurrentHashMap<>();
+
+    // Adds: one event for the key
+    public void increment(String key) {
+        add(key, 1);
+    }
+
+    // Adds: n events for the key
+    public void add(String key, long n) {
+        if (key == null)
+            throw new IllegalArgumentException("key is required");
+        LongAdder adder = _counts.get(key);                       // plain get first: no bin lock once the key exists
+        if (adder == null)
+            adder = _counts.computeIfAbsent(key, k -> new LongAdder());
+        adder.add(n);
+    }
+
+    // Gets: the total for one key (0 if never counted)
+    public long get(String key) {
+        LongAdder adder = _counts.get(key);
+        return (adder == null) ? 0 : adder.sum();
+    }
+
+    // Gets: the total across every key
+    public long sum() {
+        long total = 0;
+        for (LongAdder adder : _counts.values())
+            total += adder.sum();
+        return total;
+    }
+
+    // Gets: every key's total, sorted by key
+    public Map<String, Long> snapshot() {
+        Map<String, Long> snapshot = new TreeMap<>();
+        _counts.forEach((key, adder) -> snapshot.put(key, adder.sum()));
+        return snapshot;
+    }
+}
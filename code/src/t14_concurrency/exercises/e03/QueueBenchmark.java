@@ -0,0 +1,166 @@
+package t14_concurrency.exercises.e03;
+
+import common.concurrent.MpmcRingBuffer;
+import common.concurrent.ThreadPools;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+public class QueueBenchmark {
+
+    // === Constants ===
+    private static final int[][] PAIRS    = { { 1, 1 }, { 2, 2 }, { 4, 4 }, { 8, 8 }, { 4, 1 }, { 1, 4 } };
+    private static final int     CAPACITY = 1_024;
+    private static final int     ITEMS    = 2_000_000;     // per run; divisible by every thread count above
+    private static final int     BATCH    = 256;           // most a draining consumer takes at once
+    private static final int     TASKS    = 1_000_000;     // per pool run
+    private static final int     ROUNDS   = 3;             // best of, after one warm-up round
+
+    // === Entry point ===
+    // Runs: producers putting and consumers taking ITEMS elements through each queue, printing millions of
+    //       hand-offs per second per producer:consumer mix; then fixed pools of 4 workers, one per queue,
+    //       running tiny tasks submitted by 1 and 4 threads
+    public static void main(String[] args) throws Exception {
+        Map<String, Supplier<BlockingQueue<Integer>>> queues = new LinkedHashMap<>();
+        queues.put("ArrayBlockingQueue",  () -> new ArrayBlockingQueue<>(CAPACITY));
+        queues.put("LinkedBlockingQueue", () -> new LinkedBlockingQueue<>(CAPACITY));
+        queues.put("ring, spin+park",     () -> new MpmcRingBuffer<>(CAPACITY));
+        queues.put("ring, park",          () -> new MpmcRingBuffer<>(CAPACITY, MpmcRingBuffer.WaitStrategy.PARK));
+        queues.put("ring, drain " + BATCH, () -> new MpmcRingBuffer<>(CAPACITY));
+
+        System.out.printf("Queue hand-offs, Mops/s on %d CPU(s), capacity %,d%n%-22s",
+            Runtime.getRuntime().availableProcessors(), CAPACITY, "P:C");
+        for (int[] pair : PAIRS)
+            System.out.printf(" %7s", pair[0] + ":" + pair[1]);
+        System.out.println();
+
+        for (Map.Entry<String, Supplier<BlockingQueue<Integer>>> entry : queues.entrySet()) {
+            boolean drains = entry.getKey().startsWith("ring, drain");
+            System.out.printf("%-22s", entry.getKey());
+            for (int[] pair : PAIRS)
+                System.out.printf(" %7.1f", best(() -> handOffs(entry.getValue().get(), pair[0], pair[1], drains)));
+            System.out.println();
+        }
+
+        System.out.printf("%nFixed pool of 4 workers, %,d empty tasks, Mtasks/s%n%-22s %7s %7s%n",
+            TASKS, "Queue", "1 sub", "4 sub");
+        Map<String, Supplier<BlockingQueue<Runnable>>> taskQueues = new LinkedHashMap<>();
+        taskQueues.put("ArrayBlockingQueue",  () -> new ArrayBlockingQueue<>(CAPACITY));
+        taskQueues.put("LinkedBlockingQueue", LinkedBlockingQueue::new);      // as Executors.newFixedThreadPool
+        taskQueues.put("ring, spin+park",     () -> new MpmcRingBuffer<>(CAPACITY));
+        for (Map.Entry<String, Supplier<BlockingQueue<Runnable>>> entry : taskQueues.entrySet())
+            System.out.printf("%-22s %7.1f %7.1f%n", entry.getKey(),
+                best(() -> poolTasks(entry.getValue().get(), 1)), best(() -> poolTasks(entry.getValue().get(), 4)));
+    }
+
+    // === Helpers ===
+    // Measures: the best of ROUNDS timed runs after a warm-up, in millions per second
+    private static double best(Callable<Double> run) throws Exception {
+        run.call();
+        double best = 0;
+        for (int i = 0; i < ROUNDS; i++)
+            best = Math.max(best, run.call());
+        return best / 1e6;
+    }
+
+    // Measures: elements per second moved from `producers` threads putting to `consumers` threads taking (or
+    //           draining in batches); checks every element arrived exactly once by comparing sums
+    private static double handOffs(BlockingQueue<Integer> queue, int producers, int consumers, boolean drains)
+            throws Exception {
+        CountDownLatch start    = new CountDownLatch(1);
+        LongAdder      received = new LongAdder();
+        List<Thread>   threads  = new ArrayList<>();
+
+        int perProducer = ITEMS / producers;
+        for (int p = 0; p < producers; p++) {
+            int first = p * perProducer;
+            threads.add(Thread.ofPlatform().start(() -> {
+                await(start);
+                try {
+                    for (int i = 0; i < perProducer; i++)
+                        queue.put(first + i);
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+        }
+
+        int perConsumer = ITEMS / consumers;
+        for (int c = 0; c < consumers; c++) {
+            threads.add(Thread.ofPlatform().start(() -> {
+                await(start);
+                long sum = 0;
+                try {
+                    if (drains) {
+                        MpmcRingBuffer<Integer> ring  = (MpmcRingBuffer<Integer>) queue;
+                        long[]                  batch = new long[1];
+                        for (int left = perConsumer; left > 0; ) {
+                            batch[0] = 0;
+                            int n = ring.drain(e -> batch[0] += e, Math.min(BATCH, left));
+                            if (n == 0) {
+                                batch[0] = ring.take();          // nothing ready: wait for one
+                                n = 1;
+                            }
+                            sum  += batch[0];
+                            left -= n;
+                        }
+                    }
+                    else {
+                        for (int i = 0; i < perConsumer; i++)
+                            sum += queue.take();
+                    }
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                received.add(sum);
+            }));
+        }
+
+        long began = System.nanoTime();
+        start.countDown();
+        for (Thread t : threads)
+            t.join();
+        long elapsed = System.nanoTime() - began;
+
+        long expected = (long) ITEMS * (ITEMS - 1) / 2;
+        if (received.sum() != expected)
+            throw new IllegalStateException(queue.getClass().getSimpleName() + " lost or duplicated elements");
+        return ITEMS / (elapsed / 1e9);
+    }
+
+    // Measures: tasks per second through a 4-worker pool on the queue, submitted from `submitters` threads
+    private static double poolTasks(BlockingQueue<Runnable> queue, int submitters) throws Exception {
+        ThreadPoolExecutor pool = ThreadPools.newFixedThreadPool(4, queue);    // submitters wait for room
+        pool.prestartAllCoreThreads();
+
+        CountDownLatch done    = new CountDownLatch(TASKS);
+        Runnable       task    = done::countDown;
+        List<Thread>   threads = new ArrayList<>();
+        long           began   = System.nanoTime();
+        for (int s = 0; s < submitters; s++)
+            threads.add(Thread.ofPlatform().start(() -> {
+                for (int i = 0; i < TASKS / submitters; i++)
+                    pool.execute(task);
+            }));
+        for (Thread t : threads)
+            t.join();
+        done.await();
+        long elapsed = System.nanoTime() - began;
+
+        pool.shutdown();
+        pool.awaitTermination(10, TimeUnit.SECONDS);
+        return TASKS / (elapsed / 1e9);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package t14_concurrency.exercises.e03;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Counts: LongAdder-style — until two threads first collide, every add is one CAS on the first cell; after
+//         that threads add into one of several cells, each on its own cache line, and sum() adds the cells up.
+//         A thread that loses a CAS moves to another cell, so busy threads spread out.
+//         Increments scale with cores; sum() costs one read per cell and is not an atomic snapshot.
+class StripedDeliveryCounter implements EventCounter {
+
+    // === Constants ===
+    private static final int PAD = 16;                        // longs per cell: 128 bytes covers adjacent-line prefetch
+
+    // === Fields ===
+    private AtomicLongArray    _cells;
+    private int                _mask;
+    private volatile boolean   _contended;
+    private ThreadLocal<int[]> _slot = ThreadLocal.withInitial(() -> new int[] { ThreadLocalRandom.current().nextInt() });
+
+    // === Constructors ===
+    public StripedDeliveryCounter() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    // Creates: a counter with enough cells for the given number of concurrently incrementing threads
+    public StripedDeliveryCounter(int stripes) {
+        if (stripes < 1)
+            throw new IllegalArgumentException("stripes must be >= 1");
+        int cells = Integer.highestOneBit(Math.max(1, stripes * 2 - 1));     // next power of two
+        _cells = new AtomicLongArray(cells * PAD);
+        _mask  = cells - 1;
+    }
+
+    // === Public API ===
+    @Override
+    public void add(long n) {
+        if (!_contended) {
+            long base = _cells.get(0);
+            if (_cells.compareAndSet(0, base, base + n))
+                return;
+            _contended = true;                                  // from now on, spread over the cells
+        }
+
+        int[] slot = _slot.get();                              // the thread's current cell choice
+        int   i    = (slot[0] & _mask) * PAD;
+        long  v    = _cells.get(i);
+        if (!_cells.compareAndSet(i, v, v + n)) {
+            slot[0] = ThreadLocalRandom.current().nextInt();    // contended: try another cell next time
+            _cells.addAndGet(i, n);
+        }
+    }
+
+    @Override
+    public long sum() {
+        long total = 0;
+        for (int i = 0; i < _cells.length(); i += PAD)
+            total += _cells.get(i);
+        return total;
+    }
+}
@@ -0,0 +1,27 @@
+package t14_concurrency.exercises.e03;
+
+// Thread-safe, but every increment takes the same monitor — under contention threads queue for the lock.
+// See AtomicDeliveryCounter, StripedDeliveryCounter and ThreadLocalDeliveryCounter for cheaper increments.
+class SynchronizedDeliveryCounter implements EventCounter {
+
+    private long _total = 0;
+
+    @Override
+    public synchronized void increment() {
+        _total++;
+    }
+
+    @Override
+    public synchronized void add(long n) {
+        _total += n;
+    }
+
+    public synchronized long getTotal() {
+        return _total;
+    }
+
+    @Override
+    public long sum() {
+        return getTotal();
+    }
+}
@@ -0,0 +1,75 @@
+package t14_concurrency.exercises.e03;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+// Counts: in a private cell per thread — an increment is a plain add with no CAS and no shared cache line.
+//         sum() merges every cell; cells of threads that have ended are folded into a base total and dropped,
+//         so short-lived threads do not pile up. While writers run, sum() may trail by their latest increments.
+class ThreadLocalDeliveryCounter implements EventCounter {
+
+    // === Constants ===
+    private static final VarHandle VALUE;
+
+    static {
+        try {
+            VALUE = MethodHandles.lookup().findVarHandle(Cell.class, "_value", long.class);
+        }
+        catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    // === Fields ===
+    private ThreadLocal<Cell> _cell  = ThreadLocal.withInitial(this::register);
+    private List<Cell>        _cells = new ArrayList<>();     // guarded by this
+    private long              _base;                          // totals of ended threads; guarded by this
+
+    // === Public API ===
+    @Override
+    public void add(long n) {
+        Cell cell = _cell.get();
+        VALUE.setOpaque(cell, cell._value + n);               // only the owner writes; opaque keeps it visible to sum()
+    }
+
+    // Merges: every thread's cell; folds and forgets cells whose thread has ended
+    @Override
+    public synchronized long sum() {
+        long live = 0;
+        Iterator<Cell> it = _cells.iterator();
+        while (it.hasNext()) {
+            Cell cell = it.next();
+            if (!cell._owner.isAlive()) {
+                _base += (long) VALUE.getOpaque(cell);     // ended: its last write happens-before isAlive() is false
+                it.remove();
+            }
+            else {
+                live += (long) VALUE.getOpaque(cell);
+            }
+        }
+        return _base + live;
+    }
+
+    // === Helpers ===
+    private synchronized Cell register() {
+        Cell cell = new Cell(Thread.currentThread());
+        _cells.add(cell);
+        return cell;
+    }
+
+    // Holds: one thread's running count, padded so neighbouring cells do not share a cache line
+    private static class Cell {
+
+        private long   _p1, _p2, _p3, _p4, _p5, _p6, _p7;
+        private long   _value;
+        private long   _q1, _q2, _q3, _q4, _q5, _q6, _q7;
+        private Thread _owner;
+
+        private Cell(Thread owner) {
+            _owner = owner;
+        }
+    }
+}
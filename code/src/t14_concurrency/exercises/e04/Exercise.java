@@ -1,24 +1,46 @@
 package t14_concurrency.exercises.e04;
 
+import common.concurrent.AsyncTasks;
+import common.concurrent.InstrumentedExecutor;
+import common.concurrent.ThreadPools;
 import java.util.concurrent.*;
 
 public class Exercise {
 
+    private static final double FALLBACK_RATE = 3.25;      // flat per-km quote when an estimate is too slow
+
     public static void run() throws Exception {
-        ExecutorService pool = Executors.newFixedThreadPool(2);
+        InstrumentedExecutor pool = new InstrumentedExecutor("estimates", ThreadPools.newFixedThreadPool(3, 16));
 
-        Future<Double> f1 = pool.submit(new CostEstimateTask("ORD-001", 2.50, 45));
-        Future<Double> f2 = pool.submit(new CostEstimateTask("ORD-002", 3.00, 29));
+        // Estimates run in parallel; each is printed as soon as it is ready rather than in submission order,
+        // and one that misses its deadline is interrupted and replaced by a flat-rate quote
+        CompletableFuture<Double> f1 = estimate(pool, new CostEstimateTask("ORD-001", 2.50, 45));
+        CompletableFuture<Double> f2 = estimate(pool, new CostEstimateTask("ORD-002", 3.00, 29));
+        CompletableFuture<Double> f3 = estimate(pool, new CostEstimateTask("ORD-003", 2.75, 60, 3_000));
 
         System.out.println("Main thread: estimates submitted");
 
-        double cost1 = f1.get();
-        double cost2 = f2.get();
-
-        System.out.printf("ORD-001 cost estimate: \u20ac%.2f%n", cost1);
-        System.out.printf("ORD-002 cost estimate: \u20ac%.2f%n", cost2);
+        double total = f1.thenCombine(f2, Double::sum).thenCombine(f3, Double::sum).join();
+        System.out.printf("Total estimate: \u20ac%.2f%n", total);
 
         pool.shutdown();
+        pool.awaitTermination(5, TimeUnit.SECONDS);
+        System.out.println(pool.getMetrics());
+    }
+
+    // Starts: one estimate with a 1s deadline, printing it when it completes
+    private static CompletableFuture<Double> estimate(ExecutorService pool, CostEstimateTask task) {
+        CompletableFuture<Double> cost = AsyncTasks.withTimeout(AsyncTasks.supply(task, pool), 1, TimeUnit.SECONDS,
+            error -> {
+                System.out.println(task.getOrderId() + " estimate unavailable ("
+                    + error.getClass().getSimpleName() + "), quoting the flat rate");
+                return FALLBACK_RATE * task.getDistance();
+            });
+
+        return cost.thenApply(c -> {
+            System.out.printf("%s cost estimate: \u20ac%.2f%n", task.getOrderId(), c);
+            return c;
+        });
     }
 }
 
@@ -26,24 +48,36 @@ class CostEstimateTask implements Callable<Double> {
 
     private String _orderId;
     private double _baseRate;
-    private int _distance;
+    private int    _distance;
+    private long   _latencyMillis;
 
     public CostEstimateTask(String orderId, double baseRate, int distance) {
+        this(orderId, baseRate, distance, 500);
+    }
+
+    // Creates: an estimate that takes latencyMillis to compute (to simulate a slow pricing service)
+    public CostEstimateTask(String orderId, double baseRate, int distance, long latencyMillis) {
         if (orderId == null || orderId.isBlank())
             throw new IllegalArgumentException("orderId is required");
         if (baseRate <= 0)
             throw new IllegalArgumentException("baseRate must be > 0");
         if (distance < 1)
             throw new IllegalArgumentException("distance must be >= 1");
+        if (latencyMillis < 0)
+            throw new IllegalArgumentException("latencyMillis must be >= 0");
 
-        _orderId  = orderId;
-        _baseRate = baseRate;
-        _distance = distance;
+        _orderId       = orderId;
+        _baseRate      = baseRate;
+        _distance      = distance;
+        _latencyMillis = latencyMillis;
     }
 
+    public String getOrderId()  { return _orderId; }
+    public int    getDistance() { return _distance; }
+
     @Override
     public Double call() throws InterruptedException {
-        Thread.sleep(500);
+        Thread.sleep(_latencyMillis);
         System.out.println("[" + Thread.currentThread().getName() + "] Estimating " + _orderId + "...");
         return _baseRate * _distance;
     }
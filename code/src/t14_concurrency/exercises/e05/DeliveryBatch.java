@@ -0,0 +1,55 @@
+package t14_concurrency.exercises.e05;
+
+import common.concurrent.TaskScope;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+
+// Runs: a batch of delivery jobs in a task scope, one virtual thread per job, within a deadline.
+//       A batch never leaves threads behind: when it fails, succeeds early or runs out of time, the remaining
+//       jobs are interrupted and the call returns only once they have stopped.
+class DeliveryBatch {
+
+    // Runs: every job; all results in job order, or ExecutionException with the first failure as soon as any
+    //       job fails (the rest are cancelled); TimeoutException if the deadline passes first
+    public static List<DeliveryResult> runAll(List<DeliveryJob> jobs, Duration timeout)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        requireJobs(jobs, timeout);
+
+        try (TaskScope.ShutdownOnFailure scope = new TaskScope.ShutdownOnFailure()) {
+            List<TaskScope.Subtask<DeliveryResult>> subtasks = new ArrayList<>();
+            for (DeliveryJob job : jobs)
+                subtasks.add(scope.fork(job));
+
+            scope.joinUntil(Instant.now().plus(timeout)).throwIfFailed();
+
+            List<DeliveryResult> results = new ArrayList<>();
+            for (TaskScope.Subtask<DeliveryResult> subtask : subtasks)
+                results.add(subtask.get());
+            return results;
+        }
+    }
+
+    // Runs: interchangeable jobs (e.g. the same order offered to several depots) and returns the first to
+    //       succeed, cancelling the others; ExecutionException if every one fails
+    public static DeliveryResult runFirst(List<DeliveryJob> jobs, Duration timeout)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        requireJobs(jobs, timeout);
+
+        try (TaskScope.ShutdownOnSuccess<DeliveryResult> scope = new TaskScope.ShutdownOnSuccess<>()) {
+            for (DeliveryJob job : jobs)
+                scope.fork(job);
+            return scope.joinUntil(Instant.now().plus(timeout)).result();
+        }
+    }
+
+    private static void requireJobs(List<DeliveryJob> jobs, Duration timeout) {
+        if (jobs == null || jobs.isEmpty())
+            throw new IllegalArgumentException("jobs are required");
+        if (timeout == null || timeout.isNegative() || timeout.isZero())
+            throw new IllegalArgumentException("timeout must be > 0");
+    }
+}
@@ -0,0 +1,52 @@
+package t14_concurrency.exercises.e05;
+
+import java.util.concurrent.Callable;
+
+class DeliveryJob implements Callable<DeliveryResult> {
+
+    private String  _orderId;
+    private String  _destination;
+    private double  _cost;
+    private long    _latencyMillis;
+    private boolean _fails;
+
+    public DeliveryJob(String orderId, String destination, double cost) {
+        this(orderId, destination, cost, 300);
+    }
+
+    // Creates: a job that takes latencyMillis to complete
+    public DeliveryJob(String orderId, String destination, double cost, long latencyMillis) {
+        this(orderId, destination, cost, latencyMillis, false);
+    }
+
+    // Creates: a job that takes latencyMillis, then fails if `fails` is set (no courier could take it)
+    public DeliveryJob(String orderId, String destination, double cost, long latencyMillis, boolean fails) {
+        if (orderId == null || orderId.isBlank())
+            throw new IllegalArgumentException("orderId is required");
+        if (destination == null || destination.isBlank())
+            throw new IllegalArgumentException("destination is required");
+        if (cost <= 0)
+            throw new IllegalArgumentException("cost must be > 0");
+        if (latencyMillis < 0)
+            throw new IllegalArgumentException("latencyMillis must be >= 0");
+
+        _orderId       = orderId;
+        _destination   = destination;
+        _cost          = cost;
+        _latencyMillis = latencyMillis;
+        _fails         = fails;
+    }
+
+    public String getOrderId()     { return _orderId; }
+    public String getDestination() { return _destination; }
+
+    @Override
+    public DeliveryResult call() throws InterruptedException {
+        Thread.sleep(_latencyMillis);
+        if (_fails)
+            throw new IllegalStateException("no courier available for " + _orderId + " \u2192 " + _destination);
+        System.out.println("[" + Thread.currentThread().getName() + "] Completing "
+            + _orderId + " \u2192 " + _destination);
+        return new DeliveryResult(_orderId, _destination, _cost, true);
+    }
+}
@@ -0,0 +1,21 @@
+package t14_concurrency.exercises.e05;
+
+class DeliveryResult {
+
+    private String _orderId;
+    private String _destination;
+    private double _cost;
+    private boolean _success;
+
+    public DeliveryResult(String orderId, String destination, double cost, boolean success) {
+        _orderId     = orderId;
+        _destination = destination;
+        _cost        = cost;
+        _success     = success;
+    }
+
+    public String orderId()     { return _orderId; }
+    public String destination() { return _destination; }
+    public double cost()        { return _cost; }
+    public boolean success()    { return _success; }
+}
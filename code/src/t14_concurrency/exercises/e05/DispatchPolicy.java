@@ -0,0 +1,21 @@
+package t14_concurrency.exercises.e05;
+
+import java.util.Comparator;
+
+// Orders: waiting jobs — which one a free worker takes next
+enum DispatchPolicy {
+
+    FIFO(Comparator.comparingLong(SimulatedJob::getSeq)),
+    LIFO(Comparator.comparingLong(SimulatedJob::getSeq).reversed()),
+    SHORTEST_FIRST(Comparator.comparingLong(SimulatedJob::getServiceNanos).thenComparingLong(SimulatedJob::getSeq)),
+    HIGHEST_VALUE_FIRST(Comparator.comparingDouble(SimulatedJob::getValue).reversed()
+                                  .thenComparingLong(SimulatedJob::getSeq));
+
+    private Comparator<SimulatedJob> _order;
+
+    DispatchPolicy(Comparator<SimulatedJob> order) {
+        _order = order;
+    }
+
+    public Comparator<SimulatedJob> getOrder() { return _order; }
+}
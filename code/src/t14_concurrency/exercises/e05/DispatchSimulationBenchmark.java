@@ -0,0 +1,38 @@
+package t14_concurrency.exercises.e05;
+
+public class DispatchSimulationBenchmark {
+
+    // === Constants ===
+    private static final long   JOBS       = 1_000_000;
+    private static final int    WORKERS    = 16;
+    private static final double SERVICE_MS = 300;                        // DeliveryJob's 300ms, on average
+    private static final double LOAD       = 0.9;
+    private static final double ARRIVAL_MS = SERVICE_MS / (WORKERS * LOAD);
+    private static final long   SEED       = 42;
+
+    // === Entry point ===
+    // Runs: a million simulated deliveries per case at 90% load — every dispatch policy under Poisson arrivals
+    //       with log-normal service times, then bursty arrivals, then a bounded queue that sheds load —
+    //       and prints throughput, wait and end-to-end percentiles and the queue depth over time
+    public static void main(String[] args) {
+        long jobs = (args.length > 0) ? Long.parseLong(args[0]) : JOBS;
+
+        for (DispatchPolicy policy : DispatchPolicy.values())
+            print(new DispatchSimulator(WORKERS, Distribution.exponential(ARRIVAL_MS),
+                                        Distribution.logNormal(SERVICE_MS, 1.0), policy, SEED).run(jobs), false);
+
+        print(new DispatchSimulator(WORKERS, Distribution.bursty(ARRIVAL_MS, 200),
+                                    Distribution.logNormal(SERVICE_MS, 1.0), DispatchPolicy.FIFO, SEED).run(jobs), true);
+
+        print(new DispatchSimulator(WORKERS, Distribution.bursty(ARRIVAL_MS, 200),
+                                    Distribution.logNormal(SERVICE_MS, 1.0), DispatchPolicy.FIFO, 500, SEED).run(jobs), true);
+    }
+
+    // === Helpers ===
+    private static void print(DispatchSimulator.SimulationReport report, boolean timeline) {
+        System.out.println(report);
+        if (timeline)
+            System.out.print(report.timelineString());
+        System.out.println();
+    }
+}
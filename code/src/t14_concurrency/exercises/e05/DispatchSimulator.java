@@ -0,0 +1,277 @@
+package t14_concurrency.exercises.e05;
+
+import common.LatencyHistogram;
+import java.util.*;
+
+// Simulates: a dispatcher with a fixed set of workers serving delivery jobs, on an EventScheduler instead of
+//            sleeping threads — millions of jobs run in seconds. Jobs arrive with gaps drawn from one
+//            distribution, take a service time drawn from another, wait in a queue ordered by the policy while
+//            every worker is busy, and are rejected once the queue is full. Runs are reproducible from the seed.
+class DispatchSimulator {
+
+    // === Constants ===
+    private static final int TIMELINE_BUCKETS = 20;       // queue-depth rows over the expected run time
+
+    // === Fields ===
+    private int                         _workers;
+    private Distribution                _arrivals;
+    private Distribution                _service;
+    private Distribution                _value;
+    private DispatchPolicy              _policy;
+    private int                         _maxQueue;
+    private SplittableRandom            _random;
+
+    // per-run state
+    private EventScheduler              _scheduler;
+    private PriorityQueue<SimulatedJob> _queue;
+    private int                         _idle;
+    private long                        _remaining;       // arrivals still to generate
+    private long                        _nextSeq;
+    private SimulationReport            _report;
+    private long                        _lastDepthChange;
+    private long                        _bucketNanos;
+
+    // === Constructors ===
+    public DispatchSimulator(int workers, Distribution arrivals, Distribution service, DispatchPolicy policy,
+                             long seed) {
+        this(workers, arrivals, service, policy, Integer.MAX_VALUE, seed);
+    }
+
+    // Creates: a simulator; arrivals are gaps between jobs and service is time per job (both ms);
+    //          maxQueue bounds waiting jobs (further arrivals are rejected)
+    public DispatchSimulator(int workers, Distribution arrivals, Distribution service, DispatchPolicy policy,
+                             int maxQueue, long seed) {
+        if (workers < 1)
+            throw new IllegalArgumentException("workers must be >= 1");
+        if (arrivals == null || service == null || policy == null)
+            throw new IllegalArgumentException("arrivals, service and policy are required");
+        if (maxQueue < 0)
+            throw new IllegalArgumentException("maxQueue must be >= 0");
+
+        _workers  = workers;
+        _arrivals = arrivals;
+        _service  = service;
+        _value    = Distribution.uniform(35, 65);      // revenue per delivery, as in the hand-made jobs
+        _policy   = policy;
+        _maxQueue = maxQueue;
+        _random   = new SplittableRandom(seed);
+    }
+
+    // === Public API ===
+    // Runs: `jobs` arrivals to completion and reports what happened
+    public SimulationReport run(long jobs) {
+        if (jobs < 1)
+            throw new IllegalArgumentException("jobs must be >= 1");
+
+        _scheduler       = new EventScheduler();
+        _queue           = new PriorityQueue<>(_policy.getOrder());
+        _idle            = _workers;
+        _remaining       = jobs;
+        _nextSeq         = 0;
+        _lastDepthChange = 0;
+        _bucketNanos     = Math.max(1, toNanos(jobs * _arrivals.mean()) / TIMELINE_BUCKETS);
+        _report          = new SimulationReport(describe(), _workers, _service.mean() / (_arrivals.mean() * _workers),
+                                                _bucketNanos);
+
+        long wallStart = System.nanoTime();
+        _scheduler.after(toNanos(_arrivals.sample(_random)), this::arrive);
+        _scheduler.run();
+
+        trackDepth(_scheduler.now());
+        _report.finish(_scheduler.now(), _scheduler.getProcessed(), System.nanoTime() - wallStart);
+        return _report;
+    }
+
+    // === Helpers ===
+    // Handles: one arrival — straight to an idle worker, else into the queue (or rejected when it is full)
+    private void arrive() {
+        long         now = _scheduler.now();
+        SimulatedJob job = new SimulatedJob(_nextSeq++, now, toNanos(_service.sample(_random)),
+                                            _value.sample(_random));
+        if (_idle > 0) {
+            _idle--;
+            start(job);
+        }
+        else if (_queue.size() < _maxQueue) {
+            trackDepth(now);
+            _queue.add(job);
+            _report.depthChanged(now / _bucketNanos, _queue.size());
+        }
+        else {
+            _report.rejected();
+        }
+
+        if (--_remaining > 0)
+            _scheduler.after(toNanos(_arrivals.sample(_random)), this::arrive);
+    }
+
+    // Starts: a job on a worker already claimed for it
+    private void start(SimulatedJob job) {
+        _report.started(_scheduler.now() - job.getArrivalNanos(), job.getServiceNanos());
+        _scheduler.after(job.getServiceNanos(), () -> complete(job));
+    }
+
+    // Handles: a job finishing — the worker takes the next queued job by policy, or goes idle
+    private void complete(SimulatedJob job) {
+        long now = _scheduler.now();
+        _report.completed(now - job.getArrivalNanos(), job.getValue());
+
+        SimulatedJob next = _queue.peek();
+        if (next == null) {
+            _idle++;
+            return;
+        }
+        trackDepth(now);
+        _queue.poll();
+        _report.depthChanged(now / _bucketNanos, _queue.size());
+        start(next);
+    }
+
+    // Adds: the queue depth held since the last change to the time-weighted totals, split at bucket edges
+    private void trackDepth(long now) {
+        int depth = _queue.size();
+        while (_lastDepthChange < now) {
+            long bucket = _lastDepthChange / _bucketNanos;
+            long end    = Math.min(now, (bucket + 1) * _bucketNanos);
+            _report.depthHeld(bucket, depth, end - _lastDepthChange);
+            _lastDepthChange = end;
+        }
+    }
+
+    private String describe() {
+        return _policy + ", " + _workers + " workers, arrivals " + _arrivals + " ms, service " + _service + " ms"
+             + ((_maxQueue == Integer.MAX_VALUE) ? "" : ", queue <= " + _maxQueue);
+    }
+
+    private static long toNanos(double ms) {
+        return (long) (ms * 1_000_000);
+    }
+
+    // Holds: everything measured in one run; percentiles come from log-linear histograms (within ~6%)
+    public static class SimulationReport {
+
+        private String           _description;
+        private int              _workers;
+        private double           _offeredLoad;
+        private long             _completed;
+        private long             _rejected;
+        private double           _revenue;
+        private long             _busyNanos;
+        private long             _durationNanos;
+        private long             _events;
+        private long             _wallNanos;
+        private LatencyHistogram _wait        = new LatencyHistogram();
+        private LatencyHistogram _sojourn     = new LatencyHistogram();    // arrival to completion
+        private List<double[]>   _timeline    = new ArrayList<>();         // per slice: { depth x time, max depth }
+        private long             _bucketNanos;
+
+        private SimulationReport(String description, int workers, double offeredLoad, long bucketNanos) {
+            _description = description;
+            _workers     = workers;
+            _offeredLoad = offeredLoad;
+            _bucketNanos = bucketNanos;
+        }
+
+        public long   getCompleted()     { return _completed; }
+        public long   getRejected()      { return _rejected; }
+        public double getRevenue()       { return _revenue; }
+        public long   getDurationNanos() { return _durationNanos; }
+
+        // Gets: completed jobs per simulated second
+        public double getThroughput() {
+            return (_durationNanos == 0) ? 0 : _completed / (_durationNanos / 1e9);
+        }
+
+        // Gets: the share of worker time spent serving jobs
+        public double getUtilization() {
+            return (_durationNanos == 0) ? 0 : (double) _busyNanos / ((double) _durationNanos * _workers);
+        }
+
+        // Gets: the time-weighted mean queue depth over the whole run
+        public double getMeanQueueDepth() {
+            double area = 0;
+            for (double[] bucket : _timeline)
+                area += bucket[0];
+            return (_durationNanos == 0) ? 0 : area / _durationNanos;
+        }
+
+        public LatencyHistogram getWait()    { return _wait; }
+        public LatencyHistogram getSojourn() { return _sojourn; }
+
+        // Gets: the queue-depth timeline, one row per slice of the run: its mean and max depth, and a bar
+        //       scaled to the deepest point
+        public String timelineString() {
+            double top = 1;
+            for (double[] bucket : _timeline)
+                top = Math.max(top, bucket[1]);
+
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < _timeline.size(); i++) {
+                double[] bucket = _timeline.get(i);
+                long     from   = i * _bucketNanos;
+                long     length = Math.min(_bucketNanos, _durationNanos - from);     // the last slice may be short
+                double   mean   = (length > 0) ? bucket[0] / length : 0;
+                sb.append(String.format("  %9.1fs  mean %9.1f  max %7.0f  %s%n", from / 1e9, mean, bucket[1],
+                    "#".repeat((int) Math.round(40 * mean / top))));
+            }
+            return sb.toString();
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s%n"
+                    + "  jobs %,d completed, %,d rejected in %.1f simulated s (%.2fs wall, %,.0f events/s)%n"
+                    + "  offered load %.0f%%, utilization %.0f%%, throughput %,.1f jobs/s, revenue \u20ac%,.2f%n"
+                    + "  queue depth mean %.1f%n"
+                    + "  wait    ms  p50 %8.1f  p90 %8.1f  p99 %8.1f  p99.9 %8.1f  max %8.1f%n"
+                    + "  sojourn ms  p50 %8.1f  p90 %8.1f  p99 %8.1f  p99.9 %8.1f  max %8.1f",
+                _description, _completed, _rejected, _durationNanos / 1e9, _wallNanos / 1e9,
+                _events / (_wallNanos / 1e9), _offeredLoad * 100, getUtilization() * 100, getThroughput(),
+                _revenue, getMeanQueueDepth(),
+                ms(_wait.percentileNanos(50)), ms(_wait.percentileNanos(90)), ms(_wait.percentileNanos(99)),
+                ms(_wait.percentileNanos(99.9)), ms(_wait.getMaxNanos()),
+                ms(_sojourn.percentileNanos(50)), ms(_sojourn.percentileNanos(90)),
+                ms(_sojourn.percentileNanos(99)), ms(_sojourn.percentileNanos(99.9)), ms(_sojourn.getMaxNanos()));
+        }
+
+        private void started(long waitNanos, long serviceNanos) {
+            _busyNanos += serviceNanos;
+            _wait.record(waitNanos);
+        }
+
+        private void completed(long sojournNanos, double value) {
+            _completed++;
+            _revenue += value;
+            _sojourn.record(sojournNanos);
+        }
+
+        private void rejected() {
+            _rejected++;
+        }
+
+        private void depthHeld(long bucket, int depth, long nanos) {
+            bucket(bucket)[0] += (double) depth * nanos;
+        }
+
+        private void depthChanged(long bucket, int depth) {
+            double[] b = bucket(bucket);
+            b[1] = Math.max(b[1], depth);
+        }
+
+        private void finish(long durationNanos, long events, long wallNanos) {
+            _durationNanos = durationNanos;
+            _events        = events;
+            _wallNanos     = wallNanos;
+        }
+
+        private double[] bucket(long index) {
+            while (_timeline.size() <= index)
+                _timeline.add(new double[2]);
+            return _timeline.get((int) index);
+        }
+
+        private static double ms(long nanos) {
+            return nanos / 1e6;
+        }
+    }
+}
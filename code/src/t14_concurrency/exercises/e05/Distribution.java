@@ -0,0 +1,92 @@
+package t14_concurrency.exercises.e05;
+
+import java.math.BigDecimal;
+import java.util.SplittableRandom;
+
+// Samples: durations in milliseconds — gaps between job arrivals, or how long a job takes to serve.
+//          Implementations may keep state (bursty does), so give each simulator its own instances.
+interface Distribution {
+
+    // Draws: the next value (ms, >= 0)
+    double sample(SplittableRandom random);
+
+    // Gets: the long-run mean (ms), used to size the run and report the offered load
+    double mean();
+
+    // Creates: the same value every time
+    static Distribution fixed(double ms) {
+        requirePositive(ms, "ms");
+        return new Distribution() {
+            @Override public double sample(SplittableRandom random) { return ms; }
+            @Override public double mean()                          { return ms; }
+            @Override public String toString()                      { return "fixed(" + format(ms) + ")"; }
+        };
+    }
+
+    // Creates: exponential values — as gaps, a Poisson arrival process (independent arrivals at a steady rate)
+    static Distribution exponential(double mean) {
+        requirePositive(mean, "mean");
+        return new Distribution() {
+            @Override public double sample(SplittableRandom random) { return -mean * Math.log(1 - random.nextDouble()); }
+            @Override public double mean()                          { return mean; }
+            @Override public String toString()                      { return "exponential(" + format(mean) + ")"; }
+        };
+    }
+
+    // Creates: values spread evenly over [min, max)
+    static Distribution uniform(double min, double max) {
+        if (min < 0 || max <= min)
+            throw new IllegalArgumentException("need 0 <= min < max");
+        return new Distribution() {
+            @Override public double sample(SplittableRandom random) { return min + (max - min) * random.nextDouble(); }
+            @Override public double mean()                          { return (min + max) / 2; }
+            @Override public String toString()                      { return "uniform(" + format(min) + ", " + format(max) + ")"; }
+        };
+    }
+
+    // Creates: log-normal values with the given mean — mostly near the median with a long right tail, the usual
+    //          shape of real service times; sigma controls the tail (0.5 mild, 1.0+ heavy)
+    static Distribution logNormal(double mean, double sigma) {
+        requirePositive(mean, "mean");
+        requirePositive(sigma, "sigma");
+        double mu = Math.log(mean) - sigma * sigma / 2;
+        return new Distribution() {
+            @Override public double sample(SplittableRandom random) { return Math.exp(mu + sigma * random.nextGaussian()); }
+            @Override public double mean()                          { return mean; }
+            @Override public String toString()                      { return "logNormal(" + format(mean) + ", " + format(sigma) + ")"; }
+        };
+    }
+
+    // Creates: arrival gaps in bursts — burstSize jobs arrive together, then an exponential pause; the mean gap
+    //          (and so the offered load) matches exponential(meanGap), only clumped
+    static Distribution bursty(double meanGap, int burstSize) {
+        requirePositive(meanGap, "meanGap");
+        if (burstSize < 1)
+            throw new IllegalArgumentException("burstSize must be >= 1");
+        return new Distribution() {
+            private int _leftInBurst;
+
+            @Override
+            public double sample(SplittableRandom random) {
+                if (_leftInBurst > 0) {
+                    _leftInBurst--;
+                    return 0;
+                }
+                _leftInBurst = burstSize - 1;
+                return -meanGap * burstSize * Math.log(1 - random.nextDouble());
+            }
+
+            @Override public double mean()     { return meanGap; }
+            @Override public String toString() { return "bursty(" + format(meanGap) + ", " + burstSize + ")"; }
+        };
+    }
+
+    private static String format(double ms) {
+        return BigDecimal.valueOf(Math.round(ms * 100) / 100.0).stripTrailingZeros().toPlainString();
+    }
+
+    private static void requirePositive(double value, String name) {
+        if (!(value > 0))
+            throw new IllegalArgumentException(name + " must be > 0");
+    }
+}
@@ -0,0 +1,62 @@
+package t14_concurrency.exercises.e05;
+
+import java.util.PriorityQueue;
+
+// Runs: actions in simulated-time order — a discrete-event loop. Nothing sleeps: the clock jumps straight to
+//       the next event, so a run that models hours of deliveries takes as long as its events take to process.
+//       Events at the same instant run in the order they were scheduled. Single-threaded.
+class EventScheduler {
+
+    // === Fields ===
+    private PriorityQueue<Event> _events = new PriorityQueue<>();
+    private long                 _now;            // simulated nanoseconds
+    private long                 _seq;
+    private long                 _processed;
+
+    // === Public API ===
+    // Schedules: an action at an absolute simulated time (not before now)
+    public void schedule(long atNanos, Runnable action) {
+        if (atNanos < _now)
+            throw new IllegalArgumentException("cannot schedule in the past: " + atNanos + " < " + _now);
+        _events.add(new Event(atNanos, _seq++, action));
+    }
+
+    // Schedules: an action delayNanos from now
+    public void after(long delayNanos, Runnable action) {
+        schedule(_now + Math.max(0, delayNanos), action);
+    }
+
+    // Runs: events until none are left
+    public void run() {
+        Event event;
+        while ((event = _events.poll()) != null) {
+            _now = event._at;
+            _processed++;
+            event._action.run();
+        }
+    }
+
+    public long now()          { return _now; }
+    public long getProcessed() { return _processed; }
+    public int  getPending()   { return _events.size(); }
+
+    // === Helpers ===
+    private static class Event implements Comparable<Event> {
+
+        private long     _at;
+        private long     _seq;
+        private Runnable _action;
+
+        private Event(long at, long seq, Runnable action) {
+            _at     = at;
+            _seq    = seq;
+            _action = action;
+        }
+
+        @Override
+        public int compareTo(Event other) {
+            int byTime = Long.compare(_at, other._at);
+            return (byTime != 0) ? byTime : Long.compare(_seq, other._seq);
+        }
+    }
+}
@@ -1,5 +1,9 @@
 package t14_concurrency.exercises.e05;
 
+import common.concurrent.AsyncTasks;
+import common.concurrent.InstrumentedExecutor;
+import common.concurrent.ThreadPools;
+import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.*;
 
@@ -7,96 +11,106 @@ public class Exercise {
 
     public static void run() throws Exception {
         new DispatchSimulation().run();
+        runBatches();
+    }
+
+    // Runs: all-or-nothing and first-success batches in task scopes
+    private static void runBatches() throws Exception {
+        System.out.println("--- All-or-nothing batch ---");
+        long start = System.nanoTime();
+        try {
+            DeliveryBatch.runAll(List.of(
+                new DeliveryJob("ORD-101", "Cork",   45.00, 2_000),
+                new DeliveryJob("ORD-102", "Dublin", 62.50, 200, true),      // fails fast
+                new DeliveryJob("ORD-103", "Galway", 38.75, 2_000)
+            ), Duration.ofSeconds(5));
+        }
+        catch (ExecutionException e) {
+            System.out.printf("Batch failed after %d ms: %s (other jobs cancelled)%n",
+                (System.nanoTime() - start) / 1_000_000, e.getCause().getMessage());
+        }
+
+        System.out.println("--- First depot to confirm ---");
+        start = System.nanoTime();
+        DeliveryResult first = DeliveryBatch.runFirst(List.of(
+            new DeliveryJob("ORD-104", "Sligo via Athlone", 55.25, 900),
+            new DeliveryJob("ORD-104", "Sligo via Mullingar", 55.25, 250),
+            new DeliveryJob("ORD-104", "Sligo via Carrick", 55.25, 100, true)
+        ), Duration.ofSeconds(5));
+        System.out.printf("%s confirmed for %s after %d ms (others cancelled)%n",
+            first.orderId(), first.destination(), (System.nanoTime() - start) / 1_000_000);
     }
 }
 
 class DispatchSimulation {
 
+    private static final long JOB_TIMEOUT_MS   = 1_000;     // a job slower than this is reported as failed
+    private static final long BATCH_TIMEOUT_MS = 5_000;     // anything still running then is cancelled
+
+    private Object _printLock = new Object();
+    private int    _successes;                                // guarded by _printLock
+    private int    _completed;                                // guarded by _printLock
+    private double _revenue;                                  // guarded by _printLock
+
     public void run() throws Exception {
-        ExecutorService pool = Executors.newFixedThreadPool(3);
+        InstrumentedExecutor pool = new InstrumentedExecutor("dispatch", ThreadPools.newFixedThreadPool(3, 16));
 
         List<DeliveryJob> jobs = List.of(
             new DeliveryJob("ORD-001", "Cork",     45.00),
             new DeliveryJob("ORD-002", "Dublin",   62.50),
             new DeliveryJob("ORD-003", "Galway",   38.75),
             new DeliveryJob("ORD-004", "Limerick", 51.00),
-            new DeliveryJob("ORD-005", "Sligo",    55.25),
+            new DeliveryJob("ORD-005", "Sligo",    55.25, 2_500),      // a straggler
             new DeliveryJob("ORD-006", "Kilkenny", 45.00)
         );
 
-        List<Future<DeliveryResult>> futures = new ArrayList<>();
-        for (DeliveryJob job : jobs)
-            futures.add(pool.submit(job));
-
-        pool.shutdown();
-        pool.awaitTermination(15, TimeUnit.SECONDS);
-
-        List<DeliveryResult> results = new ArrayList<>();
-        for (Future<DeliveryResult> f : futures)
-            results.add(f.get());
-
-        int successes  = 0;
-        double revenue = 0.0;
-
-        for (DeliveryResult r : results) {
-            String status = r.success() ? "[OK]" : "[FAIL]";
-            System.out.printf("%-10s \u2192 %-12s \u20ac%-8.2f %s%n",
-                r.orderId(), r.destination(), r.cost(), status);
-
-            if (r.success()) successes++;
-            revenue += r.cost();
+        // Each job is aggregated the moment it finishes, so the running revenue is current at all times and one
+        // slow job no longer holds up the report for the jobs behind it; a job that misses its deadline is
+        // interrupted and counted as failed. The supply() futures are kept apart: only cancelling those interrupts
+        // a running job, since cancelling a dependent stage does not reach back to the stage it depends on
+        List<CompletableFuture<DeliveryResult>> tasks   = new ArrayList<>();
+        List<CompletableFuture<DeliveryResult>> futures = new ArrayList<>();
+        for (DeliveryJob job : jobs) {
+            CompletableFuture<DeliveryResult> task   = AsyncTasks.supply(job, pool);
+            CompletableFuture<DeliveryResult> result = AsyncTasks.withTimeout(task,
+                JOB_TIMEOUT_MS, TimeUnit.MILLISECONDS,
+                error -> new DeliveryResult(job.getOrderId(), job.getDestination(), 0.0, false));
+            tasks.add(task);
+            futures.add(result.thenApply(this::record));
         }
 
-        System.out.println("--- Summary ---");
-        System.out.printf("Jobs: %d  |  Successes: %d  |  Revenue: \u20ac%.2f%n",
-            results.size(), successes, revenue);
-    }
-}
-
-class DeliveryJob implements Callable<DeliveryResult> {
-
-    private String _orderId;
-    private String _destination;
-    private double _cost;
-
-    public DeliveryJob(String orderId, String destination, double cost) {
-        if (orderId == null || orderId.isBlank())
-            throw new IllegalArgumentException("orderId is required");
-        if (destination == null || destination.isBlank())
-            throw new IllegalArgumentException("destination is required");
-        if (cost <= 0)
-            throw new IllegalArgumentException("cost must be > 0");
-
-        _orderId     = orderId;
-        _destination = destination;
-        _cost        = cost;
-    }
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]))
+                             .get(BATCH_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        }
+        catch (TimeoutException e) {
+            System.out.println("Batch deadline passed: cancelled " + AsyncTasks.cancelAll(tasks) + " job(s)");
+        }
+        finally {
+            pool.shutdownNow();
+            pool.awaitTermination(5, TimeUnit.SECONDS);
+        }
 
-    @Override
-    public DeliveryResult call() throws InterruptedException {
-        Thread.sleep(300);
-        System.out.println("[" + Thread.currentThread().getName() + "] Completing "
-            + _orderId + " \u2192 " + _destination);
-        return new DeliveryResult(_orderId, _destination, _cost, true);
+        synchronized (_printLock) {
+            System.out.println("--- Summary ---");
+            System.out.printf("Jobs: %d  |  Successes: %d  |  Revenue: \u20ac%.2f%n",
+                jobs.size(), _successes, _revenue);
+            System.out.println(pool.getMetrics());
+        }
     }
-}
-
-class DeliveryResult {
-
-    private String _orderId;
-    private String _destination;
-    private double _cost;
-    private boolean _success;
 
-    public DeliveryResult(String orderId, String destination, double cost, boolean success) {
-        _orderId     = orderId;
-        _destination = destination;
-        _cost        = cost;
-        _success     = success;
+    // Adds: one finished job to the running totals and prints it with the revenue so far
+    private DeliveryResult record(DeliveryResult r) {
+        synchronized (_printLock) {
+            if (r.success()) {
+                _successes++;
+                _revenue += r.cost();
+            }
+            _completed++;
+            String status = r.success() ? "[OK]" : "[FAIL]";
+            System.out.printf("%-10s \u2192 %-12s \u20ac%-8.2f %-6s  running revenue \u20ac%.2f (%d done)%n",
+                r.orderId(), r.destination(), r.cost(), status, _revenue, _completed);
+        }
+        return r;
     }
-
-    public String orderId()     { return _orderId; }
-    public String destination() { return _destination; }
-    public double cost()        { return _cost; }
-    public boolean success()    { return _success; }
 }
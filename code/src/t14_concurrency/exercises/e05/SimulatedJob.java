@@ -0,0 +1,22 @@
+package t14_concurrency.exercises.e05;
+
+// Holds: one simulated delivery — a DeliveryJob reduced to the numbers the simulator needs
+class SimulatedJob {
+
+    private long   _seq;
+    private long   _arrivalNanos;
+    private long   _serviceNanos;
+    private double _value;
+
+    public SimulatedJob(long seq, long arrivalNanos, long serviceNanos, double value) {
+        _seq          = seq;
+        _arrivalNanos = arrivalNanos;
+        _serviceNanos = serviceNanos;
+        _value        = value;
+    }
+
+    public long   getSeq()          { return _seq; }
+    public long   getArrivalNanos() { return _arrivalNanos; }
+    public long   getServiceNanos() { return _serviceNanos; }
+    public double getValue()        { return _value; }
+}
@@ -0,0 +1,243 @@
+package t15_networking.multi;
+
+import common.LatencyHistogram;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+import java.util.Iterator;
+
+public class PipelinedEchoClient {
+
+    // === Constants ===
+    private static final byte STAMP_START = '#';      // payload: #<send nanos, hex>:<filler>\n
+    private static final byte STAMP_END   = ':';
+    private static final byte FILLER      = 'x';
+    private static final int  MIN_PAYLOAD = 20;       // '#' + 16 hex digits + ':' + 'x' + '\n'
+    private static final long TIMEOUT_MS  = 300_000;
+
+    // === Fields ===
+    private String _host;
+    private int    _port;
+    private int    _connections;
+    private int    _depth;
+    private int    _payloadBytes;
+
+    // === Constructors ===
+    // Creates: a client that opens connections sockets to a line echo server and keeps up to depth messages
+    //          of payloadBytes (newline included) in flight on each one
+    public PipelinedEchoClient(String host, int port, int connections, int depth, int payloadBytes) {
+        if (host == null || host.isBlank())
+            throw new IllegalArgumentException("host is required");
+        if (connections < 1 || depth < 1)
+            throw new IllegalArgumentException("connections and depth must be >= 1");
+        if (payloadBytes < MIN_PAYLOAD)
+            throw new IllegalArgumentException("payloadBytes must be >= " + MIN_PAYLOAD);
+        _host         = host;
+        _port         = port;
+        _connections  = connections;
+        _depth        = depth;
+        _payloadBytes = payloadBytes;
+    }
+
+    // === Public API ===
+    // Runs: messagesPerConnection echoes on every connection, all driven by one selector thread; each payload
+    //       carries its own send time, so the round trip is measured from the echo itself and any prefix the
+    //       server adds (e.g. "ECHO: ") is skipped
+    public Result run(int messagesPerConnection) throws IOException {
+        if (messagesPerConnection < 1)
+            throw new IllegalArgumentException("messagesPerConnection must be >= 1");
+
+        LatencyHistogram histogram = new LatencyHistogram();
+        int  finished = 0;
+        int  failed   = 0;
+        long start    = System.nanoTime();
+
+        try (Selector selector = Selector.open()) {
+            for (int i = 0; i < _connections; i++) {
+                SocketChannel channel = SocketChannel.open();
+                channel.configureBlocking(false);
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                channel.connect(new InetSocketAddress(_host, _port));
+                channel.register(selector, SelectionKey.OP_CONNECT, new Connection(channel, messagesPerConnection));
+            }
+
+            long       deadline = start + TIMEOUT_MS * 1_000_000;
+            ByteBuffer in       = ByteBuffer.allocateDirect(64 * 1024);
+
+            while (finished + failed < _connections && System.nanoTime() < deadline) {
+                selector.select(1_000);
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    Connection c = (Connection) key.attachment();
+                    try {
+                        if (key.isConnectable()) {
+                            if (c._channel.finishConnect())
+                                c.fill(key);
+                            continue;
+                        }
+                        if (key.isReadable()) {
+                            in.clear();
+                            if (c._channel.read(in) < 0)
+                                throw new EOFException("server closed the connection");
+                            in.flip();
+                            c.receive(in, histogram);
+                            if (c._received == c._total) {
+                                finished++;
+                                key.cancel();
+                                c._channel.close();
+                                continue;
+                            }
+                        }
+                        c.fill(key);         // top the window back up and send what fits
+                    }
+                    catch (IOException e) {
+                        failed++;
+                        key.cancel();
+                        c._channel.close();
+                    }
+                }
+            }
+
+            for (SelectionKey key : selector.keys())
+                key.channel().close();
+        }
+
+        return new Result(_connections, _depth, _payloadBytes, failed, System.nanoTime() - start, histogram);
+    }
+
+    // === Helpers ===
+    // Holds: one connection's send window, partly written output and reply parsing state
+    private class Connection {
+        private SocketChannel _channel;
+        private ByteBuffer    _out;              // pending bytes between position and limit
+        private byte[]        _message = new byte[_payloadBytes];
+        private int           _total;
+        private int           _sent;
+        private int           _received;
+        private boolean       _inStamp;          // between '#' and ':' of the reply being read
+        private boolean       _stamped;          // the reply being read carried a send time
+        private long          _stamp;
+
+        private Connection(SocketChannel channel, int total) {
+            _channel = channel;
+            _total   = total;
+            _out     = ByteBuffer.allocate(_depth * _payloadBytes).flip();
+            Arrays.fill(_message, FILLER);
+            _message[0]                 = STAMP_START;
+            _message[17]                = STAMP_END;
+            _message[_payloadBytes - 1] = '\n';
+        }
+
+        // Sends: new messages until depth are outstanding, then as much pending output as the socket takes;
+        //        asks for OP_WRITE only while output is left over
+        private void fill(SelectionKey key) throws IOException {
+            if (_sent - _received < _depth && _sent < _total) {
+                _out.compact();
+                while (_sent - _received < _depth && _sent < _total) {
+                    stamp(System.nanoTime());
+                    _out.put(_message);
+                    _sent++;
+                }
+                _out.flip();
+            }
+            _channel.write(_out);
+            key.interestOps(_out.hasRemaining() ? SelectionKey.OP_READ | SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+        }
+
+        // Reads: replies out of the buffer, recording each one's round trip as its newline arrives
+        private void receive(ByteBuffer in, LatencyHistogram histogram) throws IOException {
+            long now = System.nanoTime();
+            while (in.hasRemaining()) {
+                byte b = in.get();
+                if (b == STAMP_START) {
+                    _inStamp = true;
+                    _stamped = true;
+                    _stamp   = 0;
+                }
+                else if (_inStamp) {
+                    if (b == STAMP_END) _inStamp = false;
+                    else                _stamp   = (_stamp << 4) | Character.digit(b, 16);
+                }
+                else if (b == '\n') {
+                    if (++_received > _sent)
+                        throw new IOException("more replies than requests");
+                    if (!_stamped)
+                        throw new IOException("reply without a timestamp (server busy?)");
+                    histogram.record(now - _stamp);
+                    _stamped = false;
+                }
+            }
+        }
+
+        // Writes: the send time into the message as 16 hex digits
+        private void stamp(long nanos) {
+            for (int i = 16; i >= 1; i--) {
+                _message[i] = (byte) Character.forDigit((int) (nanos & 0xF), 16);
+                nanos >>>= 4;
+            }
+        }
+    }
+
+    // Holds: the outcome of one run
+    public static class Result {
+        private int              _connections;
+        private int              _depth;
+        private int              _payloadBytes;
+        private int              _failed;
+        private long             _elapsedNanos;
+        private LatencyHistogram _latency;
+
+        private Result(int connections, int depth, int payloadBytes, int failed, long elapsedNanos,
+                       LatencyHistogram latency) {
+            _connections  = connections;
+            _depth        = depth;
+            _payloadBytes = payloadBytes;
+            _failed       = failed;
+            _elapsedNanos = elapsedNanos;
+            _latency      = latency;
+        }
+
+        public LatencyHistogram getLatency()  { return _latency; }
+        public int              getFailed()   { return _failed; }
+
+        // Gets: completed round trips per second
+        public double getThroughput() {
+            return _latency.getCount() / (_elapsedNanos / 1e9);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%,d connections x %d in flight, %d-byte payloads: %,d echoes in %.2f s = "
+                               + "%,.0f msg/s (%.1f MB/s each way)%s%n  %s",
+                _connections, _depth, _payloadBytes, _latency.getCount(), _elapsedNanos / 1e9, getThroughput(),
+                getThroughput() * _payloadBytes / 1_048_576, (_failed > 0) ? ", " + _failed + " connections failed" : "",
+                _latency);
+        }
+    }
+
+    // Runs: a short warm-up then the measured run and prints throughput and the latency histogram
+    //       args: [port] [connections] [depth] [messages per connection] [payload bytes]
+    //       defaults: 9000 (MultiClientServer; 9001 is NioMultiClientServer) 100 16 2000 64
+    public static void main(String[] args) throws IOException {
+        int port        = (args.length > 0) ? Integer.parseInt(args[0]) : 9_000;
+        int connections = (args.length > 1) ? Integer.parseInt(args[1]) : 100;
+        int depth       = (args.length > 2) ? Integer.parseInt(args[2]) : 16;
+        int messages    = (args.length > 3) ? Integer.parseInt(args[3]) : 2_000;
+        int payload     = (args.length > 4) ? Integer.parseInt(args[4]) : 64;
+
+        PipelinedEchoClient client = new PipelinedEchoClient("localhost", port, connections, depth, payload);
+        client.run(Math.max(1, messages / 10));                       // warm-up: JIT, socket buffers, server pool
+
+        Result result = client.run(messages);
+        System.out.println(result);
+        System.out.print(result.getLatency().toHistogramString());
+    }
+}
@@ -0,0 +1,57 @@
+package t15_networking.single;
+
+import common.net.*;
+import java.io.*;
+import java.net.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+public class FramedEchoClient {
+
+    // === Constants ===
+    private static final int MAX_FRAME_SIZE = 1_048_576;
+
+    // === Fields ===
+    private String _host;
+    private int    _port;
+
+    // === Constructors ===
+    // Creates: a client that will connect to the given host and port
+    public FramedEchoClient(String host, int port) {
+        if (host == null || host.isBlank())
+            throw new IllegalArgumentException("host is required");
+        _host = host;
+        _port = port;
+    }
+
+    // === Public API ===
+    // Connects: sends a text frame and a binary frame (which may contain newlines) and checks both come back intact
+    public void run() throws IOException {
+        BufferPool pool = new BufferPool(MAX_FRAME_SIZE, 2, false);
+        try (Socket socket = new Socket(_host, _port);
+             StreamFrameReader in  = new StreamFrameReader(socket.getInputStream(), pool, MAX_FRAME_SIZE);
+             StreamFrameWriter out = new StreamFrameWriter(socket.getOutputStream(), MAX_FRAME_SIZE)) {
+
+            byte[] text   = "hello server".getBytes(StandardCharsets.UTF_8);
+            byte[] binary = new byte[100_000];
+            for (int i = 0; i < binary.length; i++)
+                binary[i] = (byte) i;                // includes '\n' bytes a line protocol would split on
+
+            out.write(text);
+            out.write(binary);
+            out.flush();                             // both frames in one send
+
+            ByteBuffer reply = in.read();
+            System.out.println("Reply: " + StandardCharsets.UTF_8.decode(reply));
+            in.release(reply);
+
+            reply = in.read();
+            System.out.println("Binary frame intact: " + reply.equals(ByteBuffer.wrap(binary)));
+            in.release(reply);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        new FramedEchoClient("localhost", 9_002).run();
+    }
+}
@@ -0,0 +1,59 @@
+package t15_networking.single;
+
+import common.net.*;
+import java.io.*;
+import java.net.*;
+import java.nio.ByteBuffer;
+
+public class FramedEchoServer {
+
+    // === Constants ===
+    private static final int MAX_FRAME_SIZE = 1_048_576;
+    private static final int POOL_BUFFER    = 16_384;
+    private static final int POOL_IDLE      = 16;
+
+    // === Fields ===
+    private int        _port;
+    private BufferPool _pool = new BufferPool(POOL_BUFFER, POOL_IDLE, false);
+
+    // === Constructors ===
+    // Creates: a framed echo server that will listen on the given port
+    public FramedEchoServer(int port) {
+        if (port < 1_024 || port > 65_535)
+            throw new IllegalArgumentException("port must be 1024–65535");
+        _port = port;
+    }
+
+    // === Public API ===
+    // Starts: the server — serves one client at a time, echoing each length-prefixed frame back unchanged
+    public void start() throws IOException {
+        try (ServerSocket serverSocket = new ServerSocket(_port)) {
+            System.out.println("Framed echo server listening on port " + _port);
+
+            while (true) {
+                try (Socket clientSocket = serverSocket.accept();
+                     StreamFrameReader in  = new StreamFrameReader(clientSocket.getInputStream(), _pool, MAX_FRAME_SIZE);
+                     StreamFrameWriter out = new StreamFrameWriter(clientSocket.getOutputStream(), MAX_FRAME_SIZE)) {
+
+                    System.out.println("Client connected: " + clientSocket.getInetAddress());
+                    ByteBuffer frame;
+                    while ((frame = in.read()) != null) {
+                        out.write(frame);
+                        out.flush();
+                        in.release(frame);
+                    }
+                }
+                catch (FrameTooLargeException e) {
+                    System.out.println("Dropped client: " + e.getMessage());   // the stream is out of sync now
+                }
+                catch (IOException e) {
+                    System.out.println("Client disconnected: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        new FramedEchoServer(9_002).start();
+    }
+}
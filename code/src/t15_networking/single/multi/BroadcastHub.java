@@ -0,0 +1,296 @@
+package t15_networking.single.multi;
+
+import java.io.*;
+import java.net.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+public class BroadcastHub implements MultiClientServer.SessionHandler, AutoCloseable {
+
+    // === Constants ===
+    private static final int DEFAULT_QUEUE_CAPACITY = 1_024;       // messages per subscriber
+    private static final int MAX_BATCH              = 256;         // messages per flush
+    private static final int OUT_BUFFER             = 64 * 1024;
+    private static final int SEND_BUFFER            = 64 * 1024;   // caps kernel buffering per client, so the queue
+                                                                   // bound and overflow policy are what limit memory
+    private static final int YIELD_EVERY            = 64;          // publishes per session between yields
+
+    // What to do when a subscriber's outbound queue is full
+    public enum OverflowPolicy {
+        DROP_NEWEST,        // discard the message that does not fit
+        DROP_OLDEST,        // discard the oldest queued message to make room
+        DISCONNECT          // the client cannot keep up: drop the connection
+    }
+
+    // === Fields ===
+    private int             _queueCapacity;
+    private OverflowPolicy  _policy;
+    private ExecutorService _writers = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("hub-writer-", 0).factory());
+
+    private ConcurrentHashMap<String, CopyOnWriteArraySet<Subscriber>> _topics = new ConcurrentHashMap<>();
+
+    private LongAdder _published       = new LongAdder();
+    private LongAdder _delivered       = new LongAdder();      // queued for a subscriber
+    private LongAdder _dropped         = new LongAdder();
+    private LongAdder _slowDisconnects = new LongAdder();
+
+    // === Constructors ===
+    // Creates: a hub with 1024-message subscriber queues that drops new messages for clients that fall behind
+    public BroadcastHub() {
+        this(DEFAULT_QUEUE_CAPACITY, OverflowPolicy.DROP_NEWEST);
+    }
+
+    // Creates: a hub whose subscribers each buffer up to queueCapacity outbound messages, applying policy beyond that
+    public BroadcastHub(int queueCapacity, OverflowPolicy policy) {
+        if (queueCapacity < 1)
+            throw new IllegalArgumentException("queueCapacity must be >= 1");
+        if (policy == null)
+            throw new IllegalArgumentException("policy is required");
+        _queueCapacity = queueCapacity;
+        _policy        = policy;
+    }
+
+    // === Public API ===
+    // Serves: one client's command lines until QUIT or disconnect —
+    //         SUB <topic> | UNSUB <topic> | PUB <topic> <message> | QUIT;
+    //         subscribers receive "MSG <topic> <message>" lines, SUB/UNSUB get "OK ..." and mistakes "ERROR ..."
+    @Override
+    public void serve(Socket socket) throws IOException {
+        Subscriber   me     = new Subscriber(socket);
+        Set<String>  topics = new HashSet<>();      // touched only by this session's thread
+        long         published = 0;
+
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                String[] parts = line.split(" ", 3);
+                switch (parts[0]) {
+                    case "PUB":
+                        if (parts.length < 3) {
+                            me.reply("ERROR usage: PUB <topic> <message>");
+                            break;
+                        }
+                        publish(parts[1], parts[2]);
+                        if (++published % YIELD_EVERY == 0)
+                            Thread.yield();     // a flat-out publisher would otherwise starve the writers of carriers
+                        break;
+                    case "SUB":
+                        if (parts.length < 2) { me.reply("ERROR usage: SUB <topic>"); break; }
+                        subscribe(me, parts[1]);
+                        topics.add(parts[1]);
+                        me.reply("OK subscribed " + parts[1]);
+                        break;
+                    case "UNSUB":
+                        if (parts.length < 2) { me.reply("ERROR usage: UNSUB <topic>"); break; }
+                        unsubscribe(me, parts[1]);
+                        topics.remove(parts[1]);
+                        me.reply("OK unsubscribed " + parts[1]);
+                        break;
+                    case "QUIT":
+                        return;
+                    default:
+                        me.reply("ERROR unknown command: " + parts[0]);
+                        break;
+                }
+            }
+        }
+        finally {
+            for (String topic : topics)
+                unsubscribe(me, topic);
+            me.close();
+        }
+    }
+
+    // Publishes: a message to every current subscriber of the topic; the line is encoded once and shared, and
+    //            each subscriber only has it queued — no lock is taken and no socket written on this thread,
+    //            so one slow subscriber cannot hold up the publisher or anyone else
+    public void publish(String topic, String message) {
+        _published.increment();
+        CopyOnWriteArraySet<Subscriber> subscribers = _topics.get(topic);
+        if (subscribers == null)
+            return;
+
+        byte[] line = ("MSG " + topic + " " + message + "\n").getBytes(StandardCharsets.UTF_8);
+        for (Subscriber s : subscribers)
+            s.offer(line);
+    }
+
+    // Gets: the number of clients subscribed to a topic now
+    public int getSubscriberCount(String topic) {
+        CopyOnWriteArraySet<Subscriber> subscribers = _topics.get(topic);
+        return (subscribers == null) ? 0 : subscribers.size();
+    }
+
+    public long getPublishedCount()       { return _published.sum(); }
+    public long getDeliveredCount()       { return _delivered.sum(); }
+    public long getDroppedCount()         { return _dropped.sum(); }
+    public long getSlowDisconnectCount()  { return _slowDisconnects.sum(); }
+
+    // Stops: the writer threads; sessions end as the server closes their sockets
+    @Override
+    public void close() {
+        _writers.shutdownNow();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("BroadcastHub{topics=%d, published=%,d, delivered=%,d, dropped=%,d, slowDisconnects=%d, "
+                           + "queue=%d, policy=%s}",
+            _topics.size(), getPublishedCount(), getDeliveredCount(), getDroppedCount(), getSlowDisconnectCount(),
+            _queueCapacity, _policy);
+    }
+
+    // === Helpers ===
+    // Adds: a subscriber to a topic inside the map's atomic section, so a concurrent unsubscribe cannot remove
+    //       the topic's set between it being looked up and the subscriber being added to it
+    private void subscribe(Subscriber s, String topic) {
+        _topics.compute(topic, (t, subscribers) -> {
+            if (subscribers == null)
+                subscribers = new CopyOnWriteArraySet<>();
+            subscribers.add(s);
+            return subscribers;
+        });
+    }
+
+    // Removes: a subscriber from a topic, and the topic once nobody is left on it
+    private void unsubscribe(Subscriber s, String topic) {
+        _topics.computeIfPresent(topic, (t, subscribers) -> {
+            subscribers.remove(s);
+            return subscribers.isEmpty() ? null : subscribers;
+        });
+    }
+
+    // Holds: one client's outbound queue — many threads offer, at most one writer task drains it at a time
+    private class Subscriber {
+        private Socket                        _socket;
+        private OutputStream                  _out;
+        private ConcurrentLinkedQueue<byte[]> _queue    = new ConcurrentLinkedQueue<>();   // published lines
+        private ConcurrentLinkedQueue<byte[]> _replies  = new ConcurrentLinkedQueue<>();   // command replies, unbounded
+        private AtomicInteger                 _size     = new AtomicInteger();    // bounds _queue (soft, lock-free)
+        private AtomicBoolean                 _draining = new AtomicBoolean();
+        private volatile boolean              _closed;
+
+        private Subscriber(Socket socket) throws IOException {
+            _socket = socket;
+            _socket.setSendBufferSize(SEND_BUFFER);
+            _out    = new BufferedOutputStream(socket.getOutputStream(), OUT_BUFFER);
+        }
+
+        // Queues: a published line, applying the overflow policy if the queue is full
+        private void offer(byte[] line) {
+            if (_closed)
+                return;
+
+            if (_size.incrementAndGet() > _queueCapacity) {
+                switch (_policy) {
+                    case DROP_NEWEST:
+                        _size.decrementAndGet();
+                        _dropped.increment();
+                        return;
+                    case DROP_OLDEST:
+                        if (_queue.poll() != null) {         // make room; a racing drain may have beaten us to it
+                            _size.decrementAndGet();
+                            _dropped.increment();
+                        }
+                        break;
+                    case DISCONNECT:
+                        _size.decrementAndGet();
+                        _dropped.increment();
+                        _slowDisconnects.increment();
+                        close();                                 // the session's reader sees the socket close
+                        return;
+                }
+            }
+            _queue.offer(line);
+            _delivered.increment();
+            schedule();
+        }
+
+        // Queues: a command reply; replies are never dropped, so they go on their own queue, which neither the bound
+        //         nor DROP_OLDEST touches (a session has at most one command in flight, so it stays short)
+        private void reply(String text) {
+            _replies.offer((text + "\n").getBytes(StandardCharsets.UTF_8));
+            schedule();
+        }
+
+        // Starts: a writer task unless one is already draining this queue
+        private void schedule() {
+            if (!_closed && _draining.compareAndSet(false, true)) {
+                try {
+                    _writers.execute(this::drain);
+                }
+                catch (RejectedExecutionException e) {
+                    close();                                     // hub closed
+                }
+            }
+        }
+
+        // Writes: everything queued, replies first, MAX_BATCH lines per flush so small messages share packets;
+        //         a client that stops reading only ever blocks this task
+        private void drain() {
+            try {
+                do {
+                    byte[] line;
+                    int    batch = 0;
+                    while ((line = next()) != null) {
+                        _out.write(line);
+                        if (++batch == MAX_BATCH) {
+                            _out.flush();
+                            batch = 0;
+                        }
+                    }
+                    _out.flush();
+                    _draining.set(false);
+                } while (hasQueued() && _draining.compareAndSet(false, true));     // missed a late offer
+            }
+            catch (IOException e) {
+                close();
+            }
+        }
+
+        // Takes: the next line to write — a waiting reply, else the oldest published line
+        private byte[] next() {
+            byte[] line = _replies.poll();
+            if (line != null)
+                return line;
+            line = _queue.poll();
+            if (line != null)
+                _size.decrementAndGet();
+            return line;
+        }
+
+        private boolean hasQueued() {
+            return !_replies.isEmpty() || !_queue.isEmpty();
+        }
+
+        // Closes: the socket and discards anything still queued
+        private void close() {
+            _closed = true;
+            _queue.clear();
+            _replies.clear();
+            try {
+                _socket.close();
+            }
+            catch (IOException e) {
+                // already gone
+            }
+        }
+    }
+
+    // Starts: a hub on 9003 (one virtual thread per client, up to 10,000 clients) and prints its counters every 10 s
+    public static void main(String[] args) throws IOException {
+        BroadcastHub      hub    = new BroadcastHub();
+        MultiClientServer server = MultiClientServer.withVirtualThreads(9_003, 10_000, hub);
+
+        ScheduledExecutorService stats = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "stats");
+            t.setDaemon(true);
+            return t;
+        });
+        stats.scheduleAtFixedRate(() -> System.out.println(hub + "\n" + server), 10, 10, TimeUnit.SECONDS);
+
+        server.start();
+    }
+}
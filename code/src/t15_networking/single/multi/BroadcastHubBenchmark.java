@@ -0,0 +1,173 @@
+package t15_networking.single.multi;
+
+import java.io.*;
+import java.net.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+public class BroadcastHubBenchmark {
+
+    // === Constants ===
+    private static final int    PORT        = 9_004;
+    private static final String TOPIC       = "bench";
+    private static final int    SUBSCRIBERS = 1_000;
+    private static final int    MESSAGES    = 5_000;
+    private static final int    PAYLOAD     = 64;
+    private static final int    BURST       = 32;        // messages per publisher flush
+    private static final int    WINDOW      = 256;       // well inside the 1,024-message subscriber queues
+    private static final long   SETTLE_MS   = 2_000;     // a run ends once nothing has arrived for this long
+
+    // === Entry point ===
+    // Runs: one publisher fanning out to 1,000 subscribers under each overflow policy, then the same with one
+    //       extra subscriber that never reads, to show a stalled client does not slow delivery to the rest
+    //       (only it should see drops, or be kicked under DISCONNECT)
+    public static void main(String[] args) throws Exception {
+        System.out.printf("%-12s %-8s %12s %14s %14s %10s %6s%n",
+            "Policy", "Stalled", "Publish/s", "Delivered", "Delivered/s", "Dropped", "Kicked");
+        for (boolean stalled : new boolean[] { false, true })
+            for (BroadcastHub.OverflowPolicy policy : BroadcastHub.OverflowPolicy.values())
+                run(policy, stalled);
+    }
+
+    // === Helpers ===
+    // Runs: one case on a fresh hub and prints its row
+    private static void run(BroadcastHub.OverflowPolicy policy, boolean stalled) throws Exception {
+        BroadcastHub      hub    = new BroadcastHub(1_024, policy);
+        MultiClientServer server = MultiClientServer.withVirtualThreads(PORT, SUBSCRIBERS + 10, hub);
+        server.setSessionLogging(false);
+        Thread serverThread = Thread.ofPlatform().daemon().start(() -> {
+            try {
+                server.start();
+            }
+            catch (IOException e) {
+                System.err.println("hub stopped: " + e.getMessage());
+            }
+        });
+
+        List<SocketChannel> subscribers = new ArrayList<>();
+        Socket              slow        = null;
+        try {
+            awaitListening();
+            for (int i = 0; i < SUBSCRIBERS; i++)
+                subscribers.add(subscribe());
+            if (stalled) {
+                slow = new Socket();
+                slow.setReceiveBufferSize(4_096);           // fills fast, like a client on a bad link
+                slow.connect(new InetSocketAddress("localhost", PORT));
+                slow.getOutputStream().write(("SUB " + TOPIC + "\n").getBytes(StandardCharsets.US_ASCII));
+            }
+            int expected = SUBSCRIBERS + (stalled ? 1 : 0);
+            while (hub.getSubscriberCount(TOPIC) < expected)
+                Thread.sleep(10);
+
+            String line     = "MSG " + TOPIC + " " + "x".repeat(PAYLOAD) + "\n";
+            String okLine   = "OK subscribed " + TOPIC + "\n";
+            long   okBytes  = (long) SUBSCRIBERS * okLine.length();
+            long   allBytes = okBytes + (long) SUBSCRIBERS * MESSAGES * line.length();
+
+            AtomicLong received = new AtomicLong();
+            AtomicLong lastAt   = new AtomicLong();
+            Thread     reader   = Thread.ofPlatform().start(() -> drain(subscribers, received, lastAt, allBytes));
+
+            long start = System.nanoTime();
+            try (Socket publisher = new Socket("localhost", PORT)) {
+                OutputStream out  = new BufferedOutputStream(publisher.getOutputStream(), 64 * 1024);
+                byte[]       pub  = ("PUB " + TOPIC + " " + "x".repeat(PAYLOAD) + "\n").getBytes(StandardCharsets.US_ASCII);
+                for (int sent = 0; sent < MESSAGES; sent += BURST) {
+                    // end-to-end flow control: stay at most WINDOW messages ahead of what subscribers have read,
+                    // so fast subscribers never overflow and the figure is sustainable throughput, not a burst
+                    while (sent - (received.get() - okBytes) / line.length() / SUBSCRIBERS > WINDOW && reader.isAlive())
+                        LockSupport.parkNanos(50_000);
+                    for (int i = sent; i < Math.min(sent + BURST, MESSAGES); i++)
+                        out.write(pub);
+                    out.flush();
+                }
+
+                while (hub.getPublishedCount() < MESSAGES)
+                    Thread.sleep(1);
+                long published = System.nanoTime() - start;
+
+                reader.join();
+                long   delivered = (received.get() - okBytes) / line.length();
+                double seconds   = (lastAt.get() - start) / 1e9;
+                System.out.printf("%-12s %-8s %,12.0f %,14d %,14.0f %,10d %6d%n",
+                    policy, stalled ? "yes" : "no", MESSAGES / (published / 1e9), delivered, delivered / seconds,
+                    hub.getDroppedCount(), hub.getSlowDisconnectCount());
+            }
+        }
+        finally {
+            for (SocketChannel c : subscribers)
+                c.close();
+            if (slow != null)
+                slow.close();
+            server.close();
+            hub.close();
+            serverThread.join();
+        }
+    }
+
+    // Reads: every subscriber's deliveries on one selector thread until all bytes arrive or the flow stops
+    private static void drain(List<SocketChannel> channels, AtomicLong received, AtomicLong lastAt, long expected) {
+        try (Selector selector = Selector.open()) {
+            for (SocketChannel c : channels) {
+                c.configureBlocking(false);
+                c.register(selector, SelectionKey.OP_READ);
+            }
+
+            ByteBuffer in = ByteBuffer.allocateDirect(256 * 1024);
+            lastAt.set(System.nanoTime());
+            while (received.get() < expected && System.nanoTime() - lastAt.get() < SETTLE_MS * 1_000_000) {
+                selector.select(100);
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    in.clear();
+                    int n = ((SocketChannel) key.channel()).read(in);
+                    if (n < 0) {
+                        key.cancel();
+                    }
+                    else if (n > 0) {
+                        received.addAndGet(n);
+                        lastAt.set(System.nanoTime());
+                    }
+                }
+            }
+        }
+        catch (IOException e) {
+            System.err.println("reader failed: " + e.getMessage());
+        }
+    }
+
+    // Opens: a subscriber connection and sends SUB
+    private static SocketChannel subscribe() throws IOException {
+        SocketChannel channel = SocketChannel.open(new InetSocketAddress("localhost", PORT));
+        channel.write(ByteBuffer.wrap(("SUB " + TOPIC + "\n").getBytes(StandardCharsets.US_ASCII)));
+        return channel;
+    }
+
+    // Waits: until the hub accepts connections (its accept loop starts on another thread)
+    private static void awaitListening() throws IOException {
+        for (int attempt = 0; ; attempt++) {
+            try {
+                new Socket("localhost", PORT).close();
+                return;
+            }
+            catch (ConnectException e) {
+                if (attempt == 50)
+                    throw e;
+                try {
+                    Thread.sleep(20);
+                }
+                catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+    }
+}
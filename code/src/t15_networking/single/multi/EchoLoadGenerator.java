@@ -0,0 +1,214 @@
+package t15_networking.single.multi;
+
+import java.io.*;
+import java.net.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.*;
+import java.util.*;
+
+public class EchoLoadGenerator {
+
+    // === Constants ===
+    private static final int[]  CLIENT_COUNTS = { 10, 1_000, 10_000 };
+    private static final int    MESSAGES      = 100;       // ping-pong round trips per client
+    private static final long   TIMEOUT_MS    = 120_000;
+    private static final byte[] MESSAGE       = "hello server\n".getBytes();
+    private static final byte[] ECHO_PREFIX   = "ECHO: ".getBytes();   // anything else is the busy reply
+
+    // === Fields ===
+    private String _host;
+    private int    _port;
+
+    // === Constructors ===
+    // Creates: a load generator aimed at an echo server that replies one line per line
+    //          (MultiClientServer on 9000, NioMultiClientServer on 9001)
+    public EchoLoadGenerator(String host, int port) {
+        if (host == null || host.isBlank())
+            throw new IllegalArgumentException("host is required");
+        _host = host;
+        _port = port;
+    }
+
+    // === Public API ===
+    // Runs: clients connections that each send MESSAGES lines, one at a time, waiting for every echo;
+    //       all clients are driven by one selector so the generator itself needs no thread per client.
+    //       A client stops at the first reply that is not an echo (the server is busy) or when its
+    //       connection is refused or closed (rejected); neither counts towards the echoes or latencies
+    public Result run(int clients) throws IOException {
+        long[]  latencies = new long[clients * MESSAGES];
+        int     recorded  = 0;
+        int     finished  = 0;
+        int     busy      = 0;
+        int     rejected  = 0;
+        long    start     = System.nanoTime();
+
+        try (Selector selector = Selector.open()) {
+            for (int i = 0; i < clients; i++) {
+                SocketChannel channel = SocketChannel.open();
+                channel.configureBlocking(false);
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                channel.connect(new InetSocketAddress(_host, _port));
+                channel.register(selector, SelectionKey.OP_CONNECT, new Client(channel));
+            }
+
+            long deadline = start + TIMEOUT_MS * 1_000_000;
+            ByteBuffer in = ByteBuffer.allocateDirect(64 * 1024);
+
+            while (finished < clients && System.nanoTime() < deadline) {
+                selector.select(1_000);
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    Client c = (Client) key.attachment();
+                    try {
+                        if (key.isConnectable() && c._channel.finishConnect()) {
+                            key.interestOps(SelectionKey.OP_READ);
+                            c.send(key);
+                        }
+                        else if (key.isWritable()) {
+                            c.send(key);
+                        }
+                        else if (key.isReadable()) {
+                            in.clear();
+                            if (c._channel.read(in) < 0)
+                                throw new EOFException("server closed the connection");
+                            in.flip();
+                            while (in.hasRemaining() && key.isValid()) {
+                                if (!c.endOfLine(in.get()))
+                                    continue;
+                                if (!c._echoed) {
+                                    busy++;
+                                    finished++;
+                                    key.cancel();
+                                    c._channel.close();
+                                }
+                                else {
+                                    latencies[recorded++] = System.nanoTime() - c._sentAt;
+                                    if (++c._received == MESSAGES) {
+                                        finished++;
+                                        key.cancel();
+                                        c._channel.close();
+                                    }
+                                    else {
+                                        c.send(key);
+                                    }
+                                }
+                            }
+                        }
+                    }
+                    catch (IOException e) {
+                        rejected++;
+                        finished++;
+                        key.cancel();
+                        c._channel.close();
+                    }
+                }
+            }
+
+            for (SelectionKey key : selector.keys())
+                key.channel().close();
+        }
+
+        long elapsed = System.nanoTime() - start;
+        return new Result(clients, recorded, busy, rejected, elapsed, Arrays.copyOf(latencies, recorded));
+    }
+
+    // === Helpers ===
+    // Holds: one simulated client's progress
+    private static class Client {
+        private SocketChannel _channel;
+        private ByteBuffer    _out = ByteBuffer.wrap(MESSAGE).position(MESSAGE.length);
+        private int           _received;
+        private long          _sentAt;
+        private int           _lineLength;        // bytes of the current reply line seen so far
+        private boolean       _echoed;            // the current (or last complete) line began with ECHO_PREFIX
+
+        private Client(SocketChannel channel) {
+            _channel = channel;
+        }
+
+        // Sends: the next message, or the rest of a partly written one; waits for OP_WRITE if the socket is full
+        private void send(SelectionKey key) throws IOException {
+            if (!_out.hasRemaining()) {
+                _out.rewind();
+                _sentAt = System.nanoTime();
+            }
+            _channel.write(_out);
+            key.interestOps(_out.hasRemaining() ? SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+        }
+
+        // Reads: one reply byte, checking the line's prefix as it arrives (lines may span reads);
+        //        returns true at the end of a line, with _echoed telling whether it was an echo
+        private boolean endOfLine(byte b) {
+            if (b == '\n') {
+                _echoed     = _lineLength >= ECHO_PREFIX.length && _echoed;
+                _lineLength = 0;
+                return true;
+            }
+            if (_lineLength == 0)
+                _echoed = true;
+            if (_lineLength < ECHO_PREFIX.length && b != ECHO_PREFIX[_lineLength])
+                _echoed = false;
+            _lineLength++;
+            return false;
+        }
+    }
+
+    // Holds: the outcome of one run
+    public static class Result {
+        private int    _clients;
+        private int    _messages;
+        private int    _busy;
+        private int    _rejected;
+        private long   _elapsedNanos;
+        private long[] _latencies;
+
+        private Result(int clients, int messages, int busy, int rejected, long elapsedNanos, long[] latencies) {
+            _clients      = clients;
+            _messages     = messages;
+            _busy         = busy;
+            _rejected     = rejected;
+            _elapsedNanos = elapsedNanos;
+            _latencies    = latencies;
+            Arrays.sort(_latencies);
+        }
+
+        // Gets: the latency at the given percentile (0-100), in microseconds
+        public double percentileMicros(double p) {
+            if (_latencies.length == 0)
+                return Double.NaN;
+            int index = (int) Math.min(_latencies.length - 1, Math.ceil(p / 100 * _latencies.length) - 1);
+            return _latencies[Math.max(0, index)] / 1_000.0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%,8d clients %,10d echoes %9.2f s %,12.0f msg/s   p50 %,9.0f us   p99 %,9.0f us"
+                               + "   busy %,d   rejected %,d",
+                _clients, _messages, _elapsedNanos / 1e9, _messages / (_elapsedNanos / 1e9),
+                percentileMicros(50), percentileMicros(99), _busy, _rejected);
+        }
+    }
+
+    // Runs: the standard client counts against each port given (default: 9000 then 9001), skipping servers
+    //       that are not running; 10k clients need a file-descriptor limit above 20k (ulimit -n) on one machine
+    public static void main(String[] args) throws IOException {
+        int[] ports = (args.length > 0) ? Arrays.stream(args).mapToInt(Integer::parseInt).toArray() : new int[] { 9_000, 9_001 };
+
+        for (int port : ports) {
+            try {
+                new Socket("localhost", port).close();     // reachable
+            }
+            catch (IOException e) {
+                System.out.println("port " + port + ": no server running, skipped");
+                continue;
+            }
+
+            System.out.println("port " + port + ":");
+            EchoLoadGenerator generator = new EchoLoadGenerator("localhost", port);
+            for (int clients : CLIENT_COUNTS)
+                System.out.println("  " + generator.run(clients));
+        }
+    }
+}
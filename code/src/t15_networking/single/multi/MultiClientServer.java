@@ -1,40 +1,257 @@
 package t15_networking.single.multi;
+import common.net.TlsSupport;
 import java.io.*;
 import java.net.*;
+import java.nio.channels.ClosedChannelException;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
 
-public class MultiClientServer {
+public class MultiClientServer implements AutoCloseable {
+
+    // === Constants ===
+    private static final int    DEFAULT_MAX_THREADS     = 200;
+    private static final int    DEFAULT_QUEUE_CAPACITY  = 50;
+    private static final int    DEFAULT_MAX_CONNECTIONS = 1_000;
+    private static final long   IDLE_THREAD_SECONDS     = 60;
+    private static final String BUSY_REPLY              = "ERROR: server busy, try again later";
+    private static final int    REJECT_THREADS          = 2;
+    private static final int    REJECT_QUEUE_CAPACITY   = 1_000;
+    private static final int    REJECT_TIMEOUT_MS       = 2_000;     // bounds a TLS handshake with a silent client
 
     // === Fields ===
-    private int _port;
-    private ExecutorService _pool;
+    private int              _port;
+    private ExecutorService  _pool;
+    private int              _maxConnections;
+    private SessionHandler   _handler;
+    private TlsSupport       _tls;                  // null: from the tls.* system properties at start()
+    private ServerSocket     _serverSocket;
+    private volatile boolean _logSessions = true;
+    private ExecutorService  _rejector    = rejectorPool();
+
+    private AtomicInteger _connections     = new AtomicInteger();
+    private AtomicInteger _peakConnections = new AtomicInteger();
+    private AtomicLong    _accepted        = new AtomicLong();
+    private AtomicLong    _rejected        = new AtomicLong();
 
     // === Constructors ===
-    // Creates: a multi-client server using a cached thread pool
+    // Creates: a multi-client server with the default bounded pool (200 threads, 50 queued, 1000 connections)
     public MultiClientServer(int port) {
+        this(port, DEFAULT_MAX_THREADS, DEFAULT_QUEUE_CAPACITY, DEFAULT_MAX_CONNECTIONS);
+    }
+
+    // Creates: a multi-client server on a bounded pool — at most maxThreads clients are served at once and
+    //          queueCapacity wait for a thread; anyone beyond that, or beyond maxConnections, is told the
+    //          server is busy and disconnected, so a flood of clients cannot create unbounded threads
+    public MultiClientServer(int port, int maxThreads, int queueCapacity, int maxConnections) {
+        this(port, boundedPool(maxThreads, queueCapacity), maxConnections, MultiClientServer::echo);
+    }
+
+    // Creates: a bounded-pool server that runs handler for each client instead of echoing
+    public MultiClientServer(int port, int maxThreads, int queueCapacity, int maxConnections, SessionHandler handler) {
+        this(port, boundedPool(maxThreads, queueCapacity), maxConnections, handler);
+    }
+
+    // Creates: a multi-client server with the given executor and session handler (see withVirtualThreads)
+    private MultiClientServer(int port, ExecutorService pool, int maxConnections, SessionHandler handler) {
         if (port < 1_024 || port > 65_535)
             throw new IllegalArgumentException("port must be 1024–65535");
-        _port = port;
-        _pool = Executors.newCachedThreadPool();
+        if (maxConnections < 1)
+            throw new IllegalArgumentException("maxConnections must be >= 1");
+        if (handler == null)
+            throw new IllegalArgumentException("handler is required");
+        _port           = port;
+        _pool           = pool;
+        _maxConnections = maxConnections;
+        _handler        = handler;
+
+        if (pool instanceof ThreadPoolExecutor)
+            ((ThreadPoolExecutor) pool).setRejectedExecutionHandler(new BusyHandler());
+    }
+
+    // Creates: a multi-client server that gives every client its own virtual thread; threads are cheap,
+    //          so maxConnections is the only limit
+    public static MultiClientServer withVirtualThreads(int port, int maxConnections) {
+        return withVirtualThreads(port, maxConnections, MultiClientServer::echo);
+    }
+
+    // Creates: a virtual-thread server that runs handler for each client instead of echoing
+    public static MultiClientServer withVirtualThreads(int port, int maxConnections, SessionHandler handler) {
+        return new MultiClientServer(port,
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("client-", 0).factory()), maxConnections, handler);
+    }
+
+    // Serves: one connected client on its pool thread; the server closes the socket once serve returns
+    @FunctionalInterface
+    public interface SessionHandler {
+        void serve(Socket socket) throws IOException;
     }
 
     // === Public API ===
-    // Starts: the server accept loop — runs until the process is stopped
+    // Starts: the server accept loop — runs until close() is called
     public void start() throws IOException {
         System.out.println("Server starting on port " + _port);
 
-        try (ServerSocket serverSocket = new ServerSocket(_port)) {
-            while (true) {
-                Socket clientSocket = serverSocket.accept();    // block until a client arrives
-                System.out.println("Accepted: " + clientSocket.getInetAddress());
-                _pool.submit(new ClientHandler(clientSocket)); // hand off to pool
+        TlsSupport tls = (_tls != null) ? _tls : TlsSupport.fromSystemProperties();
+        try (ServerSocket serverSocket = tls.openServerSocket(_port)) {
+            _serverSocket = serverSocket;
+            while (!serverSocket.isClosed()) {
+                Socket clientSocket = TlsSupport.accept(serverSocket);    // block until a client arrives
+
+                int open = _connections.incrementAndGet();
+                if (open > _maxConnections) {
+                    _connections.decrementAndGet();
+                    rejectBusy(clientSocket);
+                    continue;
+                }
+                _accepted.incrementAndGet();
+
+                if (_logSessions)
+                    System.out.println("Accepted: " + clientSocket.getInetAddress());
+                _pool.execute(new ClientHandler(clientSocket)); // hand off to pool (BusyHandler if full)
+                _peakConnections.accumulateAndGet(_connections.get(), Math::max);
             }
         }
+        catch (SocketException | ClosedChannelException e) {
+            if (_serverSocket == null || !_serverSocket.isClosed())
+                throw e;
+            // close() was called (a channel-backed plain socket reports it as AsynchronousCloseException)
+        }
+    }
+
+    // Stops: accepting and interrupts every client session
+    @Override
+    public void close() throws IOException {
+        if (_serverSocket != null)
+            _serverSocket.close();
+        _pool.shutdownNow();
+        _rejector.shutdownNow();
+    }
+
+    // Sets: plain TCP or TLS for the listening socket (call before start; default: the tls.* system properties);
+    //       with TLS the handshake runs on the client's own thread, at its first read or write
+    public void setTls(TlsSupport tls) { _tls = tls; }
+
+    // Sets: whether each accepted client is logged to the console (on by default; turn off for load tests)
+    public void setSessionLogging(boolean on) { _logSessions = on; }
+
+    // Gets: the number of clients connected now (served or queued for a thread)
+    public int getConnectionCount() { return _connections.get(); }
+
+    // Gets: the most clients connected at once
+    public int getPeakConnectionCount() { return _peakConnections.get(); }
+
+    // Gets: the number of clients accepted and the number turned away as busy
+    public long getAcceptedCount() { return _accepted.get(); }
+    public long getRejectedCount() { return _rejected.get(); }
+
+    // Gets: pool threads running a client now (with virtual threads, every connected client has one)
+    public int getActiveThreadCount() {
+        return (_pool instanceof ThreadPoolExecutor) ? ((ThreadPoolExecutor) _pool).getActiveCount() : _connections.get();
+    }
+
+    // Gets: clients waiting for a pool thread (always 0 with virtual threads)
+    public int getQueuedCount() {
+        return (_pool instanceof ThreadPoolExecutor) ? ((ThreadPoolExecutor) _pool).getQueue().size() : 0;
+    }
+
+    // Gets: the most pool threads alive at once (-1 with virtual threads)
+    public int getLargestPoolSize() {
+        return (_pool instanceof ThreadPoolExecutor) ? ((ThreadPoolExecutor) _pool).getLargestPoolSize() : -1;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("MultiClientServer{connections=%d (peak %d, max %d), activeThreads=%d, queued=%d, "
+                           + "largestPool=%d, accepted=%d, rejected=%d}",
+            getConnectionCount(), getPeakConnectionCount(), _maxConnections, getActiveThreadCount(), getQueuedCount(),
+            getLargestPoolSize(), getAcceptedCount(), getRejectedCount());
     }
 
     // === Helpers ===
+    // Creates: a pool that grows to maxThreads, queues up to queueCapacity, and lets idle threads die
+    private static ThreadPoolExecutor boundedPool(int maxThreads, int queueCapacity) {
+        if (maxThreads < 1)
+            throw new IllegalArgumentException("maxThreads must be >= 1");
+        if (queueCapacity < 0)
+            throw new IllegalArgumentException("queueCapacity must be >= 0");
+
+        BlockingQueue<Runnable> queue = (queueCapacity == 0) ? new SynchronousQueue<>()
+                                                             : new ArrayBlockingQueue<>(queueCapacity);
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(maxThreads, maxThreads,
+                                                         IDLE_THREAD_SECONDS, TimeUnit.SECONDS, queue);
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    // Creates: the few daemon threads that send busy replies, so a slow client (or its TLS handshake) never
+    //          holds up the accept loop; when even their queue is full, rejected sockets are closed unanswered
+    private static ExecutorService rejectorPool() {
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(REJECT_THREADS, REJECT_THREADS,
+                                                         IDLE_THREAD_SECONDS, TimeUnit.SECONDS,
+                                                         new ArrayBlockingQueue<>(REJECT_QUEUE_CAPACITY),
+                                                         Thread.ofPlatform().name("reject-", 0).daemon().factory());
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    // Serves: the default session — reads lines and echoes them
+    private static void echo(Socket socket) throws IOException {
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+             PrintWriter out  = new PrintWriter(socket.getOutputStream(), true)) {
+
+            String line;
+            while ((line = in.readLine()) != null) {
+                out.println("ECHO: " + line);
+            }
+        }
+    }
+
+    // Rejects: a client the server is too busy for — the reply is sent on a rejector thread, not the caller's
+    private void rejectBusy(Socket socket) {
+        _rejected.incrementAndGet();
+        try {
+            _rejector.execute(() -> sendBusy(socket));
+        }
+        catch (RejectedExecutionException e) {
+            closeQuietly(socket);
+        }
+    }
+
+    // Sends: the busy reply and closes the socket, giving up after REJECT_TIMEOUT_MS of client silence
+    private static void sendBusy(Socket socket) {
+        try (socket;
+             PrintWriter out = new PrintWriter(socket.getOutputStream(), true)) {
+            socket.setSoTimeout(REJECT_TIMEOUT_MS);
+            out.println(BUSY_REPLY);
+        }
+        catch (IOException e) {
+            // the client has gone anyway
+        }
+    }
+
+    // Closes: a socket, ignoring failures
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        }
+        catch (IOException e) {
+            // nothing useful to do here
+        }
+    }
+
+    // Handles: a client the pool has no thread or queue slot for — runs on the accept thread, but only queues
+    //          the busy reply
+    private class BusyHandler implements RejectedExecutionHandler {
+        @Override
+        public void rejectedExecution(Runnable task, ThreadPoolExecutor pool) {
+            _connections.decrementAndGet();
+            _accepted.decrementAndGet();
+            rejectBusy(((ClientHandler) task)._socket);
+        }
+    }
+
     // Handles: one connected client — runs on a pool thread
-    private static class ClientHandler implements Runnable {
+    private class ClientHandler implements Runnable {
 
         private Socket _socket;
 
@@ -43,34 +260,39 @@ public class MultiClientServer {
             _socket = socket;
         }
 
-        // Runs: the client session — reads lines and echoes them
+        // Runs: the client session
         @Override
         public void run() {
-            System.out.println("Handling client on " + Thread.currentThread().getName());
+            if (_logSessions)
+                System.out.println("Handling client on " + Thread.currentThread().getName());
 
-            try (BufferedReader in = new BufferedReader(new InputStreamReader(_socket.getInputStream()));
-                 PrintWriter out  = new PrintWriter(_socket.getOutputStream(), true)) {
-
-                String line;
-                while ((line = in.readLine()) != null) {
-                    out.println("ECHO: " + line);
-                }
+            try {
+                _handler.serve(_socket);
             }
             catch (IOException e) {
-                System.out.println("Client disconnected: " + e.getMessage());
+                if (_logSessions)
+                    System.out.println("Client disconnected: " + e.getMessage());
             }
             finally {
-                try {
-                    _socket.close();
-                }
-                catch (IOException e) {
-                    // nothing useful to do here
-                }
+                _connections.decrementAndGet();
+                closeQuietly(_socket);
             }
         }
     }
 
+    // Starts: the server on 9000 and prints its gauges every 10 seconds; pass "virtual" to use virtual threads
     public static void main(String[] args) throws IOException {
-        new MultiClientServer(9_000).start();
+        MultiClientServer server = (args.length > 0 && args[0].equals("virtual"))
+                                 ? withVirtualThreads(9_000, DEFAULT_MAX_CONNECTIONS)
+                                 : new MultiClientServer(9_000);
+
+        ScheduledExecutorService gauges = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "gauges");
+            t.setDaemon(true);
+            return t;
+        });
+        gauges.scheduleAtFixedRate(() -> System.out.println(server), 10, 10, TimeUnit.SECONDS);
+
+        server.start();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,304 @@
+package t15_networking.single.multi;
+
+import common.net.TlsChannel;
+import common.net.TlsSupport;
+import java.io.*;
+import java.net.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+public class NioMultiClientServer implements AutoCloseable {
+
+    // === Constants ===
+    private static final byte[] PREFIX          = "ECHO: ".getBytes();
+    private static final byte[] NEWLINE         = { '\n' };
+    private static final int    READ_BUFFER     = 64 * 1024;    // one per selector thread, reused for every read
+    private static final int    OUT_CHUNK       = 16 * 1024;    // pooled outbound buffer size
+    private static final int    MAX_QUEUED      = 16;           // outbound chunks before a client stops being read
+    private static final int    MAX_LINE_LENGTH = 64 * 1024;
+    private static final int    BACKLOG         = 1_024;
+
+    // === Fields ===
+    private int                 _port;
+    private TlsSupport          _tls;
+    private SelectorLoop[]      _loops;
+    private ServerSocketChannel _server;
+    private volatile boolean    _running;
+    private AtomicInteger       _connections = new AtomicInteger();
+
+    // === Constructors ===
+    // Creates: an echo server with one selector thread per shard; connections are spread round-robin,
+    //          so a handful of threads serve any number of clients (one shard is often enough)
+    public NioMultiClientServer(int port, int selectors) {
+        this(port, selectors, TlsSupport.plain());
+    }
+
+    // Creates: an echo server as above that speaks TLS when tls is enabled — each connection gets its own
+    //          SSLEngine, driven on its selector thread
+    public NioMultiClientServer(int port, int selectors, TlsSupport tls) {
+        if (port < 1_024 || port > 65_535)
+            throw new IllegalArgumentException("port must be 1024–65535");
+        if (selectors < 1)
+            throw new IllegalArgumentException("selectors must be >= 1");
+        if (tls == null)
+            throw new IllegalArgumentException("tls is required (TlsSupport.plain() for none)");
+        _port  = port;
+        _tls   = tls;
+        _loops = new SelectorLoop[selectors];
+    }
+
+    // === Public API ===
+    // Starts: the selector threads, then accepts on the calling thread until close() is called
+    public void start() throws IOException {
+        System.out.println("NIO server starting on port " + _port + " with " + _loops.length + " selector(s)"
+                         + (_tls.isEnabled() ? " (TLS)" : ""));
+
+        _running = true;
+        for (int i = 0; i < _loops.length; i++) {
+            _loops[i] = new SelectorLoop();
+            Thread t = new Thread(_loops[i], "selector-" + i);
+            t.setDaemon(true);
+            t.start();
+        }
+
+        _server = ServerSocketChannel.open();
+        _server.bind(new InetSocketAddress(_port), BACKLOG);
+
+        int next = 0;
+        try {
+            while (_running) {
+                SocketChannel client = _server.accept();        // blocking accept; selectors never wait on it
+                _loops[next].register(client);
+                next = (next + 1) % _loops.length;
+            }
+        }
+        catch (ClosedChannelException e) {
+            // close() was called
+        }
+        finally {
+            close();
+        }
+    }
+
+    // Stops: accepting, closes every connection and ends the selector threads
+    @Override
+    public void close() throws IOException {
+        _running = false;
+        if (_server != null)
+            _server.close();
+        for (SelectorLoop loop : _loops)
+            if (loop != null)
+                loop._selector.wakeup();
+    }
+
+    // Gets: the number of connected clients
+    public int getConnectionCount() { return _connections.get(); }
+
+    // Gets: the total number of lines echoed
+    public long getEchoCount() {
+        long total = 0;
+        for (SelectorLoop loop : _loops)
+            if (loop != null)
+                total += loop._echoed;
+        return total;
+    }
+
+    // === Helpers ===
+    // Runs: one selector and every connection assigned to it — all I/O for those clients happens on this thread
+    private class SelectorLoop implements Runnable {
+
+        private Selector                             _selector;
+        private ConcurrentLinkedQueue<SocketChannel> _pending    = new ConcurrentLinkedQueue<>();
+        private ByteBuffer                           _readBuffer = ByteBuffer.allocateDirect(READ_BUFFER);
+        private ArrayDeque<ByteBuffer>               _pool       = new ArrayDeque<>();
+        private volatile long                        _echoed;      // written only by this loop's thread
+
+        private SelectorLoop() throws IOException {
+            _selector = Selector.open();
+        }
+
+        // Queues: a newly accepted channel for this loop to register on its own thread
+        private void register(SocketChannel channel) {
+            _pending.add(channel);
+            _selector.wakeup();
+        }
+
+        @Override
+        public void run() {
+            try (Selector selector = _selector) {
+                while (_running) {
+                    selector.select();
+                    registerPending();
+
+                    Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                    while (keys.hasNext()) {
+                        SelectionKey key = keys.next();
+                        keys.remove();
+                        Connection c = (Connection) key.attachment();
+                        try {
+                            if (key.isValid() && key.isReadable()) c.read();
+                            if (key.isValid() && key.isWritable()) c.flush();
+                        }
+                        catch (IOException e) {
+                            c.close();
+                        }
+                    }
+                }
+                for (SelectionKey key : selector.keys())
+                    ((Connection) key.attachment()).close();
+            }
+            catch (IOException e) {
+                System.out.println("Selector failed: " + e.getMessage());
+            }
+        }
+
+        // Registers: channels handed over by the acceptor since the last select
+        private void registerPending() {
+            SocketChannel channel;
+            while ((channel = _pending.poll()) != null) {
+                try {
+                    channel.configureBlocking(false);
+                    channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                    SelectionKey key = channel.register(_selector, SelectionKey.OP_READ);
+                    key.attach(new Connection(this, channel, key,
+                                              _tls.isEnabled() ? new TlsChannel(channel, _tls.createServerEngine()) : null));
+                    _connections.incrementAndGet();
+                }
+                catch (IOException e) {
+                    try { channel.close(); } catch (IOException ignored) { }
+                }
+            }
+        }
+
+        // Gets: an empty outbound buffer from this loop's pool
+        private ByteBuffer acquire() {
+            ByteBuffer b = _pool.pollFirst();
+            return (b != null) ? b : ByteBuffer.allocateDirect(OUT_CHUNK);
+        }
+
+        // Puts: a drained outbound buffer back in the pool
+        private void release(ByteBuffer b) {
+            b.clear();
+            _pool.addFirst(b);
+        }
+    }
+
+    // Holds: one client's partial input line and queued output; only touched by its selector thread
+    private class Connection {
+
+        private SelectorLoop           _loop;
+        private ByteChannel            _channel;          // the socket, or _tls over it
+        private TlsChannel             _tls;
+        private SelectionKey           _key;
+        private byte[]                 _line     = new byte[256];
+        private int                    _lineLength;
+        private ArrayDeque<ByteBuffer> _outbound = new ArrayDeque<>();    // filling the last; draining the first
+        private boolean                _closed;
+
+        private Connection(SelectorLoop loop, SocketChannel channel, SelectionKey key, TlsChannel tls) {
+            _loop    = loop;
+            _channel = (tls != null) ? tls : channel;
+            _tls     = tls;
+            _key     = key;
+        }
+
+        // Reads: whatever has arrived, frames it into lines, queues an echo for each and tries to send it;
+        //        with TLS, also drains plaintext the engine decrypted but could not hand over in one read
+        private void read() throws IOException {
+            ByteBuffer in = _loop._readBuffer;
+            int n;
+            do {
+                in.clear();
+                n = _channel.read(in);
+                if (n < 0) {
+                    close();
+                    return;
+                }
+                in.flip();
+                echoLines(in);
+            } while (n > 0 && _tls != null && _tls.hasBufferedInput());
+            flush();
+        }
+
+        // Frames: the bytes read into lines and queues an echo for each
+        private void echoLines(ByteBuffer in) throws IOException {
+            while (in.hasRemaining()) {
+                byte b = in.get();
+                if (b == '\n') {
+                    int length = (_lineLength > 0 && _line[_lineLength - 1] == '\r') ? _lineLength - 1 : _lineLength;
+                    queue(PREFIX, PREFIX.length);
+                    queue(_line, length);
+                    queue(NEWLINE, 1);
+                    _lineLength = 0;
+                    _loop._echoed++;
+                }
+                else {
+                    if (_lineLength == MAX_LINE_LENGTH)
+                        throw new IOException("line longer than " + MAX_LINE_LENGTH + " bytes");
+                    if (_lineLength == _line.length)
+                        _line = Arrays.copyOf(_line, Math.min(_line.length * 2, MAX_LINE_LENGTH));
+                    _line[_lineLength++] = b;
+                }
+            }
+        }
+
+        // Queues: bytes for sending, taking pooled buffers as each fills
+        private void queue(byte[] bytes, int length) {
+            int offset = 0;
+            while (offset < length) {
+                ByteBuffer last = _outbound.peekLast();
+                if (last == null || !last.hasRemaining()) {
+                    last = _loop.acquire();
+                    _outbound.addLast(last);
+                }
+                int n = Math.min(last.remaining(), length - offset);
+                last.put(bytes, offset, n);
+                offset += n;
+            }
+        }
+
+        // Writes: queued output until the socket would block; waits for OP_WRITE (and stops reading
+        //         if too much is queued) when it cannot all go now
+        private void flush() throws IOException {
+            while (!_outbound.isEmpty()) {
+                ByteBuffer first = _outbound.peekFirst();
+                first.flip();
+                _channel.write(first);
+                if (first.hasRemaining()) {
+                    first.compact();
+                    break;
+                }
+                _loop.release(_outbound.pollFirst());
+            }
+
+            if (_closed)
+                return;
+            boolean tlsPending = (_tls != null) && !_tls.flush();      // handshake or wrapped data still waiting
+            int interest = (_outbound.isEmpty() && !tlsPending) ? SelectionKey.OP_READ
+                         : _outbound.size() > MAX_QUEUED            ? SelectionKey.OP_WRITE
+                         :                                            SelectionKey.OP_READ | SelectionKey.OP_WRITE;
+            if (_key.interestOps() != interest)
+                _key.interestOps(interest);
+        }
+
+        // Closes: the channel and returns its buffers to the pool
+        private void close() {
+            if (_closed)
+                return;
+            _closed = true;
+            _key.cancel();
+            try { _channel.close(); } catch (IOException ignored) { }
+            while (!_outbound.isEmpty())
+                _loop.release(_outbound.pollFirst());
+            _connections.decrementAndGet();
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        int selectors = (args.length > 0) ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        new NioMultiClientServer(9_001, selectors, TlsSupport.fromSystemProperties()).start();
+    }
+}
@@ -0,0 +1,88 @@
+package t15_networking.single.multi;
+
+import common.LatencyHistogram;
+import common.net.SelfSignedKeyStore;
+import common.net.TlsSupport;
+import javax.net.ssl.SSLSocket;
+import java.io.*;
+import java.net.*;
+import java.nio.file.Path;
+
+public class TlsHandshakeBenchmark {
+
+    // === Constants ===
+    private static final int    PORT        = 9_005;
+    private static final int    CONNECTIONS = 300;      // measured per case
+    private static final int    WARM_UP     = 100;
+    private static final Path   KEYSTORE    = Path.of("data/tls/bench-keystore.p12");
+    private static final char[] PASSWORD    = SelfSignedKeyStore.DEFAULT_PASSWORD.toCharArray();
+
+    // === Entry point ===
+    // Runs: short-lived connections (connect, handshake, one echo, close) against a TLS MultiClientServer —
+    //       plain TCP as the floor, then for TLS 1.3 and 1.2 a full handshake every time (a fresh client
+    //       context, so nothing cached) against resumption (one shared context, as TlsSupport gives each process)
+    public static void main(String[] args) throws Exception {
+        SelfSignedKeyStore.create(KEYSTORE, PASSWORD);
+        TlsSupport serverTls = TlsSupport.fromKeyStores(KEYSTORE, null, PASSWORD);
+
+        MultiClientServer server = MultiClientServer.withVirtualThreads(PORT, 1_000);
+        server.setSessionLogging(false);
+        server.setTls(serverTls);
+        Thread.ofPlatform().daemon().start(() -> {
+            try {
+                server.start();
+            }
+            catch (IOException e) {
+                System.err.println("server stopped: " + e.getMessage());
+            }
+        });
+        Thread.sleep(500);
+
+        System.out.printf("%-22s %10s %10s %10s %10s%n", "Case", "conn/s", "mean ms", "p50 ms", "p99 ms");
+        try (server) {
+            report("plain TCP", measure(i -> new Socket("localhost", PORT)));
+            for (String protocol : new String[] { "TLSv1.3", "TLSv1.2" }) {
+                TlsSupport[] fresh = new TlsSupport[WARM_UP + CONNECTIONS];
+                for (int i = 0; i < fresh.length; i++)
+                    fresh[i] = TlsSupport.fromKeyStores(null, KEYSTORE, PASSWORD, protocol);
+                report(protocol + " full", measure(i -> fresh[i].connect("localhost", PORT)));
+
+                TlsSupport shared = TlsSupport.fromKeyStores(null, KEYSTORE, PASSWORD, protocol);
+                report(protocol + " resumed", measure(i -> shared.connect("localhost", PORT)));
+            }
+        }
+    }
+
+    // === Helpers ===
+    // Times: WARM_UP unrecorded connections, then CONNECTIONS recorded ones
+    private static LatencyHistogram measure(Connector connector) throws IOException {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < WARM_UP + CONNECTIONS; i++) {
+            long start = System.nanoTime();
+            try (Socket socket = connector.open(i)) {
+                if (socket instanceof SSLSocket)
+                    ((SSLSocket) socket).startHandshake();
+                BufferedReader in  = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+                PrintWriter    out = new PrintWriter(socket.getOutputStream(), true);
+                out.println("ping");
+                if (in.readLine() == null)
+                    throw new EOFException("no echo");
+            }
+            if (i >= WARM_UP)
+                histogram.record(System.nanoTime() - start);
+        }
+        return histogram;
+    }
+
+    // Prints: one result row
+    private static void report(String name, LatencyHistogram h) {
+        System.out.printf("%-22s %,10.0f %10.2f %10.2f %10.2f%n", name, 1e9 / h.getMeanNanos(), h.getMeanNanos() / 1e6,
+            h.percentileNanos(50) / 1e6, h.percentileNanos(99) / 1e6);
+    }
+
+    // Opens: the i-th connection of a case
+    @FunctionalInterface
+    private interface Connector {
+        Socket open(int i) throws IOException;
+    }
+}
@@ -0,0 +1,128 @@
+package t16_json.exercises.ex01;
+
+import java.io.*;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+
+public class BinaryFileBenchmark {
+
+    // === Constants ===
+    private static final long   MB         = 1_048_576L;
+    private static final long[] SIZES      = { MB, 16 * MB, 256 * MB, 1_024 * MB, 4_096 * MB };
+    private static final int    RUNS       = 3;            // best of, after one warm-up
+    private static final long   MAP_REGION = 256 * MB;     // mmap region size for files over 2 GB
+    private static final String WORK_DIR   = "data/bench";
+
+    // === Entry point ===
+    // Runs: copy throughput for every strategy and size; pass sizes in MB as arguments to override
+    //       (e.g. "1 64 4096"); needs about twice the largest size in free disk space
+    public static void main(String[] args) throws Exception {
+        long[] sizes = SIZES;
+        if (args.length > 0) {
+            sizes = new long[args.length];
+            for (int i = 0; i < args.length; i++)
+                sizes[i] = Long.parseLong(args[i]) * MB;
+        }
+
+        Path dir = Path.of(WORK_DIR);
+        Files.createDirectories(dir);
+        String src = dir.resolve("bench_src.bin").toString();
+        String dst = dir.resolve("bench_dst.bin").toString();
+
+        System.out.printf("%-10s %-26s %10s%n", "Size", "Strategy", "MB/s");
+        try {
+            for (long size : sizes) {
+                createFile(Path.of(src), size);
+
+                Map<String, Strategy> strategies = new LinkedHashMap<>();
+                strategies.put("readAllBytes + write",    () -> readAllCopy(src, dst, size));
+                strategies.put("buffered streams",        () -> bufferedCopy(src, dst));
+                strategies.put("channel copy (heap)",     () -> BinaryFileUtil.copy(src, dst, BinaryFileUtil.DEFAULT_BUFFER_SIZE, false));
+                strategies.put("channel copy (direct)",   () -> BinaryFileUtil.copy(src, dst, BinaryFileUtil.DEFAULT_BUFFER_SIZE, true));
+                strategies.put("FileChannel.transferTo",  () -> transferCopy(src, dst));
+                strategies.put("mmap",                    () -> mappedCopy(src, dst, size));
+
+                for (Map.Entry<String, Strategy> e : strategies.entrySet())
+                    System.out.printf("%-10s %-26s %10s%n", (size / MB) + " MB", e.getKey(), measure(e.getValue(), size));
+            }
+        }
+        finally {
+            Files.deleteIfExists(Path.of(src));
+            Files.deleteIfExists(Path.of(dst));
+        }
+    }
+
+    // === Helpers ===
+    // Runs: one warm-up then RUNS timed runs; returns the best throughput, or why it could not run
+    private static String measure(Strategy strategy, long size) {
+        try {
+            strategy.run();
+            long best = Long.MAX_VALUE;
+            for (int i = 0; i < RUNS; i++) {
+                long start = System.nanoTime();
+                strategy.run();
+                best = Math.min(best, System.nanoTime() - start);
+            }
+            return String.format("%.1f", (size / (double) MB) / (best / 1e9));
+        }
+        catch (OutOfMemoryError | UnsupportedOperationException e) {
+            return "n/a";
+        }
+        catch (Exception e) {
+            return "error";
+        }
+    }
+
+    // Copies: the whole file through one byte[] — the original BinaryFileUtil approach
+    private static void readAllCopy(String src, String dst, long size) throws Exception {
+        if (size > Integer.MAX_VALUE - 8)
+            throw new UnsupportedOperationException("readAllBytes cannot hold more than 2 GB");
+        BinaryFileUtil.writeFile(dst, BinaryFileUtil.readFile(src));
+    }
+
+    // Copies: through BufferedInputStream / BufferedOutputStream
+    private static void bufferedCopy(String src, String dst) throws IOException {
+        try (InputStream  in  = new BufferedInputStream(new FileInputStream(src), BinaryFileUtil.DEFAULT_BUFFER_SIZE);
+             OutputStream out = new BufferedOutputStream(new FileOutputStream(dst), BinaryFileUtil.DEFAULT_BUFFER_SIZE)) {
+            in.transferTo(out);
+        }
+    }
+
+    // Copies: file channel to file channel with transferTo
+    private static void transferCopy(String src, String dst) throws IOException {
+        try (FileChannel out = FileChannel.open(Path.of(dst), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                                StandardOpenOption.TRUNCATE_EXISTING)) {
+            BinaryFileUtil.transferTo(src, out);
+        }
+    }
+
+    // Copies: by mapping the source region by region and writing each mapping out
+    private static void mappedCopy(String src, String dst, long size) throws IOException {
+        try (FileChannel out = FileChannel.open(Path.of(dst), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                                StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (long pos = 0; pos < size; pos += MAP_REGION) {
+                MappedByteBuffer region = BinaryFileUtil.map(src, pos, Math.min(MAP_REGION, size - pos));
+                while (region.hasRemaining())
+                    out.write(region);
+            }
+        }
+    }
+
+    // Creates: a file of exactly size bytes of non-zero data, written in 1 MB chunks
+    private static void createFile(Path path, long size) throws IOException {
+        byte[] chunk = new byte[(int) MB];
+        new Random(42).nextBytes(chunk);
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(path))) {
+            for (long written = 0; written < size; written += chunk.length)
+                out.write(chunk, 0, (int) Math.min(chunk.length, size - written));
+        }
+    }
+
+    // Runs: one copy strategy
+    @FunctionalInterface
+    private interface Strategy {
+        void run() throws Exception;
+    }
+}
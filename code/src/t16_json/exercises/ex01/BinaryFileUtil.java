@@ -1,33 +1,153 @@
 package t16_json.exercises.ex01;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.file.*;
 
 public class BinaryFileUtil {
 
+    // === Constants ===
+    public static final int DEFAULT_BUFFER_SIZE = 64 * 1_024;
+
     // === Public API ===
     // Reads: a file from disk and returns its bytes
     public static byte[] readFile(String path) throws Exception {
+        Path p = existingFile(path);
+        return Files.readAllBytes(p);
+    }
+
+    // Writes: a byte array to disk at the given path
+    public static void writeFile(String path, byte[] data) throws Exception {
+        if (data == null)
+            throw new IllegalArgumentException("data is required");
+
+        Files.write(targetFile(path), data);
+    }
+
+    // --- Streaming (never holds more than one buffer of the file in memory) ---
+
+    // Copies: src to dst through a reusable buffer of the default size; returns the bytes copied
+    public static long copy(String src, String dst) throws IOException {
+        return copy(src, dst, DEFAULT_BUFFER_SIZE, false);
+    }
+
+    // Copies: src to dst through one buffer of bufferSize bytes, optionally a direct (off-heap) buffer
+    public static long copy(String src, String dst, int bufferSize, boolean direct) throws IOException {
+        Path in  = existingFile(src);
+        Path out = targetFile(dst);
+
+        try (FileChannel source = FileChannel.open(in, StandardOpenOption.READ);
+             FileChannel target = FileChannel.open(out, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                                   StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = allocate(bufferSize, direct);
+            long       copied = 0;
+            while (source.read(buffer) != -1) {
+                buffer.flip();
+                while (buffer.hasRemaining())
+                    copied += target.write(buffer);
+                buffer.clear();
+            }
+            return copied;
+        }
+    }
+
+    // Transfers: the whole file to target with FileChannel.transferTo — the OS can move the bytes
+    //            without copying them through the JVM when target is a file or socket channel; returns the bytes
+    //            sent, fewer than the file's size if it was truncated meanwhile. The target must be blocking: a
+    //            non-blocking channel can accept 0 bytes, and this loop would spin until it had room
+    public static long transferTo(String src, WritableByteChannel target) throws IOException {
+        if (target == null)
+            throw new IllegalArgumentException("target is required");
+        if (target instanceof SelectableChannel && !((SelectableChannel) target).isBlocking())
+            throw new IllegalArgumentException("target must be in blocking mode");
+
+        try (FileChannel source = FileChannel.open(existingFile(src), StandardOpenOption.READ)) {
+            long size = source.size();
+            long sent = 0;
+            while (sent < size) {
+                long n = source.transferTo(sent, size - sent, target);
+                if (n == 0 && sent >= source.size())
+                    break;      // truncated since size was read
+                sent += n;
+            }
+            return sent;
+        }
+    }
+
+    // Reads: the file chunk by chunk, handing each chunk and its file position to the consumer;
+    //        returns the total bytes read
+    public static long readChunks(String path, int bufferSize, boolean direct, ChunkConsumer consumer) throws IOException {
+        if (consumer == null)
+            throw new IllegalArgumentException("consumer is required");
+
+        try (FileChannel source = FileChannel.open(existingFile(path), StandardOpenOption.READ)) {
+            ByteBuffer buffer   = allocate(bufferSize, direct);
+            long       position = 0;
+            int        n;
+            while ((n = source.read(buffer)) != -1) {
+                buffer.flip();
+                consumer.accept(buffer, position);
+                position += n;
+                buffer.clear();
+            }
+            return position;
+        }
+    }
+
+    // --- Memory-mapped (random access) ---
+
+    // Maps: a whole file read-only; files over 2 GB must be mapped region by region
+    public static MappedByteBuffer map(String path) throws IOException {
+        Path p = existingFile(path);
+        return map(path, 0, Files.size(p));
+    }
+
+    // Maps: size bytes starting at position read-only (a single mapping is limited to 2 GB);
+    //       the mapping stays valid after the channel is closed
+    public static MappedByteBuffer map(String path, long position, long size) throws IOException {
+        if (position < 0 || size < 0)
+            throw new IllegalArgumentException("position and size must be >= 0");
+        if (size > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("a single mapping is limited to 2 GB; map in regions");
+
+        try (FileChannel ch = FileChannel.open(existingFile(path), StandardOpenOption.READ)) {
+            if (position + size > ch.size())
+                throw new IllegalArgumentException("region ends past end of file (" + ch.size() + " bytes)");
+            return ch.map(FileChannel.MapMode.READ_ONLY, position, size);
+        }
+    }
+
+    // === Helpers ===
+    // Gets: the path of an existing file, validating the argument
+    private static Path existingFile(String path) {
         if (path == null || path.isBlank())
             throw new IllegalArgumentException("path is required");
 
         Path p = Path.of(path);
         if (!Files.exists(p))
             throw new IllegalArgumentException("file not found: " + path);
-
-        return Files.readAllBytes(p);
+        return p;
     }
 
-    // Writes: a byte array to disk at the given path
-    public static void writeFile(String path, byte[] data) throws Exception {
+    // Gets: the path of a file about to be written, creating its parent directories
+    private static Path targetFile(String path) throws IOException {
         if (path == null || path.isBlank())
             throw new IllegalArgumentException("path is required");
-        if (data == null)
-            throw new IllegalArgumentException("data is required");
 
         Path p = Path.of(path);
         if (p.getParent() != null)
             Files.createDirectories(p.getParent());
+        return p;
+    }
 
-        Files.write(p, data);
+    // Creates: a heap or direct buffer of the given size
+    private static ByteBuffer allocate(int bufferSize, boolean direct) {
+        if (bufferSize < 1)
+            throw new IllegalArgumentException("bufferSize must be >= 1");
+        return direct ? ByteBuffer.allocateDirect(bufferSize) : ByteBuffer.allocate(bufferSize);
     }
 }
@@ -0,0 +1,10 @@
+package t16_json.exercises.ex01;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+// Receives: successive chunks of a file; the buffer is only valid until accept returns (it is reused)
+@FunctionalInterface
+public interface ChunkConsumer {
+    void accept(ByteBuffer chunk, long position) throws IOException;
+}
@@ -0,0 +1,7 @@
+package t16_json.exercises.ex03;
+
+// Notified: after an asset row is committed or removed, so caches keyed by asset ID can drop stale entries
+@FunctionalInterface
+public interface AssetChangeListener {
+    void onAssetChanged(int assetId);
+}
@@ -0,0 +1,11 @@
+package t16_json.exercises.ex03;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+// Notified: inside an asset insert's transaction, before it commits, so rows written on the same connection
+//           (e.g. a processing job) commit or roll back together with the asset
+@FunctionalInterface
+public interface AssetInsertListener {
+    void onAssetInserted(Connection c, int assetId) throws SQLException;
+}
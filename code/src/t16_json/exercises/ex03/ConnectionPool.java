@@ -0,0 +1,193 @@
+package t16_json.exercises.ex03;
+
+import java.lang.reflect.*;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Deque;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ConnectionPool implements ConnectionSource, AutoCloseable {
+
+    // === Constants ===
+    private static final int  VALIDATION_TIMEOUT_SECONDS = 2;
+    private static final long VALIDATE_AFTER_IDLE_NANOS  = TimeUnit.SECONDS.toNanos(5);
+
+    // === Fields ===
+    private ConnectionSource      _factory;
+    private long                  _borrowTimeoutMillis;
+    private Semaphore             _permits;                           // one per connection still borrowable
+    private Deque<IdleConnection> _idle    = new ConcurrentLinkedDeque<>();   // most recently returned first
+    private AtomicInteger         _created = new AtomicInteger();
+    private volatile boolean      _closed;
+
+    // === Constructors ===
+    // Creates: a pool of at most maxSize physical connections opened lazily from factory;
+    //          open() waits up to borrowTimeoutMillis for one to come back when all are in use
+    public ConnectionPool(ConnectionSource factory, int maxSize, long borrowTimeoutMillis) {
+        if (factory == null)
+            throw new IllegalArgumentException("factory is required");
+        if (maxSize < 1)
+            throw new IllegalArgumentException("maxSize must be >= 1");
+        if (borrowTimeoutMillis < 0)
+            throw new IllegalArgumentException("borrowTimeoutMillis must be >= 0");
+
+        _factory             = factory;
+        _borrowTimeoutMillis = borrowTimeoutMillis;
+        _permits             = new Semaphore(maxSize, true);
+    }
+
+    // === Public API ===
+    // Opens: a pooled connection; closing it returns the physical connection to the pool
+    @Override
+    public Connection open() throws SQLException {
+        if (_closed)
+            throw new SQLException("pool is closed");
+
+        try {
+            if (!_permits.tryAcquire(_borrowTimeoutMillis, TimeUnit.MILLISECONDS))
+                throw new SQLException("no connection available after " + _borrowTimeoutMillis + " ms");
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("interrupted while waiting for a connection", e);
+        }
+
+        try {
+            if (_closed)
+                throw new SQLException("pool is closed");
+            return wrap(idleOrCreate());
+        }
+        catch (SQLException | RuntimeException e) {
+            _permits.release();
+            throw e;
+        }
+    }
+
+    // Gets: the number of physical connections currently open
+    public int getOpenCount() { return _created.get(); }
+
+    // Gets: the number of physical connections waiting to be borrowed
+    public int getIdleCount() { return _idle.size(); }
+
+    // Closes: every idle connection; borrowed ones are closed as they come back
+    @Override
+    public void close() {
+        _closed = true;
+        closeIdle();
+    }
+
+    // === Helpers ===
+    // Gets: the most recently returned idle connection — checked with isValid only if it sat idle long enough
+    //       for the server to have dropped it — or a new physical connection; the caller holds a permit
+    private Connection idleOrCreate() throws SQLException {
+        IdleConnection idle;
+        while ((idle = _idle.pollFirst()) != null) {
+            if (System.nanoTime() - idle._since < VALIDATE_AFTER_IDLE_NANOS || isValid(idle._physical))
+                return idle._physical;
+            closePhysical(idle._physical);
+        }
+
+        Connection physical = _factory.open();
+        _created.incrementAndGet();
+        return physical;
+    }
+
+    // Returns: a physical connection to the pool after resetting it, or discards it if it is unusable
+    private void release(Connection physical) {
+        try {
+            if (!physical.getAutoCommit()) {
+                physical.rollback();        // never hand on someone else's open transaction
+                physical.setAutoCommit(true);
+            }
+            if (!_closed) {
+                _idle.offerFirst(new IdleConnection(physical, System.nanoTime()));
+                _permits.release();
+                if (_closed)
+                    closeIdle();            // close() ran while it was being returned
+                return;
+            }
+        }
+        catch (SQLException e) {
+            // fall through and discard
+        }
+        discard(physical);
+    }
+
+    // Closes: a borrowed physical connection and frees its slot, waking a borrower waiting for one
+    private void discard(Connection physical) {
+        closePhysical(physical);
+        _permits.release();
+    }
+
+    // Closes: every idle connection
+    private void closeIdle() {
+        IdleConnection idle;
+        while ((idle = _idle.pollFirst()) != null)
+            closePhysical(idle._physical);
+    }
+
+    // Closes: a physical connection
+    private void closePhysical(Connection physical) {
+        _created.decrementAndGet();
+        try {
+            physical.close();
+        }
+        catch (SQLException e) {
+            System.err.println("ConnectionPool.discard error: " + e.getMessage());
+        }
+    }
+
+    // Checks: a connection still answers, treating a failed check as dead
+    private static boolean isValid(Connection physical) {
+        try {
+            return physical.isValid(VALIDATION_TIMEOUT_SECONDS);
+        }
+        catch (SQLException e) {
+            return false;
+        }
+    }
+
+    // Wraps: the physical connection in a proxy whose close() releases instead of closing
+    private Connection wrap(Connection physical) {
+        InvocationHandler handler = new InvocationHandler() {
+            private boolean _released;
+
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                switch (method.getName()) {
+                    case "close":
+                        if (!_released) {
+                            _released = true;
+                            release(physical);
+                        }
+                        return null;
+                    case "isClosed":
+                        return _released || physical.isClosed();
+                    default:
+                        if (_released)
+                            throw new SQLException("connection already returned to the pool");
+                        try {
+                            return method.invoke(physical, args);
+                        }
+                        catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                }
+            }
+        };
+        return (Connection) Proxy.newProxyInstance(
+            Connection.class.getClassLoader(), new Class<?>[] { Connection.class }, handler);
+    }
+
+    // Holds: an idle physical connection and when it was returned
+    private static class IdleConnection {
+        private Connection _physical;
+        private long       _since;
+
+        private IdleConnection(Connection physical, long since) {
+            _physical = physical;
+            _since    = since;
+        }
+    }
+}
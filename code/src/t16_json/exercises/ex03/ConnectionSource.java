@@ -0,0 +1,19 @@
+package t16_json.exercises.ex03;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+
+// Supplies: JDBC connections; callers always close what they open (a pool takes it back on close)
+@FunctionalInterface
+public interface ConnectionSource {
+
+    Connection open() throws SQLException;
+
+    // Creates: a source that opens a brand-new DriverManager connection every time
+    static ConnectionSource driverManager(String url, String user, String pass) {
+        if (url == null || url.isBlank())
+            throw new IllegalArgumentException("url is required");
+        return () -> DriverManager.getConnection(url, user, pass);
+    }
+}
@@ -0,0 +1,370 @@
+package t16_json.exercises.ex03;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.sql.*;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+
+public class ContentAddressedGameAssetDao implements GameAssetDao {
+
+    // === Constants ===
+    private static final int MAX_ATTEMPTS = 3;      // an insert picked as a deadlock victim is run again
+
+    // === Fields ===
+    private ConnectionSource _source;
+    private FileBlobStore    _fileTier;
+    private int              _inlineThreshold;
+
+    private List<AssetChangeListener> _listeners       = new CopyOnWriteArrayList<>();
+    private List<AssetInsertListener> _insertListeners = new CopyOnWriteArrayList<>();
+
+    // === Constructors ===
+    // Creates: a deduplicating DAO backed by the given database connection details
+    //          (requires the asset_blobs table from sql/contentAddressedSetup.sql)
+    public ContentAddressedGameAssetDao(String url, String user, String pass) {
+        this(url, user, pass, null, Integer.MAX_VALUE);
+    }
+
+    // Creates: a deduplicating DAO that keeps payloads of inlineThreshold bytes or more in the file tier
+    //          and only their metadata in the database (requires sql/fileTierSetup.sql)
+    public ContentAddressedGameAssetDao(String url, String user, String pass,
+                                        FileBlobStore fileTier, int inlineThreshold) {
+        this(ConnectionSource.driverManager(url, user, pass), fileTier, inlineThreshold);
+    }
+
+    // Creates: a deduplicating DAO that borrows its connections from the given source (e.g. a ConnectionPool)
+    public ContentAddressedGameAssetDao(ConnectionSource source, FileBlobStore fileTier, int inlineThreshold) {
+        if (source == null)
+            throw new IllegalArgumentException("source is required");
+        if (inlineThreshold < 1)
+            throw new IllegalArgumentException("inlineThreshold must be >= 1");
+        _source          = source;
+        _fileTier        = fileTier;
+        _inlineThreshold = inlineThreshold;
+    }
+
+    // === Public API ===
+    // Inserts: an asset record pointing at the shared blob for its content; returns the generated ID
+    @Override
+    public int insert(GameAsset asset) throws Exception {
+        if (asset == null)
+            throw new IllegalArgumentException("asset is required");
+
+        byte[] data = asset.getAssetData();
+        return insert(asset.getAssetName(), asset.getAssetType(), ContentHash.sha256Hex(data),
+                      new Payload(data, null, data.length));
+    }
+
+    // Inserts: an asset read from a stream, hashing the bytes as they are spooled to a temp file (inside the
+    //          file tier when there is one, so a large payload is moved into place rather than copied);
+    //          returns the generated ID
+    public int insert(String name, String type, InputStream data) throws Exception {
+        if (data == null)
+            throw new IllegalArgumentException("data is required");
+
+        Path spool = (_fileTier != null) ? _fileTier.createTempFile() : Files.createTempFile("asset", ".spool");
+        try {
+            MessageDigest digest = ContentHash.newSha256();
+            try (DigestInputStream in = new DigestInputStream(data, digest)) {
+                Files.copy(in, spool, StandardCopyOption.REPLACE_EXISTING);
+            }
+
+            long size = Files.size(spool);
+            if (size == 0)
+                throw new IllegalArgumentException("data must not be empty");
+            if (size > Integer.MAX_VALUE)
+                throw new IllegalArgumentException("data must be under 2 GB (file_size is an INT column)");
+
+            return insert(name, type, ContentHash.toHex(digest.digest()), new Payload(null, spool, size));
+        }
+        finally {
+            Files.deleteIfExists(spool);    // already gone if it was moved into the file tier
+        }
+    }
+
+    // Registers: a listener told about every committed insert and delete (e.g. a metadata cache)
+    public void addChangeListener(AssetChangeListener listener) {
+        if (listener == null)
+            throw new IllegalArgumentException("listener is required");
+        _listeners.add(listener);
+    }
+
+    // Registers: a listener run inside every insert's transaction (e.g. to queue follow-up work atomically)
+    public void addInsertListener(AssetInsertListener listener) {
+        if (listener == null)
+            throw new IllegalArgumentException("listener is required");
+        _insertListeners.add(listener);
+    }
+
+    // Gets: the full asset record, resolving the payload through asset_blobs, the file tier,
+    //       or the legacy inline column
+    @Override
+    public Optional<GameAsset> findById(int id) throws Exception {
+        if (id <= 0)
+            return Optional.empty();
+
+        String sql = "SELECT a.asset_id, a.asset_name, a.asset_type, a.file_size, "
+                   + (_fileTier != null ? "b.storage_path, " : "")
+                   + "COALESCE(b.blob_data, a.asset_data) AS asset_data "
+                   + "FROM game_assets a LEFT JOIN asset_blobs b ON b.blob_hash = a.blob_hash "
+                   + "WHERE a.asset_id = ?";
+
+        try (Connection c = open();
+             PreparedStatement ps = c.prepareStatement(sql)) {
+
+            ps.setInt(1, id);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next())
+                    return Optional.empty();
+
+                String storagePath = (_fileTier != null) ? rs.getString("storage_path") : null;
+                byte[] assetData   = (storagePath != null)
+                                   ? _fileTier.read(storagePath)      // file tier
+                                   : rs.getBytes("asset_data");       // BLOB
+
+                return Optional.of(new GameAsset(
+                    rs.getInt("asset_id"),
+                    rs.getString("asset_name"),
+                    rs.getString("asset_type"),
+                    rs.getInt("file_size"),
+                    assetData));
+            }
+        }
+    }
+
+    // Deletes: an asset record and releases its blob; the blob row goes when no asset references it.
+    //         An orphaned file is retired while the blob row is still locked, so an insert of the same content
+    //         waits for this transaction and then writes a fresh file rather than sharing one about to vanish
+    @Override
+    public boolean deleteById(int id) throws Exception {
+        if (id <= 0)
+            return false;
+
+        try (Connection c = open()) {
+            c.setAutoCommit(false);
+            String orphanPath  = null;
+            String retiredPath = null;
+            try {
+                String hash;
+                try (PreparedStatement ps = c.prepareStatement(
+                        "SELECT blob_hash FROM game_assets WHERE asset_id = ? FOR UPDATE")) {
+                    ps.setInt(1, id);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        if (!rs.next()) {
+                            c.rollback();
+                            return false;
+                        }
+                        hash = rs.getString("blob_hash");
+                    }
+                }
+
+                try (PreparedStatement ps = c.prepareStatement("DELETE FROM game_assets WHERE asset_id = ?")) {
+                    ps.setInt(1, id);
+                    ps.executeUpdate();
+                }
+
+                orphanPath = (hash != null) ? releaseBlob(c, hash) : null;
+                if (orphanPath != null)
+                    retiredPath = _fileTier.retire(orphanPath);
+
+                c.commit();
+                if (retiredPath != null)
+                    _fileTier.delete(retiredPath);  // only once the row that named it is gone
+                notifyChanged(id);
+                return true;
+            }
+            catch (Exception e) {
+                if (retiredPath != null)
+                    _fileTier.restore(retiredPath, orphanPath);     // before the row lock is released
+                c.rollback();
+                throw e;
+            }
+        }
+    }
+
+    // === Helpers ===
+    // Inserts: the asset, running the transaction again from the start if MySQL rolls it back as a deadlock victim
+    private int insert(String name, String type, String hash, Payload payload) throws Exception {
+        if (name == null || name.isBlank())
+            throw new IllegalArgumentException("name is required");
+        if (type == null || type.isBlank())
+            throw new IllegalArgumentException("type is required");
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return insertOnce(name, type, hash, payload);
+            }
+            catch (SQLTransactionRollbackException e) {
+                if (attempt >= MAX_ATTEMPTS)
+                    throw e;
+                Thread.sleep(ThreadLocalRandom.current().nextLong(10, 50) * attempt);
+            }
+        }
+    }
+
+    // Inserts: the asset row in one transaction with either a ref-count bump or a first-time blob write.
+    //          Runs under READ COMMITTED, so looking up a hash not stored yet takes no gap lock for a concurrent
+    //          upload of other new content to deadlock against
+    private int insertOnce(String name, String type, String hash, Payload payload) throws Exception {
+        try (Connection c = open()) {
+            int isolation = c.getTransactionIsolation();
+            c.setTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+            c.setAutoCommit(false);
+            String writtenPath = null;
+            try {
+                writtenPath = acquireBlob(c, hash, payload);
+
+                String sql = "INSERT INTO game_assets (asset_name, asset_type, file_size, blob_hash) VALUES (?, ?, ?, ?)";
+                try (PreparedStatement ps = c.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                    ps.setString(1, name);
+                    ps.setString(2, type);
+                    ps.setInt(3,    (int) payload._size);
+                    ps.setString(4, hash);
+
+                    int rows = ps.executeUpdate();
+                    if (rows != 1)
+                        throw new IllegalStateException("insert failed, rows=" + rows);
+
+                    try (ResultSet keys = ps.getGeneratedKeys()) {
+                        if (!keys.next())
+                            throw new IllegalStateException("no generated key returned");
+                        int id = keys.getInt(1);
+                        for (AssetInsertListener listener : _insertListeners)
+                            listener.onAssetInserted(c, id);
+                        c.commit();
+                        notifyChanged(id);
+                        return id;
+                    }
+                }
+            }
+            catch (Exception e) {
+                if (writtenPath != null)
+                    payload.unstore(_fileTier, writtenPath);    // before the blob row lock is released
+                c.rollback();
+                throw e;
+            }
+            finally {
+                c.setTransactionIsolation(isolation);
+            }
+        }
+    }
+
+    // Acquires: a reference to the blob for hash in one statement — inserts its row, or bumps ref_count if it
+    //           exists — and writes the payload only if the row is new, inline as a BLOB or to the file tier when
+    //           it is at least the inline threshold; returns the file-tier path it wrote, for the caller to undo
+    //           if the transaction rolls back
+    private String acquireBlob(Connection c, String hash, Payload payload) throws SQLException, IOException {
+        boolean useFileTier = _fileTier != null && payload._size >= _inlineThreshold;
+
+        String sql = "INSERT INTO asset_blobs (blob_hash, blob_size, blob_data, ref_count"
+                   + (_fileTier != null ? ", storage_path" : "")
+                   + ") VALUES (?, ?, ?, 1" + (_fileTier != null ? ", ?" : "") + ") "
+                   + "ON DUPLICATE KEY UPDATE ref_count = ref_count + 1";
+        int rows;
+        try (PreparedStatement ps = c.prepareStatement(sql)) {
+            ps.setString(1, hash);
+            ps.setInt(2,    (int) payload._size);
+            if (useFileTier)
+                ps.setNull(3, Types.BLOB);
+            else
+                ps.setBytes(3, new byte[0]);    // placeholder; the bytes follow only if the row turns out to be new
+            if (_fileTier != null)
+                ps.setString(4, useFileTier ? _fileTier.storagePathFor(hash) : null);
+            rows = ps.executeUpdate();
+        }
+        if (rows != 1)
+            return null;    // 2: duplicate content — the BLOB is not sent to the database again
+
+        // the payload is written only now that this transaction holds the new row's lock until it commits
+        if (useFileTier)
+            return payload.storeIn(_fileTier, hash);
+
+        try (PreparedStatement ps = c.prepareStatement("UPDATE asset_blobs SET blob_data = ? WHERE blob_hash = ?");
+             InputStream in = payload.open()) {
+            ps.setBinaryStream(1, in, payload._size);
+            ps.setString(2, hash);
+            ps.executeUpdate();
+        }
+        return null;
+    }
+
+    // Releases: one reference to the blob and removes the row once unreferenced;
+    //           returns the file-tier path the caller should delete after commit, or null
+    private String releaseBlob(Connection c, String hash) throws SQLException {
+        try (PreparedStatement ps = c.prepareStatement(
+                "UPDATE asset_blobs SET ref_count = ref_count - 1 WHERE blob_hash = ?")) {
+            ps.setString(1, hash);
+            ps.executeUpdate();
+        }
+
+        String orphanPath = null;
+        if (_fileTier != null) {
+            try (PreparedStatement ps = c.prepareStatement(
+                    "SELECT storage_path FROM asset_blobs WHERE blob_hash = ? AND ref_count <= 0")) {
+                ps.setString(1, hash);
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (rs.next())
+                        orphanPath = rs.getString("storage_path");
+                }
+            }
+        }
+
+        try (PreparedStatement ps = c.prepareStatement(
+                "DELETE FROM asset_blobs WHERE blob_hash = ? AND ref_count <= 0")) {
+            ps.setString(1, hash);
+            ps.executeUpdate();
+        }
+        return orphanPath;
+    }
+
+    // Notifies: every listener that the asset changed
+    private void notifyChanged(int id) {
+        for (AssetChangeListener listener : _listeners)
+            listener.onAssetChanged(id);
+    }
+
+    // Opens: a connection from the configured source
+    private Connection open() throws SQLException {
+        return _source.open();
+    }
+
+    // Holds: the bytes of one insert — in memory for a GameAsset, or spooled to a temp file for a stream
+    private static final class Payload {
+        private byte[] _data;
+        private Path   _spool;
+        private long   _size;
+
+        private Payload(byte[] data, Path spool, long size) {
+            _data  = data;
+            _spool = spool;
+            _size  = size;
+        }
+
+        // Opens: a fresh stream over the bytes, for sending them to the database as a BLOB
+        private InputStream open() throws IOException {
+            return (_spool != null) ? new BufferedInputStream(Files.newInputStream(_spool))
+                                    : new ByteArrayInputStream(_data);
+        }
+
+        // Stores: the bytes in the file tier — a spooled payload is moved there rather than copied
+        private String storeIn(FileBlobStore store, String hash) throws IOException {
+            return (_spool != null) ? store.write(hash, _spool) : store.write(hash, _data);
+        }
+
+        // Unstores: what storeIn wrote — a spooled payload is moved back to its spool so a retry can store it again
+        private void unstore(FileBlobStore store, String storagePath) throws IOException {
+            if (_spool != null)
+                store.moveOut(storagePath, _spool);
+            else
+                store.delete(storagePath);
+        }
+    }
+}
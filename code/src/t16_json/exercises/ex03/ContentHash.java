@@ -0,0 +1,31 @@
+package t16_json.exercises.ex03;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+public class ContentHash {
+
+    // === Public API ===
+    // Creates: a fresh SHA-256 digest; every JVM is required to provide one
+    public static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        }
+        catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    // Gets: the lowercase hex SHA-256 of the given bytes (64 characters)
+    public static String sha256Hex(byte[] data) {
+        if (data == null)
+            throw new IllegalArgumentException("data is required");
+        return toHex(newSha256().digest(data));
+    }
+
+    // Converts: a finished digest into lowercase hex
+    public static String toHex(byte[] digest) {
+        return HexFormat.of().formatHex(digest);
+    }
+}
@@ -0,0 +1,157 @@
+package t16_json.exercises.ex03;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.*;
+import java.util.UUID;
+
+public class FileBlobStore {
+
+    // === Fields ===
+    private Path _root;
+
+    // === Constructors ===
+    // Creates: a blob store rooted at the given directory; payloads live in <root>/ab/cd/<hash>
+    public FileBlobStore(Path root) throws IOException {
+        if (root == null)
+            throw new IllegalArgumentException("root is required");
+        _root = root.toAbsolutePath().normalize();
+        Files.createDirectories(_root);
+    }
+
+    // === Public API ===
+    // Gets: the storage path (relative to the root) for a content hash, sharded by its first four hex chars
+    public String storagePathFor(String hash) {
+        if (hash == null || hash.length() < 4)
+            throw new IllegalArgumentException("hash must be at least 4 characters");
+        return hash.substring(0, 2) + "/" + hash.substring(2, 4) + "/" + hash;
+    }
+
+    // Writes: the payload under its content hash and returns the relative storage path;
+    //         the file is written to a temp name and moved into place so readers never see a partial blob
+    public String write(String hash, byte[] data) throws IOException {
+        if (data == null)
+            throw new IllegalArgumentException("data is required");
+
+        String storagePath = storagePathFor(hash);
+        Path   target      = resolve(storagePath);
+        if (Files.exists(target))
+            return storagePath;     // same hash, same bytes
+
+        Files.createDirectories(target.getParent());
+        Path temp = Files.createTempFile(target.getParent(), hash, ".tmp");
+        try {
+            Files.write(temp, data);
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        }
+        finally {
+            Files.deleteIfExists(temp);
+        }
+        return storagePath;
+    }
+
+    // Writes: a payload already spooled by createTempFile, moving it into place under its content hash;
+    //         returns the relative storage path (if the hash is already stored, the source is left alone)
+    public String write(String hash, Path source) throws IOException {
+        if (source == null)
+            throw new IllegalArgumentException("source is required");
+
+        String storagePath = storagePathFor(hash);
+        Path   target      = resolve(storagePath);
+        if (Files.exists(target))
+            return storagePath;     // same hash, same bytes
+
+        Files.createDirectories(target.getParent());
+        Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        return storagePath;
+    }
+
+    // Creates: an empty temp file under the root, on the same filesystem as the blobs so write(hash, Path)
+    //          can move it into place; the caller deletes it if it is not moved
+    public Path createTempFile() throws IOException {
+        return Files.createTempFile(_root, "upload", ".tmp");
+    }
+
+    // Moves: a stored payload back out to target — e.g. to the spool it was moved in from, when the transaction
+    //        that stored it rolled back and may be retried
+    public void moveOut(String storagePath, Path target) throws IOException {
+        Files.move(resolve(storagePath), target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    // Checks: whether a payload is stored at the given path
+    public boolean exists(String storagePath) {
+        return Files.exists(resolve(storagePath));
+    }
+
+    // Gets: the size in bytes of a stored payload
+    public long size(String storagePath) throws IOException {
+        return Files.size(resolve(storagePath));
+    }
+
+    // Reads: a whole payload onto the heap; callers that only forward the bytes use openStream or transferTo
+    public byte[] read(String storagePath) throws IOException {
+        return Files.readAllBytes(resolve(storagePath));
+    }
+
+    // Opens: a stream over a stored payload starting at offset; the caller closes it
+    public InputStream openStream(String storagePath, long offset) throws IOException {
+        FileChannel ch = FileChannel.open(resolve(storagePath), StandardOpenOption.READ);
+        ch.position(offset);
+        return Channels.newInputStream(ch);
+    }
+
+    // Transfers: count bytes starting at offset straight to the target channel (zero-copy where the OS allows);
+    //            returns the number of bytes sent
+    public long transferTo(String storagePath, long offset, long count, WritableByteChannel target) throws IOException {
+        try (FileChannel ch = FileChannel.open(resolve(storagePath), StandardOpenOption.READ)) {
+            long sent = 0;
+            while (sent < count) {
+                long n = ch.transferTo(offset + sent, count - sent, target);
+                if (n <= 0 && offset + sent >= ch.size())
+                    throw new IOException("blob ended " + (count - sent) + " bytes early");
+                sent += n;
+            }
+            return sent;
+        }
+    }
+
+    // Retires: a payload whose last reference is being removed, by moving it aside under a unique name so that a
+    //          new write of the same hash lands at the original path; returns the retired path, to delete once
+    //          the removal commits or restore if it rolls back, or null if there was no payload
+    public String retire(String storagePath) throws IOException {
+        String retiredPath = storagePath + "." + UUID.randomUUID() + ".del";
+        try {
+            Files.move(resolve(storagePath), resolve(retiredPath), StandardCopyOption.ATOMIC_MOVE);
+            return retiredPath;
+        }
+        catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    // Restores: a retired payload to its original path
+    public void restore(String retiredPath, String storagePath) throws IOException {
+        Files.move(resolve(retiredPath), resolve(storagePath), StandardCopyOption.ATOMIC_MOVE,
+                   StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    // Deletes: a stored payload; returns false if it was already gone
+    public boolean delete(String storagePath) throws IOException {
+        return Files.deleteIfExists(resolve(storagePath));
+    }
+
+    // === Helpers ===
+    // Resolves: a relative storage path against the root, refusing paths that escape it
+    private Path resolve(String storagePath) {
+        if (storagePath == null || storagePath.isBlank())
+            throw new IllegalArgumentException("storagePath is required");
+
+        Path p = _root.resolve(storagePath).normalize();
+        if (!p.startsWith(_root))
+            throw new IllegalArgumentException("storagePath escapes the blob root: " + storagePath);
+        return p;
+    }
+}
@@ -0,0 +1,21 @@
+-- ============================================================
+-- t16 — Content-addressed asset storage
+-- Run against game_assets_db after the game_assets table exists.
+-- Each distinct payload is stored once in asset_blobs, keyed by its
+-- SHA-256; game_assets rows point at it and ref_count tracks sharers.
+-- ============================================================
+
+USE game_assets_db;
+
+CREATE TABLE IF NOT EXISTS asset_blobs (
+    blob_hash   CHAR(64)    NOT NULL PRIMARY KEY,
+    blob_size   INT         NOT NULL,
+    blob_data   MEDIUMBLOB  NOT NULL,
+    ref_count   INT         NOT NULL DEFAULT 1
+);
+
+-- Legacy rows keep their inline asset_data; new rows leave it NULL
+ALTER TABLE game_assets
+    MODIFY COLUMN asset_data MEDIUMBLOB NULL,
+    ADD COLUMN blob_hash CHAR(64) NULL,
+    ADD INDEX idx_game_assets_blob_hash (blob_hash);
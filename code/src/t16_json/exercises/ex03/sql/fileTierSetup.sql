@@ -0,0 +1,12 @@
+-- ============================================================
+-- t16 — Filesystem tier for large asset payloads
+-- Run after sql/contentAddressedSetup.sql.
+-- Blobs at or above the DAO's inline threshold keep only their
+-- metadata here; the bytes live on disk at <blob root>/<storage_path>.
+-- ============================================================
+
+USE game_assets_db;
+
+ALTER TABLE asset_blobs
+    MODIFY COLUMN blob_data MEDIUMBLOB NULL,
+    ADD COLUMN storage_path VARCHAR(255) NULL;
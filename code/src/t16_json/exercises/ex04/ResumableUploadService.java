@@ -0,0 +1,330 @@
+package t16_json.exercises.ex04;
+
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import common.JsonMapperFactory;
+import t16_json.exercises.ex03.ContentAddressedGameAssetDao;
+import t16_json.exercises.ex03.ContentHash;
+import java.io.*;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32C;
+
+public class ResumableUploadService {
+
+    // === Constants ===
+    public  static final int  CHUNK_SIZE        = 65_536;         // largest chunk the server accepts
+    private static final int  BUFFER_SIZE       = 8_192;
+    private static final long SESSION_TTL_MS    = 86_400_000;     // an upload untouched this long is abandoned
+    private static final long SWEEP_INTERVAL_MS = 60_000;
+
+    // === Fields ===
+    private ContentAddressedGameAssetDao       _dao;
+    private Path                               _spoolDir;
+    private long                               _sessionTtlMillis;
+    private ConcurrentHashMap<String, Session> _sessions  = new ConcurrentHashMap<>();
+    private AtomicLong                         _nextSweep = new AtomicLong();
+
+    private static final ObjectReader READER = JsonMapperFactory.mapReader();
+    private static final ObjectWriter WRITER = JsonMapperFactory.writer();
+
+    // === Constructors ===
+    // Creates: an upload service that spools chunks under spoolDir until the whole file is verified;
+    //          sessions survive a reconnect, and a server restart too (their description is kept on disk)
+    public ResumableUploadService(ContentAddressedGameAssetDao dao, Path spoolDir) throws IOException {
+        this(dao, spoolDir, SESSION_TTL_MS);
+    }
+
+    // Creates: as above, discarding sessions (and their spooled bytes) that see no activity for sessionTtlMillis
+    public ResumableUploadService(ContentAddressedGameAssetDao dao, Path spoolDir, long sessionTtlMillis)
+            throws IOException {
+        if (dao == null)
+            throw new IllegalArgumentException("dao is required");
+        if (spoolDir == null)
+            throw new IllegalArgumentException("spoolDir is required");
+        if (sessionTtlMillis < 1)
+            throw new IllegalArgumentException("sessionTtlMillis must be >= 1");
+        _dao              = dao;
+        _spoolDir         = spoolDir;
+        _sessionTtlMillis = sessionTtlMillis;
+        Files.createDirectories(spoolDir);
+    }
+
+    // === Public API ===
+    // Checks: whether this service handles the given request type
+    public static boolean handles(Object type) {
+        return "UPLOAD_BEGIN".equals(type) || "UPLOAD_CHUNK".equals(type)
+            || "UPLOAD_RESUME".equals(type) || "UPLOAD_COMMIT".equals(type);
+    }
+
+    // Handles: UPLOAD_BEGIN, UPLOAD_CHUNK, UPLOAD_RESUME or UPLOAD_COMMIT and returns the response map
+    public Map<String, Object> handle(Map<?,?> req) {
+        sweepIfDue();
+        try {
+            Map<?,?> payload = (Map<?,?>) req.get("payload");
+            switch (String.valueOf(req.get("type"))) {
+                case "UPLOAD_BEGIN":  return begin(payload);
+                case "UPLOAD_CHUNK":  return chunk(payload);
+                case "UPLOAD_RESUME": return ack(session(payload));
+                case "UPLOAD_COMMIT": return commit(payload);
+                default:              return error("unknown request type: " + req.get("type"), -1);
+            }
+        }
+        catch (Exception e) {
+            return error(e.getMessage(), -1);
+        }
+    }
+
+    // Removes: every session with no activity for the TTL, live or left on disk by an earlier run;
+    //          returns how many were removed
+    public int sweepExpired() throws IOException {
+        long       cutoff    = System.currentTimeMillis() - _sessionTtlMillis;
+        List<Path> described = new ArrayList<>();
+        try (DirectoryStream<Path> dir = Files.newDirectoryStream(_spoolDir, "*.json")) {
+            dir.forEach(described::add);
+        }
+
+        int removed = 0;
+        for (Path path : described) {
+            String name = path.getFileName().toString();
+            String id   = name.substring(0, name.length() - ".json".length());
+            try {
+                safeId(id);
+            }
+            catch (IllegalArgumentException e) {
+                continue;       // not one of ours
+            }
+
+            Session live = _sessions.get(id);
+            if (live != null) {
+                synchronized (live) {
+                    if (!live._discarded && lastActivity(id) < cutoff) {
+                        discard(live);
+                        removed++;
+                    }
+                }
+            }
+            else if (lastActivity(id) < cutoff) {
+                Files.deleteIfExists(spoolPath(id));
+                Files.deleteIfExists(path);
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    // === Helpers ===
+    // Sweeps: expired sessions, at most once per SWEEP_INTERVAL_MS, from whichever request arrives first
+    private void sweepIfDue() {
+        long now  = System.currentTimeMillis();
+        long next = _nextSweep.get();
+        if (now < next || !_nextSweep.compareAndSet(next, now + SWEEP_INTERVAL_MS))
+            return;
+        try {
+            sweepExpired();
+        }
+        catch (IOException e) {
+            System.err.println("Upload session sweep failed: " + e.getMessage());
+        }
+    }
+
+    // Gets: when a session last changed on disk — its spool grows with every chunk
+    private long lastActivity(String id) throws IOException {
+        long latest = 0;
+        for (Path p : List.of(spoolPath(id), describedPath(id)))
+            if (Files.exists(p))
+                latest = Math.max(latest, Files.getLastModifiedTime(p).toMillis());
+        return latest;
+    }
+
+    // Handles: UPLOAD_BEGIN — opens a session for a file of known size and SHA-256
+    private Map<String, Object> begin(Map<?,?> payload) throws IOException {
+        String name   = (String) payload.get("fileName");
+        String type   = (String) payload.get("contentType");
+        String sha256 = (String) payload.get("sha256");
+        long   size   = ((Number) payload.get("fileSize")).longValue();
+
+        if (name == null || name.isBlank() || type == null || type.isBlank())
+            return error("fileName and contentType are required", -1);
+        if (sha256 == null || sha256.length() != 64)
+            return error("sha256 (64 hex chars) is required", -1);
+        if (size < 1 || size > Integer.MAX_VALUE)
+            return error("fileSize must be 1.." + Integer.MAX_VALUE, -1);
+
+        String id = UUID.randomUUID().toString();
+        Map<String, Object> description = new LinkedHashMap<>();
+        description.put("fileName",    name);
+        description.put("contentType", type);
+        description.put("fileSize",    size);
+        description.put("sha256",      sha256.toLowerCase());
+        Files.write(describedPath(id), WRITER.writeValueAsBytes(description));
+        Files.write(spoolPath(id), new byte[0]);
+
+        Session session = new Session(id, name, type, size, sha256.toLowerCase(), spoolPath(id));
+        _sessions.put(id, session);
+
+        Map<String, Object> response = ack(session);
+        response.put("chunkSize", CHUNK_SIZE);
+        return response;
+    }
+
+    // Handles: UPLOAD_CHUNK — appends a chunk after checking its offset and CRC32C;
+    //          re-sent chunks that were already acknowledged are accepted without being written again
+    private Map<String, Object> chunk(Map<?,?> payload) throws IOException {
+        Session session = session(payload);
+        long    offset  = ((Number) payload.get("offset")).longValue();
+        long    crc     = ((Number) payload.get("crc32c")).longValue();
+        byte[]  data    = Base64.getDecoder().decode((String) payload.get("data"));
+
+        synchronized (session) {
+            if (session._discarded)
+                return error("session expired — begin again", -1);
+            if (data.length == 0 || data.length > CHUNK_SIZE)
+                return error("chunk must be 1.." + CHUNK_SIZE + " bytes", session._received);
+            if (offset + data.length <= session._received)
+                return ack(session);    // duplicate of an acknowledged chunk
+            if (offset != session._received)
+                return error("expected offset " + session._received, session._received);
+            if (offset + data.length > session._fileSize)
+                return error("chunk runs past fileSize", session._received);
+
+            CRC32C check = new CRC32C();
+            check.update(data);
+            if (check.getValue() != crc)
+                return error("CRC32C mismatch at offset " + offset, session._received);
+
+            Files.write(session._spool, data, StandardOpenOption.APPEND);
+            session._digest.update(data);
+            session._received += data.length;
+            return ack(session);
+        }
+    }
+
+    // Handles: UPLOAD_COMMIT — checks the whole-file SHA-256, stores the asset and removes the session
+    private Map<String, Object> commit(Map<?,?> payload) throws Exception {
+        Session session = session(payload);
+        synchronized (session) {
+            if (session._discarded)
+                return error("session expired — begin again", -1);
+            if (session._received != session._fileSize)
+                return error("incomplete: " + session._received + "/" + session._fileSize + " bytes", session._received);
+
+            String actual = ContentHash.toHex(((MessageDigest) session._digest.clone()).digest());
+            if (!actual.equals(session._sha256)) {
+                discard(session);
+                return error("SHA-256 mismatch — upload discarded, begin again", -1);
+            }
+
+            int id;
+            try (InputStream in = new BufferedInputStream(Files.newInputStream(session._spool), BUFFER_SIZE)) {
+                id = _dao.insert(session._fileName, session._contentType, in);
+            }
+            discard(session);
+
+            Map<String, Object> response = new LinkedHashMap<>();
+            response.put("status", "OK");
+            response.put("id",     id);
+            response.put("sha256", actual);
+            return response;
+        }
+    }
+
+    // Gets: the live session named in the payload, reloading it from disk after a restart
+    private Session session(Map<?,?> payload) throws IOException {
+        String id = (String) payload.get("sessionId");
+        if (id == null || id.isBlank())
+            throw new IllegalArgumentException("sessionId is required");
+
+        Session live = _sessions.get(id);
+        if (live != null)
+            return live;
+
+        Path described = describedPath(id);
+        if (!Files.exists(described))
+            throw new IllegalArgumentException("unknown sessionId: " + id);
+
+        Map<?,?> d = READER.readValue(described.toFile());
+        Session restored = new Session(id, (String) d.get("fileName"), (String) d.get("contentType"),
+                                       ((Number) d.get("fileSize")).longValue(), (String) d.get("sha256"), spoolPath(id));
+
+        // rebuild the running digest from the bytes already acknowledged
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(restored._spool), BUFFER_SIZE)) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int    n;
+            while ((n = in.read(buffer)) != -1) {
+                restored._digest.update(buffer, 0, n);
+                restored._received += n;
+            }
+        }
+
+        Session raced = _sessions.putIfAbsent(id, restored);
+        return (raced != null) ? raced : restored;
+    }
+
+    // Removes: a session and its files
+    private void discard(Session session) throws IOException {
+        session._discarded = true;
+        _sessions.remove(session._id);
+        Files.deleteIfExists(session._spool);
+        Files.deleteIfExists(describedPath(session._id));
+    }
+
+    // Gets: the spool file for a session (the bytes acknowledged so far)
+    private Path spoolPath(String id) {
+        return _spoolDir.resolve(safeId(id) + ".part");
+    }
+
+    // Gets: the description file for a session
+    private Path describedPath(String id) {
+        return _spoolDir.resolve(safeId(id) + ".json");
+    }
+
+    // Checks: a session ID is a UUID so it can never name a path outside the spool directory
+    private static String safeId(String id) {
+        return UUID.fromString(id).toString();
+    }
+
+    // Creates: an OK response carrying the session ID and the next offset the server expects
+    private static Map<String, Object> ack(Session session) {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("status",     "OK");
+        response.put("sessionId",  session._id);
+        response.put("nextOffset", session._received);
+        return response;
+    }
+
+    // Creates: an error response; nextOffset >= 0 tells the client where to continue from
+    private static Map<String, Object> error(String message, long nextOffset) {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("status",  "ERROR");
+        response.put("message", message);
+        if (nextOffset >= 0)
+            response.put("nextOffset", nextOffset);
+        return response;
+    }
+
+    // Holds: one in-progress upload
+    private static class Session {
+        private String        _id;
+        private String        _fileName;
+        private String        _contentType;
+        private long          _fileSize;
+        private String        _sha256;
+        private Path          _spool;
+        private MessageDigest _digest = ContentHash.newSha256();
+        private long          _received;
+        private boolean       _discarded;     // by commit, a SHA-256 mismatch or the TTL sweep
+
+        private Session(String id, String fileName, String contentType, long fileSize, String sha256, Path spool) {
+            _id          = id;
+            _fileName    = fileName;
+            _contentType = contentType;
+            _fileSize    = fileSize;
+            _sha256      = sha256;
+            _spool       = spool;
+        }
+    }
+}
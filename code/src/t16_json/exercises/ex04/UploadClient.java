@@ -1,57 +1,113 @@
 package t16_json.exercises.ex04;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import common.net.TlsSupport;
+import t16_json.exercises.ex03.ContentHash;
 import java.io.*;
 import java.net.*;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
-import java.sql.*;
 import java.util.*;
+import java.util.zip.CRC32C;
 
 public class UploadClient {
 
-    private static final ObjectMapper MAPPER  = new ObjectMapper();
-    private static final int          PORT    = 9_206;
+    private static final ObjectMapper MAPPER       = new ObjectMapper();
+    private static final int          PORT         = 9_206;
+    private static final int          MAX_ATTEMPTS = 5;
+    private static final long         BACKOFF_MS   = 500;
 
-    // Entry point: create the test file, upload to UploadServer, verify the returned ID
+    // Entry point: create the test file, upload it to UploadServer in checksummed chunks, verify the returned ID;
+    //              an interrupted run picks up from the server's last acknowledged chunk when started again
     public static void main(String[] args) throws Exception {
-        // Create a synthetic 512-byte test file
-        byte[] original = new byte[512];
+        // Create a synthetic 512 KB test file
+        byte[] original = new byte[512 * 1024];
         for (int i = 0; i < original.length; i++) original[i] = (byte)(i % 200);
 
         Files.createDirectories(Path.of("data"));
-        Files.write(Path.of("data/upload_test.bin"), original);
-
-        // Base64-encode the file and send an UPLOAD_FILE request
-        int storedId;
-        try (Socket         socket = new Socket("localhost", PORT);
-             BufferedReader in     = new BufferedReader(new InputStreamReader(socket.getInputStream(),  StandardCharsets.UTF_8));
-             PrintWriter    out    = new PrintWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8), true)) {
-
-            String encoded = Base64.getEncoder().encodeToString(original);
-
-            Map<String, Object> payload = new LinkedHashMap<>();
-            payload.put("fileName",    "upload_test.bin");
-            payload.put("contentType", "application/octet-stream");
-            payload.put("fileSize",    original.length);
-            payload.put("fileData",    encoded);
-
-            Map<String, Object> request = new LinkedHashMap<>();
-            request.put("type",    "UPLOAD_FILE");
-            request.put("payload", payload);
-
-            out.println(MAPPER.writeValueAsString(request));
-
-            String responseJson = in.readLine();
-            if (responseJson == null)
-                throw new IOException("Server closed connection without responding");
-            Map<?,?> response = MAPPER.readValue(responseJson, Map.class);
-            if ("ERROR".equals(response.get("status")))
-                throw new RuntimeException("Server error: " + response.get("message"));
-            storedId = ((Number) response.get("id")).intValue();
-            System.out.println("Upload OK — stored id: " + storedId);
-        }
+        Path file        = Path.of("data/upload_test.bin");
+        Path sessionFile = Path.of("data/upload_test.bin.session");
+        Files.write(file, original);
+
+        String sha256 = ContentHash.sha256Hex(original);
+
+        for (int attempt = 1; ; attempt++) {
+            try (Socket         socket = TlsSupport.fromSystemProperties().connect("localhost", PORT);   // a retry resumes the TLS session
+                 BufferedReader in     = new BufferedReader(new InputStreamReader(socket.getInputStream(),  StandardCharsets.UTF_8));
+                 PrintWriter    out    = new PrintWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8), true)) {
+
+                // Begin a new session, or ask where an earlier one stopped
+                Map<?,?> ack = null;
+                if (Files.exists(sessionFile)) {
+                    try {
+                        ack = send(in, out, "UPLOAD_RESUME", Map.of("sessionId", Files.readString(sessionFile)));
+                    } catch (RuntimeException e) {
+                        Files.delete(sessionFile);      // the server no longer knows the session — start over
+                    }
+                }
+                if (ack == null) {
+                    Map<String, Object> payload = new LinkedHashMap<>();
+                    payload.put("fileName",    "upload_test.bin");
+                    payload.put("contentType", "application/octet-stream");
+                    payload.put("fileSize",    original.length);
+                    payload.put("sha256",      sha256);
+                    ack = send(in, out, "UPLOAD_BEGIN", payload);
+                    Files.writeString(sessionFile, (String) ack.get("sessionId"));
+                }
+
+                String sessionId = (String) ack.get("sessionId");
+                long   offset    = ((Number) ack.get("nextOffset")).longValue();
+                int    chunkSize = ack.containsKey("chunkSize") ? ((Number) ack.get("chunkSize")).intValue() : ResumableUploadService.CHUNK_SIZE;
+                if (offset > 0)
+                    System.out.println("Resuming session " + sessionId + " at offset " + offset);
+
+                // Send each chunk with its CRC32C; the server acknowledges the next offset it expects
+                while (offset < original.length) {
+                    int    n     = (int) Math.min(chunkSize, original.length - offset);
+                    CRC32C crc   = new CRC32C();
+                    crc.update(original, (int) offset, n);
 
+                    Map<String, Object> payload = new LinkedHashMap<>();
+                    payload.put("sessionId", sessionId);
+                    payload.put("offset",    offset);
+                    payload.put("crc32c",    crc.getValue());
+                    payload.put("data",      Base64.getEncoder().encodeToString(Arrays.copyOfRange(original, (int) offset, (int) offset + n)));
+                    offset = ((Number) send(in, out, "UPLOAD_CHUNK", payload).get("nextOffset")).longValue();
+                }
+
+                // Commit: the server checks the whole-file SHA-256 before storing the asset
+                Map<?,?> committed = send(in, out, "UPLOAD_COMMIT", Map.of("sessionId", sessionId));
+                Files.deleteIfExists(sessionFile);
+                System.out.println("Upload OK — stored id: " + committed.get("id") + ", sha256: " + committed.get("sha256"));
+                return;
+
+            } catch (IOException e) {
+                if (attempt == MAX_ATTEMPTS)
+                    throw e;
+                long delay = BACKOFF_MS << (attempt - 1);
+                System.out.println("Connection lost (" + e.getMessage() + ") — retrying in " + delay + " ms");
+                Thread.sleep(delay);
+            }
+        }
     }
 
+    // Sends: one request line and returns the OK response; a server error is fatal unless it is a resumable position error
+    private static Map<?,?> send(BufferedReader in, PrintWriter out, String type, Object payload) throws IOException {
+        Map<String, Object> request = new LinkedHashMap<>();
+        request.put("type",    type);
+        request.put("payload", payload);
+        out.println(MAPPER.writeValueAsString(request));
+
+        String responseJson = in.readLine();
+        if (responseJson == null)
+            throw new IOException("Server closed connection without responding");
+        Map<?,?> response = MAPPER.readValue(responseJson, Map.class);
+        if ("ERROR".equals(response.get("status"))) {
+            // a rejected chunk (bad CRC, wrong offset) reports where to continue — reconnect and resume from there
+            if (response.containsKey("nextOffset") && "UPLOAD_CHUNK".equals(type))
+                throw new IOException("chunk rejected: " + response.get("message"));
+            throw new RuntimeException("Server error: " + response.get("message"));
+        }
+        return response;
+    }
 }
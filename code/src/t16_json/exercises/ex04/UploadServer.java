@@ -1,11 +1,21 @@
 package t16_json.exercises.ex04;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import common.JsonMapperFactory;
+import common.net.TlsSupport;
+import t16_json.exercises.ex03.ConnectionSource;
+import t16_json.exercises.ex03.ContentAddressedGameAssetDao;
+import t16_json.exercises.ex03.FileBlobStore;
+import t16_json.exercises.ex09.AudioWaveformGenerator;
+import t16_json.exercises.ex09.DerivedAssetProcessor;
+import t16_json.exercises.ex09.ImageThumbnailGenerator;
 import java.io.*;
 import java.net.*;
 import java.nio.charset.StandardCharsets;
-import java.sql.*;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.*;
 
 public class UploadServer {
 
@@ -15,93 +25,118 @@ public class UploadServer {
     private static final String DB_PASS = "your_password";
     private static final int    PORT    = 9_206;
 
+    private static final String BLOB_ROOT        = "data/blobs";
+    private static final int    INLINE_THRESHOLD = 1_048_576;   // payloads of 1 MB or more go to the file tier
+    private static final String UPLOAD_SPOOL     = "data/uploads";
+    private static final int    DERIVED_WORKERS  = 4;
+    private static final int    DERIVED_QUEUE    = 32;
+
     // === Fields ===
-    private int    _port;
-    private String _url;
-    private String _user;
-    private String _pass;
+    private int                          _port;
+    private ContentAddressedGameAssetDao _dao;
+    private ResumableUploadService       _uploads;
+    private ExecutorService              _workers = Executors.newThreadPerTaskExecutor(
+                                                        Thread.ofVirtual().name("upload-", 0).factory());
 
-    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final ObjectReader READER = JsonMapperFactory.mapReader();
+    private static final ObjectWriter WRITER = JsonMapperFactory.writer();
 
     // === Entry point ===
     // Starts: the upload server; run this class before running UploadClient
     public static void main(String[] args) throws Exception {
         System.out.println("UploadServer listening on port " + PORT + " ...");
-        new UploadServer(PORT, URL, DB_USER, DB_PASS).start();
+        FileBlobStore                fileTier = new FileBlobStore(Path.of(BLOB_ROOT));
+        ContentAddressedGameAssetDao dao      = new ContentAddressedGameAssetDao(URL, DB_USER, DB_PASS, fileTier, INLINE_THRESHOLD);
+
+        // Derived forms are generated off the upload path: an upload only adds a row to asset_jobs
+        try (DerivedAssetProcessor derived = new DerivedAssetProcessor(ConnectionSource.driverManager(URL, DB_USER, DB_PASS), dao,
+                 List.of(new ImageThumbnailGenerator(), new AudioWaveformGenerator()), DERIVED_WORKERS, DERIVED_QUEUE)) {
+            dao.addInsertListener(derived);             // the job row commits with the upload
+            dao.addChangeListener(derived);             // ... and wakes the poller once it has
+            derived.start();
+            new UploadServer(PORT, dao).start();
+        }
     }
 
     // === Constructors ===
     // Creates: an upload-only server bound to the given port and database
-    public UploadServer(int port, String url, String user, String pass) {
-        _port = port;
-        _url  = url;
-        _user = user;
-        _pass = pass;
+    public UploadServer(int port, String url, String user, String pass) throws IOException {
+        this(port, new ContentAddressedGameAssetDao(url, user, pass));
+    }
+
+    // Creates: an upload-only server that stores through the given DAO; resumable uploads spool under data/uploads
+    public UploadServer(int port, ContentAddressedGameAssetDao dao) throws IOException {
+        if (dao == null)
+            throw new IllegalArgumentException("dao is required");
+        _port    = port;
+        _dao     = dao;
+        _uploads = new ResumableUploadService(dao, Path.of(UPLOAD_SPOOL));
     }
 
     // === Public API ===
-    // Starts: the server loop; accepts connections until interrupted
+    // Starts: the server loop; each connection is served on its own virtual thread until interrupted, so idle
+    //         persistent sessions never leave a new client queued behind a fixed set of workers
     public void start() throws Exception {
-        try (ServerSocket ss = new ServerSocket(_port)) {
-            while (!Thread.currentThread().isInterrupted())
-                handleUpload(ss.accept());
+        try (ServerSocket ss = TlsSupport.fromSystemProperties().openServerSocket(_port)) {
+            while (!Thread.currentThread().isInterrupted()) {
+                Socket client = TlsSupport.accept(ss);
+                _workers.submit(() -> handleClient(client));
+            }
+        }
+        finally {
+            _workers.shutdown();
         }
     }
 
     // === Helpers ===
-    // Handles: one UPLOAD_FILE request — decodes Base64 payload and stores in game_assets
-    private void handleUpload(Socket client) {
+    // Handles: a persistent session — UPLOAD_FILE stores a whole file in one line;
+    //          UPLOAD_BEGIN / UPLOAD_CHUNK / UPLOAD_RESUME / UPLOAD_COMMIT run a checksummed, resumable upload
+    private void handleClient(Socket client) {
         try (client;
              BufferedReader in  = new BufferedReader(new InputStreamReader(client.getInputStream(),  StandardCharsets.UTF_8));
              PrintWriter    out = new PrintWriter(new OutputStreamWriter(client.getOutputStream(), StandardCharsets.UTF_8), true)) {
 
-            String line = in.readLine();
-            if (line == null) return;
+            String line;
+            while ((line = in.readLine()) != null) {
+                Map<?,?> req = READER.readValue(line);
+                if ("DISCONNECT".equals(req.get("type")))
+                    break;
+
+                if (ResumableUploadService.handles(req.get("type")))
+                    out.println(WRITER.writeValueAsString(_uploads.handle(req)));
+                else
+                    out.println(WRITER.writeValueAsString(handleUpload((Map<?,?>) req.get("payload"))));
+            }
 
-            Map<?,?> req     = MAPPER.readValue(line, Map.class);
-            Map<?,?> payload = (Map<?,?>) req.get("payload");
+        } catch (Exception e) {
+            System.err.println("Upload session error: " + e.getMessage());
+        }
+    }
 
+    // Handles: one UPLOAD_FILE request — decodes the Base64 payload as a stream and stores it content-addressed
+    private Map<String, Object> handleUpload(Map<?,?> payload) {
+        try {
             String b64  = (String)  payload.get("fileData");
             String name = (String)  payload.get("fileName");
             String type = (String)  payload.get("contentType");
-            int    size = ((Number) payload.get("fileSize")).intValue();
-            byte[] data = Base64.getDecoder().decode(b64);
 
-            int id = insertAsset(name, type, size, data);
+            // decoded bytes are hashed as they stream; duplicate content skips the BLOB write
+            InputStream data = Base64.getDecoder().wrap(
+                new ByteArrayInputStream(b64.getBytes(StandardCharsets.US_ASCII)));
+
+            int id = _dao.insert(name, type, data);
 
             Map<String, Object> response = new LinkedHashMap<>();
             response.put("status", "OK");
             response.put("id",     id);
-            out.println(MAPPER.writeValueAsString(response));
+            return response;
 
         } catch (Exception e) {
             System.err.println("Upload handler error: " + e.getMessage());
-            try (PrintWriter errOut = new PrintWriter(new OutputStreamWriter(client.getOutputStream(), StandardCharsets.UTF_8), true)) {
-                Map<String, Object> err = new LinkedHashMap<>();
-                err.put("status", "ERROR");
-                err.put("message", e.getMessage());
-                errOut.println(MAPPER.writeValueAsString(err));
-            } catch (Exception ignored) {}
-        }
-    }
-
-    // Inserts: a binary asset into game_assets; returns the auto-generated asset_id
-    private int insertAsset(String name, String type, int size, byte[] data) throws Exception {
-        String sql = "INSERT INTO game_assets (asset_name, asset_type, file_size, asset_data) VALUES (?, ?, ?, ?)";
-        try (Connection        c  = DriverManager.getConnection(_url, _user, _pass);
-             PreparedStatement ps = c.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-
-            ps.setString(1, name);
-            ps.setString(2, type);
-            ps.setInt(3,    size);
-            ps.setBytes(4,  data);
-            ps.executeUpdate();
-
-            try (ResultSet keys = ps.getGeneratedKeys()) {
-                if (!keys.next())
-                    throw new IllegalStateException("no generated key returned");
-                return keys.getInt(1);
-            }
+            Map<String, Object> err = new LinkedHashMap<>();
+            err.put("status", "ERROR");
+            err.put("message", e.getMessage());
+            return err;
         }
     }
 }
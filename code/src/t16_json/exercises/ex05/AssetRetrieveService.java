@@ -0,0 +1,492 @@
+package t16_json.exercises.ex05;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import common.JsonMapperFactory;
+import common.net.FrameCodec;
+import common.net.StreamFrameWriter;
+import t16_json.exercises.ex03.ConnectionSource;
+import t16_json.exercises.ex03.FileBlobStore;
+import java.io.*;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.*;
+import java.nio.charset.StandardCharsets;
+import java.sql.*;
+import java.util.*;
+import java.util.zip.CRC32C;
+
+public class AssetRetrieveService {
+
+    // === Constants ===
+    public  static final int CHUNK_SIZE     = 65_536;                // body bytes per checksummed frame, at most
+    public  static final int CRC_BYTES      = 4;
+    public  static final int MAX_FRAME_SIZE = CHUNK_SIZE + CRC_BYTES;  // a chunk and its CRC32C trailer
+    private static final int BUFFER_SIZE    = 8_192;
+    private static final int DB_CHUNK       = 262_144;                 // BLOB bytes fetched per SUBSTRING query, at least
+    private static final int MAX_DB_CHUNKS  = 8;                       // SUBSTRING queries per streamed range, at most
+
+    // === Fields ===
+    private ConnectionSource _source;
+    private FileBlobStore    _fileTier;
+    private HotAssetCache    _hot;
+
+    private static final ObjectWriter WRITER = JsonMapperFactory.writer();
+
+    // === Constructors ===
+    // Creates: a retrieve service reading from the given connection source; fileTier may be null
+    public AssetRetrieveService(ConnectionSource source, FileBlobStore fileTier) {
+        this(source, fileTier, null);
+    }
+
+    // Creates: a retrieve service that serves hot assets from the given off-heap cache; fileTier and hot may be null
+    public AssetRetrieveService(ConnectionSource source, FileBlobStore fileTier, HotAssetCache hot) {
+        if (source == null)
+            throw new IllegalArgumentException("source is required");
+        _source   = source;
+        _fileTier = fileTier;
+        _hot      = hot;
+    }
+
+    // === Public API ===
+    // Handles: one RETRIEVE_FILE (Base64 JSON) or RETRIEVE_STREAM (JSON header + raw bytes) request
+    //          and flushes the response; the socket is left open for the next request.
+    //          RETRIEVE_STREAM with "checksums": true sends the body as CRC32C-checked frames instead of raw bytes.
+    //          A failure before the response starts (e.g. the database is unreachable) is answered with an ERROR
+    //          line; only one after body bytes may have gone out is thrown, since the session can no longer go on
+    public void handle(Map<?,?> req, Socket client, OutputStream out) throws Exception {
+        Map<?,?> payload;
+        int      id;
+        try {
+            payload = (Map<?,?>) req.get("payload");
+            id      = ((Number) payload.get("id")).intValue();
+        }
+        catch (RuntimeException e) {
+            writeLine(out, Map.of("status", "ERROR", "message", "payload.id is required"));
+            out.flush();
+            return;
+        }
+
+        if ("RETRIEVE_STREAM".equals(req.get("type"))) {
+            long offset = longOrDefault(payload, "offset", 0);
+            long length = longOrDefault(payload, "length", -1);
+            if (Boolean.TRUE.equals(payload.get("checksums")))
+                streamChecksummedAsset(id, offset, length, client, out);
+            else
+                streamAsset(id, offset, length, client, out);
+        }
+        else {
+            sendEncodedAsset(id, out);
+        }
+        out.flush();
+    }
+
+    // Sends: the whole BLOB Base64-encoded inside a single JSON response line; a file-tier payload is encoded
+    //        straight from the file as it is written, never held on the heap whole
+    public void sendEncodedAsset(int id, OutputStream out) throws Exception {
+        AssetRow            row;
+        Map<String, Object> data     = new LinkedHashMap<>();
+        InputStream         fileBody = null;
+        try {
+            row = findRow(id, Long.MAX_VALUE);          // the whole payload is needed, so fetch it with the row
+            if (row == null) {
+                writeLine(out, Map.of("status", "ERROR", "message", "not found id=" + id));
+                return;
+            }
+
+            // the connection is back in the pool before the response goes to a possibly slow client
+            data.put("id",          id);
+            data.put("fileName",    row._name);
+            data.put("contentType", row._type);
+            data.put("fileSize",    row._size);
+            if (row._cached != null) {
+                data.put("fileData", StandardCharsets.US_ASCII.decode(
+                                         Base64.getEncoder().encode(row._cached.slice(0, row._size))).toString());
+            }
+            else if (row._path != null) {
+                fileBody = _fileTier.openStream(row._path, 0);      // opened now, so a missing file is still an ERROR
+            }
+            else {
+                data.put("fileData", Base64.getEncoder().encodeToString(row._data));    // the BLOB, loaded with the row
+            }
+        }
+        catch (SQLException | IOException e) {
+            writeLine(out, Map.of("status", "ERROR", "message", "retrieve failed: " + e.getMessage()));
+            return;     // nothing was written yet, so the session goes on
+        }
+
+        if (fileBody != null) {
+            try (InputStream body = fileBody) {
+                writeEncodedLine(out, data, body, row._size);
+            }
+            return;
+        }
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("status", "OK");
+        response.put("data",   data);
+        writeLine(out, response);
+        if (row._cached != null)
+            _hot.recordSaved(row._size);
+    }
+
+    // Streams: the byte range [offset, offset + length) of the payload as a JSON header line followed by raw bytes;
+    //          a negative length means "to the end of the asset"
+    public void streamAsset(int id, long offset, long length, Socket client, OutputStream out) throws Exception {
+        streamRange(id, offset, length, false, client, out);
+    }
+
+    // Streams: the same range as streamAsset, but as common.net frames each holding [bytes][int CRC32C] and
+    //          ending with an empty frame, so the client can verify (and keep) every chunk it received intact
+    public void streamChecksummedAsset(int id, long offset, long length, Socket client, OutputStream out) throws Exception {
+        streamRange(id, offset, length, true, client, out);
+    }
+
+    // Removes: a cached payload; wire this to uploads and deletes
+    //          (e.g. ContentAddressedGameAssetDao.addChangeListener(service::invalidate))
+    public void invalidate(int assetId) {
+        if (_hot != null)
+            _hot.invalidate(assetId);
+    }
+
+    // Gets: the hot-asset cache (null when caching is off), for hit-ratio and bytes-saved reporting
+    public HotAssetCache getHotCache() { return _hot; }
+
+    // === Helpers ===
+    // Streams: a byte range as the JSON header (including the whole-asset SHA-256 when known) then the body
+    private void streamRange(int id, long offset, long length, boolean checksums,
+                             Socket client, OutputStream out) throws Exception {
+        if (offset < 0) {
+            writeLine(out, Map.of("status", "ERROR", "message", "offset must be >= 0"));
+            return;
+        }
+
+        // the connection is released before any byte is written
+        AssetRow row;
+        try {
+            row = findRow(id, (_hot != null) ? _hot.getMaxEntryBytes() : 0);
+        }
+        catch (SQLException | IOException e) {
+            writeLine(out, Map.of("status", "ERROR", "message", "retrieve failed: " + e.getMessage()));
+            return;     // nothing was written yet, so the session goes on
+        }
+        if (row == null) {
+            writeLine(out, Map.of("status", "ERROR", "message", "not found id=" + id));
+            return;
+        }
+        if (row._cached != null) {
+            streamCached(id, row._cached, offset, length, checksums, client, out);
+            return;
+        }
+        if (offset > row._size) {
+            writeLine(out, Map.of("status", "ERROR", "message", "offset " + offset + " beyond size " + row._size));
+            return;
+        }
+        long count = (length < 0) ? row._size - offset : Math.min(length, row._size - offset);
+
+        writeLine(out, streamHeader(id, row._name, row._type, row._size, offset, count, row._hash, checksums));
+        out.flush();    // the client sees the header before the first body byte
+
+        if (row._path != null && !checksums && client.getChannel() != null) {
+            _fileTier.transferTo(row._path, offset, count, client.getChannel());   // zero-copy file → socket
+            return;
+        }
+
+        try (InputStream body = (row._path != null)
+                              ? _fileTier.openStream(row._path, offset)
+                              : new BlobRangeStream(_source, row._shared, row._hash, id, offset, count)) {
+            if (checksums)
+                copyFramed(body, out, count);
+            else
+                copy(body, out, count);
+        }
+    }
+
+    // Streams: a byte range of a cached payload; the body goes from the off-heap buffer straight to the
+    //         socket channel (gathering writes for frames), without copying it onto the heap
+    private void streamCached(int id, HotAssetCache.Entry cached, long offset, long length, boolean checksums,
+                              Socket client, OutputStream out) throws IOException {
+        long total = cached.getSize();
+        if (offset > total) {
+            writeLine(out, Map.of("status", "ERROR", "message", "offset " + offset + " beyond size " + total));
+            return;
+        }
+        long count = (length < 0) ? total - offset : Math.min(length, total - offset);
+
+        writeLine(out, streamHeader(id, cached.getFileName(), cached.getContentType(),
+                                    total, offset, count, cached.getSha256(), checksums));
+        out.flush();
+
+        WritableByteChannel channel = (client != null && client.getChannel() != null)
+                                    ? client.getChannel()
+                                    : Channels.newChannel(out);   // plain sockets: one copy through the stream
+        if (checksums) {
+            CRC32C crc = new CRC32C();
+            for (long at = offset; at < offset + count; at += CHUNK_SIZE) {
+                ByteBuffer chunk = cached.slice(at, Math.min(CHUNK_SIZE, offset + count - at));
+                crc.reset();
+                crc.update(chunk.duplicate());
+                writeFully(channel, FrameCodec.header(chunk.remaining() + CRC_BYTES),
+                                    chunk,
+                                    ByteBuffer.allocate(CRC_BYTES).putInt(0, (int) crc.getValue()));
+            }
+            writeFully(channel, FrameCodec.header(0));
+        }
+        else {
+            writeFully(channel, cached.slice(offset, count));
+        }
+        _hot.recordSaved(count);
+    }
+
+    // Gets: the asset from the hot cache, or else its row in one query — carrying the payload when it is at most
+    //       `payloadLimit` bytes, and caching it on the way when it is small enough; null if it does not exist.
+    //      Deduplicated rows keep their bytes in asset_blobs; legacy rows keep them inline.
+    //      File-tier rows have no BLOB, so their size comes from blob_size instead.
+    private AssetRow findRow(int id, long payloadLimit) throws SQLException, IOException {
+        if (_hot != null) {
+            HotAssetCache.Entry cached = _hot.get(id);
+            if (cached != null)
+                return new AssetRow(cached);
+        }
+        long generation = (_hot != null) ? _hot.generation() : 0;   // read before the row, as AssetMetadataCache does
+
+        String sql = "SELECT a.asset_name, a.asset_type, a.blob_hash, "
+                   + (_fileTier != null ? "b.storage_path, " : "")
+                   + "b.blob_hash IS NOT NULL AS shared, "
+                   + "COALESCE(b.blob_size, OCTET_LENGTH(a.asset_data)) AS data_length, "
+                   + "CASE WHEN COALESCE(b.blob_size, OCTET_LENGTH(a.asset_data)) <= ? "
+                   + "THEN COALESCE(b.blob_data, a.asset_data) END AS asset_data "
+                   + "FROM game_assets a LEFT JOIN asset_blobs b ON b.blob_hash = a.blob_hash "
+                   + "WHERE a.asset_id = ?";
+
+        AssetRow row;
+        try (Connection        c  = _source.open();
+             PreparedStatement ps = c.prepareStatement(sql)) {
+
+            ps.setLong(1, payloadLimit);
+            ps.setInt(2,  id);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next())
+                    return null;
+                row = new AssetRow(rs.getString("asset_name"), rs.getString("asset_type"), rs.getString("blob_hash"),
+                                   (_fileTier != null) ? rs.getString("storage_path") : null,
+                                   rs.getBoolean("shared"), rs.getLong("data_length"), rs.getBytes("asset_data"));
+            }
+        }
+
+        if (_hot == null || !_hot.accepts(row._size))
+            return row;
+        byte[] bytes = (row._path != null) ? _fileTier.read(row._path) : row._data;
+        if (bytes != null)
+            row._cached = _hot.put(id, row._name, row._type, row._hash, bytes, generation);
+        return row;
+    }
+
+    // Gets: the RETRIEVE_STREAM header line for a range of an asset
+    private static Map<String, Object> streamHeader(int id, String fileName, String contentType, long total,
+                                                    long offset, long count, String sha256, boolean checksums) {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("id",          id);
+        data.put("fileName",    fileName);
+        data.put("contentType", contentType);
+        data.put("fileSize",    total);
+        data.put("offset",      offset);
+        data.put("length",      count);
+        data.put("sha256",      sha256);    // null for legacy inline rows
+        data.put("chunked",     checksums);
+
+        Map<String, Object> header = new LinkedHashMap<>();
+        header.put("status", "OK");
+        header.put("data",   data);
+        return header;
+    }
+
+    // Writes: every buffer completely, in order — as one gathering write per pass where the channel supports it
+    private static void writeFully(WritableByteChannel channel, ByteBuffer... buffers) throws IOException {
+        if (channel instanceof GatheringByteChannel) {
+            GatheringByteChannel gathering = (GatheringByteChannel) channel;
+            while (buffers[buffers.length - 1].hasRemaining())
+                gathering.write(buffers);
+            return;
+        }
+        for (ByteBuffer buffer : buffers)
+            while (buffer.hasRemaining())
+                channel.write(buffer);
+    }
+
+    // Gets: a numeric payload value as a long, or the fallback if absent
+    private static long longOrDefault(Map<?,?> payload, String key, long fallback) {
+        Object value = payload.get(key);
+        return (value instanceof Number) ? ((Number) value).longValue() : fallback;
+    }
+
+    // Writes: one JSON value as a UTF-8 line
+    private static void writeLine(OutputStream out, Object value) throws IOException {
+        WRITER.writeValue(out, value);     // straight into the buffered stream; neither closed nor flushed
+        out.write('\n');
+    }
+
+    // Writes: the OK response line for sendEncodedAsset, with fileData Base64-encoded from body as it is read
+    //         (through the generator's own buffer) instead of from a byte[] of the whole payload
+    private static void writeEncodedLine(OutputStream out, Map<String, Object> data, InputStream body, long size)
+            throws IOException {
+        try (JsonGenerator json = WRITER.createGenerator(out)) {      // closing it leaves the socket stream open
+            json.writeStartObject();
+            json.writeStringField("status", "OK");
+            json.writeObjectFieldStart("data");
+            for (Map.Entry<String, Object> field : data.entrySet())
+                json.writeObjectField(field.getKey(), field.getValue());
+            json.writeFieldName("fileData");
+            json.writeBinary(body, (int) size);                       // fails if the file is shorter than size
+            json.writeEndObject();
+            json.writeEndObject();
+        }
+        out.write('\n');
+    }
+
+    // Copies: exactly count bytes as CRC32C-checked frames, then the empty end frame; the frame writer is
+    //         flushed but not closed, so the socket stays open
+    private static void copyFramed(InputStream in, OutputStream out, long count) throws IOException {
+        StreamFrameWriter frames    = new StreamFrameWriter(out, MAX_FRAME_SIZE);
+        byte[]            frame     = new byte[MAX_FRAME_SIZE];
+        CRC32C            crc       = new CRC32C();
+        long              remaining = count;
+        while (remaining > 0) {
+            int n = in.readNBytes(frame, 0, (int) Math.min(CHUNK_SIZE, remaining));
+            if (n == 0)
+                throw new EOFException("asset ended " + remaining + " bytes early");
+
+            crc.reset();
+            crc.update(frame, 0, n);
+            ByteBuffer.wrap(frame).putInt(n, (int) crc.getValue());
+            frames.write(frame, 0, n + CRC_BYTES);
+            remaining -= n;
+        }
+        frames.write(frame, 0, 0);
+        frames.flush();
+    }
+
+    // Copies: exactly count bytes from in to out through a fixed-size buffer
+    private static void copy(InputStream in, OutputStream out, long count) throws IOException {
+        byte[] buffer    = new byte[BUFFER_SIZE];
+        long   remaining = count;
+        while (remaining > 0) {
+            int n = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+            if (n < 0)
+                throw new EOFException("asset ended " + remaining + " bytes early");
+            out.write(buffer, 0, n);
+            remaining -= n;
+        }
+    }
+
+    // Reads: a byte range of a database payload as a stream, one SUBSTRING query per chunk.
+    //        Connector/J buffers a whole row before handing it over (getBinaryStream and cursor fetch included), so
+    //        one query for the full range would load the entire BLOB before the first byte could be sent; chunked
+    //        queries keep time to first byte and memory per stream bounded. The trade-off: InnoDB reads an off-page
+    //        BLOB from its start for every SUBSTRING, so n chunks cost the server up to n reads of the BLOB. Chunks
+    //        are DB_CHUNK bytes but grow to keep a range within MAX_DB_CHUNKS queries, so a stream costs at most
+    //        MAX_DB_CHUNKS reads of the BLOB rather than a number growing with its size (a 16 MB MEDIUMBLOB goes in
+    //        2 MB chunks); payloads too large for that belong in the file tier. Shared payloads are read by content
+    //        hash, which never changes. Each chunk borrows a connection only for its query, so none is held while
+    //        the client drains the socket.
+    private static class BlobRangeStream extends InputStream {
+
+        private ConnectionSource _source;
+        private boolean          _shared;
+        private String           _hash;
+        private int              _id;
+        private long             _next;          // 1-based position of the next byte to fetch
+        private long             _remaining;     // bytes not yet fetched
+        private int              _chunkSize;
+        private byte[]           _chunk = new byte[0];
+        private int              _pos;
+
+        private BlobRangeStream(ConnectionSource source, boolean shared, String hash, int id, long offset, long count) {
+            _source    = source;
+            _shared    = shared;
+            _hash      = hash;
+            _id        = id;
+            _next      = offset + 1;
+            _remaining = count;
+            _chunkSize = (int) Math.max(DB_CHUNK, (count + MAX_DB_CHUNKS - 1) / MAX_DB_CHUNKS);
+        }
+
+        @Override
+        public int read() throws IOException {
+            return (fill()) ? _chunk[_pos++] & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0)
+                return 0;
+            if (!fill())
+                return -1;
+            int n = Math.min(len, _chunk.length - _pos);
+            System.arraycopy(_chunk, _pos, b, off, n);
+            _pos += n;
+            return n;
+        }
+
+        // Fetches: the next chunk once the current one is used up; false at the end of the range
+        private boolean fill() throws IOException {
+            if (_pos < _chunk.length)
+                return true;
+            if (_remaining <= 0)
+                return false;
+            String sql = _shared ? "SELECT SUBSTRING(blob_data, ?, ?) FROM asset_blobs WHERE blob_hash = ?"
+                                 : "SELECT SUBSTRING(asset_data, ?, ?) FROM game_assets WHERE asset_id = ?";
+            try (Connection        c  = _source.open();
+                 PreparedStatement ps = c.prepareStatement(sql)) {
+                ps.setLong(1, _next);
+                ps.setInt(2,  (int) Math.min(_chunkSize, _remaining));
+                if (_shared)
+                    ps.setString(3, _hash);
+                else
+                    ps.setInt(3, _id);
+                try (ResultSet rs = ps.executeQuery()) {
+                    byte[] bytes = rs.next() ? rs.getBytes(1) : null;
+                    if (bytes == null || bytes.length == 0)
+                        throw new EOFException("asset ended " + _remaining + " bytes early");
+                    _chunk      = bytes;
+                    _pos        = 0;
+                    _next      += bytes.length;
+                    _remaining -= bytes.length;
+                    return true;
+                }
+            }
+            catch (SQLException e) {
+                throw new IOException("reading asset bytes failed: " + e.getMessage(), e);
+            }
+        }
+    }
+
+    // Holds: the metadata of one asset row, read before any of the response is written, with its payload when
+    //        the query carried it and its hot-cache entry when it is cached
+    private static class AssetRow {
+        private String              _name;
+        private String              _type;
+        private String              _hash;
+        private String              _path;
+        private boolean             _shared;
+        private long                _size;
+        private byte[]              _data;
+        private HotAssetCache.Entry _cached;
+
+        private AssetRow(String name, String type, String hash, String path, boolean shared, long size, byte[] data) {
+            _name   = name;
+            _type   = type;
+            _hash   = hash;
+            _path   = path;
+            _shared = shared;
+            _size   = size;
+            _data   = data;
+        }
+
+        private AssetRow(HotAssetCache.Entry cached) {
+            this(cached.getFileName(), cached.getContentType(), cached.getSha256(), null, false, cached.getSize(), null);
+            _cached = cached;
+        }
+    }
+}
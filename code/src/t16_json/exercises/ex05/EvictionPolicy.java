@@ -0,0 +1,17 @@
+package t16_json.exercises.ex05;
+
+// Chooses: which cached asset to drop when the cache is over budget; called under the cache's lock
+public interface EvictionPolicy {
+
+    // Records: a newly cached asset
+    void recordInsert(int id);
+
+    // Records: a cache hit on the asset
+    void recordAccess(int id);
+
+    // Records: that the asset left the cache (evicted, expired or invalidated)
+    void recordRemove(int id);
+
+    // Gets: the asset to evict next; only called while at least one asset is cached
+    int victim();
+}
@@ -0,0 +1,167 @@
+package t16_json.exercises.ex05;
+
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+
+public class HotAssetCache {
+
+    // === Fields ===
+    private long                    _maxBytes;
+    private long                    _maxEntryBytes;
+    private long                    _ttlMillis;
+    private EvictionPolicy          _policy;
+    private HashMap<Integer, Entry> _entries = new HashMap<>();
+    private long                    _usedBytes;
+    private long                    _generation;             // bumped by every invalidate
+    private long                    _hits;
+    private long                    _misses;
+    private long                    _evictions;
+    private long                    _bytesSaved;
+
+    // === Constructors ===
+    // Creates: a cache of whole asset payloads bounded by their total size, not their count.
+    //          Payloads live in direct buffers, off the Java heap (size -XX:MaxDirectMemorySize to match maxBytes);
+    //          assets larger than maxEntryBytes are never cached, so one huge asset cannot flush the hot set
+    public HotAssetCache(long maxBytes, long maxEntryBytes, long ttlMillis, EvictionPolicy policy) {
+        if (maxBytes < 1)
+            throw new IllegalArgumentException("maxBytes must be >= 1");
+        if (maxEntryBytes < 1 || maxEntryBytes > maxBytes || maxEntryBytes > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("maxEntryBytes must be 1..maxBytes (and fit in an int)");
+        if (ttlMillis < 1)
+            throw new IllegalArgumentException("ttlMillis must be >= 1");
+        if (policy == null)
+            throw new IllegalArgumentException("policy is required");
+
+        _maxBytes      = maxBytes;
+        _maxEntryBytes = maxEntryBytes;
+        _ttlMillis     = ttlMillis;
+        _policy        = policy;
+    }
+
+    // === Public API ===
+    // Gets: the cached asset, or null if absent or expired
+    public synchronized Entry get(int id) {
+        Entry e = _entries.get(id);
+        if (e == null || e.isExpired()) {
+            if (e != null)
+                remove(id);
+            _misses++;
+            return null;
+        }
+        _hits++;
+        _policy.recordAccess(id);
+        return e;
+    }
+
+    // Checks: whether an asset of this size would be cached
+    public boolean accepts(long size) {
+        return size > 0 && size <= _maxEntryBytes;
+    }
+
+    // Gets: the current generation; read it before loading from the database and pass it to put
+    public synchronized long generation() { return _generation; }
+
+    // Puts: a copy of the payload in a direct buffer, evicting by policy until the cache is back within budget;
+    //       returns the new entry, or null if the asset is too large to cache or an invalidate ran since
+    //       `generation` was read (the load may have seen the old row)
+    public Entry put(int id, String fileName, String contentType, String sha256, byte[] data, long generation) {
+        if (data == null)
+            throw new IllegalArgumentException("data is required");
+        if (!accepts(data.length))
+            return null;
+
+        // copy off-heap outside the lock; readers share the buffer through independent slices
+        ByteBuffer buffer = ByteBuffer.allocateDirect(data.length).put(data).flip().asReadOnlyBuffer();
+        Entry      entry  = new Entry(fileName, contentType, sha256, buffer, System.currentTimeMillis() + _ttlMillis);
+
+        synchronized (this) {
+            if (generation != _generation)
+                return null;
+            remove(id);
+            while (_usedBytes + data.length > _maxBytes && !_entries.isEmpty()) {
+                remove(_policy.victim());
+                _evictions++;
+            }
+            _entries.put(id, entry);
+            _policy.recordInsert(id);
+            _usedBytes += data.length;
+        }
+        return entry;
+    }
+
+    // Gets: the largest payload the cache will hold
+    public long getMaxEntryBytes() { return _maxEntryBytes; }
+
+    // Records: bytes served from the cache that would otherwise have been read from the database or disk
+    public synchronized void recordSaved(long bytes) {
+        _bytesSaved += bytes;
+    }
+
+    // Removes: the asset after an upload or delete touched it
+    public synchronized void invalidate(int id) {
+        remove(id);
+        _generation++;
+    }
+
+    // Gets: the number of cached assets
+    public synchronized int size() { return _entries.size(); }
+
+    // Gets: the bytes currently held off-heap
+    public synchronized long usedBytes() { return _usedBytes; }
+
+    // Gets: the bytes served from the cache so far
+    public synchronized long bytesSaved() { return _bytesSaved; }
+
+    // Gets: hits / (hits + misses), or 0 before the first lookup
+    public synchronized double hitRatio() {
+        long total = _hits + _misses;
+        return (total == 0) ? 0.0 : (double) _hits / total;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("HotAssetCache{size=%d, bytes=%d/%d, hits=%d, misses=%d, hitRatio=%.2f, evictions=%d, bytesSaved=%d}",
+            _entries.size(), _usedBytes, _maxBytes, _hits, _misses, hitRatio(), _evictions, _bytesSaved);
+    }
+
+    // === Helpers ===
+    // Removes: one entry and its share of the byte budget (its buffer is freed once no reader holds a slice)
+    private void remove(int id) {
+        Entry e = _entries.remove(id);
+        if (e != null) {
+            _usedBytes -= e._data.capacity();
+            _policy.recordRemove(id);
+        }
+    }
+
+    // Holds: one cached asset — its header fields and its read-only, off-heap payload
+    public static class Entry {
+        private String     _fileName;
+        private String     _contentType;
+        private String     _sha256;
+        private ByteBuffer _data;
+        private long       _expiresAt;
+
+        private Entry(String fileName, String contentType, String sha256, ByteBuffer data, long expiresAt) {
+            _fileName    = fileName;
+            _contentType = contentType;
+            _sha256      = sha256;
+            _data        = data;
+            _expiresAt   = expiresAt;
+        }
+
+        public String getFileName()    { return _fileName; }
+        public String getContentType() { return _contentType; }
+        public String getSha256()      { return _sha256; }
+        public int    getSize()        { return _data.capacity(); }
+
+        // Gets: an independent view of count bytes from offset; safe to use from any thread
+        public ByteBuffer slice(long offset, long count) {
+            return _data.slice((int) offset, (int) count);
+        }
+
+        private boolean isExpired() {
+            return System.currentTimeMillis() > _expiresAt;
+        }
+    }
+}
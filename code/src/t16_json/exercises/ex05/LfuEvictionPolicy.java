@@ -0,0 +1,50 @@
+package t16_json.exercises.ex05;
+
+import java.util.*;
+
+// Evicts: the asset with the fewest hits, the least recently used among equals —
+//         keeps a steady hot set (e.g. UI atlases) from being flushed by a burst of one-off reads
+public class LfuEvictionPolicy implements EvictionPolicy {
+
+    // === Fields ===
+    private HashMap<Integer, Long>                _counts  = new HashMap<>();
+    private TreeMap<Long, LinkedHashSet<Integer>> _byCount = new TreeMap<>();
+
+    // === Public API ===
+    @Override
+    public void recordInsert(int id) {
+        _counts.put(id, 1L);
+        _byCount.computeIfAbsent(1L, k -> new LinkedHashSet<>()).add(id);
+    }
+
+    @Override
+    public void recordAccess(int id) {
+        Long count = _counts.get(id);
+        if (count == null)
+            return;
+        unlink(id, count);
+        _counts.put(id, count + 1);
+        _byCount.computeIfAbsent(count + 1, k -> new LinkedHashSet<>()).add(id);
+    }
+
+    @Override
+    public void recordRemove(int id) {
+        Long count = _counts.remove(id);
+        if (count != null)
+            unlink(id, count);
+    }
+
+    @Override
+    public int victim() {
+        return _byCount.firstEntry().getValue().iterator().next();
+    }
+
+    // === Helpers ===
+    // Removes: id from its frequency bucket, dropping the bucket when it empties
+    private void unlink(int id, long count) {
+        LinkedHashSet<Integer> bucket = _byCount.get(count);
+        bucket.remove(id);
+        if (bucket.isEmpty())
+            _byCount.remove(count);
+    }
+}
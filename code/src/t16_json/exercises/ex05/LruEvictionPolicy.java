@@ -0,0 +1,32 @@
+package t16_json.exercises.ex05;
+
+import java.util.LinkedHashSet;
+
+// Evicts: the asset that was used longest ago
+public class LruEvictionPolicy implements EvictionPolicy {
+
+    // === Fields ===
+    private LinkedHashSet<Integer> _order = new LinkedHashSet<>();    // least recently used first
+
+    // === Public API ===
+    @Override
+    public void recordInsert(int id) {
+        _order.add(id);
+    }
+
+    @Override
+    public void recordAccess(int id) {
+        _order.remove(id);
+        _order.add(id);
+    }
+
+    @Override
+    public void recordRemove(int id) {
+        _order.remove(id);
+    }
+
+    @Override
+    public int victim() {
+        return _order.iterator().next();
+    }
+}
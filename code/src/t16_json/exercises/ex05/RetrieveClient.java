@@ -1,45 +1,133 @@
 package t16_json.exercises.ex05;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import common.net.BufferPool;
+import common.net.StreamFrameReader;
+import common.net.TlsSupport;
+import t16_json.exercises.ex03.ContentHash;
 import java.io.*;
 import java.net.*;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
-import java.sql.*;
+import java.security.*;
 import java.util.*;
+import java.util.zip.CRC32C;
 
 public class RetrieveClient {
 
-    private static final ObjectMapper MAPPER  = new ObjectMapper();
-    private static final int          PORT    = 9_207;
+    private static final ObjectMapper MAPPER      = new ObjectMapper();
+    private static final int          PORT        = 9_207;
+    private static final int          BUFFER_SIZE = 8_192;
 
-    // Entry point: seed the DB, download from RetrieveServer, verify byte-for-byte integrity
+    // Entry point: stream an asset from RetrieveServer in CRC32C-checked chunks, resuming any earlier partial
+    //              download, then verify the finished file against the server's SHA-256
     public static void main(String[] args) throws Exception {
 
         // Retrieve the row ID=1
         int testId = 1;
 
-        // Send a RETRIEVE_FILE request and reconstruct the file on disk
-        try (Socket         socket = new Socket("localhost", PORT);
-             BufferedReader in     = new BufferedReader(new InputStreamReader(socket.getInputStream(),  StandardCharsets.UTF_8));
+        Files.createDirectories(Path.of("data"));
+        Path partial = Path.of("data/retrieved_test.bin.part");
+        Path target  = Path.of("data/retrieved_test.bin");
+
+        // Resume: ask only for the bytes we do not already have
+        long offset = Files.exists(partial) ? Files.size(partial) : 0;
+
+        // Send a RETRIEVE_STREAM request; the reply is one JSON header line followed by checksummed frames
+        try (Socket         socket = TlsSupport.fromSystemProperties().connect("localhost", PORT);
+             InputStream    in     = new BufferedInputStream(socket.getInputStream(), BUFFER_SIZE);
              PrintWriter    out    = new PrintWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8), true)) {
 
+            Map<String, Object> payload = new LinkedHashMap<>();
+            payload.put("id",        testId);
+            payload.put("offset",    offset);
+            payload.put("checksums", true);
+
             Map<String, Object> request = new LinkedHashMap<>();
-            request.put("type",    "RETRIEVE_FILE");
-            request.put("payload", Map.of("id", testId));
+            request.put("type",    "RETRIEVE_STREAM");
+            request.put("payload", payload);
 
             out.println(MAPPER.writeValueAsString(request));
 
-            String   responseJson = in.readLine();
-            Map<?,?> response     = MAPPER.readValue(responseJson, Map.class);
-            Map<?,?> data         = (Map<?,?>) response.get("data");
+            String headerJson = readLine(in);
+            if (headerJson == null)
+                throw new IOException("Server closed connection without responding");
+            Map<?,?> header = MAPPER.readValue(headerJson, Map.class);
+            if ("ERROR".equals(header.get("status")))
+                throw new RuntimeException("Server error: " + header.get("message"));
+
+            Map<?,?> data   = (Map<?,?>) header.get("data");
+            long     length = ((Number) data.get("length")).longValue();
+            long     total  = ((Number) data.get("fileSize")).longValue();
+
+            // Only chunks whose CRC32C matches reach the .part file, so a resume never builds on corrupt bytes
+            try (OutputStream file = new BufferedOutputStream(
+                    Files.newOutputStream(partial, StandardOpenOption.CREATE, StandardOpenOption.APPEND), BUFFER_SIZE)) {
+                copyFramed(in, file);
+            }
+
+            if (Files.size(partial) == total) {
+                String expected = (String) data.get("sha256");
+                String actual   = sha256(partial);
+                if (expected != null && !expected.equals(actual)) {
+                    Files.delete(partial);
+                    throw new IOException("SHA-256 mismatch — expected " + expected + ", got " + actual);
+                }
+                Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING);
+                System.out.println("Verified SHA-256: " + actual);
+            }
 
-            byte[] downloaded = Base64.getDecoder().decode((String) data.get("fileData"));
+            System.out.println("Retrieved: " + data.get("fileName") + " (" + length + " bytes from offset "
+                + offset + ", " + total + " bytes total)");
+        }
+    }
+
+    // Reads: one UTF-8 line from a raw stream without buffering past the newline; null at end of stream
+    private static String readLine(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int b;
+        while ((b = in.read()) != -1 && b != '\n')
+            line.write(b);
+        if (b == -1 && line.size() == 0)
+            return null;
+        return line.toString(StandardCharsets.UTF_8);
+    }
 
-            Files.createDirectories(Path.of("data"));
-            Files.write(Path.of("data/retrieved_test.bin"), downloaded);
+    // Copies: [bytes][int CRC32C] frames until the empty end frame, checking each chunk; a length the server
+    //         would never send is refused (FrameTooLargeException) before anything is allocated for it.
+    //         The frame reader is not closed: the caller owns the socket stream
+    private static void copyFramed(InputStream in, OutputStream out) throws IOException {
+        StreamFrameReader frames = new StreamFrameReader(in, new BufferPool(AssetRetrieveService.MAX_FRAME_SIZE, 1, false),
+                                                         AssetRetrieveService.MAX_FRAME_SIZE);
+        CRC32C            crc    = new CRC32C();
+        ByteBuffer        frame;
+        while ((frame = frames.read()) != null) {
+            try {
+                if (!frame.hasRemaining())
+                    return;                                  // the empty end frame
+                int length = frame.remaining() - AssetRetrieveService.CRC_BYTES;
+                if (length < 0)
+                    throw new IOException("frame of " + frame.remaining() + " bytes has no CRC32C trailer");
+                crc.reset();
+                crc.update(frame.array(), frame.arrayOffset(), length);
+                if ((int) crc.getValue() != frame.getInt(length))
+                    throw new IOException("CRC32C mismatch — keeping the verified prefix; run again to resume");
+                out.write(frame.array(), frame.arrayOffset(), length);
+            }
+            finally {
+                frames.release(frame);
+            }
+        }
+        throw new EOFException("server closed the stream before the end frame");
+    }
 
-            System.out.println("Retrieved: " + data.get("fileName") + " (" + downloaded.length + " bytes)");
+    // Gets: the SHA-256 of a file as lowercase hex
+    private static String sha256(Path file) throws IOException {
+        MessageDigest digest = ContentHash.newSha256();
+        try (InputStream in = new DigestInputStream(Files.newInputStream(file), digest)) {
+            in.transferTo(OutputStream.nullOutputStream());
         }
+        return ContentHash.toHex(digest.digest());
     }
 }
@@ -1,100 +1,97 @@
 package t16_json.exercises.ex05;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import common.JsonMapperFactory;
+import common.net.TlsSupport;
+import t16_json.exercises.ex03.ConnectionPool;
+import t16_json.exercises.ex03.ConnectionSource;
+import t16_json.exercises.ex03.FileBlobStore;
 import java.io.*;
 import java.net.*;
 import java.nio.charset.StandardCharsets;
-import java.sql.*;
+import java.nio.file.Path;
 import java.util.*;
 
 public class RetrieveServer {
 
     // === Constants ===
-    private static final String URL     = "jdbc:mysql://localhost:3306/game_assets_db?useSSL=false&serverTimezone=UTC&allowPublicKeyRetrieval=true";
-    private static final String DB_USER = "game_assets_user";
-    private static final String DB_PASS = "your_password";
-    private static final int    PORT    = 9_207;
+    private static final String URL         = "jdbc:mysql://localhost:3306/game_assets_db?useSSL=false&serverTimezone=UTC&allowPublicKeyRetrieval=true";
+    private static final String DB_USER     = "game_assets_user";
+    private static final String DB_PASS     = "your_password";
+    private static final int    PORT        = 9_207;
+    private static final int    BUFFER_SIZE = 8_192;
+    private static final String BLOB_ROOT   = "data/blobs";
+    private static final long   BORROW_MS   = 5_000;
+
+    private static final long   HOT_CACHE_BYTES = 64L * 1024 * 1024;   // off-heap budget for hot payloads
+    private static final long   HOT_ENTRY_BYTES = 4L * 1024 * 1024;    // larger assets always stream from storage
+    private static final long   HOT_TTL_MS      = 300_000;
 
     // === Fields ===
-    private int    _port;
-    private String _url;
-    private String _user;
-    private String _pass;
+    private int                  _port;
+    private ConnectionPool       _pool;
+    private AssetRetrieveService _service;
 
-    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final ObjectReader READER = JsonMapperFactory.mapReader();
 
     // === Entry point ===
     // Starts: the retrieve server; run this class before running RetrieveClient
     public static void main(String[] args) throws Exception {
+        HotAssetCache  hot    = new HotAssetCache(HOT_CACHE_BYTES, HOT_ENTRY_BYTES, HOT_TTL_MS, new LruEvictionPolicy());
+        RetrieveServer server = new RetrieveServer(PORT, URL, DB_USER, DB_PASS, new FileBlobStore(Path.of(BLOB_ROOT)), hot);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> System.out.println(hot)));
+
         System.out.println("RetrieveServer listening on port " + PORT + " ...");
-        new RetrieveServer(PORT, URL, DB_USER, DB_PASS).start();
+        server.start();
     }
 
     // === Constructors ===
     // Creates: a retrieve-only server bound to the given port and database
     public RetrieveServer(int port, String url, String user, String pass) {
-        _port = port;
-        _url  = url;
-        _user = user;
-        _pass = pass;
+        this(port, url, user, pass, null);
+    }
+
+    // Creates: a retrieve-only server that also serves file-tier payloads from the given blob store
+    public RetrieveServer(int port, String url, String user, String pass, FileBlobStore fileTier) {
+        this(port, url, user, pass, fileTier, null);
+    }
+
+    // Creates: a retrieve-only server that answers hot assets from an off-heap cache (fileTier and hot may be null)
+    public RetrieveServer(int port, String url, String user, String pass, FileBlobStore fileTier, HotAssetCache hot) {
+        // one reused connection: a streamed body borrows it once per SUBSTRING chunk rather than reconnecting
+        _port    = port;
+        _pool    = new ConnectionPool(ConnectionSource.driverManager(url, user, pass), 1, BORROW_MS);
+        _service = new AssetRetrieveService(_pool, fileTier, hot);
     }
 
     // === Public API ===
     // Starts: the server loop; accepts connections until interrupted
+    //         (plain sockets are channel-backed so file-tier reads can transferTo them directly; TLS sockets
+    //         are not, and fall back to copying through the encrypted stream)
     public void start() throws Exception {
-        try (ServerSocket ss = new ServerSocket(_port)) {
+        try (ServerSocket ss = TlsSupport.fromSystemProperties().openServerSocket(_port)) {
             while (!Thread.currentThread().isInterrupted())
-                handleRetrieve(ss.accept());
+                handleRetrieve(TlsSupport.accept(ss));
+        }
+        finally {
+            _pool.close();
         }
     }
 
+    // Gets: the hot-asset cache (null when caching is off), for hit-ratio and bytes-saved reporting
+    public HotAssetCache getHotCache() { return _service.getHotCache(); }
+
     // === Helpers ===
-    // Handles: one RETRIEVE_FILE request — fetches the BLOB and Base64-encodes it for the client
+    // Handles: one RETRIEVE_FILE (Base64 JSON) or RETRIEVE_STREAM (JSON header + raw bytes) request
     private void handleRetrieve(Socket client) {
         try (client;
-             BufferedReader in  = new BufferedReader(new InputStreamReader(client.getInputStream(),  StandardCharsets.UTF_8));
-             PrintWriter    out = new PrintWriter(new OutputStreamWriter(client.getOutputStream(), StandardCharsets.UTF_8), true)) {
+             BufferedReader in  = new BufferedReader(new InputStreamReader(client.getInputStream(), StandardCharsets.UTF_8));
+             OutputStream   out = new BufferedOutputStream(client.getOutputStream(), BUFFER_SIZE)) {
 
             String line = in.readLine();
             if (line == null) return;
 
-            Map<?,?> req     = MAPPER.readValue(line, Map.class);
-            Map<?,?> payload = (Map<?,?>) req.get("payload");
-            int      id      = ((Number) payload.get("id")).intValue();
-
-            String sql = "SELECT asset_name, asset_type, file_size, asset_data "
-                       + "FROM game_assets WHERE asset_id = ?";
-
-            try (Connection        c  = DriverManager.getConnection(_url, _user, _pass);
-                 PreparedStatement ps = c.prepareStatement(sql)) {
-
-                ps.setInt(1, id);
-
-                try (ResultSet rs = ps.executeQuery()) {
-                    if (!rs.next()) {
-                        out.println(MAPPER.writeValueAsString(
-                            Map.of("status", "ERROR", "message", "not found id=" + id)));
-                        return;
-                    }
-
-                    String name  = rs.getString("asset_name");
-                    String type  = rs.getString("asset_type");
-                    int    size  = rs.getInt("file_size");
-                    byte[] bytes = rs.getBytes("asset_data");   // load the BLOB
-
-                    Map<String, Object> data = new LinkedHashMap<>();
-                    data.put("id",          id);
-                    data.put("fileName",    name);
-                    data.put("contentType", type);
-                    data.put("fileSize",    size);
-                    data.put("fileData",    Base64.getEncoder().encodeToString(bytes));
-
-                    Map<String, Object> response = new LinkedHashMap<>();
-                    response.put("status", "OK");
-                    response.put("data",   data);
-                    out.println(MAPPER.writeValueAsString(response));
-                }
-            }
+            _service.handle(READER.readValue(line), client, out);
 
         } catch (Exception e) {
             System.err.println("Retrieve handler error: " + e.getMessage());
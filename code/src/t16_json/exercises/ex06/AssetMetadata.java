@@ -0,0 +1,40 @@
+package t16_json.exercises.ex06;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class AssetMetadata {
+
+    // === Fields ===
+    private int    _id;
+    private String _fileName;
+    private String _contentType;
+    private int    _fileSize;
+
+    // === Constructors ===
+    // Creates: an immutable metadata record for one asset (never carries the payload)
+    public AssetMetadata(int id, String fileName, String contentType, int fileSize) {
+        if (id <= 0)
+            throw new IllegalArgumentException("id must be > 0");
+        _id          = id;
+        _fileName    = fileName;
+        _contentType = contentType;
+        _fileSize    = fileSize;
+    }
+
+    // === Public API ===
+    public int    getId()          { return _id; }
+    public String getFileName()    { return _fileName; }
+    public String getContentType() { return _contentType; }
+    public int    getFileSize()    { return _fileSize; }
+
+    // Converts: to the ordered map used as the JSON "data" object
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("id",          _id);
+        map.put("fileName",    _fileName);
+        map.put("contentType", _contentType);
+        map.put("fileSize",    _fileSize);
+        return map;
+    }
+}
@@ -0,0 +1,104 @@
+package t16_json.exercises.ex06;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class AssetMetadataCache {
+
+    // === Fields ===
+    private int                           _maxEntries;
+    private long                          _ttlMillis;
+    private LinkedHashMap<Integer, Entry> _entries;
+    private long                          _generation;   // bumped by every invalidate and clear
+    private long                          _hits;
+    private long                          _misses;
+
+    // === Constructors ===
+    // Creates: a least-recently-used cache holding at most maxEntries records, each for at most ttlMillis
+    //          (the TTL bounds staleness when the writer runs in another process and cannot invalidate)
+    public AssetMetadataCache(int maxEntries, long ttlMillis) {
+        if (maxEntries < 1)
+            throw new IllegalArgumentException("maxEntries must be >= 1");
+        if (ttlMillis < 1)
+            throw new IllegalArgumentException("ttlMillis must be >= 1");
+
+        _maxEntries = maxEntries;
+        _ttlMillis  = ttlMillis;
+        _entries    = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Entry> eldest) {
+                return size() > _maxEntries;
+            }
+        };
+    }
+
+    // === Public API ===
+    // Gets: the cached metadata for id, or null if absent or expired
+    public synchronized AssetMetadata get(int id) {
+        Entry e = _entries.get(id);
+        if (e == null || e.isExpired()) {
+            if (e != null)
+                _entries.remove(id);
+            _misses++;
+            return null;
+        }
+        _hits++;
+        return e._value;
+    }
+
+    // Gets: the current generation; read it before loading from the database and pass it to put
+    public synchronized long generation() { return _generation; }
+
+    // Puts: a freshly loaded record, evicting the least recently used one if full; the record is dropped if an
+    //       invalidate or clear ran since `generation` was read, because the load may have seen the old row
+    public synchronized void put(AssetMetadata metadata, long generation) {
+        if (metadata == null)
+            throw new IllegalArgumentException("metadata is required");
+        if (generation != _generation)
+            return;
+        _entries.put(metadata.getId(), new Entry(metadata, System.currentTimeMillis() + _ttlMillis));
+    }
+
+    // Removes: the record for id after an upload or delete touched it
+    public synchronized void invalidate(int id) {
+        _entries.remove(id);
+        _generation++;
+    }
+
+    // Removes: every record
+    public synchronized void clear() {
+        _entries.clear();
+        _generation++;
+    }
+
+    // Gets: the number of records currently held
+    public synchronized int size() { return _entries.size(); }
+
+    // Gets: hits / (hits + misses), or 0 before the first lookup
+    public synchronized double hitRatio() {
+        long total = _hits + _misses;
+        return (total == 0) ? 0.0 : (double) _hits / total;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("AssetMetadataCache{size=%d/%d, hits=%d, misses=%d, hitRatio=%.2f}",
+            _entries.size(), _maxEntries, _hits, _misses, hitRatio());
+    }
+
+    // === Helpers ===
+    // Holds: one cached record and the time it stops being trusted
+    private static class Entry {
+        private AssetMetadata _value;
+        private long          _expiresAt;
+
+        private Entry(AssetMetadata value, long expiresAt) {
+            _value     = value;
+            _expiresAt = expiresAt;
+        }
+
+        private boolean isExpired() {
+            return System.currentTimeMillis() > _expiresAt;
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package t16_json.exercises.ex06;
+
+import t16_json.exercises.ex03.ConnectionSource;
+import java.sql.*;
+import java.util.*;
+
+public class AssetMetadataService {
+
+    // === Constants ===
+    private static final int MAX_IDS  = 1_000;   // per GET_METADATA_MANY request
+    private static final int IN_CHUNK = 500;     // placeholders per IN (...) query
+
+    // === Fields ===
+    private ConnectionSource   _source;
+    private AssetMetadataCache _cache;
+
+    // === Constructors ===
+    // Creates: a metadata service that answers from the cache before querying the given source
+    public AssetMetadataService(ConnectionSource source, AssetMetadataCache cache) {
+        if (source == null)
+            throw new IllegalArgumentException("source is required");
+        if (cache == null)
+            throw new IllegalArgumentException("cache is required");
+        _source = source;
+        _cache  = cache;
+    }
+
+    // === Public API ===
+    // Handles: one GET_METADATA, GET_METADATA_MANY or GET_DERIVED_STATUS request — asset_data is never fetched
+    public Map<String, Object> handle(Map<?,?> req) {
+        try {
+            Map<?,?> payload = (Map<?,?>) req.get("payload");
+
+            if ("GET_METADATA_MANY".equals(req.get("type")))
+                return handleMetadataMany((List<?>) payload.get("ids"));
+            if ("GET_DERIVED_STATUS".equals(req.get("type")))
+                return handleDerivedStatus(((Number) payload.get("id")).intValue());
+
+            int id = ((Number) payload.get("id")).intValue();
+            Map<Integer, AssetMetadata> found = findMetadata(List.of(id));
+            if (!found.containsKey(id))
+                return error("not found id=" + id);
+
+            Map<String, Object> response = new LinkedHashMap<>();
+            response.put("status", "OK");
+            response.put("data",   found.get(id).toMap());
+            return response;
+        }
+        catch (Exception e) {
+            return error(e.getMessage());
+        }
+    }
+
+    // Removes: the cached metadata for an asset; wire this to uploads and deletes
+    //          (e.g. ContentAddressedGameAssetDao.addChangeListener(service::invalidate))
+    public void invalidate(int assetId) {
+        _cache.invalidate(assetId);
+    }
+
+    // Gets: the metadata cache, for hit-ratio reporting
+    public AssetMetadataCache getCache() { return _cache; }
+
+    // === Helpers ===
+    // Handles: GET_METADATA_MANY — returns records in request order plus the IDs that do not exist
+    private Map<String, Object> handleMetadataMany(List<?> rawIds) throws SQLException {
+        if (rawIds == null || rawIds.isEmpty())
+            return error("ids is required");
+        if (rawIds.size() > MAX_IDS)
+            return error("at most " + MAX_IDS + " ids per request");
+
+        List<Integer> ids = new ArrayList<>();
+        for (Object raw : rawIds)
+            ids.add(((Number) raw).intValue());
+
+        Map<Integer, AssetMetadata> found = findMetadata(ids);
+
+        List<Map<String, Object>> data    = new ArrayList<>();
+        List<Integer>             missing = new ArrayList<>();
+        for (int id : ids) {
+            AssetMetadata m = found.get(id);
+            if (m != null) data.add(m.toMap());
+            else           missing.add(id);
+        }
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("status",  "OK");
+        response.put("data",    data);
+        response.put("missing", missing);
+        return response;
+    }
+
+    // Handles: GET_DERIVED_STATUS — the asset's latest processing job and the derived forms stored so far
+    //          (tables from ex09/sql/derivedAssetsSetup.sql); read live, never cached, because it changes as jobs run
+    private Map<String, Object> handleDerivedStatus(int id) throws SQLException {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("id", id);
+
+        try (Connection c = _source.open()) {
+            try (PreparedStatement ps = c.prepareStatement(
+                    "SELECT status, attempts, last_error, updated_at FROM asset_jobs "
+                  + "WHERE asset_id = ? ORDER BY job_id DESC LIMIT 1")) {
+                ps.setInt(1, id);
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (!rs.next())
+                        return error("no processing job for id=" + id);
+                    data.put("status",    rs.getString("status"));
+                    data.put("attempts",  rs.getInt("attempts"));
+                    data.put("lastError", rs.getString("last_error"));
+                    data.put("updatedAt", rs.getTimestamp("updated_at").toInstant().toString());
+                }
+            }
+
+            List<Map<String, Object>> derived = new ArrayList<>();
+            try (PreparedStatement ps = c.prepareStatement(
+                    "SELECT kind, content_type, byte_size FROM derived_assets WHERE asset_id = ? ORDER BY kind")) {
+                ps.setInt(1, id);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        Map<String, Object> form = new LinkedHashMap<>();
+                        form.put("kind",        rs.getString("kind"));
+                        form.put("contentType", rs.getString("content_type"));
+                        form.put("byteSize",    rs.getInt("byte_size"));
+                        derived.add(form);
+                    }
+                }
+            }
+            data.put("derived", derived);
+        }
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("status", "OK");
+        response.put("data",   data);
+        return response;
+    }
+
+    // Gets: metadata for each ID — from the cache where possible, the rest with one IN query per chunk
+    private Map<Integer, AssetMetadata> findMetadata(List<Integer> ids) throws SQLException {
+        Map<Integer, AssetMetadata> result = new HashMap<>();
+        List<Integer>               misses = new ArrayList<>();
+
+        for (int id : ids) {
+            AssetMetadata cached = _cache.get(id);
+            if (cached != null) result.put(id, cached);
+            else if (id > 0)    misses.add(id);
+        }
+        if (misses.isEmpty())
+            return result;
+
+        long generation = _cache.generation();     // read before the query so a concurrent invalidate wins
+        try (Connection c = _source.open()) {
+            for (int from = 0; from < misses.size(); from += IN_CHUNK) {
+                List<Integer> chunk = misses.subList(from, Math.min(from + IN_CHUNK, misses.size()));
+                for (AssetMetadata m : queryMetadata(c, chunk)) {
+                    _cache.put(m, generation);
+                    result.put(m.getId(), m);
+                }
+            }
+        }
+        return result;
+    }
+
+    // Gets: the metadata rows for the given IDs in one query; asset_data deliberately excluded
+    private List<AssetMetadata> queryMetadata(Connection c, List<Integer> ids) throws SQLException {
+        String placeholders = String.join(", ", Collections.nCopies(ids.size(), "?"));
+        String sql = "SELECT asset_id, asset_name, asset_type, file_size "
+                   + "FROM game_assets WHERE asset_id IN (" + placeholders + ")";
+
+        List<AssetMetadata> rows = new ArrayList<>();
+        try (PreparedStatement ps = c.prepareStatement(sql)) {
+            for (int i = 0; i < ids.size(); i++)
+                ps.setInt(i + 1, ids.get(i));
+
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next())
+                    rows.add(new AssetMetadata(
+                        rs.getInt("asset_id"),
+                        rs.getString("asset_name"),
+                        rs.getString("asset_type"),
+                        rs.getInt("file_size")));
+            }
+        }
+        return rows;
+    }
+
+    // Creates: an error response map
+    private static Map<String, Object> error(String message) {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("status",  "ERROR");
+        response.put("message", message);
+        return response;
+    }
+}
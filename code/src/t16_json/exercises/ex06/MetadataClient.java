@@ -1,10 +1,10 @@
 package t16_json.exercises.ex06;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import common.net.TlsSupport;
 import java.io.*;
 import java.net.*;
 import java.nio.charset.StandardCharsets;
-import java.sql.*;
 import java.util.*;
 
 public class MetadataClient {
@@ -18,7 +18,7 @@ public class MetadataClient {
         int testId = 1;
 
         // Request metadata only — no binary payload
-        try (Socket         socket = new Socket("localhost", PORT);
+        try (Socket         socket = TlsSupport.fromSystemProperties().connect("localhost", PORT);
              BufferedReader in     = new BufferedReader(new InputStreamReader(socket.getInputStream(),  StandardCharsets.UTF_8));
              PrintWriter    out    = new PrintWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8), true)) {
 
@@ -36,6 +36,27 @@ public class MetadataClient {
             System.out.println("Content type: " + metadata.get("contentType"));
             System.out.println("File size:    " + metadata.get("fileSize") + " bytes");
             System.out.println("fileData absent from response: " + !metadata.containsKey("fileData"));
+
+            // Batch lookup on the same connection — one IN query resolves every uncached ID
+            Map<String, Object> batch = new LinkedHashMap<>();
+            batch.put("type",    "GET_METADATA_MANY");
+            batch.put("payload", Map.of("ids", List.of(1, 2, 3, 999_999)));
+
+            out.println(MAPPER.writeValueAsString(batch));
+
+            Map<?,?> many = MAPPER.readValue(in.readLine(), Map.class);
+            System.out.println("Batch records:  " + ((List<?>) many.get("data")).size());
+            System.out.println("Batch missing:  " + many.get("missing"));
+
+            // Derived-asset status — thumbnails and waveforms are generated after the upload returns
+            Map<String, Object> status = new LinkedHashMap<>();
+            status.put("type",    "GET_DERIVED_STATUS");
+            status.put("payload", Map.of("id", testId));
+
+            out.println(MAPPER.writeValueAsString(status));
+
+            Map<?,?> derived = MAPPER.readValue(in.readLine(), Map.class);
+            System.out.println("Derived status: " + (derived.containsKey("data") ? derived.get("data") : derived.get("message")));
         }
     }
 }
@@ -1,11 +1,16 @@
 package t16_json.exercises.ex06;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import common.JsonMapperFactory;
+import common.net.TlsSupport;
+import t16_json.exercises.ex03.ConnectionPool;
+import t16_json.exercises.ex03.ConnectionSource;
 import java.io.*;
 import java.net.*;
 import java.nio.charset.StandardCharsets;
-import java.sql.*;
 import java.util.*;
+import java.util.concurrent.*;
 
 public class MetadataServer {
 
@@ -15,81 +20,84 @@ public class MetadataServer {
     private static final String DB_PASS = "";
     private static final int    PORT    = 9_208;
 
+    private static final int    CACHE_ENTRIES     = 10_000;
+    private static final long   CACHE_TTL_MS      = 60_000;
+    private static final int    POOL_SIZE         = 10;
+    private static final long   BORROW_TIMEOUT_MS = 5_000;
+
     // === Fields ===
-    private int    _port;
-    private String _url;
-    private String _user;
-    private String _pass;
+    private int                  _port;
+    private AssetMetadataService _service;
 
-    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final ObjectReader READER = JsonMapperFactory.mapReader();
+    private static final ObjectWriter WRITER = JsonMapperFactory.writer();
 
     // === Entry point ===
     // Starts: the metadata server; run this class before running MetadataClient
     public static void main(String[] args) throws Exception {
-        System.out.println("MetadataServer listening on port " + PORT + " ...");
-        new MetadataServer(PORT, URL, DB_USER, DB_PASS).start();
+        try (ConnectionPool pool = new ConnectionPool(ConnectionSource.driverManager(URL, DB_USER, DB_PASS),
+                                                      POOL_SIZE, BORROW_TIMEOUT_MS)) {
+            System.out.println("MetadataServer listening on port " + PORT + " ...");
+            new MetadataServer(PORT, pool, new AssetMetadataCache(CACHE_ENTRIES, CACHE_TTL_MS)).start();
+        }
     }
 
     // === Constructors ===
     // Creates: a metadata-only server bound to the given port and database
     public MetadataServer(int port, String url, String user, String pass) {
-        _port = port;
-        _url  = url;
-        _user = user;
-        _pass = pass;
+        this(port, url, user, pass, new AssetMetadataCache(CACHE_ENTRIES, CACHE_TTL_MS));
+    }
+
+    // Creates: a metadata-only server that answers from the given cache before querying the database, through a
+    //          pool of its own that lives as long as the server
+    public MetadataServer(int port, String url, String user, String pass, AssetMetadataCache cache) {
+        this(port, new ConnectionPool(ConnectionSource.driverManager(url, user, pass), POOL_SIZE, BORROW_TIMEOUT_MS),
+             cache);
+    }
+
+    // Creates: a metadata-only server that borrows its connections from the given source (e.g. a ConnectionPool,
+    //          so a burst of cache misses from many sessions queues for pooled connections instead of each opening
+    //          a new one)
+    public MetadataServer(int port, ConnectionSource source, AssetMetadataCache cache) {
+        _port    = port;
+        _service = new AssetMetadataService(source, cache);
     }
 
     // === Public API ===
-    // Starts: the server loop; accepts connections until interrupted
+    // Starts: the accept loop; each connection is served on its own virtual thread, so idle persistent
+    //         sessions cost little and never leave a new client queued behind a fixed set of workers
     public void start() throws Exception {
-        try (ServerSocket ss = new ServerSocket(_port)) {
-            while (!Thread.currentThread().isInterrupted())
-                handleMetadata(ss.accept());
+        ExecutorService pool = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("metadata-", 0).factory());
+        try (ServerSocket ss = TlsSupport.fromSystemProperties().openServerSocket(_port)) {
+            while (!Thread.currentThread().isInterrupted()) {
+                Socket client = TlsSupport.accept(ss);
+                pool.submit(() -> handleClient(client));
+            }
+        }
+        finally {
+            pool.shutdown();
         }
     }
 
+    // Removes: the cached metadata for an asset; wire this to uploads and deletes
+    //          (e.g. ContentAddressedGameAssetDao.addChangeListener(server::invalidate))
+    public void invalidate(int assetId) {
+        _service.invalidate(assetId);
+    }
+
+    // Gets: the metadata cache, for hit-ratio reporting
+    public AssetMetadataCache getCache() { return _service.getCache(); }
+
     // === Helpers ===
-    // Handles: one GET_METADATA request — SELECTs metadata columns only; asset_data is never fetched
-    private void handleMetadata(Socket client) {
+    // Handles: every request line on one connection until the client closes it
+    private void handleClient(Socket client) {
         try (client;
              BufferedReader in  = new BufferedReader(new InputStreamReader(client.getInputStream(),  StandardCharsets.UTF_8));
              PrintWriter    out = new PrintWriter(new OutputStreamWriter(client.getOutputStream(), StandardCharsets.UTF_8), true)) {
 
-            String line = in.readLine();
-            if (line == null) return;
-
-            Map<?,?> req     = MAPPER.readValue(line, Map.class);
-            Map<?,?> payload = (Map<?,?>) req.get("payload");
-            int      id      = ((Number) payload.get("id")).intValue();
-
-            // asset_data deliberately excluded from this SELECT
-            String sql = "SELECT asset_name, asset_type, file_size "
-                       + "FROM game_assets WHERE asset_id = ?";
-
-            try (Connection        c  = DriverManager.getConnection(_url, _user, _pass);
-                 PreparedStatement ps = c.prepareStatement(sql)) {
-
-                ps.setInt(1, id);
-
-                try (ResultSet rs = ps.executeQuery()) {
-                    if (!rs.next()) {
-                        out.println(MAPPER.writeValueAsString(
-                            Map.of("status", "ERROR", "message", "not found id=" + id)));
-                        return;
-                    }
-
-                    Map<String, Object> metadata = new LinkedHashMap<>();
-                    metadata.put("id",          id);
-                    metadata.put("fileName",    rs.getString("asset_name"));
-                    metadata.put("contentType", rs.getString("asset_type"));
-                    metadata.put("fileSize",    rs.getInt("file_size"));
-
-                    Map<String, Object> response = new LinkedHashMap<>();
-                    response.put("status", "OK");
-                    response.put("data",   metadata);
-                    out.println(MAPPER.writeValueAsString(response));
-                }
-            }
+            String line;
+            while ((line = in.readLine()) != null)
+                out.println(WRITER.writeValueAsString(_service.handle(READER.readValue(line))));
 
         } catch (Exception e) {
             System.err.println("Metadata handler error: " + e.getMessage());
@@ -0,0 +1,82 @@
+package t16_json.exercises.ex07;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import common.net.TlsSupport;
+import java.io.*;
+import java.net.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+public class AssetClient {
+
+    private static final ObjectMapper MAPPER      = new ObjectMapper();
+    private static final int          PORT        = 9_209;
+    private static final int          BUFFER_SIZE = 8_192;
+
+    // Entry point: upload, read metadata, stream back and delete — all on one persistent connection
+    public static void main(String[] args) throws Exception {
+        byte[] original = new byte[512];
+        for (int i = 0; i < original.length; i++) original[i] = (byte)(i % 200);
+
+        try (Socket      socket = TlsSupport.fromSystemProperties().connect("localhost", PORT);
+             InputStream in     = new BufferedInputStream(socket.getInputStream(), BUFFER_SIZE);
+             PrintWriter out    = new PrintWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8), true)) {
+
+            // --- UPLOAD_FILE ---
+            Map<String, Object> upload = new LinkedHashMap<>();
+            upload.put("fileName",    "asset_client_test.bin");
+            upload.put("contentType", "application/octet-stream");
+            upload.put("fileSize",    original.length);
+            upload.put("fileData",    Base64.getEncoder().encodeToString(original));
+            Map<?,?> uploaded = send(out, in, "UPLOAD_FILE", upload);
+            int id = ((Number) uploaded.get("id")).intValue();
+            System.out.println("Uploaded id:   " + id);
+
+            // --- GET_METADATA ---
+            Map<?,?> metadata = send(out, in, "GET_METADATA", Map.of("id", id));
+            System.out.println("Metadata:      " + metadata.get("data"));
+
+            // --- RETRIEVE_STREAM (header line, then raw bytes) ---
+            Map<?,?> header = send(out, in, "RETRIEVE_STREAM", Map.of("id", id));
+            long     length = ((Number) ((Map<?,?>) header.get("data")).get("length")).longValue();
+            byte[]   body   = in.readNBytes((int) length);
+            System.out.println("Round-trip OK: " + Arrays.equals(original, body));
+
+            // --- DELETE_FILE ---
+            System.out.println("Deleted:       " + send(out, in, "DELETE_FILE", Map.of("id", id)).get("status"));
+
+            // --- DISCONNECT ---
+            Map<String, Object> disconnect = new LinkedHashMap<>();
+            disconnect.put("type",    "DISCONNECT");
+            disconnect.put("payload", Map.of());
+            out.println(MAPPER.writeValueAsString(disconnect));
+        }
+    }
+
+    // Sends: one request line and returns the parsed response line; throws on an ERROR status
+    private static Map<?,?> send(PrintWriter out, InputStream in, String type, Map<String, ?> payload) throws IOException {
+        Map<String, Object> request = new LinkedHashMap<>();
+        request.put("type",    type);
+        request.put("payload", payload);
+        out.println(MAPPER.writeValueAsString(request));
+
+        String line = readLine(in);
+        if (line == null)
+            throw new IOException("Server closed connection without responding");
+        Map<?,?> response = MAPPER.readValue(line, Map.class);
+        if ("ERROR".equals(response.get("status")))
+            throw new RuntimeException("Server error: " + response.get("message"));
+        return response;
+    }
+
+    // Reads: one UTF-8 line from a raw stream without buffering past the newline; null at end of stream
+    private static String readLine(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int b;
+        while ((b = in.read()) != -1 && b != '\n')
+            line.write(b);
+        if (b == -1 && line.size() == 0)
+            return null;
+        return line.toString(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,234 @@
+package t16_json.exercises.ex07;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import common.JsonMapperFactory;
+import common.net.TlsSupport;
+import t16_json.exercises.ex03.ConnectionPool;
+import t16_json.exercises.ex03.ConnectionSource;
+import t16_json.exercises.ex03.ContentAddressedGameAssetDao;
+import t16_json.exercises.ex03.FileBlobStore;
+import t16_json.exercises.ex04.ResumableUploadService;
+import t16_json.exercises.ex05.AssetRetrieveService;
+import t16_json.exercises.ex05.HotAssetCache;
+import t16_json.exercises.ex05.LruEvictionPolicy;
+import t16_json.exercises.ex06.AssetMetadataCache;
+import t16_json.exercises.ex06.AssetMetadataService;
+import t16_json.exercises.ex09.AudioWaveformGenerator;
+import t16_json.exercises.ex09.DerivedAssetProcessor;
+import t16_json.exercises.ex09.ImageThumbnailGenerator;
+import java.io.*;
+import java.net.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+
+public class AssetServer {
+
+    // === Constants ===
+    private static final String URL     = "jdbc:mysql://localhost:3306/game_assets_db?useSSL=false&serverTimezone=UTC&allowPublicKeyRetrieval=true";
+    private static final String DB_USER = "game_assets_user";
+    private static final String DB_PASS = "your_password";
+    private static final int    PORT    = 9_209;
+
+    private static final int    POOL_SIZE         = 10;
+    private static final long   BORROW_TIMEOUT_MS = 5_000;
+    private static final int    BUFFER_SIZE       = 8_192;
+    private static final String BLOB_ROOT         = "data/blobs";
+    private static final String UPLOAD_SPOOL      = "data/uploads";
+    private static final int    INLINE_THRESHOLD  = 1_048_576;
+    private static final int    CACHE_ENTRIES     = 10_000;
+    private static final long   CACHE_TTL_MS      = 60_000;
+    private static final long   HOT_CACHE_BYTES   = 64L * 1024 * 1024;
+    private static final long   HOT_ENTRY_BYTES   = 4L * 1024 * 1024;
+    private static final long   HOT_TTL_MS        = 300_000;
+    private static final int    DERIVED_WORKERS   = 2;       // leaves most pooled connections for requests
+    private static final int    DERIVED_QUEUE     = 16;
+
+    // === Fields ===
+    private int                          _port;
+    private ContentAddressedGameAssetDao _dao;
+    private ResumableUploadService       _uploads;
+    private AssetRetrieveService         _retrieve;
+    private AssetMetadataService         _metadata;
+    private ExecutorService              _workers;
+
+    private static final ObjectReader READER = JsonMapperFactory.mapReader();
+    private static final ObjectWriter WRITER = JsonMapperFactory.writer();
+
+    // === Entry point ===
+    // Starts: one server for uploads, retrieves and metadata, all sharing one connection pool;
+    //         run this class before running AssetClient
+    public static void main(String[] args) throws Exception {
+        try (ConnectionPool pool = new ConnectionPool(ConnectionSource.driverManager(URL, DB_USER, DB_PASS),
+                                                      POOL_SIZE, BORROW_TIMEOUT_MS)) {
+
+            FileBlobStore                fileTier = new FileBlobStore(Path.of(BLOB_ROOT));
+            ContentAddressedGameAssetDao dao      = new ContentAddressedGameAssetDao(pool, fileTier, INLINE_THRESHOLD);
+            AssetMetadataService         metadata = new AssetMetadataService(pool, new AssetMetadataCache(CACHE_ENTRIES, CACHE_TTL_MS));
+            HotAssetCache                hot      = new HotAssetCache(HOT_CACHE_BYTES, HOT_ENTRY_BYTES, HOT_TTL_MS, new LruEvictionPolicy());
+            AssetRetrieveService         retrieve = new AssetRetrieveService(pool, fileTier, hot);
+            ResumableUploadService       uploads  = new ResumableUploadService(dao, Path.of(UPLOAD_SPOOL));
+
+            dao.addChangeListener(metadata::invalidate);   // uploads and deletes evict cached metadata
+            dao.addChangeListener(retrieve::invalidate);   // ... and cached payloads
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> System.out.println(hot)));
+
+            try (DerivedAssetProcessor derived = new DerivedAssetProcessor(pool, dao,
+                     List.of(new ImageThumbnailGenerator(), new AudioWaveformGenerator()), DERIVED_WORKERS, DERIVED_QUEUE)) {
+                dao.addInsertListener(derived);             // uploads queue thumbnails and waveforms atomically
+                dao.addChangeListener(derived);             // ... and wake the poller once committed
+                derived.start();
+
+                System.out.println("AssetServer listening on port " + PORT + " ...");
+                new AssetServer(PORT, dao, uploads, retrieve, metadata, Executors.newVirtualThreadPerTaskExecutor()).start();
+            }
+        }
+    }
+
+    // === Constructors ===
+    // Creates: an asset server that runs each client session on the given executor
+    //          (virtual threads by default; a fixed pool works too — the connection pool bounds DB work either way)
+    public AssetServer(int port, ContentAddressedGameAssetDao dao, ResumableUploadService uploads,
+                       AssetRetrieveService retrieve, AssetMetadataService metadata, ExecutorService workers) {
+        if (port < 1_024 || port > 65_535)
+            throw new IllegalArgumentException("port must be 1024–65535");
+        if (dao == null || uploads == null || retrieve == null || metadata == null)
+            throw new IllegalArgumentException("dao, uploads, retrieve and metadata are required");
+        if (workers == null)
+            throw new IllegalArgumentException("workers is required");
+
+        _port     = port;
+        _dao      = dao;
+        _uploads  = uploads;
+        _retrieve = retrieve;
+        _metadata = metadata;
+        _workers  = workers;
+    }
+
+    // === Public API ===
+    // Starts: the accept loop; every connection is handed straight to a worker so the accept thread never blocks on I/O
+    public void start() throws Exception {
+        try (ServerSocket ss = TlsSupport.fromSystemProperties().openServerSocket(_port)) {
+            while (!Thread.currentThread().isInterrupted()) {
+                Socket client = TlsSupport.accept(ss);
+                _workers.submit(() -> handleClient(client));
+            }
+        }
+        finally {
+            _workers.shutdown();
+        }
+    }
+
+    // === Helpers ===
+    // Handles: a persistent session — serves request lines in order until DISCONNECT or the client closes
+    private void handleClient(Socket client) {
+        try (client;
+             BufferedReader in  = new BufferedReader(new InputStreamReader(client.getInputStream(), StandardCharsets.UTF_8));
+             OutputStream   out = new BufferedOutputStream(client.getOutputStream(), BUFFER_SIZE)) {
+
+            String line;
+            while ((line = in.readLine()) != null) {
+                Map<?,?> req;
+                try {
+                    req = READER.readValue(line);
+                }
+                catch (JsonProcessingException e) {
+                    writeLine(out, error("malformed request: " + e.getOriginalMessage()));
+                    out.flush();
+                    continue;       // one bad line does not end the session
+                }
+                String type = String.valueOf(req.get("type"));
+
+                if ("DISCONNECT".equals(type))
+                    break;
+
+                switch (type) {
+                    case "RETRIEVE_FILE":
+                    case "RETRIEVE_STREAM":
+                        _retrieve.handle(req, client, out);     // writes its own header and body, or an ERROR line
+                        continue;
+                    case "UPLOAD_FILE":
+                        writeLine(out, handleUpload(req));
+                        break;
+                    case "UPLOAD_BEGIN":
+                    case "UPLOAD_CHUNK":
+                    case "UPLOAD_RESUME":
+                    case "UPLOAD_COMMIT":
+                        writeLine(out, _uploads.handle(req));
+                        break;
+                    case "GET_METADATA":
+                    case "GET_METADATA_MANY":
+                    case "GET_DERIVED_STATUS":
+                        writeLine(out, _metadata.handle(req));
+                        break;
+                    case "DELETE_FILE":
+                        writeLine(out, handleDelete(req));
+                        break;
+                    default:
+                        writeLine(out, error("unknown request type: " + type));
+                        break;
+                }
+                out.flush();
+            }
+
+        } catch (Exception e) {
+            System.err.println("AssetServer session error: " + e.getMessage());
+        }
+    }
+
+    // Handles: UPLOAD_FILE — decodes the Base64 payload as a stream and stores it content-addressed
+    private Map<String, Object> handleUpload(Map<?,?> req) {
+        try {
+            Map<?,?> payload = (Map<?,?>) req.get("payload");
+            String   b64     = (String) payload.get("fileData");
+            String   name    = (String) payload.get("fileName");
+            String   type    = (String) payload.get("contentType");
+
+            InputStream data = Base64.getDecoder().wrap(
+                new ByteArrayInputStream(b64.getBytes(StandardCharsets.US_ASCII)));
+
+            Map<String, Object> response = new LinkedHashMap<>();
+            response.put("status", "OK");
+            response.put("id",     _dao.insert(name, type, data));
+            return response;
+        }
+        catch (Exception e) {
+            return error("upload failed: " + e.getMessage());
+        }
+    }
+
+    // Handles: DELETE_FILE — removes the asset; the DAO's listener evicts its cached metadata
+    private Map<String, Object> handleDelete(Map<?,?> req) {
+        try {
+            Map<?,?> payload = (Map<?,?>) req.get("payload");
+            int id = ((Number) payload.get("id")).intValue();
+            if (!_dao.deleteById(id))
+                return error("not found id=" + id);
+
+            Map<String, Object> response = new LinkedHashMap<>();
+            response.put("status", "OK");
+            response.put("id",     id);
+            return response;
+        }
+        catch (Exception e) {
+            return error("delete failed: " + e.getMessage());
+        }
+    }
+
+    // Writes: one JSON value as a UTF-8 line
+    private static void writeLine(OutputStream out, Object value) throws IOException {
+        WRITER.writeValue(out, value);     // straight into the buffered stream; neither closed nor flushed
+        out.write('\n');
+    }
+
+    // Creates: an error response map
+    private static Map<String, Object> error(String message) {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("status",  "ERROR");
+        response.put("message", message);
+        return response;
+    }
+}
@@ -0,0 +1,412 @@
+package t16_json.exercises.ex08;
+
+import t16_json.exercises.ex01.BinaryFileUtil;
+import t16_json.exercises.ex03.ConnectionPool;
+import t16_json.exercises.ex03.ConnectionSource;
+import t16_json.exercises.ex03.ContentHash;
+import t16_json.exercises.ex03.FileBlobStore;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.*;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+public class BulkAssetImporter {
+
+    // === Constants ===
+    private static final String URL     = "jdbc:mysql://localhost:3306/game_assets_db?useSSL=false&serverTimezone=UTC&allowPublicKeyRetrieval=true&rewriteBatchedStatements=true";
+    private static final String DB_USER = "game_assets_user";
+    private static final String DB_PASS = "your_password";
+
+    private static final String BLOB_ROOT           = "data/blobs";
+    private static final int    INLINE_THRESHOLD    = 1_048_576;
+    private static final int    READERS             = 4;
+    private static final int    WRITERS             = 3;
+    private static final int    BATCH_SIZE          = 100;
+    private static final int    MAX_BYTES_IN_FLIGHT = 64 * 1_048_576;
+
+    private static final long   BATCH_LINGER_MS     = 200;      // flush a part-filled batch after this long
+    private static final int    SPOOL_RESERVATION   = 65_536;   // in-flight bytes a file streamed to disk reserves
+    private static final int    MAX_ATTEMPTS        = 3;        // per batch, when chosen as a deadlock victim
+    private static final String DEFAULT_TYPE        = "application/octet-stream";
+
+    // === Fields ===
+    private ConnectionSource _source;
+    private FileBlobStore    _fileTier;
+    private int              _inlineThreshold;
+    private int              _readers;
+    private int              _writers;
+    private int              _batchSize;
+    private int              _maxBytesInFlight;
+
+    private Semaphore        _bytesInFlight;
+    private AtomicLong       _filesDone   = new AtomicLong();
+    private AtomicLong       _filesFailed = new AtomicLong();
+    private AtomicLong       _bytesDone   = new AtomicLong();
+    private AtomicLong       _duplicates  = new AtomicLong();
+
+    // === Entry point ===
+    // Imports: every file under the directory given as the first argument (default data/import)
+    public static void main(String[] args) throws Exception {
+        Path dir = Path.of(args.length > 0 ? args[0] : "data/import");
+
+        try (ConnectionPool pool = new ConnectionPool(ConnectionSource.driverManager(URL, DB_USER, DB_PASS), WRITERS, 10_000)) {
+            BulkAssetImporter importer = new BulkAssetImporter(pool, new FileBlobStore(Path.of(BLOB_ROOT)),
+                INLINE_THRESHOLD, READERS, WRITERS, BATCH_SIZE, MAX_BYTES_IN_FLIGHT);
+            importer.importDirectory(dir);
+        }
+    }
+
+    // === Constructors ===
+    // Creates: an importer; maxBytesInFlight caps the file bytes held in memory between read and commit.
+    //          Files of inlineThreshold bytes or more are streamed to the file tier instead of being held,
+    //          so the threshold may not exceed the cap
+    public BulkAssetImporter(ConnectionSource source, FileBlobStore fileTier, int inlineThreshold,
+                             int readers, int writers, int batchSize, int maxBytesInFlight) {
+        if (source == null)
+            throw new IllegalArgumentException("source is required");
+        if (fileTier == null)
+            throw new IllegalArgumentException("fileTier is required");
+        if (inlineThreshold < 1 || readers < 1 || writers < 1 || batchSize < 1)
+            throw new IllegalArgumentException("inlineThreshold, readers, writers and batchSize must be >= 1");
+        if (maxBytesInFlight < inlineThreshold)
+            throw new IllegalArgumentException("maxBytesInFlight must be >= inlineThreshold");
+
+        _source           = source;
+        _fileTier         = fileTier;
+        _inlineThreshold  = inlineThreshold;
+        _readers          = readers;
+        _writers          = writers;
+        _batchSize        = batchSize;
+        _maxBytesInFlight = maxBytesInFlight;
+        _bytesInFlight    = new Semaphore(maxBytesInFlight);
+    }
+
+    // === Public API ===
+    // Imports: every regular file under dir — parallel reads, hashing, batched inserts — and prints progress
+    public void importDirectory(Path dir) throws Exception {
+        if (dir == null || !Files.isDirectory(dir))
+            throw new IllegalArgumentException("not a directory: " + dir);
+
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(dir)) {
+            files = walk.filter(Files::isRegularFile).toList();
+        }
+
+        BlockingQueue<ImportItem> ready    = new ArrayBlockingQueue<>(_batchSize * _writers * 2);
+        ExecutorService           readers  = Executors.newFixedThreadPool(_readers);
+        ExecutorService           writers  = Executors.newFixedThreadPool(_writers);
+        ScheduledExecutorService  progress = Executors.newSingleThreadScheduledExecutor();
+
+        long started = System.nanoTime();
+        progress.scheduleAtFixedRate(() -> printProgress(files.size(), started), 1, 1, TimeUnit.SECONDS);
+
+        for (int i = 0; i < _writers; i++)
+            writers.submit(() -> writeLoop(ready));
+
+        try {
+            for (Path file : files) {
+                long size    = sizeOf(file);
+                int  permits = reservationFor(size);
+                _bytesInFlight.acquire(permits);    // back-pressure: blocks while too many bytes are in memory
+                readers.submit(() -> readOne(file, size, permits, ready));
+            }
+
+            readers.shutdown();
+            readers.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+            for (int i = 0; i < _writers; i++)
+                ready.put(ImportItem.END);
+            writers.shutdown();
+            writers.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+        }
+        finally {
+            readers.shutdownNow();
+            writers.shutdownNow();
+            progress.shutdownNow();
+        }
+
+        printProgress(files.size(), started);
+        System.out.println("Import finished.");
+    }
+
+    // === Helpers ===
+    // Gets: a file's size, or -1 if it cannot be read (readOne then reports the failure)
+    private static long sizeOf(Path file) {
+        try {
+            return Files.size(file);
+        }
+        catch (IOException e) {
+            return -1;
+        }
+    }
+
+    // Gets: how many in-flight byte permits a file reserves — its size if it is read into memory,
+    //       or one copy buffer if it is streamed to the file tier
+    private int reservationFor(long size) {
+        if (size >= _inlineThreshold)
+            return Math.min(SPOOL_RESERVATION, _maxBytesInFlight);
+        return (int) Math.max(1, size);
+    }
+
+    // Reads: one file on a reader thread, hashes it and hands it to the writers; a file bound for the file tier
+    //        is hashed while it is copied to a spool there, so it is never held in memory
+    private void readOne(Path file, long size, int permits, BlockingQueue<ImportItem> ready) {
+        Path spool = null;
+        try {
+            if (size < 0)
+                throw new IOException("cannot read file size");
+            if (size == 0) {
+                _filesFailed.incrementAndGet();     // game_assets rejects empty payloads
+                _bytesInFlight.release(permits);
+                return;
+            }
+            if (size > Integer.MAX_VALUE)
+                throw new IOException("files must be under 2 GB (file_size is an INT column)");
+
+            String name = file.getFileName().toString();
+            String type = Files.probeContentType(file);
+            if (type == null)
+                type = DEFAULT_TYPE;
+
+            if (size >= _inlineThreshold) {
+                spool = _fileTier.createTempFile();
+                MessageDigest digest = ContentHash.newSha256();
+                try (DigestInputStream in = new DigestInputStream(Files.newInputStream(file), digest)) {
+                    Files.copy(in, spool, StandardCopyOption.REPLACE_EXISTING);
+                }
+                ready.put(new ImportItem(name, type, ContentHash.toHex(digest.digest()), null, spool,
+                                         Files.size(spool), permits));
+                return;
+            }
+
+            byte[] data = BinaryFileUtil.readFile(file.toString());
+            ready.put(new ImportItem(name, type, ContentHash.sha256Hex(data), data, null, data.length, permits));
+        }
+        catch (Exception e) {
+            System.err.println("Read failed for " + file + ": " + e.getMessage());
+            _filesFailed.incrementAndGet();
+            _bytesInFlight.release(permits);
+            deleteSpool(spool);
+            if (e instanceof InterruptedException)
+                Thread.currentThread().interrupt();
+        }
+    }
+
+    // Runs: one writer — drains ready items into batches of up to batchSize and commits each in one transaction
+    private void writeLoop(BlockingQueue<ImportItem> ready) {
+        List<ImportItem> batch = new ArrayList<>(_batchSize);
+        try {
+            while (true) {
+                ImportItem item = ready.poll(BATCH_LINGER_MS, TimeUnit.MILLISECONDS);
+                if (item == ImportItem.END)
+                    break;
+                if (item != null)
+                    batch.add(item);
+                if (batch.size() >= _batchSize || (item == null && !batch.isEmpty()))
+                    flush(batch);
+            }
+            if (!batch.isEmpty())
+                flush(batch);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Writes: one batch and releases its memory reservation and spools whatever the outcome
+    private void flush(List<ImportItem> batch) {
+        try {
+            insertBatch(batch);
+            _filesDone.addAndGet(batch.size());
+            for (ImportItem item : batch)
+                _bytesDone.addAndGet(item._size);
+        }
+        catch (Exception e) {
+            System.err.println("Batch of " + batch.size() + " failed: " + e.getMessage());
+            _filesFailed.addAndGet(batch.size());
+            if (e instanceof InterruptedException)
+                Thread.currentThread().interrupt();
+        }
+        finally {
+            for (ImportItem item : batch) {
+                _bytesInFlight.release(item._permits);
+                deleteSpool(item._spool);   // already gone if it was moved into the file tier
+            }
+            batch.clear();
+        }
+    }
+
+    // Inserts: a batch, running it again from the start if MySQL rolls it back as a deadlock victim
+    private void insertBatch(List<ImportItem> batch) throws SQLException, IOException, InterruptedException {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                insertBatchOnce(batch);
+                return;
+            }
+            catch (SQLTransactionRollbackException e) {
+                if (attempt >= MAX_ATTEMPTS)
+                    throw e;
+                Thread.sleep(ThreadLocalRandom.current().nextLong(10, 50) * attempt);
+            }
+        }
+    }
+
+    // Inserts: a batch — bumps ref counts for known blobs, writes only unseen blobs, then adds every game_assets row.
+    //          Blob rows are locked in hash order under READ COMMITTED, so no gap locks are taken on hashes not
+    //          stored yet, and concurrent writers queue on the same rows rather than deadlock on their gaps
+    private void insertBatchOnce(List<ImportItem> batch) throws SQLException, IOException {
+        Map<String, ImportItem> firstByHash = new TreeMap<>();
+        Map<String, Integer>    refsByHash  = new HashMap<>();
+        for (ImportItem item : batch) {
+            firstByHash.putIfAbsent(item._hash, item);
+            refsByHash.merge(item._hash, 1, Integer::sum);
+        }
+
+        try (Connection c = _source.open()) {
+            int isolation = c.getTransactionIsolation();
+            c.setTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+            c.setAutoCommit(false);
+            List<ImportItem> moved = new ArrayList<>();
+            try {
+                Set<String> existing = findExistingHashes(c, firstByHash.keySet());
+
+                try (PreparedStatement ps = c.prepareStatement(
+                        "UPDATE asset_blobs SET ref_count = ref_count + ? WHERE blob_hash = ?")) {
+                    for (String hash : existing) {
+                        ps.setInt(1,    refsByHash.get(hash));
+                        ps.setString(2, hash);
+                        ps.addBatch();
+                    }
+                    ps.executeBatch();
+                }
+
+                String insertBlob = "INSERT INTO asset_blobs (blob_hash, blob_size, blob_data, ref_count, storage_path) "
+                                  + "VALUES (?, ?, ?, ?, ?) ON DUPLICATE KEY UPDATE ref_count = ref_count + VALUES(ref_count)";
+                try (PreparedStatement ps = c.prepareStatement(insertBlob)) {
+                    for (ImportItem item : firstByHash.values()) {
+                        if (existing.contains(item._hash))
+                            continue;       // already stored — no BLOB bytes sent
+
+                        boolean useFileTier = item._spool != null;
+                        ps.setString(1, item._hash);
+                        ps.setInt(2,    (int) item._size);
+                        if (useFileTier)
+                            ps.setNull(3, Types.BLOB);
+                        else
+                            ps.setBinaryStream(3, new ByteArrayInputStream(item._data), item._data.length);
+                        ps.setInt(4,    refsByHash.get(item._hash));
+                        ps.setString(5, useFileTier ? _fileTier.storagePathFor(item._hash) : null);
+                        ps.addBatch();
+                    }
+                    ps.executeBatch();
+                }
+
+                // spools move into the file tier only now, while this transaction holds their blob rows' locks;
+                // a file already there belongs to a writer that stored the same content first
+                for (ImportItem item : firstByHash.values()) {
+                    if (item._spool == null || existing.contains(item._hash)
+                            || _fileTier.exists(_fileTier.storagePathFor(item._hash)))
+                        continue;
+                    _fileTier.write(item._hash, item._spool);
+                    moved.add(item);
+                }
+
+                try (PreparedStatement ps = c.prepareStatement(
+                        "INSERT INTO game_assets (asset_name, asset_type, file_size, blob_hash) VALUES (?, ?, ?, ?)")) {
+                    for (ImportItem item : batch) {
+                        ps.setString(1, item._name);
+                        ps.setString(2, item._type);
+                        ps.setInt(3,    (int) item._size);
+                        ps.setString(4, item._hash);
+                        ps.addBatch();
+                    }
+                    ps.executeBatch();
+                }
+
+                c.commit();
+
+                // every file whose content was already stored, in the DB or earlier in this batch, wrote no BLOB
+                int newBlobs = firstByHash.size() - existing.size();
+                _duplicates.addAndGet(batch.size() - newBlobs);
+            }
+            catch (SQLException | IOException e) {
+                for (ImportItem item : moved)       // back to their spools, for a retry or for deletion
+                    _fileTier.moveOut(_fileTier.storagePathFor(item._hash), item._spool);
+                c.rollback();
+                throw e;
+            }
+            finally {
+                c.setTransactionIsolation(isolation);
+            }
+        }
+    }
+
+    // Gets: which of the given hashes already have a blob row, locking those rows, in one IN query
+    private Set<String> findExistingHashes(Connection c, Set<String> hashes) throws SQLException {
+        String placeholders = String.join(", ", Collections.nCopies(hashes.size(), "?"));
+        Set<String> existing = new HashSet<>();
+        try (PreparedStatement ps = c.prepareStatement(
+                "SELECT blob_hash FROM asset_blobs WHERE blob_hash IN (" + placeholders + ") FOR UPDATE")) {
+            int i = 1;
+            for (String hash : hashes)
+                ps.setString(i++, hash);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next())
+                    existing.add(rs.getString(1));
+            }
+        }
+        return existing;
+    }
+
+    // Deletes: a spool file if there is one, reporting rather than throwing on failure
+    private static void deleteSpool(Path spool) {
+        if (spool == null)
+            return;
+        try {
+            Files.deleteIfExists(spool);
+        }
+        catch (IOException e) {
+            System.err.println("Could not delete spool " + spool + ": " + e.getMessage());
+        }
+    }
+
+    // Prints: one progress line with throughput and memory in flight
+    private void printProgress(int total, long startedNanos) {
+        double seconds  = Math.max(1e-9, (System.nanoTime() - startedNanos) / 1e9);
+        long   done     = _filesDone.get();
+        double mb       = _bytesDone.get() / 1_048_576.0;
+        int    inFlight = _maxBytesInFlight - _bytesInFlight.availablePermits();
+
+        System.out.printf("[%6.1fs] %d/%d files (%d failed, %d duplicate) | %.1f MB | %.1f files/s | %.2f MB/s | %.1f MB in flight%n",
+            seconds, done, total, _filesFailed.get(), _duplicates.get(), mb, done / seconds, mb / seconds,
+            inFlight / 1_048_576.0);
+    }
+
+    // Holds: one file that has been read and hashed but not yet committed — in memory, or spooled in the file tier
+    private static class ImportItem {
+        private static final ImportItem END = new ImportItem("", "", "", new byte[0], null, 0, 0);
+
+        private String _name;
+        private String _type;
+        private String _hash;
+        private byte[] _data;       // null when spooled
+        private Path   _spool;      // null when in memory
+        private long   _size;
+        private int    _permits;
+
+        private ImportItem(String name, String type, String hash, byte[] data, Path spool, long size, int permits) {
+            _name    = name;
+            _type    = type;
+            _hash    = hash;
+            _data    = data;
+            _spool   = spool;
+            _size    = size;
+            _permits = permits;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package t16_json.exercises.ex09;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import javax.sound.sampled.*;
+import java.io.*;
+import java.util.*;
+
+public class AudioWaveformGenerator implements DerivedAssetGenerator {
+
+    // === Constants ===
+    private static final int DEFAULT_BUCKETS = 512;
+
+    // === Fields ===
+    private int _buckets;
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    // === Constructors ===
+    // Creates: a generator of 512-point peak waveforms
+    public AudioWaveformGenerator() {
+        this(DEFAULT_BUCKETS);
+    }
+
+    // Creates: a generator of waveforms with the given number of peak values
+    public AudioWaveformGenerator(int buckets) {
+        if (buckets < 1)
+            throw new IllegalArgumentException("buckets must be >= 1");
+        _buckets = buckets;
+    }
+
+    // === Public API ===
+    @Override public String kind()        { return "waveform"; }
+    @Override public String contentType() { return "application/json"; }
+
+    @Override
+    public boolean accepts(String assetType) {
+        return assetType != null && assetType.startsWith("audio/");
+    }
+
+    // Creates: {"buckets": n, "peaks": [...]} — the peak absolute amplitude (0..1) of each slice of the clip,
+    //          taken across all channels; any format javax.sound can decode (WAV, AIFF, AU) is accepted
+    @Override
+    public byte[] generate(byte[] source) throws Exception {
+        try (AudioInputStream decoded = AudioSystem.getAudioInputStream(new ByteArrayInputStream(source))) {
+            AudioFormat      in      = decoded.getFormat();
+            AudioFormat      pcm     = new AudioFormat(in.getSampleRate(), 16, in.getChannels(), true, false);
+            AudioInputStream samples = AudioSystem.getAudioInputStream(pcm, decoded);
+
+            byte[] raw       = samples.readAllBytes();
+            int    frameSize = pcm.getFrameSize();
+            int    frames    = raw.length / frameSize;
+            if (frames == 0)
+                throw new IOException("audio has no frames");
+
+            float[] peaks = new float[Math.min(_buckets, frames)];
+            for (int frame = 0; frame < frames; frame++) {
+                int bucket = (int) ((long) frame * peaks.length / frames);
+                for (int ch = 0; ch < pcm.getChannels(); ch++) {
+                    int   at     = frame * frameSize + ch * 2;
+                    short sample = (short) ((raw[at] & 0xFF) | (raw[at + 1] << 8));   // little-endian
+                    peaks[bucket] = Math.max(peaks[bucket], Math.abs(sample / 32_768f));
+                }
+            }
+
+            Map<String, Object> waveform = new LinkedHashMap<>();
+            waveform.put("buckets", peaks.length);
+            waveform.put("peaks",   peaks);
+            return MAPPER.writeValueAsBytes(waveform);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package t16_json.exercises.ex09;
+
+public interface DerivedAssetGenerator {
+
+    // Gets: the kind stored in derived_assets.kind (e.g. "thumbnail")
+    String kind();
+
+    // Gets: the content type of the generated bytes
+    String contentType();
+
+    // Checks: whether this generator applies to an asset of the given content type
+    boolean accepts(String assetType);
+
+    // Creates: the derived form of the source bytes
+    byte[] generate(byte[] source) throws Exception;
+}
@@ -0,0 +1,301 @@
+package t16_json.exercises.ex09;
+
+import t16_json.exercises.ex03.AssetChangeListener;
+import t16_json.exercises.ex03.AssetInsertListener;
+import t16_json.exercises.ex03.ConnectionSource;
+import t16_json.exercises.ex03.ContentAddressedGameAssetDao;
+import t16_json.exercises.ex03.GameAsset;
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class DerivedAssetProcessor implements AssetInsertListener, AssetChangeListener, AutoCloseable {
+
+    // === Constants ===
+    private static final int  MAX_ATTEMPTS         = 5;
+    private static final int  BASE_BACKOFF_SECONDS = 2;       // 2, 4, 8, 16 s between attempts
+    private static final int  LEASE_SECONDS        = 300;     // RUNNING jobs older than this were orphaned by a crash
+    private static final long POLL_INTERVAL_MS     = 1_000;
+    private static final int  MAX_ERROR_LENGTH     = 500;
+
+    // === Fields ===
+    private ConnectionSource             _source;
+    private ContentAddressedGameAssetDao _dao;
+    private List<DerivedAssetGenerator>  _generators;
+    private ThreadPoolExecutor           _workers;
+    private Semaphore                    _slots;              // free worker + queue places; the poller claims no more
+    private Semaphore                    _wake = new Semaphore(0);
+    private Thread                       _poller;
+    private volatile boolean             _running;
+
+    private AtomicLong _succeeded = new AtomicLong();
+    private AtomicLong _retried   = new AtomicLong();
+    private AtomicLong _failed    = new AtomicLong();
+
+    // === Constructors ===
+    // Creates: a processor that runs the given generators for queued assets on a bounded pool of workers;
+    //          jobs live in asset_jobs, so nothing queued is lost if the process stops.
+    //          Register it with the DAO as both an insert listener (queues the job in the upload's own
+    //          transaction) and a change listener (wakes the poller once that transaction commits)
+    public DerivedAssetProcessor(ConnectionSource source, ContentAddressedGameAssetDao dao,
+                                 List<DerivedAssetGenerator> generators, int workers, int queueCapacity) {
+        if (source == null || dao == null)
+            throw new IllegalArgumentException("source and dao are required");
+        if (generators == null || generators.isEmpty())
+            throw new IllegalArgumentException("at least one generator is required");
+        if (workers < 1 || queueCapacity < 1)
+            throw new IllegalArgumentException("workers and queueCapacity must be >= 1");
+
+        _source     = source;
+        _dao        = dao;
+        _generators = List.copyOf(generators);
+        _workers    = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+                                             new ArrayBlockingQueue<>(queueCapacity));
+        _slots      = new Semaphore(workers + queueCapacity);
+    }
+
+    // === Public API ===
+    // Starts: the poller thread that claims due jobs whenever a worker is free
+    public synchronized void start() {
+        if (_running)
+            return;
+        _running = true;
+        _poller  = new Thread(this::pollLoop, "derived-asset-poller");
+        _poller.setDaemon(true);
+        _poller.start();
+    }
+
+    // Enqueues: a job for the asset on its own connection (e.g. to regenerate the derived forms of an existing asset)
+    public void enqueue(int assetId) throws SQLException {
+        try (Connection c = _source.open()) {
+            enqueue(c, assetId);
+        }
+        _wake.release();
+    }
+
+    // Enqueues: a job for the asset on the given connection — one INSERT, so uploads do not wait for any processing
+    public void enqueue(Connection c, int assetId) throws SQLException {
+        try (PreparedStatement ps = c.prepareStatement("INSERT INTO asset_jobs (asset_id) VALUES (?)")) {
+            ps.setInt(1, assetId);
+            ps.executeUpdate();
+        }
+    }
+
+    // Enqueues: a job for a new asset inside its insert transaction, so the job exists exactly when the asset does
+    @Override
+    public void onAssetInserted(Connection c, int assetId) throws SQLException {
+        enqueue(c, assetId);
+    }
+
+    // Wakes: the poller after an upload or delete commits, so a new job is claimed without waiting for the next poll
+    @Override
+    public void onAssetChanged(int assetId) {
+        _wake.release();
+    }
+
+    // Stops: the poller, then lets running jobs finish; unfinished jobs are picked up again after the lease expires
+    @Override
+    public void close() {
+        _running = false;
+        if (_poller != null)
+            _poller.interrupt();
+        _workers.shutdown();
+        try {
+            _workers.awaitTermination(30, TimeUnit.SECONDS);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public long getSucceeded() { return _succeeded.get(); }
+    public long getRetried()   { return _retried.get(); }
+    public long getFailed()    { return _failed.get(); }
+
+    @Override
+    public String toString() {
+        return "DerivedAssetProcessor{active=" + _workers.getActiveCount()
+            + ", queued=" + _workers.getQueue().size()
+            + ", succeeded=" + _succeeded + ", retried=" + _retried + ", failed=" + _failed + "}";
+    }
+
+    // === Helpers ===
+    // Runs: claim as many due jobs as there are free slots, hand them to the workers, then wait for
+    //       an enqueue, a finished job or the poll interval
+    private void pollLoop() {
+        while (_running) {
+            try {
+                recoverExpiredLeases();
+
+                int       free    = _slots.availablePermits();
+                List<Job> claimed = (free > 0) ? claim(free) : List.of();
+                for (Job job : claimed) {
+                    _slots.acquire();
+                    _workers.execute(() -> {
+                        try {
+                            process(job);
+                        }
+                        finally {
+                            _slots.release();
+                            _wake.release();
+                        }
+                    });
+                }
+
+                if (free == 0 || claimed.size() < free) {
+                    _wake.tryAcquire(POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                    _wake.drainPermits();
+                }
+            }
+            catch (InterruptedException e) {
+                return;
+            }
+            catch (SQLException e) {
+                System.err.println("Derived-asset poll failed: " + e.getMessage());
+                try { Thread.sleep(POLL_INTERVAL_MS); } catch (InterruptedException ie) { return; }
+            }
+        }
+    }
+
+    // Claims: up to limit due PENDING jobs; SKIP LOCKED lets several processors share one table
+    private List<Job> claim(int limit) throws SQLException {
+        List<Job> jobs = new ArrayList<>();
+        try (Connection c = _source.open()) {
+            c.setAutoCommit(false);
+            try {
+                try (PreparedStatement ps = c.prepareStatement(
+                        "SELECT job_id, asset_id, attempts FROM asset_jobs "
+                      + "WHERE status = 'PENDING' AND run_after <= CURRENT_TIMESTAMP "
+                      + "ORDER BY job_id LIMIT ? FOR UPDATE SKIP LOCKED")) {
+                    ps.setInt(1, limit);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next())
+                            jobs.add(new Job(rs.getLong("job_id"), rs.getInt("asset_id"), rs.getInt("attempts") + 1));
+                    }
+                }
+
+                try (PreparedStatement ps = c.prepareStatement(
+                        "UPDATE asset_jobs SET status = 'RUNNING', attempts = attempts + 1, "
+                      + "locked_at = CURRENT_TIMESTAMP WHERE job_id = ?")) {
+                    for (Job job : jobs) {
+                        ps.setLong(1, job._jobId);
+                        ps.addBatch();
+                    }
+                    if (!jobs.isEmpty())
+                        ps.executeBatch();
+                }
+                c.commit();
+            }
+            catch (SQLException e) {
+                c.rollback();
+                throw e;
+            }
+        }
+        return jobs;
+    }
+
+    // Updates: RUNNING jobs whose lease has expired back to PENDING
+    private void recoverExpiredLeases() throws SQLException {
+        try (Connection        c  = _source.open();
+             PreparedStatement ps = c.prepareStatement(
+                 "UPDATE asset_jobs SET status = 'PENDING', locked_at = NULL "
+               + "WHERE status = 'RUNNING' AND locked_at < CURRENT_TIMESTAMP - INTERVAL ? SECOND")) {
+            ps.setInt(1, LEASE_SECONDS);
+            ps.executeUpdate();
+        }
+    }
+
+    // Runs: every applicable generator for one job, then stores the results and marks the job DONE together
+    private void process(Job job) {
+        try {
+            Optional<GameAsset> asset = _dao.findById(job._assetId);
+
+            Map<DerivedAssetGenerator, byte[]> outputs = new LinkedHashMap<>();
+            if (asset.isPresent())
+                for (DerivedAssetGenerator generator : _generators)
+                    if (generator.accepts(asset.get().getAssetType()))
+                        outputs.put(generator, generator.generate(asset.get().getAssetData()));
+
+            complete(job, outputs);
+            _succeeded.incrementAndGet();
+        }
+        catch (Exception e) {
+            fail(job, e);
+        }
+    }
+
+    // Updates: the derived_assets rows and the job status in one transaction
+    private void complete(Job job, Map<DerivedAssetGenerator, byte[]> outputs) throws SQLException {
+        try (Connection c = _source.open()) {
+            c.setAutoCommit(false);
+            try {
+                try (PreparedStatement ps = c.prepareStatement(
+                        "INSERT INTO derived_assets (asset_id, kind, content_type, byte_size, derived_data) "
+                      + "VALUES (?, ?, ?, ?, ?) ON DUPLICATE KEY UPDATE content_type = VALUES(content_type), "
+                      + "byte_size = VALUES(byte_size), derived_data = VALUES(derived_data), created_at = CURRENT_TIMESTAMP")) {
+                    for (Map.Entry<DerivedAssetGenerator, byte[]> output : outputs.entrySet()) {
+                        ps.setInt(1,    job._assetId);
+                        ps.setString(2, output.getKey().kind());
+                        ps.setString(3, output.getKey().contentType());
+                        ps.setInt(4,    output.getValue().length);
+                        ps.setBytes(5,  output.getValue());
+                        ps.addBatch();
+                    }
+                    if (!outputs.isEmpty())
+                        ps.executeBatch();
+                }
+
+                try (PreparedStatement ps = c.prepareStatement(
+                        "UPDATE asset_jobs SET status = 'DONE', locked_at = NULL, last_error = NULL WHERE job_id = ?")) {
+                    ps.setLong(1, job._jobId);
+                    ps.executeUpdate();
+                }
+                c.commit();
+            }
+            catch (SQLException e) {
+                c.rollback();
+                throw e;
+            }
+        }
+    }
+
+    // Updates: a failed job — back to PENDING with exponential backoff, or FAILED once attempts run out
+    private void fail(Job job, Exception cause) {
+        boolean exhausted = job._attempts >= MAX_ATTEMPTS;
+        String  message   = String.valueOf(cause.getMessage());
+        if (message.length() > MAX_ERROR_LENGTH)
+            message = message.substring(0, MAX_ERROR_LENGTH);
+
+        try (Connection        c  = _source.open();
+             PreparedStatement ps = c.prepareStatement(
+                 "UPDATE asset_jobs SET status = ?, last_error = ?, locked_at = NULL, "
+               + "run_after = CURRENT_TIMESTAMP + INTERVAL ? SECOND WHERE job_id = ?")) {
+            ps.setString(1, exhausted ? "FAILED" : "PENDING");
+            ps.setString(2, message);
+            ps.setInt(3,    BASE_BACKOFF_SECONDS << (job._attempts - 1));
+            ps.setLong(4,   job._jobId);
+            ps.executeUpdate();
+        }
+        catch (SQLException e) {
+            // the lease expiry returns the job to PENDING later
+            System.err.println("Could not record failure of job " + job._jobId + ": " + e.getMessage());
+        }
+
+        if (exhausted) _failed.incrementAndGet();
+        else           _retried.incrementAndGet();
+    }
+
+    // Holds: one claimed job; attempts includes the current one
+    private static class Job {
+        private long _jobId;
+        private int  _assetId;
+        private int  _attempts;
+
+        private Job(long jobId, int assetId, int attempts) {
+            _jobId    = jobId;
+            _assetId  = assetId;
+            _attempts = attempts;
+        }
+    }
+}
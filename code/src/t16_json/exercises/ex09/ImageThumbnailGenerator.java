@@ -0,0 +1,63 @@
+package t16_json.exercises.ex09;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.*;
+
+public class ImageThumbnailGenerator implements DerivedAssetGenerator {
+
+    // === Constants ===
+    private static final int DEFAULT_MAX_EDGE = 256;
+
+    // === Fields ===
+    private int _maxEdge;
+
+    // === Constructors ===
+    // Creates: a generator of PNG previews no larger than 256 px on either edge
+    public ImageThumbnailGenerator() {
+        this(DEFAULT_MAX_EDGE);
+    }
+
+    // Creates: a generator of PNG previews no larger than maxEdge px on either edge
+    public ImageThumbnailGenerator(int maxEdge) {
+        if (maxEdge < 1)
+            throw new IllegalArgumentException("maxEdge must be >= 1");
+        _maxEdge = maxEdge;
+    }
+
+    // === Public API ===
+    @Override public String kind()        { return "thumbnail"; }
+    @Override public String contentType() { return "image/png"; }
+
+    @Override
+    public boolean accepts(String assetType) {
+        return assetType != null && assetType.startsWith("image/");
+    }
+
+    // Creates: a downscaled PNG preview; images already within the bound keep their size
+    @Override
+    public byte[] generate(byte[] source) throws IOException {
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(source));
+        if (image == null)
+            throw new IOException("no ImageIO reader for this image format");
+
+        double scale  = Math.min(1.0, (double) _maxEdge / Math.max(image.getWidth(), image.getHeight()));
+        int    width  = Math.max(1, (int) Math.round(image.getWidth()  * scale));
+        int    height = Math.max(1, (int) Math.round(image.getHeight() * scale));
+
+        BufferedImage thumbnail = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D    g         = thumbnail.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.drawImage(image, 0, 0, width, height, null);
+        }
+        finally {
+            g.dispose();
+        }
+
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        ImageIO.write(thumbnail, "png", png);
+        return png.toByteArray();
+    }
+}
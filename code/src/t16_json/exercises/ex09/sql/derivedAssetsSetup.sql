@@ -0,0 +1,36 @@
+-- ============================================================
+-- t16 — Derived assets (thumbnails, waveforms) and their job queue
+-- Run after sql/contentAddressedSetup.sql (ex03).
+-- Uploads add a PENDING row to asset_jobs; DerivedAssetProcessor
+-- claims rows, generates the derived forms and stores them in
+-- derived_assets. Failed jobs retry after run_after until the
+-- attempt limit, then stay FAILED with their last error.
+-- ============================================================
+
+USE game_assets_db;
+
+CREATE TABLE IF NOT EXISTS asset_jobs (
+    job_id      BIGINT        NOT NULL AUTO_INCREMENT PRIMARY KEY,
+    asset_id    INT           NOT NULL,
+    status      VARCHAR(16)   NOT NULL DEFAULT 'PENDING',   -- PENDING | RUNNING | DONE | FAILED
+    attempts    INT           NOT NULL DEFAULT 0,
+    last_error  VARCHAR(500)  NULL,
+    run_after   TIMESTAMP     NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    locked_at   TIMESTAMP     NULL,
+    created_at  TIMESTAMP     NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at  TIMESTAMP     NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    INDEX idx_asset_jobs_claim (status, run_after),
+    INDEX idx_asset_jobs_asset (asset_id)
+);
+
+-- One row per (asset, kind); removed with the asset
+CREATE TABLE IF NOT EXISTS derived_assets (
+    asset_id      INT           NOT NULL,
+    kind          VARCHAR(32)   NOT NULL,
+    content_type  VARCHAR(100)  NOT NULL,
+    byte_size     INT           NOT NULL,
+    derived_data  MEDIUMBLOB    NOT NULL,
+    created_at    TIMESTAMP     NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (asset_id, kind),
+    FOREIGN KEY (asset_id) REFERENCES game_assets(asset_id) ON DELETE CASCADE
+);